@@ -79,7 +79,11 @@ public class IgmpSnoop {
     public void activate() {
         appId = coreService.registerApplication("org.onosproject.igmp");
 
-        packetService.addProcessor(processor, PacketProcessor.director(1));
+        // Only offer the processor the IGMP packets it handles
+        packetService.addProcessor(processor, PacketProcessor.director(1),
+                                   DefaultTrafficSelector.builder()
+                                           .matchEthType(Ethernet.TYPE_IPV4)
+                                           .matchIPProtocol(IPv4.PROTOCOL_IGMP).build());
 
         networkConfig.getSubjects(DeviceId.class, IgmpDeviceConfig.class).forEach(
                 subject -> {
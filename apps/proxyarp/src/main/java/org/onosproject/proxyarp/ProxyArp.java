@@ -25,6 +25,7 @@ import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.onlab.packet.Ethernet;
 import org.onlab.packet.ICMP6;
 import org.onlab.packet.IPv6;
+import org.onlab.packet.PacketView;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
@@ -64,6 +65,7 @@ public class ProxyArp {
     protected ProxyArpService proxyArpService;
 
     private ProxyArpProcessor processor = new ProxyArpProcessor();
+    private ProxyArpProcessor ndpProcessor = new ProxyArpProcessor();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected CoreService coreService;
@@ -82,7 +84,14 @@ public class ProxyArp {
         cfgService.registerProperties(getClass());
         appId = coreService.registerApplication("org.onosproject.proxyarp");
 
-        packetService.addProcessor(processor, PacketProcessor.director(1));
+        // Only offer the processors the ARP and ICMPv6 packets they handle
+        packetService.addProcessor(processor, PacketProcessor.director(1),
+                                   DefaultTrafficSelector.builder()
+                                           .matchEthType(TYPE_ARP).build());
+        packetService.addProcessor(ndpProcessor, PacketProcessor.director(1),
+                                   DefaultTrafficSelector.builder()
+                                           .matchEthType(TYPE_IPV6)
+                                           .matchIPProtocol(PROTOCOL_ICMP6).build());
         readComponentConfiguration(context);
         requestPackets();
 
@@ -94,7 +103,9 @@ public class ProxyArp {
         cfgService.unregisterProperties(getClass(), false);
         withdrawIntercepts();
         packetService.removeProcessor(processor);
+        packetService.removeProcessor(ndpProcessor);
         processor = null;
+        ndpProcessor = null;
         log.info("Stopped");
     }
 
@@ -218,6 +229,13 @@ public class ProxyArp {
             }
 
             InboundPacket pkt = context.inPacket();
+            // Filter on the header view, sparing the parsing of other packets
+            PacketView view = pkt.view();
+            if (view != null && view.ethType() != TYPE_ARP &&
+                    !(ipv6NeighborDiscovery && view.ethType() == TYPE_IPV6)) {
+                return;
+            }
+
             Ethernet ethPkt = pkt.parsed();
             if (ethPkt == null) {
                 return;
@@ -16,19 +16,15 @@
 package org.onosproject.routing.config.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.googlecode.concurrenttrees.radix.node.concrete.DefaultByteArrayNodeFactory;
-import com.googlecode.concurrenttrees.radixinverted.ConcurrentInvertedRadixTree;
-import com.googlecode.concurrenttrees.radixinverted.InvertedRadixTree;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
-import org.onlab.packet.Ip4Address;
-import org.onlab.packet.Ip6Address;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.IpPrefix;
+import org.onlab.packet.IpPrefixTrie;
 import org.onlab.packet.MacAddress;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
@@ -60,7 +56,6 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
-import static org.onosproject.routing.RouteEntry.createBinaryString;
 
 /**
  * Implementation of RoutingConfigurationService which reads routing
@@ -93,12 +88,10 @@ public class RoutingConfigurationImpl implements RoutingConfigurationService {
     private Set<IpAddress> gatewayIpAddresses = new HashSet<>();
     private Set<ConnectPoint> bgpPeerConnectPoints = new HashSet<>();
 
-    private InvertedRadixTree<LocalIpPrefixEntry>
-            localPrefixTable4 = new ConcurrentInvertedRadixTree<>(
-                    new DefaultByteArrayNodeFactory());
-    private InvertedRadixTree<LocalIpPrefixEntry>
-            localPrefixTable6 = new ConcurrentInvertedRadixTree<>(
-                    new DefaultByteArrayNodeFactory());
+    private IpPrefixTrie<LocalIpPrefixEntry>
+            localPrefixTable4 = new IpPrefixTrie<>(IpAddress.Version.INET);
+    private IpPrefixTrie<LocalIpPrefixEntry>
+            localPrefixTable6 = new IpPrefixTrie<>(IpAddress.Version.INET6);
 
     private MacAddress virtualGatewayMacAddress;
 
@@ -158,13 +151,11 @@ public class RoutingConfigurationImpl implements RoutingConfigurationService {
             }
 
             for (LocalIpPrefixEntry entry : config.getLocalIp4PrefixEntries()) {
-                localPrefixTable4.put(createBinaryString(entry.ipPrefix()),
-                                      entry);
+                localPrefixTable4.put(entry.ipPrefix(), entry);
                 gatewayIpAddresses.add(entry.getGatewayIpAddress());
             }
             for (LocalIpPrefixEntry entry : config.getLocalIp6PrefixEntries()) {
-                localPrefixTable6.put(createBinaryString(entry.ipPrefix()),
-                                      entry);
+                localPrefixTable6.put(entry.ipPrefix(), entry);
                 gatewayIpAddresses.add(entry.getGatewayIpAddress());
             }
 
@@ -239,24 +230,18 @@ public class RoutingConfigurationImpl implements RoutingConfigurationService {
     @Override
     public boolean isIpAddressLocal(IpAddress ipAddress) {
         if (ipAddress.isIp4()) {
-            return localPrefixTable4.getValuesForKeysPrefixing(
-                    createBinaryString(
-                    IpPrefix.valueOf(ipAddress, Ip4Address.BIT_LENGTH)))
-                    .iterator().hasNext();
+            return localPrefixTable4.longestPrefixMatch(ipAddress) != null;
         } else {
-            return localPrefixTable6.getValuesForKeysPrefixing(
-                    createBinaryString(
-                    IpPrefix.valueOf(ipAddress, Ip6Address.BIT_LENGTH)))
-                    .iterator().hasNext();
+            return localPrefixTable6.longestPrefixMatch(ipAddress) != null;
         }
     }
 
     @Override
     public boolean isIpPrefixLocal(IpPrefix ipPrefix) {
-        return (localPrefixTable4.getValueForExactKey(
-                createBinaryString(ipPrefix)) != null ||
-                localPrefixTable6.getValueForExactKey(
-                createBinaryString(ipPrefix)) != null);
+        if (ipPrefix.isIp4()) {
+            return localPrefixTable4.get(ipPrefix) != null;
+        }
+        return localPrefixTable6.get(ipPrefix) != null;
     }
 
     @Override
@@ -19,20 +19,15 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.SetMultimap;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
-import com.googlecode.concurrenttrees.common.KeyValuePair;
-import com.googlecode.concurrenttrees.radix.node.concrete.DefaultByteArrayNodeFactory;
-import com.googlecode.concurrenttrees.radixinverted.ConcurrentInvertedRadixTree;
-import com.googlecode.concurrenttrees.radixinverted.InvertedRadixTree;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
-import org.onlab.packet.Ip4Address;
-import org.onlab.packet.Ip6Address;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.IpPrefix;
+import org.onlab.packet.IpPrefixTrie;
 import org.onlab.packet.MacAddress;
 import org.onosproject.core.CoreService;
 import org.onosproject.net.Host;
@@ -53,9 +48,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
@@ -65,7 +58,6 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static org.onosproject.routing.RouteEntry.createBinaryString;
 
 /**
  * This class processes route updates and maintains a Routing Information Base
@@ -78,10 +70,10 @@ public class Router implements RoutingService {
 
     private static final Logger log = LoggerFactory.getLogger(Router.class);
 
-    // Route entries are stored in a radix tree.
-    // The key in this tree is the binary string of prefix of the route.
-    private InvertedRadixTree<RouteEntry> ribTable4;
-    private InvertedRadixTree<RouteEntry> ribTable6;
+    // Route entries are stored in a prefix trie per address family,
+    // keyed directly on the IP prefix of the route.
+    private IpPrefixTrie<RouteEntry> ribTable4;
+    private IpPrefixTrie<RouteEntry> ribTable6;
 
     // Stores all incoming route updates in a queue.
     private final BlockingQueue<Collection<RouteUpdate>> routeUpdatesQueue =
@@ -113,10 +105,8 @@ public class Router implements RoutingService {
 
     @Activate
     public void activate() {
-        ribTable4 = new ConcurrentInvertedRadixTree<>(
-                new DefaultByteArrayNodeFactory());
-        ribTable6 = new ConcurrentInvertedRadixTree<>(
-                new DefaultByteArrayNodeFactory());
+        ribTable4 = new IpPrefixTrie<>(IpAddress.Version.INET);
+        ribTable6 = new IpPrefixTrie<>(IpAddress.Version.INET6);
 
         routesWaitingOnArp = Multimaps.synchronizedSetMultimap(
                 HashMultimap.create());
@@ -158,10 +148,8 @@ public class Router implements RoutingService {
 
         synchronized (this) {
             // Cleanup all local state
-            ribTable4 = new ConcurrentInvertedRadixTree<>(
-                    new DefaultByteArrayNodeFactory());
-            ribTable6 = new ConcurrentInvertedRadixTree<>(
-                    new DefaultByteArrayNodeFactory());
+            ribTable4.clear();
+            ribTable6.clear();
             routeUpdatesQueue.clear();
             routesWaitingOnArp.clear();
             ip2Mac.clear();
@@ -214,17 +202,7 @@ public class Router implements RoutingService {
      */
     @Override
     public Collection<RouteEntry> getRoutes4() {
-        Iterator<KeyValuePair<RouteEntry>> it =
-                ribTable4.getKeyValuePairsForKeysStartingWith("").iterator();
-
-        List<RouteEntry> routes = new LinkedList<>();
-
-        while (it.hasNext()) {
-            KeyValuePair<RouteEntry> entry = it.next();
-            routes.add(entry.getValue());
-        }
-
-        return routes;
+        return ribTable4.values();
     }
 
     /**
@@ -234,17 +212,7 @@ public class Router implements RoutingService {
      */
     @Override
     public Collection<RouteEntry> getRoutes6() {
-        Iterator<KeyValuePair<RouteEntry>> it =
-                ribTable6.getKeyValuePairsForKeysStartingWith("").iterator();
-
-        List<RouteEntry> routes = new LinkedList<>();
-
-        while (it.hasNext()) {
-            KeyValuePair<RouteEntry> entry = it.next();
-            routes.add(entry.getValue());
-        }
-
-        return routes;
+        return ribTable6.values();
     }
 
     /**
@@ -255,13 +223,12 @@ public class Router implements RoutingService {
      * @return the route if found, otherwise null
      */
     RouteEntry findRibRoute(IpPrefix prefix) {
-        String binaryString = createBinaryString(prefix);
         if (prefix.isIp4()) {
             // IPv4
-            return ribTable4.getValueForExactKey(binaryString);
+            return ribTable4.get(prefix);
         }
         // IPv6
-        return ribTable6.getValueForExactKey(binaryString);
+        return ribTable6.get(prefix);
     }
 
     /**
@@ -272,10 +239,10 @@ public class Router implements RoutingService {
     void addRibRoute(RouteEntry routeEntry) {
         if (routeEntry.isIp4()) {
             // IPv4
-            ribTable4.put(createBinaryString(routeEntry.prefix()), routeEntry);
+            ribTable4.put(routeEntry.prefix(), routeEntry);
         } else {
             // IPv6
-            ribTable6.put(createBinaryString(routeEntry.prefix()), routeEntry);
+            ribTable6.put(routeEntry.prefix(), routeEntry);
         }
     }
 
@@ -289,10 +256,10 @@ public class Router implements RoutingService {
     boolean removeRibRoute(IpPrefix prefix) {
         if (prefix.isIp4()) {
             // IPv4
-            return ribTable4.remove(createBinaryString(prefix));
+            return ribTable4.remove(prefix) != null;
         }
         // IPv6
-        return ribTable6.remove(createBinaryString(prefix));
+        return ribTable6.remove(prefix) != null;
     }
 
     /**
@@ -339,7 +306,7 @@ public class Router implements RoutingService {
     /**
      * Processes adding a route entry.
      * <p>
-     * The route entry is added to the radix tree. If there was an existing
+     * The route entry is added to the prefix trie. If there was an existing
      * next hop for this prefix, but the next hop was different, then the
      * old route entry is deleted.
      * </p>
@@ -420,7 +387,7 @@ public class Router implements RoutingService {
     /**
      * Processes the deletion of a route entry.
      * <p>
-     * The prefix for the routing entry is removed from radix tree.
+     * The prefix for the routing entry is removed from the prefix trie.
      * If the operation is successful, the prefix is added to the collection
      * of prefixes whose intents that will be withdrawn.
      * </p>
@@ -437,7 +404,7 @@ public class Router implements RoutingService {
         if (isRemoved) {
             //
             // Only withdraw intents if an entry was actually removed from the
-            // tree. If no entry was removed, the <prefix, nexthop> wasn't
+            // trie. If no entry was removed, the <prefix, nexthop> wasn't
             // there so it's probably already been removed and we don't
             // need to do anything.
             //
@@ -461,9 +428,9 @@ public class Router implements RoutingService {
                 macAddress);
 
         //
-        // We synchronize on "this" to prevent changes to the Radix tree
-        // while we're pushing intents. If the tree changes, the
-        // tree and the intents could get out of sync.
+        // We synchronize on "this" to prevent changes to the prefix trie
+        // while we're pushing intents. If the trie changes, the
+        // trie and the intents could get out of sync.
         //
         synchronized (this) {
             Collection<FibUpdate> submitFibEntries = new LinkedList<>();
@@ -477,7 +444,7 @@ public class Router implements RoutingService {
                 if (foundRouteEntry != null &&
                         foundRouteEntry.nextHop().equals(routeEntry.nextHop())) {
                     // We only push FIB updates if the prefix is still in the
-                    // radix tree and the next hop is the same as our entry.
+                    // prefix trie and the next hop is the same as our entry.
                     // The prefix could have been removed while we were waiting
                     // for the ARP, or the next hop could have changed.
                     submitFibEntries.add(new FibUpdate(FibUpdate.Type.UPDATE,
@@ -537,26 +504,10 @@ public class Router implements RoutingService {
 
     @Override
     public RouteEntry getLongestMatchableRouteEntry(IpAddress ipAddress) {
-        RouteEntry routeEntry = null;
-        Iterable<RouteEntry> routeEntries;
-
         if (ipAddress.isIp4()) {
-            routeEntries = ribTable4.getValuesForKeysPrefixing(
-                    createBinaryString(
-                    IpPrefix.valueOf(ipAddress, Ip4Address.BIT_LENGTH)));
-        } else {
-            routeEntries = ribTable6.getValuesForKeysPrefixing(
-                    createBinaryString(
-                    IpPrefix.valueOf(ipAddress, Ip6Address.BIT_LENGTH)));
-        }
-        if (routeEntries == null) {
-            return null;
-        }
-        Iterator<RouteEntry> it = routeEntries.iterator();
-        while (it.hasNext()) {
-            routeEntry = it.next();
+            return ribTable4.longestPrefixMatch(ipAddress);
         }
-        return routeEntry;
+        return ribTable6.longestPrefixMatch(ipAddress);
     }
 
 }
@@ -42,6 +42,18 @@ public interface FlowRuleProviderService extends ProviderService<FlowRuleProvide
      */
     void pushFlowMetrics(DeviceId deviceId, Iterable<FlowEntry> flowEntries);
 
+    /**
+     * Pushes one part of a multi-part report of the flow entries currently
+     * applied on the given device. Parts of the same report must be pushed
+     * in order. Reported entries are processed as they arrive; flow rules
+     * missing from the device are determined once the last part is pushed.
+     *
+     * @param deviceId device identifier
+     * @param flowEntries collection of flow rules in this part
+     * @param lastPart true if this is the last part of the report
+     */
+    void pushFlowMetricsPart(DeviceId deviceId, Iterable<FlowEntry> flowEntries, boolean lastPart);
+
     /**
      * Pushes the collection of flow entries currently applied on the given
      * device without flowMissing process.
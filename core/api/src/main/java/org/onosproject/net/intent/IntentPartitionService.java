@@ -43,6 +43,31 @@ public interface IntentPartitionService
      */
     NodeId getLeader(Key intentKey);
 
+    /**
+     * Returns the number of partitions of the intent keyspace.
+     *
+     * @return number of partitions
+     */
+    int getPartitionCount();
+
+    /**
+     * Returns the partition of the intent keyspace holding the given key.
+     * The partition of a key never changes, while the instance owning the
+     * partition may.
+     *
+     * @param intentKey intent key to query
+     * @return partition number, from 0 to the partition count - 1
+     */
+    int getPartition(Key intentKey);
+
+    /**
+     * Returns whether the given partition is owned by this instance or not.
+     *
+     * @param partition partition number
+     * @return true if the partition is owned by this instance, otherwise false
+     */
+    boolean isMine(int partition);
+
     // TODO add API for rebalancing partitions
 
 }
@@ -15,8 +15,11 @@
  */
 package org.onosproject.net.packet;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import org.onosproject.net.ConnectPoint;
 import org.onlab.packet.Ethernet;
+import org.onlab.packet.PacketView;
 
 import java.nio.ByteBuffer;
 import java.util.Objects;
@@ -29,8 +32,9 @@ import static com.google.common.base.MoreObjects.toStringHelper;
 public final class DefaultInboundPacket implements InboundPacket {
 
     private final ConnectPoint receivedFrom;
-    private final Ethernet parsed;
+    private final Supplier<Ethernet> parsed;
     private final ByteBuffer unparsed;
+    private final PacketView view;
 
     /**
      * Creates an immutable inbound packet.
@@ -42,8 +46,23 @@ public final class DefaultInboundPacket implements InboundPacket {
     public  DefaultInboundPacket(ConnectPoint receivedFrom, Ethernet parsed,
                                 ByteBuffer unparsed) {
         this.receivedFrom = receivedFrom;
-        this.parsed = parsed;
+        this.parsed = Suppliers.ofInstance(parsed);
         this.unparsed = unparsed;
+        this.view = unparsed != null ? PacketView.of(unparsed) : null;
+    }
+
+    /**
+     * Creates an immutable inbound packet which is parsed from the raw bytes
+     * on first access to its parsed form.
+     *
+     * @param receivedFrom connection point where received
+     * @param unparsed     unparsed raw bytes
+     */
+    public DefaultInboundPacket(ConnectPoint receivedFrom, ByteBuffer unparsed) {
+        this.receivedFrom = receivedFrom;
+        this.unparsed = unparsed;
+        this.view = PacketView.of(unparsed);
+        this.parsed = Suppliers.memoize(view::parse);
     }
 
     @Override
@@ -53,7 +72,7 @@ public final class DefaultInboundPacket implements InboundPacket {
 
     @Override
     public Ethernet parsed() {
-        return parsed;
+        return parsed.get();
     }
 
     @Override
@@ -62,9 +81,14 @@ public final class DefaultInboundPacket implements InboundPacket {
         return unparsed;
     }
 
+    @Override
+    public PacketView view() {
+        return view;
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(receivedFrom, parsed, unparsed);
+        return Objects.hash(receivedFrom, parsed(), unparsed);
     }
 
     @Override
@@ -75,7 +99,7 @@ public final class DefaultInboundPacket implements InboundPacket {
         if (obj instanceof InboundPacket) {
             final DefaultInboundPacket other = (DefaultInboundPacket) obj;
             return Objects.equals(this.receivedFrom, other.receivedFrom) &&
-                    Objects.equals(this.parsed, other.parsed) &&
+                    Objects.equals(this.parsed(), other.parsed()) &&
                     Objects.equals(this.unparsed, other.unparsed);
         }
         return false;
@@ -85,7 +109,7 @@ public final class DefaultInboundPacket implements InboundPacket {
     public String toString() {
         return toStringHelper(this)
                 .add("receivedFrom", receivedFrom)
-                .add("parsed", parsed)
+                .add("parsed", parsed())
                 .toString();
     }
 }
@@ -17,6 +17,7 @@ package org.onosproject.net.packet;
 
 import org.onosproject.net.ConnectPoint;
 import org.onlab.packet.Ethernet;
+import org.onlab.packet.PacketView;
 
 import java.nio.ByteBuffer;
 
@@ -47,4 +48,16 @@ public interface InboundPacket {
      */
     ByteBuffer unparsed();
 
+    /**
+     * Returns a view of the packet headers, read straight from the raw
+     * packet bytes. Processors which only need a few header fields should
+     * prefer it over the fully parsed form.
+     *
+     * @return packet view; null if the raw packet bytes are not available
+     */
+    default PacketView view() {
+        ByteBuffer unparsed = unparsed();
+        return unparsed != null ? PacketView.of(unparsed) : null;
+    }
+
 }
@@ -43,7 +43,18 @@ public interface PacketService {
      */
     void addProcessor(PacketProcessor processor, int priority);
 
-    // TODO allow processors to register for particular types of packets
+    /**
+     * Adds the specified processor to the list of packet processors, with
+     * the processor receiving only packets matching the given selector.
+     * Only the in-port, ethernet type and IP protocol criteria are used to
+     * filter the packets; any other criteria are ignored.
+     *
+     * @param processor processor to be added
+     * @param priority  priority in the reverse natural order
+     * @param selector  selector of packets of interest to the processor
+     */
+    void addProcessor(PacketProcessor processor, int priority,
+                      TrafficSelector selector);
 
     /**
      * Removes the specified processor from the processing pipeline.
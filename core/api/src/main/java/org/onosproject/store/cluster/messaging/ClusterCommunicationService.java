@@ -22,6 +22,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import org.onlab.util.KryoNamespace;
 import org.onosproject.cluster.NodeId;
 
 /**
@@ -111,6 +112,28 @@ public interface ClusterCommunicationService {
                                                Function<byte[], R> decoder,
                                                NodeId toNodeId);
 
+    /**
+     * Sends a message and expects a reply, serializing both with the given
+     * serializer. Implementations may serialize them straight into and out
+     * of the messaging layer's buffers. The recipient must have subscribed
+     * to the subject using the same serializer.
+     *
+     * @param message message to send
+     * @param subject message subject
+     * @param serializer serializer of the request and the reply
+     * @param toNodeId recipient node identifier
+     * @param <M> request type
+     * @param <R> reply type
+     * @return reply future
+     */
+    default <M, R> CompletableFuture<R> sendAndReceive(M message,
+                                                       MessageSubject subject,
+                                                       KryoNamespace serializer,
+                                                       NodeId toNodeId) {
+        return sendAndReceive(message, subject, serializer::serialize,
+                              bytes -> serializer.deserialize(bytes), toNodeId);
+    }
+
     /**
      * Adds a new subscriber for the specified message subject.
      *
@@ -157,6 +180,24 @@ public interface ClusterCommunicationService {
                            Consumer<M> handler,
                            Executor executor);
 
+    /**
+     * Adds a new subscriber for the specified message subject, for messages
+     * sent with {@link #sendAndReceive(Object, MessageSubject, KryoNamespace, NodeId)}.
+     *
+     * @param subject message subject
+     * @param serializer serializer of the incoming message and the reply
+     * @param handler handler function that processes the incoming message and produces a reply
+     * @param executor executor to run this handler on
+     * @param <M> incoming message type
+     * @param <R> reply message type
+     */
+    default <M, R> void addSubscriber(MessageSubject subject,
+                                      KryoNamespace serializer,
+                                      Function<M, R> handler,
+                                      Executor executor) {
+        addSubscriber(subject, bytes -> serializer.deserialize(bytes), handler, serializer::serialize, executor);
+    }
+
     /**
      * Removes a subscriber for the specified message subject.
      *
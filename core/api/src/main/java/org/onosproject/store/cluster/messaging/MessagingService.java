@@ -20,6 +20,8 @@ import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 
+import org.onlab.util.KryoNamespace;
+
 /**
  * Interface for low level messaging primitives.
  */
@@ -35,6 +37,22 @@ public interface MessagingService {
      */
     CompletableFuture<Void> sendAsync(Endpoint ep, String type, byte[] payload);
 
+    /**
+     * Sends a message asynchronously to the specified communication end point.
+     * The payload is serialized with the given serializer; implementations
+     * may serialize it straight into their transmit buffers. The receiver
+     * must have registered a handler using the same serializer.
+     * @param ep end point to send the message to.
+     * @param type type of message.
+     * @param message message to send.
+     * @param serializer serializer of the message.
+     * @param <M> message type
+     * @return future that is completed when the message is sent
+     */
+    default <M> CompletableFuture<Void> sendAsync(Endpoint ep, String type, M message, KryoNamespace serializer) {
+        return sendAsync(ep, type, serializer.serialize(message));
+    }
+
     /**
      * Sends a message asynchronously and expects a response.
      * @param ep end point to send the message to.
@@ -54,6 +72,26 @@ public interface MessagingService {
      */
     CompletableFuture<byte[]> sendAndReceive(Endpoint ep, String type, byte[] payload, Executor executor);
 
+    /**
+     * Sends a message asynchronously and expects a response. Both the
+     * message and the response are serialized with the given serializer;
+     * implementations may serialize them straight into and out of their
+     * own buffers. The receiver must have registered a handler using the
+     * same serializer.
+     * @param ep end point to send the message to.
+     * @param type type of message.
+     * @param message message to send.
+     * @param serializer serializer of the message and the response.
+     * @param <M> message type
+     * @param <R> response type
+     * @return a response future
+     */
+    default <M, R> CompletableFuture<R> sendAndReceive(Endpoint ep, String type, M message,
+                                                       KryoNamespace serializer) {
+        return sendAndReceive(ep, type, serializer.serialize(message))
+                .thenApply(bytes -> serializer.deserialize(bytes));
+    }
+
     /**
      * Registers a new message handler for message type.
      * @param type message type.
@@ -77,6 +115,40 @@ public interface MessagingService {
      */
     void registerHandler(String type, BiFunction<Endpoint, byte[], CompletableFuture<byte[]>> handler);
 
+    /**
+     * Registers a new message handler for message type, for messages sent
+     * with the given serializer.
+     * @param type message type.
+     * @param serializer serializer of the message.
+     * @param handler message handler
+     * @param executor executor to use for running message handler logic.
+     * @param <M> message type
+     */
+    default <M> void registerHandler(String type, KryoNamespace serializer,
+                                     BiConsumer<Endpoint, M> handler, Executor executor) {
+        BiConsumer<Endpoint, byte[]> bytesHandler =
+                (ep, bytes) -> handler.accept(ep, serializer.deserialize(bytes));
+        registerHandler(type, bytesHandler, executor);
+    }
+
+    /**
+     * Registers a new message handler for message type, for messages sent
+     * with the given serializer. The response is serialized with the same
+     * serializer.
+     * @param type message type.
+     * @param serializer serializer of the message and the response.
+     * @param handler message handler
+     * @param executor executor to use for running message handler logic.
+     * @param <M> message type
+     * @param <R> response type
+     */
+    default <M, R> void registerHandler(String type, KryoNamespace serializer,
+                                        BiFunction<Endpoint, M, R> handler, Executor executor) {
+        BiFunction<Endpoint, byte[], byte[]> bytesHandler =
+                (ep, bytes) -> serializer.serialize(handler.apply(ep, serializer.deserialize(bytes)));
+        registerHandler(type, bytesHandler, executor);
+    }
+
     /**
      * Unregister current handler, if one exists for message type.
      * @param type message type
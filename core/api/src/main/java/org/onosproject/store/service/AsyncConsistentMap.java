@@ -17,8 +17,10 @@
 package org.onosproject.store.service;
 
 import java.util.Collection;
-import java.util.Objects;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
@@ -98,6 +100,29 @@ public interface AsyncConsistentMap<K, V> extends DistributedPrimitive {
      */
     CompletableFuture<Versioned<V>> get(K key);
 
+    /**
+     * Returns the values (and versions) to which the specified keys are mapped.
+     * Keys for which this map contains no mapping are left out of the result.
+     *
+     * @param keys the keys whose associated values (and versions) are to be returned
+     * @return a future map of each present key to its value (and version)
+     */
+    default CompletableFuture<Map<K, Versioned<V>>> getAll(Set<K> keys) {
+        Map<K, CompletableFuture<Versioned<V>>> futures = new HashMap<>();
+        keys.forEach(key -> futures.put(key, get(key)));
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[futures.size()]))
+                .thenApply(v -> {
+                    Map<K, Versioned<V>> result = new HashMap<>();
+                    futures.forEach((key, future) -> {
+                        Versioned<V> value = future.join();
+                        if (value != null) {
+                            result.put(key, value);
+                        }
+                    });
+                    return result;
+                });
+    }
+
     /**
      * If the specified key is not already associated with a value (or is mapped to null),
      * attempts to compute its value using the given mapping function and enters it into
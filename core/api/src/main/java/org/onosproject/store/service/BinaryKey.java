@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.service;
+
+import java.util.Arrays;
+
+import org.onlab.util.HexString;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Opaque binary key of a consistent map entry, holding the serialized form
+ * of the map key. The hash code is a murmur3 hash of the key bytes; it is
+ * stable across JVMs and is therefore also suitable for partitioning.
+ */
+public final class BinaryKey {
+
+    private static final HashFunction HASH = Hashing.murmur3_32();
+
+    private final byte[] bytes;
+    private transient int hash;
+
+    /**
+     * Creates a new binary key. The array is not copied and must not be
+     * modified afterwards.
+     *
+     * @param bytes serialized key
+     */
+    public BinaryKey(byte[] bytes) {
+        this.bytes = checkNotNull(bytes, "bytes cannot be null");
+    }
+
+    // Constructor for serialization
+    private BinaryKey() {
+        this.bytes = null;
+    }
+
+    /**
+     * Returns the serialized key. The returned array must not be modified.
+     *
+     * @return key bytes
+     */
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the colon-separated hex string form of the key, in which earlier
+     * versions stored consistent map keys, e.g. "0f:ca:fe".
+     *
+     * @return hex string of the key bytes
+     */
+    public String toHexString() {
+        return HexString.toHexString(bytes);
+    }
+
+    /**
+     * Creates a binary key from its hex string form.
+     *
+     * @param key colon-separated hex string of the key bytes
+     * @return binary key
+     */
+    public static BinaryKey fromHexString(String key) {
+        return new BinaryKey(HexString.fromHexString(key));
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = HASH.hashBytes(bytes).asInt();
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other instanceof BinaryKey) {
+            BinaryKey that = (BinaryKey) other;
+            return hashCode() == that.hashCode() && Arrays.equals(this.bytes, that.bytes);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("bytes", toHexString())
+                .toString();
+    }
+}
@@ -17,6 +17,7 @@
 package org.onosproject.store.service;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -86,6 +87,24 @@ public interface ConsistentMap<K, V> extends DistributedPrimitive {
      */
     Versioned<V> get(K key);
 
+    /**
+     * Returns the values (and versions) to which the specified keys are mapped.
+     * Keys for which this map contains no mapping are left out of the result.
+     *
+     * @param keys the keys whose associated values (and versions) are to be returned
+     * @return map of each present key to its value (and version)
+     */
+    default Map<K, Versioned<V>> getAll(Set<K> keys) {
+        Map<K, Versioned<V>> result = new HashMap<>();
+        keys.forEach(key -> {
+            Versioned<V> value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+
     /**
      * If the specified key is not already associated with a value (or is mapped to null),
      * attempts to compute its value using the given mapping function and enters it into
@@ -124,6 +124,21 @@ public interface ConsistentMapBuilder<K, V> {
      */
     ConsistentMapBuilder<K, V> withRelaxedReadConsistency();
 
+    /**
+     * Provides weak consistency for map gets, which are served by a local
+     * near-cache with the given policy.
+     * <p>
+     * As with {@link #withRelaxedReadConsistency()}, reads may return stale
+     * values for a short while after the map has been updated by another
+     * instance. {@code withRelaxedReadConsistency()} is equivalent to this
+     * method with the {@link NearCachePolicy#DEFAULT default} policy.
+     * </p>
+     *
+     * @param policy near-cache policy
+     * @return this ConsistentMapBuilder
+     */
+    ConsistentMapBuilder<K, V> withNearCache(NearCachePolicy policy);
+
     /**
      * Builds an consistent map based on the configuration options
      * supplied to this builder.
@@ -69,7 +69,7 @@ public final class DatabaseUpdate {
 
     private Type type;
     private String mapName;
-    private String key;
+    private BinaryKey key;
     private byte[] value;
     private byte[] currentValue;
     private long currentVersion = -1;
@@ -94,7 +94,7 @@ public final class DatabaseUpdate {
      * Returns the item key being updated.
      * @return item key
      */
-    public String key() {
+    public BinaryKey key() {
         return key;
     }
 
@@ -166,7 +166,7 @@ public final class DatabaseUpdate {
             return this;
         }
 
-        public Builder withKey(String key) {
+        public Builder withKey(BinaryKey key) {
             update.key = checkNotNull(key, "key cannot be null");
             return this;
         }
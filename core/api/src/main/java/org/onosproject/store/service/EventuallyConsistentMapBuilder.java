@@ -166,6 +166,21 @@ public interface EventuallyConsistentMapBuilder<K, V> {
      */
     EventuallyConsistentMapBuilder<K, V> withFasterConvergence();
 
+    /**
+     * Configure anti-entropy to exchange a hash tree summarizing the map
+     * contents instead of a digest of every map entry. Peers compare the
+     * tree level by level and exchange digests only for the entries in the
+     * differing subtrees. Suited to large maps where the replicas are
+     * usually in sync, at the cost of a few extra message round trips when
+     * they are not.
+     * <p>
+     * The default behavior is to advertise a digest of every map entry.
+     * </p>
+     *
+     * @return this EventuallyConsistentMapBuilder
+     */
+    EventuallyConsistentMapBuilder<K, V> withHashTreeAntiEntropy();
+
     /**
      * Configure the map to persist data to disk.
      * <p>
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.service;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Policy of the near-cache which serves consistent map reads locally.
+ * <p>
+ * The cache is bounded either by a number of entries or by a total weight,
+ * measured as the size in bytes of the serialized values. Entries may
+ * additionally expire a fixed time after they were loaded, and absent keys
+ * may be cached as well.
+ * </p>
+ */
+public final class NearCachePolicy {
+
+    /**
+     * Default near-cache policy: at most 10000 entries, no expiration and
+     * no caching of absent keys.
+     */
+    public static final NearCachePolicy DEFAULT = builder().build();
+
+    private static final long DEFAULT_MAXIMUM_SIZE = 10000;
+    private static final long UNSET = -1;
+
+    private final long maximumSize;
+    private final long maximumWeight;
+    private final long expireAfterWriteMillis;
+    private final boolean negativeCaching;
+
+    private NearCachePolicy(long maximumSize, long maximumWeight,
+                            long expireAfterWriteMillis, boolean negativeCaching) {
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+        this.expireAfterWriteMillis = expireAfterWriteMillis;
+        this.negativeCaching = negativeCaching;
+    }
+
+    /**
+     * Returns the maximum number of cached entries.
+     *
+     * @return maximum number of entries; -1 if bounded by weight instead
+     */
+    public long maximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns the maximum total size in bytes of the cached values.
+     *
+     * @return maximum weight; -1 if bounded by number of entries instead
+     */
+    public long maximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Returns the time after which a cached entry expires.
+     *
+     * @return time in millis; -1 if entries do not expire
+     */
+    public long expireAfterWriteMillis() {
+        return expireAfterWriteMillis;
+    }
+
+    /**
+     * Returns whether absent keys are cached too.
+     *
+     * @return true if absent keys are cached
+     */
+    public boolean negativeCaching() {
+        return negativeCaching;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maximumSize, maximumWeight, expireAfterWriteMillis, negativeCaching);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof NearCachePolicy) {
+            NearCachePolicy that = (NearCachePolicy) obj;
+            return this.maximumSize == that.maximumSize
+                    && this.maximumWeight == that.maximumWeight
+                    && this.expireAfterWriteMillis == that.expireAfterWriteMillis
+                    && this.negativeCaching == that.negativeCaching;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("maximumSize", maximumSize)
+                .add("maximumWeight", maximumWeight)
+                .add("expireAfterWriteMillis", expireAfterWriteMillis)
+                .add("negativeCaching", negativeCaching)
+                .toString();
+    }
+
+    /**
+     * Returns a new builder of near-cache policies.
+     *
+     * @return policy builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder of near-cache policies.
+     */
+    public static final class Builder {
+        private long maximumSize = UNSET;
+        private long maximumWeight = UNSET;
+        private long expireAfterWriteMillis = UNSET;
+        private boolean negativeCaching = false;
+
+        private Builder() {
+        }
+
+        /**
+         * Bounds the cache by number of entries. By default, the cache
+         * holds at most 10000 entries.
+         *
+         * @param maximumSize maximum number of entries
+         * @return this builder
+         */
+        public Builder withMaximumSize(long maximumSize) {
+            checkArgument(maximumSize > 0, "Maximum size must be positive");
+            checkState(maximumWeight == UNSET, "Maximum weight is already set");
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Bounds the cache by the total size in bytes of the serialized
+         * values, rather than by number of entries.
+         *
+         * @param maximumWeight maximum total size in bytes
+         * @return this builder
+         */
+        public Builder withMaximumWeight(long maximumWeight) {
+            checkArgument(maximumWeight > 0, "Maximum weight must be positive");
+            checkState(maximumSize == UNSET, "Maximum size is already set");
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        /**
+         * Expires cached entries a fixed time after they were loaded.
+         *
+         * @param duration time after which entries expire
+         * @param unit     time unit of the duration
+         * @return this builder
+         */
+        public Builder withExpireAfterWrite(long duration, TimeUnit unit) {
+            checkArgument(duration > 0, "Duration must be positive");
+            this.expireAfterWriteMillis = checkNotNull(unit).toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Caches absent keys too, so that repeated reads of keys without a
+         * mapping are served locally.
+         *
+         * @return this builder
+         */
+        public Builder withNegativeCaching() {
+            this.negativeCaching = true;
+            return this;
+        }
+
+        /**
+         * Builds the near-cache policy.
+         *
+         * @return near-cache policy
+         */
+        public NearCachePolicy build() {
+            long size = maximumSize == UNSET && maximumWeight == UNSET ? DEFAULT_MAXIMUM_SIZE : maximumSize;
+            return new NearCachePolicy(size, maximumWeight, expireAfterWriteMillis, negativeCaching);
+        }
+    }
+}
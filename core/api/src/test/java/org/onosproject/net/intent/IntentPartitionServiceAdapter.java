@@ -31,6 +31,21 @@ public class IntentPartitionServiceAdapter implements IntentPartitionService {
         return null;
     }
 
+    @Override
+    public int getPartitionCount() {
+        return 1;
+    }
+
+    @Override
+    public int getPartition(Key intentKey) {
+        return 0;
+    }
+
+    @Override
+    public boolean isMine(int partition) {
+        return true;
+    }
+
     @Override
     public void addListener(IntentPartitionEventListener listener) {
 
@@ -26,6 +26,7 @@ import com.google.common.testing.EqualsTester;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.onlab.junit.ImmutableClassChecker.assertThatClassIsImmutable;
 import static org.onosproject.net.NetTestTools.connectPoint;
 
@@ -77,5 +78,19 @@ public class DefaultInboundPacketTest {
         assertThat(packet1.receivedFrom(), equalTo(connectPoint("d1", 1)));
         assertThat(packet1.parsed(), equalTo(eth));
         assertThat(packet1.unparsed(), notNullValue());
+        assertThat(packet1.view().destinationMac(), equalTo(MacAddress.BROADCAST));
+    }
+
+    /**
+     * Tests a packet parsed on first access to its parsed form.
+     */
+    @Test
+    public void testLazyParsing() {
+        DefaultInboundPacket packet =
+                new DefaultInboundPacket(connectPoint("d1", 1),
+                                         ByteBuffer.wrap(eth.serialize()));
+        assertThat(packet.view().sourceMac(), equalTo(MacAddress.BROADCAST));
+        assertThat(packet.parsed().getSourceMAC(), equalTo(MacAddress.BROADCAST));
+        assertThat(packet.parsed(), sameInstance(packet.parsed()));
     }
 }
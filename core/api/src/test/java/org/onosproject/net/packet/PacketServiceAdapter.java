@@ -30,6 +30,11 @@ public class PacketServiceAdapter implements PacketService {
     public void addProcessor(PacketProcessor processor, int priority) {
     }
 
+    @Override
+    public void addProcessor(PacketProcessor processor, int priority,
+                             TrafficSelector selector) {
+    }
+
     @Override
     public void removeProcessor(PacketProcessor processor) {
     }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.service;
+
+import com.google.common.hash.Hashing;
+import com.google.common.testing.EqualsTester;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Unit tests for BinaryKey class.
+ */
+public class BinaryKeyTest {
+
+    private final BinaryKey key1 = new BinaryKey(new byte[]{1, 2, 3});
+    private final BinaryKey sameAsKey1 = new BinaryKey(new byte[]{1, 2, 3});
+    private final BinaryKey key2 = new BinaryKey(new byte[]{3, 2, 1});
+
+    /**
+     * Tests the equals, hashCode and toString methods using Guava EqualsTester.
+     */
+    @Test
+    public void testEquals() {
+        new EqualsTester()
+                .addEqualityGroup(key1, sameAsKey1)
+                .addEqualityGroup(key2)
+                .testEquals();
+    }
+
+    /**
+     * Tests that the hash code is the murmur3 hash of the key bytes.
+     */
+    @Test
+    public void testHashCode() {
+        assertThat(key1.hashCode(), is(Hashing.murmur3_32().hashBytes(new byte[]{1, 2, 3}).asInt()));
+        assertThat(key1.bytes(), is(new byte[]{1, 2, 3}));
+    }
+
+    /**
+     * Tests if the toString method returns a consistent value for hashing.
+     */
+    @Test
+    public void testToString() {
+        assertThat(key1.toString(), is(sameAsKey1.toString()));
+    }
+
+    /**
+     * Tests the conversions from and to the hex string form of keys.
+     */
+    @Test
+    public void testHexString() {
+        BinaryKey key = new BinaryKey(new byte[]{0x0f, (byte) 0xca, (byte) 0xfe});
+        assertThat(key.toHexString(), is("0f:ca:fe"));
+        assertThat(BinaryKey.fromHexString("0f:ca:fe"), is(key));
+    }
+}
@@ -27,11 +27,13 @@ import static org.hamcrest.Matchers.is;
 
 public class DatabaseUpdateTest {
 
+    private static final BinaryKey KEY = new BinaryKey("4".getBytes());
+
     private final DatabaseUpdate stats1 = DatabaseUpdate.newBuilder()
             .withCurrentValue("1".getBytes())
             .withValue("2".getBytes())
             .withCurrentVersion(3)
-            .withKey("4")
+            .withKey(KEY)
             .withMapName("5")
             .withType(DatabaseUpdate.Type.PUT)
             .build();
@@ -40,7 +42,7 @@ public class DatabaseUpdateTest {
             .withCurrentValue("1".getBytes())
             .withValue("2".getBytes())
             .withCurrentVersion(3)
-            .withKey("4")
+            .withKey(KEY)
             .withMapName("5")
             .withType(DatabaseUpdate.Type.REMOVE)
             .build();
@@ -49,7 +51,7 @@ public class DatabaseUpdateTest {
             .withCurrentValue("1".getBytes())
             .withValue("2".getBytes())
             .withCurrentVersion(3)
-            .withKey("4")
+            .withKey(KEY)
             .withMapName("5")
             .withType(DatabaseUpdate.Type.REMOVE_IF_VALUE_MATCH)
             .build();
@@ -58,7 +60,7 @@ public class DatabaseUpdateTest {
             .withCurrentValue("1".getBytes())
             .withValue("2".getBytes())
             .withCurrentVersion(3)
-            .withKey("4")
+            .withKey(KEY)
             .withMapName("5")
             .withType(DatabaseUpdate.Type.REMOVE_IF_VERSION_MATCH)
             .build();
@@ -67,7 +69,7 @@ public class DatabaseUpdateTest {
             .withCurrentValue("1".getBytes())
             .withValue("2".getBytes())
             .withCurrentVersion(3)
-            .withKey("4")
+            .withKey(KEY)
             .withMapName("5")
             .withType(DatabaseUpdate.Type.PUT_IF_VALUE_MATCH)
             .build();
@@ -76,7 +78,7 @@ public class DatabaseUpdateTest {
             .withCurrentValue("1".getBytes())
             .withValue("2".getBytes())
             .withCurrentVersion(3)
-            .withKey("4")
+            .withKey(KEY)
             .withMapName("5")
             .withType(DatabaseUpdate.Type.PUT_IF_VERSION_MATCH)
             .build();
@@ -89,7 +91,7 @@ public class DatabaseUpdateTest {
         assertThat(stats1.currentValue(), is("1".getBytes()));
         assertThat(stats1.value(), is("2".getBytes()));
         assertThat(stats1.currentVersion(), is(3L));
-        assertThat(stats1.key(), is("4"));
+        assertThat(stats1.key(), is(KEY));
         assertThat(stats1.mapName(), is("5"));
         assertThat(stats1.type(), is(DatabaseUpdate.Type.PUT));
     }
@@ -27,6 +27,7 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import com.google.common.collect.Maps;
 import org.onosproject.core.ApplicationId;
 
 import static org.onosproject.store.service.MapEvent.Type.*;
@@ -167,7 +168,11 @@ public final class TestConsistentMap<K, V> extends ConsistentMapAdapter<K, V> {
 
     @Override
     public Set<Map.Entry<K, Versioned<V>>> entrySet() {
-        return super.entrySet();
+        return map
+                .entrySet()
+                .stream()
+                .map(entry -> Maps.immutableEntry(entry.getKey(), version(entry.getValue())))
+                .collect(Collectors.toSet());
     }
 
     @Override
@@ -282,6 +287,11 @@ public final class TestConsistentMap<K, V> extends ConsistentMapAdapter<K, V> {
             return this;
         }
 
+        @Override
+        public ConsistentMapBuilder<K, V> withNearCache(NearCachePolicy policy) {
+            return this;
+        }
+
         @Override
         public ConsistentMapBuilder<K, V> withMeteringDisabled() {
             return this;
@@ -18,6 +18,8 @@ package org.onosproject.common;
 import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
@@ -56,7 +58,9 @@ import org.slf4j.LoggerFactory;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -81,6 +85,10 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     private static LinkWeight defaultLinkWeight = null;
     private static GraphPathSearch<TopologyVertex, TopologyEdge> defaultGraphPathSearch = null;
+    private static int maxPathPrecomputeDevices = 0;
+
+    // Upper bound on the number of src/dst path sets retained per topology
+    private static final int MAX_CACHED_PATH_SETS = 50_000;
 
     private final long time;
     private final long creationTime;
@@ -96,6 +104,12 @@ public class DefaultTopology extends AbstractModel implements Topology {
     private final Function<ConnectPoint, Boolean> broadcastFunction;
     private final Supplier<ClusterIndexes> clusterIndexes;
 
+    private final Cache<PathKey, Set<Path>> pathCache;
+    private final Supplier<ImmutableMap<DeviceId, ImmutableMap<DeviceId, Set<Path>>>> hopCountPaths;
+    private final AtomicLong pathCacheHits = new AtomicLong();
+    private final AtomicLong pathCacheMisses = new AtomicLong();
+    private volatile boolean hopCountPathsComputed = false;
+
     /**
      * Sets the default link-weight to be used when computing paths. If null is
      * specified, the builtin default link-weight measuring hop-counts will be
@@ -119,6 +133,18 @@ public class DefaultTopology extends AbstractModel implements Topology {
         defaultGraphPathSearch = graphPathSearch;
     }
 
+    /**
+     * Sets the largest topology, in number of devices, for which all-pairs
+     * shortest paths using the builtin hop-count link-weight are computed
+     * in one pass upon the first path request. Zero or negative value
+     * disables the precomputation.
+     *
+     * @param maxDevices maximum number of devices
+     */
+    public static void setMaxPathPrecomputeDevices(int maxDevices) {
+        log.info("Setting all-pairs path precomputation limit to {} devices", maxDevices);
+        maxPathPrecomputeDevices = maxDevices;
+    }
 
     /**
      * Creates a topology descriptor attributed to the specified provider.
@@ -129,6 +155,22 @@ public class DefaultTopology extends AbstractModel implements Topology {
      */
     public DefaultTopology(ProviderId providerId, GraphDescription description,
                            Function<ConnectPoint, Boolean> broadcastFunction) {
+        this(providerId, description, broadcastFunction, null);
+    }
+
+    /**
+     * Creates a topology descriptor attributed to the specified provider,
+     * reusing the clusters and broadcast sets of the previous topology which
+     * are not affected by the changes.
+     *
+     * @param providerId        identity of the provider
+     * @param description       data describing the new topology
+     * @param broadcastFunction broadcast point function
+     * @param previous          previous topology; null if none
+     */
+    public DefaultTopology(ProviderId providerId, GraphDescription description,
+                           Function<ConnectPoint, Boolean> broadcastFunction,
+                           DefaultTopology previous) {
         super(providerId);
         this.broadcastFunction = broadcastFunction;
         this.time = description.timestamp();
@@ -138,14 +180,27 @@ public class DefaultTopology extends AbstractModel implements Topology {
         this.graph = new DefaultTopologyGraph(description.vertexes(),
                                               description.edges());
 
+        this.hopCountWeight = new HopCountLinkWeight(graph.getVertexes().size());
         this.clusterResults = Suppliers.memoize(() -> searchForClusters());
-        this.clusters = Suppliers.memoize(() -> buildTopologyClusters());
 
-        this.clusterIndexes = Suppliers.memoize(() -> buildIndexes());
+        TopologyClusterDelta delta = previous != null ?
+                TopologyClusterDelta.compute(previous, graph) : null;
+        if (delta != null) {
+            // Broadcast sets are resolved right away so that this topology
+            // does not hold on to the previous one.
+            this.clusters = Suppliers.ofInstance(delta.clusters());
+            this.clusterIndexes = Suppliers.ofInstance(delta.indexes());
+            this.broadcastSets = Suppliers.ofInstance(buildBroadcastSets(previous, delta.affected()));
+        } else {
+            this.clusters = Suppliers.memoize(() -> buildTopologyClusters());
+            this.clusterIndexes = Suppliers.memoize(() -> buildIndexes());
+            this.broadcastSets = Suppliers.memoize(() -> buildBroadcastSets());
+        }
 
-        this.hopCountWeight = new HopCountLinkWeight(graph.getVertexes().size());
-        this.broadcastSets = Suppliers.memoize(() -> buildBroadcastSets());
         this.infrastructurePoints = Suppliers.memoize(() -> findInfrastructurePoints());
+
+        this.pathCache = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_PATH_SETS).build();
+        this.hopCountPaths = Suppliers.memoize(() -> buildAllPairsPaths(hopCountWeight));
         this.computeCost = Math.max(0, System.nanoTime() - time);
     }
 
@@ -329,7 +384,8 @@ public class DefaultTopology extends AbstractModel implements Topology {
 
     /**
      * Computes on-demand the set of shortest paths between source and
-     * destination devices.
+     * destination devices. Results obtained using the default link-weight
+     * are cached for the life of this topology.
      *
      * @param src    source device
      * @param dst    destination device
@@ -345,6 +401,53 @@ public class DefaultTopology extends AbstractModel implements Topology {
             return ImmutableSet.of();
         }
 
+        // Caller-supplied weights may be stateful, so only the default
+        // link-weight is eligible for caching.
+        if (weight != linkWeight()) {
+            return searchPaths(srcV, dstV, weight);
+        }
+
+        if (weight == hopCountWeight && defaultGraphPathSearch == null &&
+                vertices.size() <= maxPathPrecomputeDevices) {
+            boolean computed = hopCountPathsComputed;
+            Set<Path> paths = hopCountPaths.get().get(src).get(dst);
+            hopCountPathsComputed = true;
+            (computed ? pathCacheHits : pathCacheMisses).incrementAndGet();
+            return paths;
+        }
+
+        PathKey key = new PathKey(src, dst, weight, graphPathSearch());
+        Set<Path> paths = pathCache.getIfPresent(key);
+        if (paths != null) {
+            pathCacheHits.incrementAndGet();
+            return paths;
+        }
+        pathCacheMisses.incrementAndGet();
+        paths = searchPaths(srcV, dstV, weight);
+        pathCache.put(key, paths);
+        return paths;
+    }
+
+    /**
+     * Returns the number of path requests served from the path cache.
+     *
+     * @return number of path cache hits
+     */
+    public long pathCacheHits() {
+        return pathCacheHits.get();
+    }
+
+    /**
+     * Returns the number of path requests which required a path search.
+     *
+     * @return number of path cache misses
+     */
+    public long pathCacheMisses() {
+        return pathCacheMisses.get();
+    }
+
+    // Runs the path search between the specified vertexes.
+    private Set<Path> searchPaths(TopologyVertex srcV, TopologyVertex dstV, LinkWeight weight) {
         GraphPathSearch.Result<TopologyVertex, TopologyEdge> result =
                 graphPathSearch().search(graph, srcV, dstV, weight, ALL_PATHS);
         ImmutableSet.Builder<Path> builder = ImmutableSet.builder();
@@ -354,6 +457,26 @@ public class DefaultTopology extends AbstractModel implements Topology {
         return builder.build();
     }
 
+    // Computes shortest paths between all pairs of devices using a single
+    // search from each source vertex towards all destinations.
+    private ImmutableMap<DeviceId, ImmutableMap<DeviceId, Set<Path>>> buildAllPairsPaths(LinkWeight weight) {
+        ImmutableMap.Builder<DeviceId, ImmutableMap<DeviceId, Set<Path>>> builder = ImmutableMap.builder();
+        for (TopologyVertex srcV : graph.getVertexes()) {
+            Map<DeviceId, ImmutableSet.Builder<Path>> byDst = new HashMap<>();
+            graph.getVertexes().forEach(v -> byDst.put(v.deviceId(), ImmutableSet.builder()));
+
+            Result<TopologyVertex, TopologyEdge> result = DIJKSTRA.search(graph, srcV, null, weight, ALL_PATHS);
+            for (org.onlab.graph.Path<TopologyVertex, TopologyEdge> path : result.paths()) {
+                byDst.get(path.dst().deviceId()).add(networkPath(path));
+            }
+
+            ImmutableMap.Builder<DeviceId, Set<Path>> paths = ImmutableMap.builder();
+            byDst.forEach((dst, pathBuilder) -> paths.put(dst, pathBuilder.build()));
+            builder.put(srcV.deviceId(), paths.build());
+        }
+        return builder.build();
+    }
+
     /**
      * /**
      * Returns the set of pre-computed shortest disjoint path pairs between source and
@@ -536,6 +659,21 @@ public class DefaultTopology extends AbstractModel implements Topology {
         return builder.build();
     }
 
+    // Processes a map of broadcast sets for each cluster, carrying over the
+    // sets of clusters unaffected by changes since the previous topology.
+    private ImmutableSetMultimap<ClusterId, ConnectPoint> buildBroadcastSets(DefaultTopology previous,
+                                                                             Set<ClusterId> affected) {
+        Builder<ClusterId, ConnectPoint> builder = ImmutableSetMultimap.builder();
+        for (TopologyCluster cluster : clusters.get().values()) {
+            if (affected.contains(cluster.id())) {
+                addClusterBroadcastSet(cluster, builder);
+            } else {
+                builder.putAll(cluster.id(), previous.broadcastPoints(cluster.id()));
+            }
+        }
+        return builder.build();
+    }
+
     // Finds all broadcast points for the cluster. These are those connection
     // points which lie along the shortest paths between the cluster root and
     // all other devices within the cluster.
@@ -623,6 +761,42 @@ public class DefaultTopology extends AbstractModel implements Topology {
         }
     }
 
+    // Key for the path cache; link-weight and search algorithm are compared
+    // by identity as neither is required to implement equality.
+    private static final class PathKey {
+        private final DeviceId src;
+        private final DeviceId dst;
+        private final LinkWeight weight;
+        private final GraphPathSearch<TopologyVertex, TopologyEdge> search;
+
+        PathKey(DeviceId src, DeviceId dst, LinkWeight weight,
+                GraphPathSearch<TopologyVertex, TopologyEdge> search) {
+            this.src = src;
+            this.dst = dst;
+            this.weight = weight;
+            this.search = search;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(src, dst, System.identityHashCode(weight),
+                                System.identityHashCode(search));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof PathKey) {
+                PathKey that = (PathKey) obj;
+                return weight == that.weight && search == that.search &&
+                        Objects.equals(src, that.src) && Objects.equals(dst, that.dst);
+            }
+            return false;
+        }
+    }
+
     static final class ClusterIndexes {
         final ImmutableMap<DeviceId, TopologyCluster> clustersByDevice;
         final ImmutableSetMultimap<TopologyCluster, DeviceId> devicesByCluster;
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.common;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Link;
+import org.onosproject.net.topology.ClusterId;
+import org.onosproject.net.topology.DefaultTopologyCluster;
+import org.onosproject.net.topology.DefaultTopologyVertex;
+import org.onosproject.net.topology.TopologyCluster;
+import org.onosproject.net.topology.TopologyEdge;
+import org.onosproject.net.topology.TopologyGraph;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+
+import static org.onosproject.net.Link.State.ACTIVE;
+import static org.onosproject.net.Link.Type.INDIRECT;
+
+/**
+ * Derives the clusters of a new topology graph from the clusters of the
+ * previous topology. This is possible only when the set of devices is the
+ * same and the link changes neither split nor merge any of the clusters;
+ * in that case the clusters untouched by the change are carried over as-is.
+ */
+final class TopologyClusterDelta {
+
+    private final ImmutableMap<ClusterId, TopologyCluster> clusters;
+    private final DefaultTopology.ClusterIndexes indexes;
+    private final Set<ClusterId> affected;
+
+    private TopologyClusterDelta(ImmutableMap<ClusterId, TopologyCluster> clusters,
+                                 DefaultTopology.ClusterIndexes indexes,
+                                 Set<ClusterId> affected) {
+        this.clusters = clusters;
+        this.indexes = indexes;
+        this.affected = affected;
+    }
+
+    /**
+     * Computes the clusters of the given graph using the clusters of the
+     * previous topology.
+     *
+     * @param previous previous topology
+     * @param graph    new topology graph
+     * @return cluster delta or null if the clusters need to be recomputed
+     * from scratch
+     */
+    static TopologyClusterDelta compute(DefaultTopology previous, TopologyGraph graph) {
+        TopologyGraph oldGraph = previous.getGraph();
+        if (!oldGraph.getVertexes().equals(graph.getVertexes()) ||
+                !allActive(oldGraph) || !allActive(graph)) {
+            return null;
+        }
+
+        Set<TopologyEdge> oldEdges = oldGraph.getEdges();
+        Set<TopologyEdge> newEdges = graph.getEdges();
+        Set<ClusterId> affected = new HashSet<>();
+        Set<TopologyCluster> reduced = new HashSet<>();
+
+        for (TopologyEdge edge : newEdges) {
+            if (!oldEdges.contains(edge)) {
+                TopologyCluster src = previous.getCluster(edge.src().deviceId());
+                TopologyCluster dst = previous.getCluster(edge.dst().deviceId());
+                if (src.equals(dst)) {
+                    affected.add(src.id());
+                } else if (edge.link().type() != INDIRECT) {
+                    // New link between clusters may merge them.
+                    return null;
+                }
+            }
+        }
+
+        for (TopologyEdge edge : oldEdges) {
+            if (!newEdges.contains(edge)) {
+                TopologyCluster src = previous.getCluster(edge.src().deviceId());
+                TopologyCluster dst = previous.getCluster(edge.dst().deviceId());
+                if (src.equals(dst)) {
+                    affected.add(src.id());
+                    if (edge.link().type() != INDIRECT) {
+                        reduced.add(src);
+                    }
+                }
+            }
+        }
+
+        // Clusters which lost links must remain strongly connected.
+        for (TopologyCluster cluster : reduced) {
+            if (!isStronglyConnected(graph, previous.getClusterDevices(cluster))) {
+                return null;
+            }
+        }
+
+        ImmutableMap.Builder<ClusterId, TopologyCluster> clusterBuilder =
+                ImmutableMap.builder();
+        ImmutableMap.Builder<DeviceId, TopologyCluster> byDeviceBuilder =
+                ImmutableMap.builder();
+        ImmutableSetMultimap.Builder<TopologyCluster, DeviceId> devicesBuilder =
+                ImmutableSetMultimap.builder();
+        ImmutableSetMultimap.Builder<TopologyCluster, Link> linksBuilder =
+                ImmutableSetMultimap.builder();
+
+        for (int i = 0, n = previous.clusterCount(); i < n; i++) {
+            ClusterId cid = ClusterId.clusterId(i);
+            TopologyCluster cluster = previous.getCluster(cid);
+            Set<DeviceId> devices = previous.getClusterDevices(cluster);
+            Set<Link> links = previous.getClusterLinks(cluster);
+
+            if (affected.contains(cid)) {
+                links = findClusterLinks(graph, devices);
+                cluster = new DefaultTopologyCluster(cid, cluster.deviceCount(),
+                                                     links.size(), cluster.root());
+            }
+
+            clusterBuilder.put(cid, cluster);
+            devicesBuilder.putAll(cluster, devices);
+            linksBuilder.putAll(cluster, links);
+            for (DeviceId deviceId : devices) {
+                byDeviceBuilder.put(deviceId, cluster);
+            }
+        }
+
+        return new TopologyClusterDelta(clusterBuilder.build(),
+                                        new DefaultTopology.ClusterIndexes(byDeviceBuilder.build(),
+                                                                           devicesBuilder.build(),
+                                                                           linksBuilder.build()),
+                                        ImmutableSet.copyOf(affected));
+    }
+
+    /**
+     * Returns the id-cluster bindings for the new graph.
+     *
+     * @return cluster bindings
+     */
+    ImmutableMap<ClusterId, TopologyCluster> clusters() {
+        return clusters;
+    }
+
+    /**
+     * Returns the cluster indexes for the new graph.
+     *
+     * @return cluster indexes
+     */
+    DefaultTopology.ClusterIndexes indexes() {
+        return indexes;
+    }
+
+    /**
+     * Returns the ids of clusters whose links have changed.
+     *
+     * @return affected cluster ids
+     */
+    Set<ClusterId> affected() {
+        return affected;
+    }
+
+    // Indicates whether all links in the graph are active; link state is
+    // not part of the link equality, so changes in it would go unnoticed.
+    private static boolean allActive(TopologyGraph graph) {
+        for (TopologyEdge edge : graph.getEdges()) {
+            if (edge.link().state() != ACTIVE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Collects all links between the specified devices.
+    private static Set<Link> findClusterLinks(TopologyGraph graph, Set<DeviceId> devices) {
+        ImmutableSet.Builder<Link> builder = ImmutableSet.builder();
+        for (DeviceId deviceId : devices) {
+            for (TopologyEdge edge : graph.getEdgesFrom(new DefaultTopologyVertex(deviceId))) {
+                if (devices.contains(edge.dst().deviceId())) {
+                    builder.add(edge.link());
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    // Indicates whether the specified devices remain strongly connected
+    // using only the direct links between them.
+    private static boolean isStronglyConnected(TopologyGraph graph, Set<DeviceId> devices) {
+        DeviceId start = devices.iterator().next();
+        return reachable(graph, devices, start, true) == devices.size() &&
+                reachable(graph, devices, start, false) == devices.size();
+    }
+
+    // Counts the devices reachable from the start device, either along or
+    // against the direction of the links, without leaving the device set.
+    private static int reachable(TopologyGraph graph, Set<DeviceId> devices,
+                                 DeviceId start, boolean forward) {
+        Set<DeviceId> seen = new HashSet<>();
+        Queue<DeviceId> queue = new ArrayDeque<>();
+        seen.add(start);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            DefaultTopologyVertex vertex = new DefaultTopologyVertex(queue.remove());
+            Set<TopologyEdge> edges = forward ? graph.getEdgesFrom(vertex) : graph.getEdgesTo(vertex);
+            for (TopologyEdge edge : edges) {
+                DeviceId next = forward ? edge.dst().deviceId() : edge.src().deviceId();
+                if (edge.link().type() != INDIRECT && devices.contains(next) && seen.add(next)) {
+                    queue.add(next);
+                }
+            }
+        }
+        return seen.size();
+    }
+}
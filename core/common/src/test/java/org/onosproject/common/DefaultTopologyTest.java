@@ -35,6 +35,7 @@ import org.onosproject.net.topology.TopologyCluster;
 
 import java.util.Set;
 
+import static com.google.common.collect.ImmutableSet.copyOf;
 import static com.google.common.collect.ImmutableSet.of;
 import static org.junit.Assert.*;
 import static org.onosproject.net.DeviceId.deviceId;
@@ -60,6 +61,7 @@ public class DefaultTopologyTest {
             edge.src().deviceId().equals(D4) || edge.dst().deviceId().equals(D4)
                     ? 2.0 : 1.0;
 
+    private GraphDescription graphDescription;
     private DefaultTopology dt;
 
     @Before
@@ -72,8 +74,7 @@ public class DefaultTopologyTest {
                              link("3", 2, "2", 2), link("2", 2, "3", 2),
                              link("1", 3, "4", 3), link("4", 3, "1", 3),
                              link("3", 4, "4", 4), link("4", 4, "3", 4));
-        GraphDescription graphDescription =
-                new DefaultGraphDescription(now, System.currentTimeMillis(), devices, links);
+        graphDescription = new DefaultGraphDescription(now, System.currentTimeMillis(), devices, links);
 
         dt = new DefaultTopology(PID, graphDescription);
         assertEquals("incorrect supplier", PID, dt.providerId());
@@ -100,6 +101,105 @@ public class DefaultTopologyTest {
         assertEquals("incorrect path count", 1, paths.size());
     }
 
+    @Test
+    public void pathCache() {
+        Set<Path> paths = dt.getPaths(D1, D3);
+        assertEquals("incorrect miss count", 1, dt.pathCacheMisses());
+        assertEquals("incorrect hit count", 0, dt.pathCacheHits());
+
+        assertEquals("incorrect cached paths", paths, dt.getPaths(D1, D3));
+        assertEquals("incorrect miss count", 1, dt.pathCacheMisses());
+        assertEquals("incorrect hit count", 1, dt.pathCacheHits());
+
+        // Paths for explicit link-weights are never cached
+        dt.getPaths(D1, D3, WEIGHT);
+        dt.getPaths(D1, D3, WEIGHT);
+        assertEquals("incorrect miss count", 1, dt.pathCacheMisses());
+        assertEquals("incorrect hit count", 1, dt.pathCacheHits());
+    }
+
+    @Test
+    public void precomputedPaths() {
+        DefaultTopology.setMaxPathPrecomputeDevices(5);
+        try {
+            DefaultTopology pdt = new DefaultTopology(PID, graphDescription);
+            for (DeviceId src : of(D1, D2, D3, D4, D5)) {
+                for (DeviceId dst : of(D1, D2, D3, D4, D5)) {
+                    assertEquals("incorrect precomputed paths",
+                                 dt.getPaths(src, dst), pdt.getPaths(src, dst));
+                }
+            }
+            assertEquals("incorrect miss count", 1, pdt.pathCacheMisses());
+            assertEquals("incorrect hit count", 24, pdt.pathCacheHits());
+        } finally {
+            DefaultTopology.setMaxPathPrecomputeDevices(0);
+        }
+    }
+
+    @Test
+    public void incrementalIntraClusterChange() {
+        // Add a pair of links and drop one, all within the D1-D4 cluster
+        GraphDescription desc = graphDescription(link("1", 1, "2", 1), link("2", 1, "1", 1),
+                                                 link("3", 2, "2", 2), link("2", 2, "3", 2),
+                                                 link("1", 3, "4", 3), link("4", 3, "1", 3),
+                                                 link("3", 4, "4", 4),
+                                                 link("1", 5, "3", 5), link("3", 5, "1", 5));
+        DefaultTopology idt = new DefaultTopology(PID, desc, null, dt);
+        assertSame("cluster should be reused", dt.getCluster(D5), idt.getCluster(D5));
+        assertNotSame("cluster should be updated", dt.getCluster(D1), idt.getCluster(D1));
+        assertSameClusters(new DefaultTopology(PID, desc), idt);
+    }
+
+    @Test
+    public void incrementalClusterSplit() {
+        // Dropping the links to D2 splits it off into its own cluster
+        GraphDescription desc = graphDescription(link("3", 2, "2", 2),
+                                                 link("1", 3, "4", 3), link("4", 3, "1", 3),
+                                                 link("3", 4, "4", 4), link("4", 4, "3", 4));
+        DefaultTopology idt = new DefaultTopology(PID, desc, null, dt);
+        assertEquals("incorrect cluster count", 3, idt.clusterCount());
+        assertSameClusters(new DefaultTopology(PID, desc), idt);
+    }
+
+    @Test
+    public void incrementalClusterMerge() {
+        // Links to D5 merge it into the D1-D4 cluster
+        GraphDescription desc = graphDescription(link("1", 1, "2", 1), link("2", 1, "1", 1),
+                                                 link("3", 2, "2", 2), link("2", 2, "3", 2),
+                                                 link("1", 3, "4", 3), link("4", 3, "1", 3),
+                                                 link("3", 4, "4", 4), link("4", 4, "3", 4),
+                                                 link("4", 5, "5", 5), link("5", 5, "4", 5));
+        DefaultTopology idt = new DefaultTopology(PID, desc, null, dt);
+        assertEquals("incorrect cluster count", 1, idt.clusterCount());
+        assertSameClusters(new DefaultTopology(PID, desc), idt);
+    }
+
+    // Verifies that the incrementally built topology matches the one
+    // built from scratch.
+    private void assertSameClusters(DefaultTopology expected, DefaultTopology actual) {
+        assertEquals("incorrect cluster count", expected.clusterCount(), actual.clusterCount());
+        for (DeviceId deviceId : of(D1, D2, D3, D4, D5)) {
+            TopologyCluster ec = expected.getCluster(deviceId);
+            TopologyCluster ac = actual.getCluster(deviceId);
+            assertEquals("incorrect cluster devices",
+                         expected.getClusterDevices(ec), actual.getClusterDevices(ac));
+            assertEquals("incorrect cluster links",
+                         expected.getClusterLinks(ec), actual.getClusterLinks(ac));
+            assertEquals("incorrect link count", ec.linkCount(), ac.linkCount());
+            assertEquals("incorrect broadcast set size",
+                         expected.broadcastSetSize(ec.id()), actual.broadcastSetSize(ac.id()));
+        }
+    }
+
+    // Short-hand for creating a description of the five test devices
+    // connected by the given links.
+    private static GraphDescription graphDescription(Link... links) {
+        return new DefaultGraphDescription(System.nanoTime(), System.currentTimeMillis(),
+                                           of(device("1"), device("2"), device("3"),
+                                              device("4"), device("5")),
+                                           copyOf(links));
+    }
+
     @Test
     public void pointRelated() {
         assertTrue("should be infrastructure point",
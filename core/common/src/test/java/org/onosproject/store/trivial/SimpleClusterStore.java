@@ -127,6 +127,21 @@ public class SimpleClusterStore
         return instance.id();
     }
 
+    @Override
+    public int getPartitionCount() {
+        return 1;
+    }
+
+    @Override
+    public int getPartition(Key intentKey) {
+        return 0;
+    }
+
+    @Override
+    public boolean isMine(int partition) {
+        return true;
+    }
+
     @Override
     public void addListener(IntentPartitionEventListener listener) {
         listenerRegistry.addListener(listener);
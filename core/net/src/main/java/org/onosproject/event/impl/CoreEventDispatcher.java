@@ -15,18 +15,34 @@
  */
 package org.onosproject.event.impl;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.ImmutableMap;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.ReferenceCardinality;
+import org.apache.felix.scr.annotations.ReferencePolicy;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.SharedExecutors;
+import org.onosproject.cfg.ComponentConfigService;
+import org.onosproject.core.MetricsHelper;
 import org.onosproject.event.AbstractEvent;
 import org.onosproject.event.DefaultEventSinkRegistry;
 import org.onosproject.event.Event;
 import org.onosproject.event.EventDeliveryService;
 import org.onosproject.event.EventSink;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
+import java.util.Dictionary;
+import java.util.Map;
 import java.util.TimerTask;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
@@ -34,17 +50,28 @@ import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
+import static org.onlab.util.Tools.get;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * Simple implementation of an event dispatching service.
+ * <p>
+ * Events are dispatched through one or more lanes, each with its own queue
+ * and dispatch thread. Events of a given class always travel through the
+ * same lane and are therefore delivered in the order they were posted;
+ * no ordering is guaranteed between events assigned to different lanes.
+ * Event classes not explicitly assigned to a lane use lane 0.
+ * </p>
  */
 @Component(immediate = true)
 @Service
 public class CoreEventDispatcher extends DefaultEventSinkRegistry
-        implements EventDeliveryService {
+        implements EventDeliveryService, MetricsHelper {
 
     private final Logger log = getLogger(getClass());
 
@@ -52,35 +79,62 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
     private static final long DEFAULT_EXECUTE_MS = 5_000; // ms
     private static final long WATCHDOG_MS = 250; // ms
 
-    private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+    private static final int DEFAULT_DISPATCH_LANES = 1;
+    private static final String DEFAULT_LANE_ASSIGNMENTS = "";
 
-    private final ExecutorService executor =
-            newSingleThreadExecutor(groupedThreads("onos/event", "dispatch-%d"));
+    private static final String METRICS_COMPONENT = "EventDispatcher";
+
+    @Property(name = "dispatchLanes", intValue = DEFAULT_DISPATCH_LANES,
+            label = "Number of event dispatch lanes")
+    private int dispatchLanes = DEFAULT_DISPATCH_LANES;
+
+    @Property(name = "laneAssignments", value = DEFAULT_LANE_ASSIGNMENTS,
+            label = "Comma-separated list of eventClass=lane assignments; " +
+                    "unassigned event classes use lane 0")
+    private String laneAssignments = DEFAULT_LANE_ASSIGNMENTS;
+
+    // Optional, as the configuration service itself depends on event delivery
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY, policy = ReferencePolicy.DYNAMIC)
+    protected ComponentConfigService cfgService;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
 
     @SuppressWarnings("unchecked")
     private static final Event KILL_PILL = new AbstractEvent(null, 0) {
     };
 
-    private DispatchLoop dispatchLoop;
+    private volatile DispatchLane[] lanes = new DispatchLane[0];
+    private volatile Map<String, Integer> laneByEventClass = ImmutableMap.of();
     private long maxProcessMillis = DEFAULT_EXECUTE_MS;
 
     // Means to detect long-running sinks
     private TimerTask watchdog;
-    private EventSink lastSink;
-    private long lastStart = 0;
-    private Future<?> dispatchFuture;
 
     @Override
     public void post(Event event) {
-        if (!events.add(event)) {
+        if (!laneFor(event).events.add(event)) {
             log.error("Unable to post event {}", event);
         }
     }
 
+    protected void bindCfgService(ComponentConfigService service) {
+        cfgService = service;
+        cfgService.registerProperties(getClass());
+    }
+
+    protected void unbindCfgService(ComponentConfigService service) {
+        if (cfgService == service) {
+            cfgService = null;
+        }
+    }
+
     @Activate
-    public void activate() {
-        dispatchLoop = new DispatchLoop();
-        dispatchFuture = executor.submit(dispatchLoop);
+    public void activate(ComponentContext context) {
+        modified(context);
+        if (lanes.length == 0) {
+            configureLanes(dispatchLanes, laneAssignments);
+        }
         watchdog = new Watchdog();
         SharedExecutors.getTimer().schedule(watchdog, WATCHDOG_MS, WATCHDOG_MS);
         log.info("Started");
@@ -88,12 +142,115 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
 
     @Deactivate
     public void deactivate() {
-        dispatchLoop.stop();
+        if (cfgService != null) {
+            cfgService.unregisterProperties(getClass(), false);
+        }
         watchdog.cancel();
-        post(KILL_PILL);
+        DispatchLane[] oldLanes = lanes;
+        lanes = new DispatchLane[0];
+        for (DispatchLane lane : oldLanes) {
+            lane.removeMetrics();
+        }
+        stopLanes(oldLanes);
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+
+        Dictionary<?, ?> properties = context.getProperties();
+        int newDispatchLanes;
+        String newLaneAssignments;
+        try {
+            String s = get(properties, "dispatchLanes");
+            newDispatchLanes = isNullOrEmpty(s) ? dispatchLanes : Integer.parseInt(s.trim());
+
+            s = get(properties, "laneAssignments");
+            newLaneAssignments = s == null ? laneAssignments : s.trim();
+        } catch (NumberFormatException | ClassCastException e) {
+            newDispatchLanes = DEFAULT_DISPATCH_LANES;
+            newLaneAssignments = DEFAULT_LANE_ASSIGNMENTS;
+        }
+
+        if (newDispatchLanes != dispatchLanes || !newLaneAssignments.equals(laneAssignments)) {
+            try {
+                configureLanes(newDispatchLanes, newLaneAssignments);
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid dispatch lane configuration: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Sets up the dispatch lanes and the assignment of event classes to them.
+     * If the number of lanes changes, the old lanes are replaced and any
+     * events still queued on them are handed over to the new ones.
+     *
+     * @param laneCount   number of dispatch lanes
+     * @param assignments comma-separated eventClass=lane assignments
+     */
+    synchronized void configureLanes(int laneCount, String assignments) {
+        checkArgument(laneCount > 0, "Number of dispatch lanes must be positive");
+        Map<String, Integer> newAssignments = parseAssignments(assignments, laneCount);
+
+        DispatchLane[] oldLanes = lanes;
+        laneByEventClass = newAssignments;
+        if (laneCount != oldLanes.length) {
+            for (DispatchLane lane : oldLanes) {
+                lane.removeMetrics();
+            }
+            DispatchLane[] newLanes = new DispatchLane[laneCount];
+            for (int i = 0; i < laneCount; i++) {
+                newLanes[i] = new DispatchLane(i);
+                newLanes[i].start();
+            }
+            lanes = newLanes;
+            stopLanes(oldLanes);
+        }
+        dispatchLanes = laneCount;
+        laneAssignments = assignments;
+        log.info("Configured with dispatchLanes = {}; laneAssignments = {}",
+                 dispatchLanes, laneByEventClass);
+    }
+
+    private static Map<String, Integer> parseAssignments(String assignments, int laneCount) {
+        ImmutableMap.Builder<String, Integer> builder = ImmutableMap.builder();
+        if (isNullOrEmpty(assignments)) {
+            return builder.build();
+        }
+        for (String assignment : assignments.split(",")) {
+            if (assignment.trim().isEmpty()) {
+                continue;
+            }
+            String[] parts = assignment.split("=");
+            checkArgument(parts.length == 2, "Malformed lane assignment %s", assignment);
+            int lane = Integer.parseInt(parts[1].trim());
+            checkArgument(lane >= 0 && lane < laneCount,
+                          "Lane %s of %s is out of range", lane, parts[0].trim());
+            builder.put(parts[0].trim(), lane);
+        }
+        return builder.build();
+    }
+
+    private void stopLanes(DispatchLane[] toStop) {
+        for (DispatchLane lane : toStop) {
+            lane.stop();
+        }
+    }
+
+    // Returns the lane through which the given event is to be dispatched.
+    private DispatchLane laneFor(Event event) {
+        DispatchLane[] current = lanes;
+        if (current.length == 1) {
+            return current[0];
+        }
+        Integer lane = laneByEventClass.get(event.getClass().getName());
+        return current[lane != null && lane < current.length ? lane : 0];
+    }
+
     @Override
     public void setDispatchTimeLimit(long millis) {
         checkArgument(millis >= WATCHDOG_MS,
@@ -106,19 +263,91 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         return maxProcessMillis;
     }
 
-    // Auxiliary event dispatching loop that feeds off the events queue.
+    @Override
+    public MetricsService metricsService() {
+        return metricsService;
+    }
+
+    // Queue of events with its own dispatch thread and watchdog bookkeeping.
+    private class DispatchLane {
+        private final int index;
+        private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+        private final ExecutorService executor;
+        private final Timer processTimer;
+
+        private DispatchLoop dispatchLoop;
+        private Future<?> dispatchFuture;
+
+        // Means to detect long-running sinks
+        private volatile EventSink lastSink;
+        private volatile long lastStart = 0;
+
+        DispatchLane(int index) {
+            this.index = index;
+            this.executor = newSingleThreadExecutor(
+                    groupedThreads("onos/event", "dispatch-" + index + "-%d"));
+            this.processTimer = createTimer(METRICS_COMPONENT, feature(), "processTime");
+            if (metricsService != null) {
+                MetricsComponent c = metricsService.registerComponent(METRICS_COMPONENT);
+                MetricsFeature f = c.registerFeature(feature());
+                metricsService.registerMetric(c, f, "queueDepth", (Gauge<Integer>) events::size);
+            }
+        }
+
+        private String feature() {
+            return "lane-" + index;
+        }
+
+        synchronized void start() {
+            dispatchLoop = new DispatchLoop(this);
+            dispatchFuture = executor.submit(dispatchLoop);
+        }
+
+        // Stops the dispatch thread once it reaches the end of the current backlog.
+        synchronized void stop() {
+            events.add(KILL_PILL);
+            executor.shutdown();
+        }
+
+        void removeMetrics() {
+            if (metricsService != null) {
+                MetricsComponent c = metricsService.registerComponent(METRICS_COMPONENT);
+                MetricsFeature f = c.registerFeature(feature());
+                metricsService.removeMetric(c, f, "queueDepth");
+                metricsService.removeMetric(c, f, "processTime");
+            }
+        }
+
+        // Cancels the current dispatch loop and submits a new one.
+        synchronized void restart() {
+            if (executor.isShutdown()) {
+                return;
+            }
+            dispatchLoop.stop();
+            dispatchFuture.cancel(true);
+            start();
+        }
+    }
+
+    // Auxiliary event dispatching loop that feeds off a lane's events queue.
     private class DispatchLoop implements Runnable {
+        private final DispatchLane lane;
         private volatile boolean stopped;
 
+        DispatchLoop(DispatchLane lane) {
+            this.lane = lane;
+        }
+
         @Override
         public void run() {
             stopped = false;
-            log.info("Dispatch loop initiated");
+            log.info("Dispatch loop initiated for lane {}", lane.index);
             while (!stopped) {
                 try {
                     // Fetch the next event and if it is the kill-pill, bail
-                    Event event = events.take();
+                    Event event = lane.events.take();
                     if (event == KILL_PILL) {
+                        handOver();
                         break;
                     }
                     process(event);
@@ -128,7 +357,7 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
                     log.warn("Error encountered while dispatching event:", e);
                 }
             }
-            log.info("Dispatch loop terminated");
+            log.info("Dispatch loop terminated for lane {}", lane.index);
         }
 
         // Locate the sink for the event class and use it to process the event
@@ -136,16 +365,34 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
         private void process(Event event) {
             EventSink sink = getSink(event.getClass());
             if (sink != null) {
-                lastSink = sink;
-                lastStart = System.currentTimeMillis();
-                sink.process(event);
-                lastStart = 0;
+                lane.lastSink = sink;
+                lane.lastStart = System.currentTimeMillis();
+                final Timer.Context timer = startTimer(lane.processTimer);
+                try {
+                    sink.process(event);
+                } finally {
+                    stopTimer(timer);
+                    lane.lastStart = 0;
+                }
             } else {
                 log.warn("No sink registered for event class {}",
                          event.getClass().getName());
             }
         }
 
+        // Re-posts events that raced past the kill-pill of a retired lane.
+        private void handOver() {
+            if (lanes.length == 0) {
+                return;
+            }
+            Event event;
+            while ((event = lane.events.poll()) != null) {
+                if (event != KILL_PILL) {
+                    post(event);
+                }
+            }
+        }
+
         void stop() {
             stopped = true;
         }
@@ -155,20 +402,21 @@ public class CoreEventDispatcher extends DefaultEventSinkRegistry
     private class Watchdog extends TimerTask {
         @Override
         public void run() {
-            long delta = System.currentTimeMillis() - lastStart;
-            if (lastStart > 0 && delta > maxProcessMillis) {
-                lastStart = 0;
-                log.warn("Event sink {} exceeded execution time limit: {} ms; spawning new dispatch loop",
-                          lastSink.getClass().getName(), delta);
-
-                // Notify the sink that it has exceeded its time limit.
-                lastSink.onProcessLimit();
-
-                // Cancel the old dispatch loop and submit a new one.
-                dispatchLoop.stop();
-                dispatchLoop = new DispatchLoop();
-                dispatchFuture.cancel(true);
-                dispatchFuture = executor.submit(dispatchLoop);
+            for (DispatchLane lane : lanes) {
+                long lastStart = lane.lastStart;
+                long delta = System.currentTimeMillis() - lastStart;
+                if (lastStart > 0 && delta > maxProcessMillis) {
+                    lane.lastStart = 0;
+                    log.warn("Event sink {} exceeded execution time limit: {} ms; " +
+                                     "spawning new dispatch loop for lane {}",
+                             lane.lastSink.getClass().getName(), delta, lane.index);
+
+                    // Notify the sink that it has exceeded its time limit.
+                    lane.lastSink.onProcessLimit();
+
+                    // Cancel the old dispatch loop and submit a new one.
+                    lane.restart();
+                }
             }
         }
     }
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.flow.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent index of the flow entries of a single device, used to reconcile
+ * the entries reported by the device against those held in the store.
+ * <p>
+ * The index is primed once from the store and is then kept up to date as
+ * flows are requested, reported and removed, so that reconciliation neither
+ * copies nor scans the stored entries, and looks up in the store only flows
+ * it does not know the stored entry of yet. Flows are indexed by flow rule
+ * identity rather than flow id, so that flows with colliding ids are kept
+ * apart. Entries reported by the device are stamped with the generation of
+ * the current reconciliation round. A round may span several parts of a
+ * multi-part statistics reply; once the last part has been processed,
+ * indexed flows without a current stamp are the ones missing from the
+ * device.
+ * </p>
+ * <p>
+ * The index relies on the stored entries being updated in place, and on
+ * flows leaving the store of the master only through reconciliation; it
+ * must be dropped whenever the mastership of the device changes.
+ * The index is not thread-safe; callers are expected to synchronize on it.
+ * </p>
+ */
+final class DeviceFlowIndex {
+
+    private final Map<FlowRule, Record> records = Maps.newHashMap();
+    private long generation;
+    private boolean inRound;
+
+    /**
+     * Creates an index of the given stored flow entries.
+     *
+     * @param storedRules flow entries presently held in the store
+     */
+    DeviceFlowIndex(Iterable<FlowEntry> storedRules) {
+        storedRules.forEach(entry -> records.put(entry, new Record(entry, entry)));
+    }
+
+    /**
+     * Per-flow reconciliation state, updated in place on each poll.
+     */
+    static final class Record {
+        private final FlowRule rule;
+        private FlowEntry stored;
+        private long generation = -1;
+        private long lastSeen = -1;
+
+        private Record(FlowRule rule, FlowEntry stored) {
+            this.rule = rule;
+            this.stored = stored;
+        }
+
+        /**
+         * Returns the indexed flow rule.
+         *
+         * @return flow rule
+         */
+        FlowRule rule() {
+            return rule;
+        }
+
+        /**
+         * Returns the stored flow entry of the flow, if known.
+         *
+         * @return stored flow entry; null if not looked up yet
+         */
+        FlowEntry stored() {
+            return stored;
+        }
+
+        /**
+         * Returns the last time, in millis, the flow was known to be live;
+         * -1 if the flow has not been checked yet.
+         *
+         * @return last seen time
+         */
+        long lastSeen() {
+            return lastSeen;
+        }
+
+        /**
+         * Records the last time the flow was known to be live.
+         *
+         * @param lastSeen time in millis
+         */
+        void setLastSeen(long lastSeen) {
+            this.lastSeen = lastSeen;
+        }
+    }
+
+    /**
+     * Starts a new reconciliation round, abandoning any round still in
+     * progress.
+     *
+     * @return generation of the new round
+     */
+    long beginRound() {
+        generation++;
+        inRound = true;
+        return generation;
+    }
+
+    /**
+     * Continues the round in progress with the next part of a multi-part
+     * statistics reply. A new round is started if none is in progress, or if
+     * the part reports a flow already reported during the current round,
+     * meaning the earlier reply was abandoned before its last part arrived.
+     *
+     * @param part flow entries reported by the device in this part
+     * @return generation of the current round
+     */
+    long continueRound(Iterable<FlowEntry> part) {
+        if (!inRound) {
+            return beginRound();
+        }
+        for (FlowEntry rule : part) {
+            Record record = records.get(rule);
+            if (record != null && record.generation == generation) {
+                return beginRound();
+            }
+        }
+        return generation;
+    }
+
+    /**
+     * Indexes the specified flow rule as newly requested. The store holds a
+     * new entry for the flow, which is looked up when the flow is next
+     * reconciled.
+     *
+     * @param rule flow rule
+     */
+    void track(FlowRule rule) {
+        Record record = records.get(rule);
+        if (record == null) {
+            records.put(rule, new Record(rule, null));
+        } else {
+            record.stored = null;
+        }
+    }
+
+    /**
+     * Returns the record of the specified flow rule.
+     *
+     * @param rule flow rule, as reported by the device or held in the store
+     * @return reconciliation record; null if the flow is not indexed
+     */
+    Record get(FlowRule rule) {
+        return records.get(rule);
+    }
+
+    /**
+     * Marks the stored flow entry as reported by the device. The entry is
+     * stamped with the current generation only while a round is in progress.
+     *
+     * @param storedRule stored flow entry
+     * @return reconciliation record of the flow entry
+     */
+    Record seen(FlowEntry storedRule) {
+        Record record = records.get(storedRule);
+        if (record == null) {
+            record = new Record(storedRule, storedRule);
+            records.put(storedRule, record);
+        }
+        record.stored = storedRule;
+        if (inRound) {
+            record.generation = generation;
+        }
+        return record;
+    }
+
+    /**
+     * Ends the current round.
+     *
+     * @return records of the indexed flows that were not reported by the
+     * device
+     */
+    List<Record> endRound() {
+        inRound = false;
+        List<Record> missing = Lists.newArrayList();
+        for (Record record : records.values()) {
+            if (record.generation != generation) {
+                missing.add(record);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Removes the record of the specified flow rule.
+     *
+     * @param rule flow rule
+     */
+    void remove(FlowRule rule) {
+        records.remove(rule);
+    }
+
+    /**
+     * Returns the number of flows presently indexed.
+     *
+     * @return number of records
+     */
+    int size() {
+        return records.size();
+    }
+}
@@ -37,8 +37,13 @@ import org.onosproject.net.provider.AbstractListenerProviderRegistry;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
 import org.onosproject.core.IdGenerator;
+import org.onosproject.mastership.MastershipEvent;
+import org.onosproject.mastership.MastershipListener;
+import org.onosproject.mastership.MastershipService;
 import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
+import org.onosproject.net.device.DeviceEvent;
+import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.flow.CompletedBatchOperation;
 import org.onosproject.net.flow.DefaultFlowEntry;
@@ -104,6 +109,12 @@ public class FlowRuleManager
     private final Logger log = getLogger(getClass());
 
     private final FlowRuleStoreDelegate delegate = new InternalStoreDelegate();
+    private final DeviceListener deviceListener = new InternalDeviceListener();
+    private final MastershipListener mastershipListener = new InternalMastershipListener();
+
+    // Per-device reconciliation state, dropped whenever a device goes away or
+    // changes master
+    private final Map<DeviceId, DeviceFlowIndex> flowIndexes = Maps.newConcurrentMap();
 
     protected ExecutorService deviceInstallers =
             Executors.newFixedThreadPool(32, groupedThreads("onos/flowservice", "device-installer-%d"));
@@ -122,6 +133,9 @@ public class FlowRuleManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected DeviceService deviceService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MastershipService mastershipService;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected CoreService coreService;
 
@@ -137,6 +151,8 @@ public class FlowRuleManager
 
         store.setDelegate(delegate);
         eventDispatcher.addSink(FlowRuleEvent.class, listenerRegistry);
+        deviceService.addListener(deviceListener);
+        mastershipService.addListener(mastershipListener);
         log.info("Started");
     }
 
@@ -147,6 +163,9 @@ public class FlowRuleManager
         operationsService.shutdownNow();
         store.unsetDelegate(delegate);
         eventDispatcher.removeSink(FlowRuleEvent.class);
+        deviceService.removeListener(deviceListener);
+        mastershipService.removeListener(mastershipListener);
+        flowIndexes.clear();
         log.info("Stopped");
     }
 
@@ -253,8 +272,6 @@ public class FlowRuleManager
             extends AbstractProviderService<FlowRuleProvider>
             implements FlowRuleProviderService {
 
-        final Map<FlowEntry, Long> lastSeen = Maps.newConcurrentMap();
-
         protected InternalFlowRuleProviderService(FlowRuleProvider provider) {
             super(provider);
         }
@@ -263,7 +280,7 @@ public class FlowRuleManager
         public void flowRemoved(FlowEntry flowEntry) {
             checkNotNull(flowEntry, FLOW_RULE_NULL);
             checkValidity();
-            lastSeen.remove(flowEntry);
+            untrackFlowRule(flowEntry);
             FlowEntry stored = store.getFlowEntry(flowEntry);
             if (stored == null) {
                 log.debug("Rule already evicted from store: {}", flowEntry);
@@ -301,6 +318,7 @@ public class FlowRuleManager
             switch (flowRule.state()) {
                 case PENDING_REMOVE:
                 case REMOVED:
+                    untrackFlowRule(flowRule);
                     event = store.removeFlowRule(flowRule);
                     break;
                 case ADDED:
@@ -333,11 +351,12 @@ public class FlowRuleManager
             log.debug("Flow {} is on switch but not in store.", flowRule);
         }
 
-        private void flowAdded(FlowEntry flowEntry) {
+        private void flowAdded(FlowEntry flowEntry, FlowEntry storedRule,
+                               DeviceFlowIndex.Record record) {
             checkNotNull(flowEntry, FLOW_RULE_NULL);
             checkValidity();
 
-            if (checkRuleLiveness(flowEntry, store.getFlowEntry(flowEntry))) {
+            if (checkRuleLiveness(flowEntry, storedRule, record)) {
                 FlowRuleEvent event = store.addOrUpdateFlowRule(flowEntry);
                 if (event == null) {
                     log.debug("No flow store event generated.");
@@ -351,7 +370,8 @@ public class FlowRuleManager
             }
         }
 
-        private boolean checkRuleLiveness(FlowEntry swRule, FlowEntry storedRule) {
+        private boolean checkRuleLiveness(FlowEntry swRule, FlowEntry storedRule,
+                                          DeviceFlowIndex.Record record) {
             if (storedRule == null) {
                 return false;
             }
@@ -362,22 +382,17 @@ public class FlowRuleManager
             final long timeout = storedRule.timeout() * 1000;
             final long currentTime = System.currentTimeMillis();
             if (storedRule.packets() != swRule.packets()) {
-                lastSeen.put(storedRule, currentTime);
+                record.setLastSeen(currentTime);
                 return true;
             }
-            if (!lastSeen.containsKey(storedRule)) {
+            if (record.lastSeen() < 0) {
                 // checking for the first time
-                lastSeen.put(storedRule, storedRule.lastSeen());
+                record.setLastSeen(storedRule.lastSeen());
                 // Use following if lastSeen attr. was removed.
-                //lastSeen.put(storedRule, currentTime);
-            }
-            Long last = lastSeen.get(storedRule);
-            if (last == null) {
-                // concurrently removed? let the liveness check fail
-                return false;
+                //record.setLastSeen(currentTime);
             }
 
-            if ((currentTime - last) <= timeout) {
+            if ((currentTime - record.lastSeen()) <= timeout) {
                 return true;
             }
             return false;
@@ -385,56 +400,85 @@ public class FlowRuleManager
 
         @Override
         public void pushFlowMetrics(DeviceId deviceId, Iterable<FlowEntry> flowEntries) {
-            pushFlowMetricsInternal(deviceId, flowEntries, true);
+            pushFlowMetricsInternal(deviceId, flowEntries, true, false, true);
+        }
+
+        @Override
+        public void pushFlowMetricsPart(DeviceId deviceId, Iterable<FlowEntry> flowEntries,
+                                        boolean lastPart) {
+            pushFlowMetricsInternal(deviceId, flowEntries, true, true, lastPart);
         }
 
         @Override
         public void pushFlowMetricsWithoutFlowMissing(DeviceId deviceId, Iterable<FlowEntry> flowEntries) {
-            pushFlowMetricsInternal(deviceId, flowEntries, false);
+            pushFlowMetricsInternal(deviceId, flowEntries, false, false, false);
         }
 
         private void pushFlowMetricsInternal(DeviceId deviceId, Iterable<FlowEntry> flowEntries,
-                                             boolean useMissingFlow) {
-            Map<FlowEntry, FlowEntry> storedRules = Maps.newHashMap();
-            store.getFlowEntries(deviceId).forEach(f -> storedRules.put(f, f));
-
-            for (FlowEntry rule : flowEntries) {
-                try {
-                    FlowEntry storedRule = storedRules.remove(rule);
-                    if (storedRule != null) {
-                        if (storedRule.exactMatch(rule)) {
-                            // we both have the rule, let's update some info then.
-                            flowAdded(rule);
-                        } else {
-                            // the two rules are not an exact match - remove the
-                            // switch's rule and install our rule
-                            extraneousFlow(rule);
-                            flowMissing(storedRule);
-                        }
+                                             boolean useMissingFlow, boolean part,
+                                             boolean lastPart) {
+            DeviceFlowIndex index = flowIndexes.computeIfAbsent(
+                    deviceId, k -> new DeviceFlowIndex(store.getFlowEntries(deviceId)));
+            synchronized (index) {
+                if (useMissingFlow) {
+                    // a complete report always starts afresh; a part either
+                    // continues the current round or replaces an abandoned one
+                    if (part) {
+                        index.continueRound(flowEntries);
                     } else {
-                        // the device has a rule the store does not have
-                        if (!allowExtraneousRules) {
-                            extraneousFlow(rule);
-                        }
+                        index.beginRound();
                     }
-                } catch (Exception e) {
-                    log.debug("Can't process added or extra rule {}", e.getMessage());
-                    continue;
                 }
-            }
 
-            // DO NOT reinstall
-            if (useMissingFlow) {
-                for (FlowEntry rule : storedRules.keySet()) {
+                for (FlowEntry rule : flowEntries) {
                     try {
-                        // there are rules in the store that aren't on the switch
-                        log.debug("Adding rule in store, but not on switch {}", rule);
-                        flowMissing(rule);
+                        // the store is only consulted for flows not indexed with their entry
+                        DeviceFlowIndex.Record known = index.get(rule);
+                        FlowEntry storedRule = known != null && known.stored() != null ?
+                                known.stored() : store.getFlowEntry(rule);
+                        if (storedRule != null) {
+                            DeviceFlowIndex.Record record = index.seen(storedRule);
+                            if (storedRule.exactMatch(rule)) {
+                                // we both have the rule, let's update some info then.
+                                flowAdded(rule, storedRule, record);
+                            } else {
+                                // the two rules are not an exact match - remove the
+                                // switch's rule and install our rule
+                                extraneousFlow(rule);
+                                flowMissing(storedRule);
+                            }
+                        } else {
+                            // the device has a rule the store does not have
+                            if (!allowExtraneousRules) {
+                                extraneousFlow(rule);
+                            }
+                        }
                     } catch (Exception e) {
-                        log.debug("Can't add missing flow rule:", e);
+                        log.debug("Can't process added or extra rule {}", e.getMessage());
                         continue;
                     }
                 }
+
+                // DO NOT reinstall
+                if (useMissingFlow && lastPart) {
+                    for (DeviceFlowIndex.Record missing : index.endRound()) {
+                        FlowEntry rule = missing.stored() != null ?
+                                missing.stored() : store.getFlowEntry(missing.rule());
+                        if (rule == null) {
+                            // requested, but no longer in the store; stop tracking it
+                            index.remove(missing.rule());
+                            continue;
+                        }
+                        try {
+                            // there are rules in the store that aren't on the switch
+                            log.debug("Adding rule in store, but not on switch {}", rule);
+                            flowMissing(rule);
+                        } catch (Exception e) {
+                            log.debug("Can't add missing flow rule:", e);
+                            continue;
+                        }
+                    }
+                }
             }
         }
 
@@ -470,6 +514,7 @@ public class FlowRuleManager
                             switch (op.operator()) {
 
                                 case ADD:
+                                    trackFlowRule(op.target());
                                     post(new FlowRuleEvent(RULE_ADD_REQUESTED,
                                                            op.target()));
                                     break;
@@ -518,6 +563,61 @@ public class FlowRuleManager
         }
     }
 
+    // Indexes a newly requested flow rule for reconciliation; devices without
+    // an index yet will pick it up when the index is primed from the store.
+    private void trackFlowRule(FlowRule rule) {
+        DeviceFlowIndex index = flowIndexes.get(rule.deviceId());
+        if (index != null) {
+            synchronized (index) {
+                index.track(rule);
+            }
+        }
+    }
+
+    // Stops indexing a flow rule that leaves the store.
+    private void untrackFlowRule(FlowRule rule) {
+        DeviceFlowIndex index = flowIndexes.get(rule.deviceId());
+        if (index != null) {
+            synchronized (index) {
+                index.remove(rule);
+            }
+        }
+    }
+
+    // Drops the reconciliation state of devices whose mastership changes; the
+    // store entries of a device are replaced when a node becomes its master,
+    // and are no longer updated locally once it stops being so.
+    private class InternalMastershipListener implements MastershipListener {
+
+        @Override
+        public void event(MastershipEvent event) {
+            if (event.type() == MastershipEvent.Type.MASTER_CHANGED) {
+                flowIndexes.remove(event.subject());
+            }
+        }
+    }
+
+    // Drops the reconciliation state of devices that go away, abandoning any
+    // round left waiting for the rest of a multi-part reply.
+    private class InternalDeviceListener implements DeviceListener {
+
+        @Override
+        public void event(DeviceEvent event) {
+            switch (event.type()) {
+                case DEVICE_REMOVED:
+                case DEVICE_AVAILABILITY_CHANGED:
+                    DeviceId deviceId = event.subject().id();
+                    if (!deviceService.isAvailable(deviceId)) {
+                        flowIndexes.remove(deviceId);
+                    }
+                    break;
+
+                default:
+                    break;
+            }
+        }
+    }
+
     private class FlowOperationsProcessor implements Runnable {
 
         private final List<Set<FlowRuleOperation>> stages;
@@ -15,7 +15,10 @@
  */
 package org.onosproject.net.packet.impl;
 
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
 import org.apache.felix.scr.annotations.Activate;
@@ -24,18 +27,32 @@ import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPacket;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.IPv6;
+import org.onlab.packet.PacketView;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.NodeId;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
+import org.onosproject.core.MetricsHelper;
 import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.device.DeviceEvent;
 import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.device.DeviceService;
+import org.onosproject.net.flow.DefaultTrafficSelector;
 import org.onosproject.net.flow.DefaultTrafficTreatment;
 import org.onosproject.net.flow.FlowRuleService;
 import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.criteria.Criterion;
+import org.onosproject.net.flow.criteria.EthTypeCriterion;
+import org.onosproject.net.flow.criteria.IPProtocolCriterion;
+import org.onosproject.net.flow.criteria.PortCriterion;
 import org.onosproject.net.flowobjective.DefaultForwardingObjective;
 import org.onosproject.net.flowobjective.FlowObjectiveService;
 import org.onosproject.net.flowobjective.ForwardingObjective;
@@ -43,6 +60,7 @@ import org.onosproject.net.flowobjective.Objective;
 import org.onosproject.net.flowobjective.ObjectiveContext;
 import org.onosproject.net.flowobjective.ObjectiveError;
 import org.onosproject.net.packet.DefaultPacketRequest;
+import org.onosproject.net.packet.InboundPacket;
 import org.onosproject.net.packet.OutboundPacket;
 import org.onosproject.net.packet.PacketContext;
 import org.onosproject.net.packet.PacketEvent;
@@ -60,12 +78,19 @@ import org.onosproject.net.provider.AbstractProviderRegistry;
 import org.onosproject.net.provider.AbstractProviderService;
 import org.slf4j.Logger;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.onosproject.security.AppPermission.Type.*;
@@ -78,7 +103,7 @@ import static org.slf4j.LoggerFactory.getLogger;
 @Service
 public class PacketManager
         extends AbstractProviderRegistry<PacketProvider, PacketProviderService>
-        implements PacketService, PacketProviderRegistry {
+        implements PacketService, PacketProviderRegistry, MetricsHelper {
 
     private final Logger log = getLogger(getClass());
 
@@ -86,6 +111,13 @@ public class PacketManager
             "Table Type cannot be null. For requesting packets without " +
                     "table hints, use other methods in the packetService API";
 
+    private static final String METRICS_COMPONENT = "PacketManager";
+    private static final String METRICS_FEATURE = "processors";
+
+    // Criteria used to filter packets handed to processors
+    private static final Set<Criterion.Type> FILTER_CRITERIA =
+            ImmutableSet.of(Criterion.Type.IN_PORT, Criterion.Type.IP_PROTO);
+
     private final PacketStoreDelegate delegate = new InternalStoreDelegate();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
@@ -106,11 +138,16 @@ public class PacketManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     private FlowObjectiveService objectiveService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
     private ExecutorService eventHandlingExecutor;
 
     private final DeviceListener deviceListener = new InternalDeviceListener();
 
     private final List<ProcessorEntry> processors = Lists.newCopyOnWriteArrayList();
+    private final AtomicLong processorIds = new AtomicLong();
+    private volatile DispatchIndex dispatchIndex = new DispatchIndex(ImmutableList.of());
 
     private ApplicationId appId;
     private NodeId localNodeId;
@@ -137,18 +174,28 @@ public class PacketManager
 
     @Override
     public void addProcessor(PacketProcessor processor, int priority) {
+        addProcessor(processor, priority, DefaultTrafficSelector.emptySelector());
+    }
+
+    @Override
+    public void addProcessor(PacketProcessor processor, int priority,
+                             TrafficSelector selector) {
         checkPermission(PACKET_EVENT);
         checkNotNull(processor, "Processor cannot be null");
-        ProcessorEntry entry = new ProcessorEntry(processor, priority);
-
-        // Insert the new processor according to its priority.
-        int i = 0;
-        for (; i < processors.size(); i++) {
-            if (priority < processors.get(i).priority()) {
-                break;
+        checkNotNull(selector, "Selector cannot be null");
+        ProcessorEntry entry = new ProcessorEntry(processor, priority, selector);
+
+        synchronized (processors) {
+            // Insert the new processor according to its priority.
+            int i = 0;
+            for (; i < processors.size(); i++) {
+                if (priority < processors.get(i).priority()) {
+                    break;
+                }
             }
+            processors.add(i, entry);
+            dispatchIndex = new DispatchIndex(processors);
         }
-        processors.add(i, entry);
     }
 
     @Override
@@ -156,12 +203,15 @@ public class PacketManager
         checkPermission(PACKET_EVENT);
         checkNotNull(processor, "Processor cannot be null");
 
-        // Remove the processor entry.
-        for (int i = 0; i < processors.size(); i++) {
-            if (processors.get(i).processor() == processor) {
-                processors.remove(i);
-                break;
+        synchronized (processors) {
+            // Remove the processor entry.
+            for (int i = 0; i < processors.size(); i++) {
+                if (processors.get(i).processor() == processor) {
+                    processors.remove(i).removeTimer();
+                    break;
+                }
             }
+            dispatchIndex = new DispatchIndex(processors);
         }
     }
 
@@ -356,14 +406,20 @@ public class PacketManager
 
         @Override
         public void processPacket(PacketContext context) {
-            // TODO filter packets sent to processors based on registrations
-            for (ProcessorEntry entry : processors) {
+            InboundPacket packet = context.inPacket();
+            for (ProcessorEntry entry : dispatchIndex.processors(packet)) {
+                if (!entry.matches(packet)) {
+                    continue;
+                }
+                Timer.Context timer = startTimer(entry.timer);
                 try {
                     long start = System.nanoTime();
                     entry.processor().process(context);
                     entry.addNanos(System.nanoTime() - start);
                 } catch (Exception e) {
                     log.warn("Packet processor {} threw an exception", entry.processor(), e);
+                } finally {
+                    stopTimer(timer);
                 }
             }
         }
@@ -429,18 +485,110 @@ public class PacketManager
         }
     }
 
+    @Override
+    public MetricsService metricsService() {
+        return metricsService;
+    }
+
+    // Indicates whether the packet satisfies the given criterion; the
+    // ethernet type is tested by the dispatch index.
+    private static boolean matches(Criterion criterion, InboundPacket packet) {
+        switch (criterion.type()) {
+            case IN_PORT:
+                return packet.receivedFrom() != null &&
+                        ((PortCriterion) criterion).port().equals(packet.receivedFrom().port());
+            case IP_PROTO:
+                short protocol = ((IPProtocolCriterion) criterion).protocol();
+                PacketView view = packet.view();
+                if (view != null) {
+                    return view.ipProtocol() == protocol;
+                }
+                Ethernet eth = packet.parsed();
+                IPacket payload = eth != null ? eth.getPayload() : null;
+                if (payload instanceof IPv4) {
+                    return (((IPv4) payload).getProtocol() & 0xff) == protocol;
+                } else if (payload instanceof IPv6) {
+                    return (((IPv6) payload).getNextHeader() & 0xff) == protocol;
+                }
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Immutable index of the packet processors by the ethernet type of
+     * interest. Each list retains the processor priority order.
+     */
+    private static final class DispatchIndex {
+        private final Map<Short, List<ProcessorEntry>> byEthType;
+        private final List<ProcessorEntry> anyEthType;
+
+        DispatchIndex(List<ProcessorEntry> processors) {
+            Map<Short, ImmutableList.Builder<ProcessorEntry>> builders = new HashMap<>();
+            processors.stream()
+                    .filter(e -> e.ethType != null)
+                    .forEach(e -> builders.putIfAbsent(e.ethType, ImmutableList.builder()));
+
+            ImmutableList.Builder<ProcessorEntry> anyBuilder = ImmutableList.builder();
+            for (ProcessorEntry entry : processors) {
+                if (entry.ethType == null) {
+                    anyBuilder.add(entry);
+                    builders.values().forEach(b -> b.add(entry));
+                } else {
+                    builders.get(entry.ethType).add(entry);
+                }
+            }
+
+            ImmutableMap.Builder<Short, List<ProcessorEntry>> mapBuilder = ImmutableMap.builder();
+            builders.forEach((ethType, b) -> mapBuilder.put(ethType, b.build()));
+            this.byEthType = mapBuilder.build();
+            this.anyEthType = anyBuilder.build();
+        }
+
+        // Returns the processors to be offered the given packet.
+        List<ProcessorEntry> processors(InboundPacket packet) {
+            // Prefer the header view, which spares parsing the packet
+            PacketView view = packet.view();
+            if (view != null) {
+                return view.isValid() ? byEthType.getOrDefault(view.ethType(), anyEthType) : anyEthType;
+            }
+            Ethernet eth = packet.parsed();
+            if (eth == null) {
+                return anyEthType;
+            }
+            return byEthType.getOrDefault(eth.getEtherType(), anyEthType);
+        }
+    }
+
     /**
      * Entity for tracking stats for a packet processor.
      */
     private class ProcessorEntry implements PacketProcessorEntry {
         private final PacketProcessor processor;
         private final int priority;
-        private long invocations = 0;
-        private long nanos = 0;
-
-        public ProcessorEntry(PacketProcessor processor, int priority) {
+        private final Short ethType;
+        private final Set<Criterion> criteria;
+        private final String timerName;
+        private final Timer timer;
+        private final AtomicLong invocations = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
+
+        public ProcessorEntry(PacketProcessor processor, int priority,
+                              TrafficSelector selector) {
             this.processor = processor;
             this.priority = priority;
+            EthTypeCriterion ethTypeCriterion =
+                    (EthTypeCriterion) selector.getCriterion(Criterion.Type.ETH_TYPE);
+            this.ethType = ethTypeCriterion != null ? ethTypeCriterion.ethType().toShort() : null;
+            this.criteria = ImmutableSet.copyOf(selector.criteria().stream()
+                    .filter(c -> FILTER_CRITERIA.contains(c.type()))
+                    .collect(Collectors.toSet()));
+            // Processors may share a class and priority; the id keeps their
+            // timers apart
+            this.timerName = processor.getClass().getName() + "-" + priority +
+                    "-" + processorIds.incrementAndGet();
+            this.timer = createTimer(METRICS_COMPONENT, METRICS_FEATURE, timerName);
         }
 
         @Override
@@ -455,22 +603,42 @@ public class PacketManager
 
         @Override
         public long invocations() {
-            return invocations;
+            return invocations.get();
         }
 
         @Override
         public long totalNanos() {
-            return nanos;
+            return nanos.get();
         }
 
         @Override
         public long averageNanos() {
-            return invocations > 0 ? nanos / invocations : 0;
+            long count = invocations.get();
+            return count > 0 ? nanos.get() / count : 0;
+        }
+
+        // Indicates whether the packet satisfies the criteria not covered
+        // by the dispatch index.
+        boolean matches(InboundPacket packet) {
+            for (Criterion criterion : criteria) {
+                if (!PacketManager.matches(criterion, packet)) {
+                    return false;
+                }
+            }
+            return true;
         }
 
         void addNanos(long nanos) {
-            this.nanos += nanos;
-            this.invocations++;
+            this.nanos.addAndGet(nanos);
+            this.invocations.incrementAndGet();
+        }
+
+        void removeTimer() {
+            if (metricsService != null) {
+                MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+                MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+                metricsService.removeMetric(component, feature, timerName);
+            }
         }
     }
 }
@@ -39,7 +39,7 @@ public class CoreEventDispatcherTest {
 
     @Before
     public void setUp() {
-        dispatcher.activate();
+        dispatcher.activate(null);
         dispatcher.addSink(Prickle.class, prickleSink);
         dispatcher.addSink(Goo.class, gooSink);
     }
@@ -76,6 +76,27 @@ public class CoreEventDispatcherTest {
         validate(prickleSink);
     }
 
+    @Test
+    public void slowSinkDoesNotBlockOtherLanes() throws Exception {
+        dispatcher.configureLanes(2, Slug.class.getName() + "=1");
+        SlugSink slugSink = new SlugSink();
+        dispatcher.addSink(Slug.class, slugSink);
+
+        slugSink.latch = new CountDownLatch(2);
+        dispatcher.post(new Slug("slow"));
+        dispatcher.post(new Slug("slower"));
+
+        prickleSink.latch = new CountDownLatch(1);
+        dispatcher.post(new Prickle("yo"));
+        prickleSink.latch.await(100, TimeUnit.MILLISECONDS);
+        validate(prickleSink, "yo");
+
+        slugSink.release.countDown();
+        slugSink.latch.await(100, TimeUnit.MILLISECONDS);
+        validate(slugSink, "slow", "slower");
+        dispatcher.removeSink(Slug.class);
+    }
+
     private void validate(Sink sink, String... strings) {
         int i = 0;
         assertEquals("incorrect event count", strings.length, sink.subjects.size());
@@ -104,6 +125,12 @@ public class CoreEventDispatcherTest {
         }
     }
 
+    private static class Slug extends Thing {
+        protected Slug(String subject) {
+            super(subject);
+        }
+    }
+
     private static class Sink {
         final List<String> subjects = new ArrayList<>();
         CountDownLatch latch;
@@ -129,4 +156,18 @@ public class CoreEventDispatcherTest {
         }
     }
 
+    private static class SlugSink extends Sink implements EventSink<Slug> {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void process(Slug event) {
+            try {
+                release.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            process(event.subject());
+        }
+    }
+
 }
@@ -26,11 +26,15 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.onosproject.cfg.ComponentConfigAdapter;
+import org.onosproject.cluster.RoleInfo;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreServiceAdapter;
 import org.onosproject.core.DefaultApplicationId;
 import org.onosproject.core.IdGenerator;
 import org.onosproject.common.event.impl.TestEventDispatcher;
+import org.onosproject.mastership.MastershipEvent;
+import org.onosproject.mastership.MastershipListener;
+import org.onosproject.mastership.MastershipServiceAdapter;
 import org.onosproject.net.DefaultDevice;
 import org.onosproject.net.Device;
 import org.onosproject.net.Device.Type;
@@ -38,6 +42,7 @@ import org.onosproject.net.DeviceId;
 import org.onosproject.net.MastershipRole;
 import org.onosproject.net.Port;
 import org.onosproject.net.PortNumber;
+import org.onosproject.net.device.DeviceEvent;
 import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.device.DeviceServiceAdapter;
 import org.onosproject.net.flow.CompletedBatchOperation;
@@ -116,6 +121,7 @@ public class FlowRuleManagerTest {
         injectEventDispatcher(mgr, new TestEventDispatcher());
         mgr.deviceService = new TestDeviceService();
         mgr.coreService = new TestCoreService();
+        mgr.mastershipService = new TestMastershipService();
         mgr.operationsService = MoreExecutors.newDirectExecutorService();
         mgr.deviceInstallers = MoreExecutors.newDirectExecutorService();
         mgr.cfgService = new ComponentConfigAdapter();
@@ -156,6 +162,17 @@ public class FlowRuleManagerTest {
     }
 
 
+    private FlowRule cookieFlowRule(long cookie, int tsval) {
+        return DefaultFlowRule.builder()
+                .forDevice(DID)
+                .withSelector(new TestSelector(tsval))
+                .withTreatment(new TestTreatment(tsval))
+                .withPriority(10)
+                .withCookie(cookie)
+                .makeTemporary(TIMEOUT)
+                .build();
+    }
+
     private FlowRule addFlowRule(int hval) {
         FlowRule rule = flowRule(hval, hval);
         service.applyFlowRules(rule);
@@ -372,6 +389,162 @@ public class FlowRuleManagerTest {
 
     }
 
+    /*
+     * Tests that the parts of a multi-part stats report are reconciled as they
+     * arrive and that missing rules are only handled after the last part.
+     */
+    @Test
+    public void flowMetricsParts() {
+        FlowRule f1 = flowRule(1, 1);
+        FlowRule f2 = flowRule(2, 2);
+        FlowRule f3 = flowRule(3, 3);
+
+        FlowEntry fe1 = new DefaultFlowEntry(f1);
+        FlowEntry fe2 = new DefaultFlowEntry(f2);
+        mgr.applyFlowRules(f1, f2, f3);
+        mgr.removeFlowRules(f3);
+        validateEvents(RULE_ADD_REQUESTED, RULE_ADD_REQUESTED, RULE_ADD_REQUESTED,
+                       RULE_REMOVE_REQUESTED);
+
+        providerService.pushFlowMetricsPart(DID, Lists.newArrayList(fe1), false);
+        validateEvents(RULE_ADDED);
+
+        providerService.pushFlowMetricsPart(DID, Lists.newArrayList(fe2), true);
+        validateEvents(RULE_ADDED, RULE_REMOVED);
+
+        // The next report starts a new round; f2 is now missing
+        providerService.pushFlowMetrics(DID, Lists.newArrayList(fe1));
+        validateEvents(RULE_UPDATED);
+        assertTrue("Entries should be unchanged.",
+                   validateState(ImmutableMap.of(
+                           f1, FlowEntryState.ADDED,
+                           f2, FlowEntryState.ADDED)));
+    }
+
+    /*
+     * Tests that a multi-part report which never delivered its last part is
+     * abandoned once the next report re-reports a flow.
+     */
+    @Test
+    public void abandonedFlowMetricsParts() {
+        FlowRule f1 = flowRule(1, 1);
+        FlowRule f2 = flowRule(2, 2);
+        FlowRule f3 = flowRule(3, 3);
+
+        FlowEntry fe1 = new DefaultFlowEntry(f1);
+        FlowEntry fe2 = new DefaultFlowEntry(f2);
+        FlowEntry fe3 = new DefaultFlowEntry(f3);
+        mgr.applyFlowRules(f1, f2, f3);
+        mgr.removeFlowRules(f1);
+        validateEvents(RULE_ADD_REQUESTED, RULE_ADD_REQUESTED, RULE_ADD_REQUESTED,
+                       RULE_REMOVE_REQUESTED);
+
+        // the last part of this report never arrives
+        providerService.pushFlowMetricsPart(DID, Lists.newArrayList(fe1, fe2), false);
+        validateEvents(RULE_UPDATED, RULE_ADDED);
+
+        // f1 is gone from the device by the next report
+        providerService.pushFlowMetricsPart(DID, Lists.newArrayList(fe2), false);
+        validateEvents(RULE_UPDATED);
+
+        providerService.pushFlowMetricsPart(DID, Lists.newArrayList(fe3), true);
+        validateEvents(RULE_ADDED, RULE_REMOVED);
+        assertEquals("2 rules should exist", 2, flowCount());
+    }
+
+    /*
+     * Tests that a device going away abandons the round in progress.
+     */
+    @Test
+    public void deviceUnavailableAbandonsFlowMetricsParts() {
+        FlowRule f1 = flowRule(1, 1);
+        FlowRule f2 = flowRule(2, 2);
+
+        FlowEntry fe1 = new DefaultFlowEntry(f1);
+        FlowEntry fe2 = new DefaultFlowEntry(f2);
+        mgr.applyFlowRules(f1, f2);
+        mgr.removeFlowRules(f1);
+        validateEvents(RULE_ADD_REQUESTED, RULE_ADD_REQUESTED, RULE_REMOVE_REQUESTED);
+
+        providerService.pushFlowMetricsPart(DID, Lists.newArrayList(fe1), false);
+        validateEvents(RULE_UPDATED);
+
+        ((TestDeviceService) mgr.deviceService).listener.event(
+                new DeviceEvent(DeviceEvent.Type.DEVICE_AVAILABILITY_CHANGED, DEV));
+
+        // the device reconnects without f1
+        providerService.pushFlowMetricsPart(DID, Lists.newArrayList(fe2), true);
+        validateEvents(RULE_ADDED, RULE_REMOVED);
+        assertEquals("1 rule should exist", 1, flowCount());
+    }
+
+    /*
+     * Tests that a mastership change drops the device's reconciliation state.
+     */
+    @Test
+    public void mastershipChangeAbandonsFlowMetricsParts() {
+        FlowRule f1 = flowRule(1, 1);
+        FlowRule f2 = flowRule(2, 2);
+
+        FlowEntry fe1 = new DefaultFlowEntry(f1);
+        FlowEntry fe2 = new DefaultFlowEntry(f2);
+        mgr.applyFlowRules(f1, f2);
+        mgr.removeFlowRules(f1);
+        validateEvents(RULE_ADD_REQUESTED, RULE_ADD_REQUESTED, RULE_REMOVE_REQUESTED);
+
+        providerService.pushFlowMetricsPart(DID, Lists.newArrayList(fe1), false);
+        validateEvents(RULE_UPDATED);
+
+        ((TestMastershipService) mgr.mastershipService).listener.event(
+                new MastershipEvent(MastershipEvent.Type.MASTER_CHANGED, DID, new RoleInfo()));
+
+        // the new round no longer reports f1
+        providerService.pushFlowMetricsPart(DID, Lists.newArrayList(fe2), true);
+        validateEvents(RULE_ADDED, RULE_REMOVED);
+        assertEquals("1 rule should exist", 1, flowCount());
+    }
+
+    /*
+     * Tests that distinct rules sharing a flow id are reconciled separately.
+     */
+    @Test
+    public void flowMetricsCollidingFlowIds() {
+        FlowRule f1 = cookieFlowRule(42, 1);
+        FlowRule f2 = cookieFlowRule(42, 2);
+
+        FlowEntry fe1 = new DefaultFlowEntry(f1);
+        mgr.applyFlowRules(f1, f2);
+        mgr.removeFlowRules(f2);
+        validateEvents(RULE_ADD_REQUESTED, RULE_ADD_REQUESTED, RULE_REMOVE_REQUESTED);
+
+        providerService.pushFlowMetrics(DID, Lists.newArrayList(fe1));
+        validateEvents(RULE_ADDED, RULE_REMOVED);
+        assertEquals("1 rule should exist", 1, flowCount());
+    }
+
+    /*
+     * Tests that rules requested after a device has been reconciled are
+     * tracked for the following rounds.
+     */
+    @Test
+    public void flowMetricsTrackRequestedRules() {
+        FlowRule f1 = flowRule(1, 1);
+        FlowRule f2 = flowRule(2, 2);
+
+        FlowEntry fe1 = new DefaultFlowEntry(f1);
+        mgr.applyFlowRules(f1);
+        providerService.pushFlowMetrics(DID, Lists.newArrayList(fe1));
+        validateEvents(RULE_ADD_REQUESTED, RULE_ADDED);
+
+        mgr.applyFlowRules(f2);
+        mgr.removeFlowRules(f2);
+        validateEvents(RULE_ADD_REQUESTED, RULE_REMOVE_REQUESTED);
+
+        providerService.pushFlowMetrics(DID, Lists.newArrayList(fe1));
+        validateEvents(RULE_UPDATED, RULE_REMOVED);
+        assertEquals("1 rule should exist", 1, flowCount());
+    }
+
     @Test
     public void getByAppId() {
         FlowRule f1 = flowRule(1, 1);
@@ -409,6 +582,8 @@ public class FlowRuleManagerTest {
 
     private static class TestDeviceService extends DeviceServiceAdapter {
 
+        DeviceListener listener;
+
         @Override
         public int getDeviceCount() {
             return 1;
@@ -446,6 +621,7 @@ public class FlowRuleManagerTest {
 
         @Override
         public void addListener(DeviceListener listener) {
+            this.listener = listener;
         }
 
         @Override
@@ -454,6 +630,16 @@ public class FlowRuleManagerTest {
 
     }
 
+    private static class TestMastershipService extends MastershipServiceAdapter {
+
+        MastershipListener listener;
+
+        @Override
+        public void addListener(MastershipListener listener) {
+            this.listener = listener;
+        }
+    }
+
     private class TestProvider extends AbstractProvider implements FlowRuleProvider {
 
         protected TestProvider(ProviderId id) {
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.packet.impl;
+
+import com.codahale.metrics.MetricFilter;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.metrics.MetricsManager;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IPv4;
+import org.onlab.packet.MacAddress;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.packet.DefaultInboundPacket;
+import org.onosproject.net.packet.DefaultPacketContext;
+import org.onosproject.net.packet.InboundPacket;
+import org.onosproject.net.packet.OutboundPacket;
+import org.onosproject.net.packet.PacketContext;
+import org.onosproject.net.packet.PacketProcessor;
+import org.onosproject.net.packet.PacketProvider;
+import org.onosproject.net.packet.PacketProviderService;
+import org.onosproject.net.provider.AbstractProvider;
+import org.onosproject.net.provider.ProviderId;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.onosproject.net.NetTestTools.connectPoint;
+
+/**
+ * Test of the packet processor dispatch of the packet manager.
+ */
+public class PacketManagerTest {
+
+    private static final ProviderId PID = new ProviderId("of", "foo");
+    private static final ConnectPoint CP1 = connectPoint("d1", 1);
+    private static final ConnectPoint CP2 = connectPoint("d1", 2);
+
+    private static final TrafficSelector ARP = DefaultTrafficSelector.builder()
+            .matchEthType(Ethernet.TYPE_ARP).build();
+    private static final TrafficSelector IPV4 = DefaultTrafficSelector.builder()
+            .matchEthType(Ethernet.TYPE_IPV4).build();
+
+    private PacketManager mgr;
+    private PacketProviderService providerService;
+    private final List<String> seen = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mgr = new PacketManager();
+        mgr.metricsService = new MetricsManager();
+        providerService = mgr.register(new TestProvider());
+    }
+
+    @Test
+    public void selectorDispatch() {
+        mgr.addProcessor(new TestProcessor("arp"), 1, ARP);
+        mgr.addProcessor(new TestProcessor("ipv4"), 2, IPV4);
+        mgr.addProcessor(new TestProcessor("any"), 3);
+
+        process(CP1, ethernet(Ethernet.TYPE_ARP));
+        assertEquals("incorrect processors", list("arp", "any"), seen);
+
+        seen.clear();
+        process(CP1, ipv4(IPv4.PROTOCOL_UDP));
+        assertEquals("incorrect processors", list("ipv4", "any"), seen);
+    }
+
+    @Test
+    public void priorityOrder() {
+        mgr.addProcessor(new TestProcessor("arp-3"), 3, ARP);
+        mgr.addProcessor(new TestProcessor("any-4"), 4);
+        mgr.addProcessor(new TestProcessor("arp-1"), 1, ARP);
+        mgr.addProcessor(new TestProcessor("any-2"), 2);
+        mgr.addProcessor(new TestProcessor("ipv4-0"), 0, IPV4);
+
+        process(CP1, ethernet(Ethernet.TYPE_ARP));
+        assertEquals("incorrect order", list("arp-1", "any-2", "arp-3", "any-4"), seen);
+
+        seen.clear();
+        process(CP1, ipv4(IPv4.PROTOCOL_TCP));
+        assertEquals("incorrect order", list("ipv4-0", "any-2", "any-4"), seen);
+    }
+
+    @Test
+    public void fallbackWithoutSelector() {
+        mgr.addProcessor(new TestProcessor("arp"), 1, ARP);
+        mgr.addProcessor(new TestProcessor("any"), 2);
+
+        // No processor selects LLDP, so only the catch-all one sees it
+        process(CP1, ethernet(Ethernet.TYPE_LLDP));
+        assertEquals("incorrect processors", list("any"), seen);
+
+        // Neither are packets without data offered to selective processors
+        seen.clear();
+        process(new DefaultInboundPacket(CP1, null, null));
+        assertEquals("incorrect processors", list("any"), seen);
+
+        // Nor are truncated frames
+        seen.clear();
+        process(new DefaultInboundPacket(CP1, ByteBuffer.wrap(new byte[4])));
+        assertEquals("incorrect processors", list("any"), seen);
+    }
+
+    @Test
+    public void portAndProtocolCriteria() {
+        mgr.addProcessor(new TestProcessor("port1"), 1,
+                         DefaultTrafficSelector.builder()
+                                 .matchInPort(PortNumber.portNumber(1)).build());
+        mgr.addProcessor(new TestProcessor("udp"), 2,
+                         DefaultTrafficSelector.builder()
+                                 .matchEthType(Ethernet.TYPE_IPV4)
+                                 .matchIPProtocol(IPv4.PROTOCOL_UDP).build());
+
+        process(CP1, ipv4(IPv4.PROTOCOL_UDP));
+        assertEquals("incorrect processors", list("port1", "udp"), seen);
+
+        seen.clear();
+        process(CP2, ipv4(IPv4.PROTOCOL_TCP));
+        assertEquals("incorrect processors", list(), seen);
+    }
+
+    @Test
+    public void removeProcessor() {
+        PacketProcessor arp = new TestProcessor("arp");
+        mgr.addProcessor(arp, 1, ARP);
+        mgr.addProcessor(new TestProcessor("any"), 2);
+        mgr.removeProcessor(arp);
+
+        process(CP1, ethernet(Ethernet.TYPE_ARP));
+        assertEquals("incorrect processors", list("any"), seen);
+        assertEquals("incorrect processor count", 1, mgr.getProcessors().size());
+    }
+
+    @Test
+    public void uniqueTimers() {
+        PacketProcessor first = new TestProcessor("first");
+        PacketProcessor second = new TestProcessor("second");
+        mgr.addProcessor(first, 1);
+        mgr.addProcessor(second, 1);
+        assertEquals("incorrect timer count", 2,
+                     mgr.metricsService.getTimers(MetricFilter.ALL).size());
+
+        // Removing one processor must leave the timer of the other in place
+        mgr.removeProcessor(first);
+        assertEquals("incorrect timer count", 1,
+                     mgr.metricsService.getTimers(MetricFilter.ALL).size());
+
+        process(CP1, ethernet(Ethernet.TYPE_ARP));
+        assertEquals("incorrect timer count", 1,
+                     mgr.metricsService.getTimers(MetricFilter.ALL).values()
+                             .iterator().next().getCount());
+    }
+
+    private static List<String> list(String... names) {
+        List<String> list = new ArrayList<>();
+        for (String name : names) {
+            list.add(name);
+        }
+        return list;
+    }
+
+    private static Ethernet ethernet(short ethType) {
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(ethType)
+                .setSourceMACAddress(MacAddress.valueOf(1L))
+                .setDestinationMACAddress(MacAddress.BROADCAST);
+        return eth;
+    }
+
+    private static Ethernet ipv4(byte protocol) {
+        Ethernet eth = ethernet(Ethernet.TYPE_IPV4);
+        eth.setPayload(new IPv4().setProtocol(protocol)
+                               .setSourceAddress(1)
+                               .setDestinationAddress(2));
+        return eth;
+    }
+
+    private void process(ConnectPoint cp, Ethernet eth) {
+        process(new DefaultInboundPacket(cp, ByteBuffer.wrap(eth.serialize())));
+    }
+
+    private void process(InboundPacket packet) {
+        providerService.processPacket(new TestPacketContext(packet));
+    }
+
+    private class TestProcessor implements PacketProcessor {
+        private final String name;
+
+        TestProcessor(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void process(PacketContext context) {
+            seen.add(name);
+        }
+    }
+
+    private static class TestPacketContext extends DefaultPacketContext {
+        protected TestPacketContext(InboundPacket inPkt) {
+            super(System.currentTimeMillis(), inPkt, null, false);
+        }
+
+        @Override
+        public void send() {
+        }
+    }
+
+    private static class TestProvider extends AbstractProvider implements PacketProvider {
+        protected TestProvider() {
+            super(PID);
+        }
+
+        @Override
+        public void emit(OutboundPacket packet) {
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.util.KryoNamespace;
 import org.onlab.util.Tools;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.ControllerNode;
@@ -146,6 +147,23 @@ public class ClusterCommunicationManager
         }
     }
 
+    @Override
+    public <M, R> CompletableFuture<R> sendAndReceive(M message,
+                                                      MessageSubject subject,
+                                                      KryoNamespace serializer,
+                                                      NodeId toNodeId) {
+        // sent without the cluster message envelope, so that the messaging
+        // service can serialize the message straight into its buffers
+        try {
+            ControllerNode node = clusterService.getNode(toNodeId);
+            checkArgument(node != null, "Unknown nodeId: %s", toNodeId);
+            Endpoint nodeEp = new Endpoint(node.ip(), node.tcpPort());
+            return messagingService.sendAndReceive(nodeEp, subject.value(), message, serializer);
+        } catch (Exception e) {
+            return Tools.exceptionalFuture(e);
+        }
+    }
+
     private CompletableFuture<Void> doUnicast(MessageSubject subject, byte[] payload, NodeId toNodeId) {
         ControllerNode node = clusterService.getNode(toNodeId);
         checkArgument(node != null, "Unknown nodeId: %s", toNodeId);
@@ -203,6 +221,15 @@ public class ClusterCommunicationManager
                 new InternalMessageResponder<>(decoder, encoder, handler));
     }
 
+    @Override
+    public <M, R> void addSubscriber(MessageSubject subject,
+            KryoNamespace serializer,
+            Function<M, R> handler,
+            Executor executor) {
+        BiFunction<Endpoint, M, R> messageHandler = (sender, message) -> handler.apply(message);
+        messagingService.registerHandler(subject.value(), serializer, messageHandler, executor);
+    }
+
     @Override
     public <M> void addSubscriber(MessageSubject subject,
             Function<byte[], M> decoder,
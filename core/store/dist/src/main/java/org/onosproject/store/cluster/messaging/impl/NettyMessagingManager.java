@@ -23,6 +23,9 @@ import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.netty.NettyMessaging;
 import org.onosproject.cluster.ClusterMetadataService;
 import org.onosproject.cluster.ControllerNode;
@@ -41,24 +44,48 @@ public class NettyMessagingManager extends NettyMessaging {
 
     private static final short MIN_KS_LENGTH = 6;
 
+    private static final String METRICS_COMPONENT = "NettyMessaging";
+    private static final String METRICS_FEATURE = "outbound";
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ClusterMetadataService clusterMetadataService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
     @Activate
     public void activate() throws Exception {
         ControllerNode localNode = clusterMetadataService.getLocalNode();
         getTlsParameters();
         super.start(clusterMetadataService.getClusterMetadata().getName().hashCode(),
                     new Endpoint(localNode.ip(), localNode.tcpPort()));
+        registerMetrics();
         log.info("Started");
     }
 
     @Deactivate
     public void deactivate() throws Exception {
+        unregisterMetrics();
         super.stop();
         log.info("Stopped");
     }
 
+    private void registerMetrics() {
+        MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+        metricsService.registerMetric(component, feature, "flushBatchSize", flushBatchSize);
+        metricsService.registerMetric(component, feature, "flushLinger", flushLinger);
+        metricsService.registerMetric(component, feature, "flushCount", flushCount);
+    }
+
+    private void unregisterMetrics() {
+        MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+        metricsService.removeMetric(component, feature, "flushBatchSize");
+        metricsService.removeMetric(component, feature, "flushLinger");
+        metricsService.removeMetric(component, feature, "flushCount");
+    }
+
     private void getTlsParameters() {
         String tempString = System.getProperty("enableNettyTLS");
         enableNettyTls = Strings.isNullOrEmpty(tempString) ? TLS_DISABLED : Boolean.parseBoolean(tempString);
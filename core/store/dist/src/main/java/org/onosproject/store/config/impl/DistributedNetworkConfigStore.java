@@ -50,6 +50,7 @@ import org.onosproject.store.service.ConsistentMap;
 import org.onosproject.store.service.ConsistentMapException;
 import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.MapEventListener;
+import org.onosproject.store.service.NearCachePolicy;
 import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.StorageService;
 import org.onosproject.store.service.Versioned;
@@ -102,7 +103,9 @@ public class DistributedNetworkConfigStore
         configs = storageService.<ConfigKey, JsonNode>consistentMapBuilder()
                 .withSerializer(Serializer.using(kryoBuilder.build()))
                 .withName("onos-network-configs")
-                .withRelaxedReadConsistency()
+                .withNearCache(NearCachePolicy.builder()
+                                       .withNegativeCaching()
+                                       .build())
                 .build();
         configs.addListener(listener);
         log.info("Started");
@@ -127,10 +130,10 @@ public class DistributedNetworkConfigStore
         Set<ConfigKey> toBePruned = Sets.newHashSet();
         configs.keySet().forEach(k -> {
             if (Objects.equals(k.configKey, configFactory.configKey())) {
-                validateConfig(k, configFactory, configs.get(k).value());
                 toBePruned.add(k); // Prune whether valid or not
             }
         });
+        configs.getAll(toBePruned).forEach((k, v) -> validateConfig(k, configFactory, v.value()));
         toBePruned.forEach(configs::remove);
     }
 
@@ -15,15 +15,23 @@
  */
 package org.onosproject.store.consistent.impl;
 
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import org.onosproject.core.ApplicationId;
+import org.onosproject.store.service.NearCachePolicy;
 import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.Versioned;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.Maps;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Extension of {@link DefaultAsyncConsistentMap} that provides a weaker read consistency
@@ -32,22 +40,24 @@ import com.google.common.cache.LoadingCache;
  * For read/write operations that are local to a node this map implementation provides
  * guarantees similar to a ConsistentMap. However for read/write operations executed
  * across multiple nodes this implementation only provides eventual consistency.
+ * <p>
+ * Reads are served from a near-cache bounded and expired according to a
+ * {@link NearCachePolicy}. Entries are invalidated by local updates and by map
+ * events; concurrent reads of a key which is not cached share a single load.
+ * Cache hits, misses and evictions are counted by the map metering agent.
  *
  * @param <K> key type
  * @param <V> value type
  */
 public class AsyncCachingConsistentMap<K, V> extends DefaultAsyncConsistentMap<K, V> {
 
-    private final LoadingCache<K, CompletableFuture<Versioned<V>>> cache =
-            CacheBuilder.newBuilder()
-                        .maximumSize(10000) // TODO: make configurable
-                        .build(new CacheLoader<K, CompletableFuture<Versioned<V>>>() {
-                            @Override
-                            public CompletableFuture<Versioned<V>> load(K key)
-                                    throws Exception {
-                                return AsyncCachingConsistentMap.super.get(key);
-                            }
-                        });
+    private static final String CACHE_HITS = "cacheHits";
+    private static final String CACHE_MISSES = "cacheMisses";
+    private static final String CACHE_EVICTIONS = "cacheEvictions";
+
+    private final NearCachePolicy policy;
+    private final Cache<K, CachedValue<V>> cache;
+    private final ConcurrentMap<K, CompletableFuture<Versioned<V>>> loads = Maps.newConcurrentMap();
 
     public AsyncCachingConsistentMap(String name,
             ApplicationId applicationId,
@@ -55,27 +65,125 @@ public class AsyncCachingConsistentMap<K, V> extends DefaultAsyncConsistentMap<K
             Serializer serializer,
             boolean readOnly,
             boolean purgeOnUninstall,
-            boolean meteringEnabled) {
+            boolean meteringEnabled,
+            NearCachePolicy policy) {
         super(name, applicationId, database, serializer, readOnly, purgeOnUninstall, meteringEnabled);
-        addListener(event -> cache.invalidate(event.key()));
+        this.policy = checkNotNull(policy, "near-cache policy cannot be null");
+        this.cache = buildCache(policy);
+        addListener(event -> invalidate(event.key()));
+    }
+
+    private Cache<K, CachedValue<V>> buildCache(NearCachePolicy policy) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
+        if (policy.maximumWeight() > 0) {
+            builder.maximumWeight(policy.maximumWeight())
+                   .weigher((K key, CachedValue<V> value) -> value.weight);
+        } else {
+            builder.maximumSize(policy.maximumSize());
+        }
+        if (policy.expireAfterWriteMillis() > 0) {
+            builder.expireAfterWrite(policy.expireAfterWriteMillis(), TimeUnit.MILLISECONDS);
+        }
+        return builder.removalListener((RemovalNotification<K, CachedValue<V>> notification) -> {
+                    if (notification.wasEvicted()) {
+                        monitor().incrementCounter(CACHE_EVICTIONS);
+                    }
+                })
+                .build();
     }
 
     @Override
     public CompletableFuture<Versioned<V>> get(K key) {
-        CompletableFuture<Versioned<V>> cachedValue = cache.getIfPresent(key);
-        if (cachedValue != null) {
-            if (cachedValue.isCompletedExceptionally()) {
-                cache.invalidate(key);
-            } else {
-                return cachedValue;
+        checkNotNull(key);
+        CachedValue<V> cachedValue = lookup(key);
+        return cachedValue != null ? CompletableFuture.completedFuture(cachedValue.value) : load(key);
+    }
+
+    @Override
+    public CompletableFuture<Map<K, Versioned<V>>> getAll(Set<K> keys) {
+        Map<K, Versioned<V>> result = Maps.newHashMap();
+        Map<K, CompletableFuture<Versioned<V>>> misses = Maps.newHashMap();
+        keys.forEach(key -> {
+            checkNotNull(key);
+            CachedValue<V> cachedValue = lookup(key);
+            if (cachedValue == null) {
+                misses.put(key, load(key));
+            } else if (cachedValue.value != null) {
+                result.put(key, cachedValue.value);
             }
+        });
+        if (misses.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
         }
-        return cache.getUnchecked(key);
+        return CompletableFuture.allOf(misses.values().toArray(new CompletableFuture[misses.size()]))
+                .thenApply(v -> {
+                    misses.forEach((key, future) -> {
+                        Versioned<V> value = future.join();
+                        if (value != null) {
+                            result.put(key, value);
+                        }
+                    });
+                    return result;
+                });
     }
 
     @Override
     protected void beforeUpdate(K key) {
         super.beforeUpdate(key);
-        cache.invalidate(key);
+        invalidate(key);
+    }
+
+    private CachedValue<V> lookup(K key) {
+        CachedValue<V> cachedValue = cache.getIfPresent(key);
+        monitor().incrementCounter(cachedValue != null ? CACHE_HITS : CACHE_MISSES);
+        return cachedValue;
+    }
+
+    private CompletableFuture<Versioned<V>> load(K key) {
+        CompletableFuture<Versioned<V>> future = new CompletableFuture<>();
+        CompletableFuture<Versioned<V>> pending = loads.putIfAbsent(key, future);
+        if (pending != null) {
+            return pending;
+        }
+        getRaw(key).whenComplete((raw, error) -> {
+            if (error != null) {
+                loads.remove(key, future);
+                future.completeExceptionally(error);
+                return;
+            }
+            Versioned<V> value = raw != null ? raw.map(serializer()::decode) : null;
+            // The load is only cached if no update invalidated the key meanwhile
+            loads.computeIfPresent(key, (k, f) -> {
+                if (f != future) {
+                    return f;
+                }
+                if (value != null || policy.negativeCaching()) {
+                    cache.put(key, new CachedValue<>(value, raw != null ? raw.value().length : 0));
+                }
+                return null;
+            });
+            future.complete(value);
+        });
+        return future;
+    }
+
+    private void invalidate(K key) {
+        loads.compute(key, (k, f) -> {
+            cache.invalidate(key);
+            return null;
+        });
+    }
+
+    /**
+     * Cached value of a key, or absence of value if negative caching is enabled.
+     */
+    private static final class CachedValue<V> {
+        private final Versioned<V> value;
+        private final int weight;
+
+        private CachedValue(Versioned<V> value, int weight) {
+            this.value = value;
+            this.weight = Math.max(weight, 1);
+        }
     }
-}
\ No newline at end of file
+}
@@ -20,6 +20,8 @@ import static com.google.common.base.MoreObjects.toStringHelper;
 import java.util.Collections;
 import java.util.List;
 
+import org.onosproject.store.service.BinaryKey;
+
 import com.google.common.collect.ImmutableList;
 
 /**
@@ -28,9 +30,9 @@ import com.google.common.collect.ImmutableList;
 public final class CommitResponse {
 
     private boolean success;
-    private List<UpdateResult<String, byte[]>> updates;
+    private List<UpdateResult<BinaryKey, byte[]>> updates;
 
-    public static CommitResponse success(List<UpdateResult<String, byte[]>> updates) {
+    public static CommitResponse success(List<UpdateResult<BinaryKey, byte[]>> updates) {
         return new CommitResponse(true, updates);
     }
 
@@ -38,7 +40,7 @@ public final class CommitResponse {
         return new CommitResponse(false, Collections.emptyList());
     }
 
-    private CommitResponse(boolean success, List<UpdateResult<String, byte[]>> updates) {
+    private CommitResponse(boolean success, List<UpdateResult<BinaryKey, byte[]>> updates) {
         this.success = success;
         this.updates = ImmutableList.copyOf(updates);
     }
@@ -47,7 +49,7 @@ public final class CommitResponse {
         return success;
     }
 
-    public List<UpdateResult<String, byte[]>> updates() {
+    public List<UpdateResult<BinaryKey, byte[]>> updates() {
         return updates;
     }
 
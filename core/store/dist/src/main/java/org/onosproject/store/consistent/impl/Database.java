@@ -25,10 +25,12 @@ import net.kuujo.copycat.cluster.internal.coordinator.CoordinatorConfig;
 import net.kuujo.copycat.cluster.internal.coordinator.DefaultClusterCoordinator;
 import net.kuujo.copycat.resource.Resource;
 
+import org.onosproject.store.service.BinaryKey;
+
 /**
  * Database.
  */
-public interface Database extends DatabaseProxy<String, byte[]>, Resource<Database> {
+public interface Database extends DatabaseProxy<BinaryKey, byte[]>, Resource<Database> {
 
   /**
    * Creates a new database with the default cluster configuration.<p>
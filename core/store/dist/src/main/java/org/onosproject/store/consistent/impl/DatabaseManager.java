@@ -210,6 +210,16 @@ public class DatabaseManager implements StorageService, StorageAdminService {
 
         Futures.getUnchecked(status);
 
+        // map entries persisted by earlier versions were partitioned by another hash
+        try {
+            int relocated = Futures.getUnchecked(partitionedDatabase.relocateEntries());
+            if (relocated > 0) {
+                log.info("Relocated {} map entries of earlier versions.", relocated);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to relocate map entries of earlier versions.", e);
+        }
+
         transactionManager = new TransactionManager(partitionedDatabase, consistentMapBuilder());
         partitionedDatabase.setTransactionManager(transactionManager);
 
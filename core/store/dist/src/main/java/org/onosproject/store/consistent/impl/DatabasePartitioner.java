@@ -22,14 +22,18 @@ import java.util.List;
 import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
 import com.google.common.hash.Hashing;
+import org.onosproject.store.service.BinaryKey;
 
 /**
  * Partitioner for mapping map entries to individual database partitions.
  * <p>
- * By default a md5 hash of the hash key (key or map name) is used to pick a
- * partition.
+ * Map keys are placed by the murmur3 hash of their bytes, which is the cached
+ * hash code of {@link BinaryKey}. Names of counters, queues and maps are
+ * placed by a md5 hash, as in earlier versions, so that the counters and
+ * queues of persisted partitions stay where they are; map entries persisted
+ * by earlier versions are moved by {@link PartitionedDatabase#relocateEntries()}.
  */
-public abstract class DatabasePartitioner implements Partitioner<String> {
+public abstract class DatabasePartitioner implements Partitioner<BinaryKey> {
     // Database partitions sorted by their partition name.
     protected final List<Database> partitions;
 
@@ -38,8 +42,21 @@ public abstract class DatabasePartitioner implements Partitioner<String> {
         this.partitions = ImmutableList.copyOf(partitions);
     }
 
+    /**
+     * Returns the database partition for a named counter or queue.
+     * @param name counter or queue name
+     * @return Database partition
+     */
+    public Database getPartition(String name) {
+        return partitions.get(hash(name) % partitions.size());
+    }
+
     protected int hash(String key) {
         return Math.abs(Hashing.md5().newHasher().putBytes(key.getBytes(Charsets.UTF_8)).hash().asInt());
     }
 
+    protected int hash(BinaryKey key) {
+        return key.hashCode() & Integer.MAX_VALUE;
+    }
+
 }
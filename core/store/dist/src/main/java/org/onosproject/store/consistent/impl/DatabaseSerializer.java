@@ -23,6 +23,7 @@ import org.onlab.util.Match;
 import org.onosproject.cluster.NodeId;
 import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.serializers.KryoSerializer;
+import org.onosproject.store.service.BinaryKey;
 import org.onosproject.store.service.DatabaseUpdate;
 import org.onosproject.store.service.Transaction;
 import org.onosproject.store.service.Versioned;
@@ -69,7 +70,10 @@ public class DatabaseSerializer extends SerializerConfig {
     private static final KryoNamespace ONOS_STORE = KryoNamespace.newBuilder()
             .nextId(KryoNamespace.FLOATING_ID)
             .register(Versioned.class)
-            .register(DatabaseUpdate.class)
+            // updates logged by earlier versions are read through the
+            // registration id they were written with
+            .register(new LegacyDatabaseUpdateSerializer(),
+                      LegacyDatabaseUpdateSerializer.LegacyDatabaseUpdate.class)
             .register(DatabaseUpdate.Type.class)
             .register(Result.class)
             .register(UpdateResult.class)
@@ -79,6 +83,9 @@ public class DatabaseSerializer extends SerializerConfig {
             .register(org.onosproject.store.consistent.impl.CommitResponse.class)
             .register(Match.class)
             .register(NodeId.class)
+            // registered last, so that the ids above remain those of earlier versions
+            .register(BinaryKey.class)
+            .register(DatabaseUpdate.class)
             .build();
 
     private static final KryoSerializer SERIALIZER = new KryoSerializer() {
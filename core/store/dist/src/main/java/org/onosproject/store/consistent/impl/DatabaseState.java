@@ -65,8 +65,11 @@ public interface DatabaseState<K, V> {
   @Query
   Versioned<V> mapGet(String mapName, K key);
 
+  // The key is left untyped, as the commands logged by earlier versions
+  // carry keys in their hex string form and must still replay.
   @Command
-  Result<UpdateResult<K, V>> mapUpdate(String mapName, K key, Match<V> valueMatch, Match<Long> versionMatch, V value);
+  Result<UpdateResult<K, V>> mapUpdate(String mapName, Object key, Match<V> valueMatch,
+                                       Match<Long> versionMatch, V value);
 
   @Command
   Result<Void> mapClear(String mapName);
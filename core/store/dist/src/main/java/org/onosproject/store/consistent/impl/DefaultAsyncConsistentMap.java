@@ -21,12 +21,12 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Maps;
 
-import org.onlab.util.HexString;
 import org.onlab.util.Match;
 import org.onlab.util.SharedExecutors;
 import org.onlab.util.Tools;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.BinaryKey;
 import org.onosproject.store.service.ConsistentMapException;
 import org.onosproject.store.service.ConsistentMapException.ConcurrentModification;
 import org.onosproject.store.service.MapEvent;
@@ -96,24 +96,24 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
     private static final String ERROR_NULL_KEY = "Key cannot be null";
     private static final String ERROR_NULL_VALUE = "Null values are not allowed";
 
-    // String representation of serialized byte[] -> original key Object
-    private final LoadingCache<String, K> keyCache = CacheBuilder.newBuilder()
+    // Serialized key -> original key Object
+    private final LoadingCache<BinaryKey, K> keyCache = CacheBuilder.newBuilder()
             .softValues()
-            .build(new CacheLoader<String, K>() {
+            .build(new CacheLoader<BinaryKey, K>() {
 
                 @Override
-                public K load(String key) {
-                    return serializer.decode(HexString.fromHexString(key));
+                public K load(BinaryKey key) {
+                    return serializer.decode(key.bytes());
                 }
             });
 
-    protected String sK(K key) {
-        String s = HexString.toHexString(serializer.encode(key));
+    protected BinaryKey sK(K key) {
+        BinaryKey s = new BinaryKey(serializer.encode(key));
         keyCache.put(s, key);
         return s;
     }
 
-    protected K dK(String key) {
+    protected K dK(BinaryKey key) {
         return keyCache.getUnchecked(key);
     }
 
@@ -137,7 +137,7 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
                 }
                 try {
                     if (update.target() == MAP_UPDATE) {
-                        Result<UpdateResult<String, byte[]>> result = update.output();
+                        Result<UpdateResult<BinaryKey, byte[]>> result = update.output();
                         if (result.success() && result.value().mapName().equals(name)) {
                             MapEvent<K, V> mapEvent = result.value()
                                                             .<K, V>map(this::dK,
@@ -184,6 +184,14 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
         return serializer;
     }
 
+    /**
+     * Returns the agent metering the operations on this map.
+     * @return metering agent
+     */
+    protected MeteringAgent monitor() {
+        return monitor;
+    }
+
     /**
      * Returns the applicationId owning this map.
      * @return application Id
@@ -234,11 +242,21 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
 
     @Override
     public CompletableFuture<Versioned<V>> get(K key) {
+        return getRaw(key).thenApply(v -> v != null ? v.map(serializer::decode) : null);
+    }
+
+    /**
+     * Returns the serialized value (and version) to which the specified key
+     * is mapped, or null if this map contains no mapping for the key.
+     *
+     * @param key key
+     * @return future serialized value (and version)
+     */
+    protected CompletableFuture<Versioned<byte[]>> getRaw(K key) {
         checkNotNull(key, ERROR_NULL_KEY);
         final MeteringAgent.Context timer = monitor.startTimer(GET);
         return database.mapGet(name, sK(key))
-                .whenComplete((r, e) -> timer.stop(e))
-                .thenApply(v -> v != null ? v.map(serializer::decode) : null);
+                .whenComplete((r, e) -> timer.stop(e));
     }
 
     @Override
@@ -430,21 +448,21 @@ public class DefaultAsyncConsistentMap<K, V>  implements AsyncConsistentMap<K, V
         checkIfUnmodifiable();
     }
 
-    private Set<K> newMappingKeySet(Set<String> s) {
+    private Set<K> newMappingKeySet(Set<BinaryKey> s) {
         return new MappingSet<>(s, Collections::unmodifiableSet,
                                 this::sK, this::dK);
     }
 
-    private Set<Entry<K, Versioned<V>>> newMappingEntrySet(Set<Entry<String, Versioned<byte[]>>> s) {
+    private Set<Entry<K, Versioned<V>>> newMappingEntrySet(Set<Entry<BinaryKey, Versioned<byte[]>>> s) {
         return new MappingSet<>(s, Collections::unmodifiableSet,
                                 this::reverseMapRawEntry, this::mapRawEntry);
     }
 
-    private Map.Entry<K, Versioned<V>> mapRawEntry(Map.Entry<String, Versioned<byte[]>> e) {
+    private Map.Entry<K, Versioned<V>> mapRawEntry(Map.Entry<BinaryKey, Versioned<byte[]>> e) {
         return Maps.immutableEntry(dK(e.getKey()), e.getValue().<V>map(serializer::decode));
     }
 
-    private Map.Entry<String, Versioned<byte[]>> reverseMapRawEntry(Map.Entry<K, Versioned<V>> e) {
+    private Map.Entry<BinaryKey, Versioned<byte[]>> reverseMapRawEntry(Map.Entry<K, Versioned<V>> e) {
         return Maps.immutableEntry(sK(e.getKey()), e.getValue().map(serializer::encode));
     }
 
@@ -79,6 +79,11 @@ public class DefaultConsistentMap<K, V> extends Synchronous<AsyncConsistentMap<K
         return complete(asyncMap.get(key));
     }
 
+    @Override
+    public Map<K, Versioned<V>> getAll(Set<K> keys) {
+        return complete(asyncMap.getAll(keys));
+    }
+
     @Override
     public Versioned<V> computeIfAbsent(K key,
             Function<? super K, ? extends V> mappingFunction) {
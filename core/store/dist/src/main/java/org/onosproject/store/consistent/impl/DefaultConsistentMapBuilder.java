@@ -19,6 +19,7 @@ import org.onosproject.core.ApplicationId;
 import org.onosproject.store.service.AsyncConsistentMap;
 import org.onosproject.store.service.ConsistentMap;
 import org.onosproject.store.service.ConsistentMapBuilder;
+import org.onosproject.store.service.NearCachePolicy;
 import org.onosproject.store.service.Serializer;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -39,7 +40,7 @@ public class DefaultConsistentMapBuilder<K, V> implements ConsistentMapBuilder<K
     private boolean partitionsEnabled = true;
     private boolean readOnly = false;
     private boolean metering = true;
-    private boolean relaxedReadConsistency = false;
+    private NearCachePolicy nearCachePolicy;
     private final DatabaseManager manager;
 
     public DefaultConsistentMapBuilder(DatabaseManager manager) {
@@ -93,7 +94,14 @@ public class DefaultConsistentMapBuilder<K, V> implements ConsistentMapBuilder<K
 
     @Override
     public ConsistentMapBuilder<K, V> withRelaxedReadConsistency() {
-        relaxedReadConsistency = true;
+        nearCachePolicy = NearCachePolicy.DEFAULT;
+        return this;
+    }
+
+    @Override
+    public ConsistentMapBuilder<K, V> withNearCache(NearCachePolicy policy) {
+        checkArgument(policy != null);
+        nearCachePolicy = policy;
         return this;
     }
 
@@ -118,7 +126,7 @@ public class DefaultConsistentMapBuilder<K, V> implements ConsistentMapBuilder<K
     private DefaultAsyncConsistentMap<K, V> buildAndRegisterMap() {
         validateInputs();
         Database database = partitionsEnabled ? manager.partitionedDatabase : manager.inMemoryDatabase;
-        if (relaxedReadConsistency) {
+        if (nearCachePolicy != null) {
             return manager.registerMap(
                     new AsyncCachingConsistentMap<>(name,
                         applicationId,
@@ -126,7 +134,8 @@ public class DefaultConsistentMapBuilder<K, V> implements ConsistentMapBuilder<K
                         serializer,
                         readOnly,
                         purgeOnUninstall,
-                        metering));
+                        metering,
+                        nearCachePolicy));
         } else {
             return manager.registerMap(
                     new DefaultAsyncConsistentMap<>(name,
@@ -26,6 +26,7 @@ import net.kuujo.copycat.util.concurrent.Futures;
 import net.kuujo.copycat.util.function.TriConsumer;
 
 import org.onlab.util.Match;
+import org.onosproject.store.service.BinaryKey;
 import org.onosproject.store.service.Transaction;
 import org.onosproject.store.service.Versioned;
 
@@ -40,8 +41,8 @@ import java.util.function.Supplier;
  * Default database.
  */
 public class DefaultDatabase extends AbstractResource<Database> implements Database {
-    private final StateMachine<DatabaseState<String, byte[]>> stateMachine;
-    private DatabaseProxy<String, byte[]> proxy;
+    private final StateMachine<DatabaseState<BinaryKey, byte[]>> stateMachine;
+    private DatabaseProxy<BinaryKey, byte[]> proxy;
     private final Set<Consumer<StateMachineUpdate>> consumers = Sets.newCopyOnWriteArraySet();
     private final TriConsumer<String, Object, Object> watcher = new InternalStateMachineWatcher();
 
@@ -98,7 +99,7 @@ public class DefaultDatabase extends AbstractResource<Database> implements Datab
     }
 
     @Override
-    public CompletableFuture<Boolean> mapContainsKey(String mapName, String key) {
+    public CompletableFuture<Boolean> mapContainsKey(String mapName, BinaryKey key) {
         return checkOpen(() -> proxy.mapContainsKey(mapName, key));
     }
 
@@ -108,13 +109,13 @@ public class DefaultDatabase extends AbstractResource<Database> implements Datab
     }
 
     @Override
-    public CompletableFuture<Versioned<byte[]>> mapGet(String mapName, String key) {
+    public CompletableFuture<Versioned<byte[]>> mapGet(String mapName, BinaryKey key) {
         return checkOpen(() -> proxy.mapGet(mapName, key));
     }
 
     @Override
-    public CompletableFuture<Result<UpdateResult<String, byte[]>>> mapUpdate(
-            String mapName, String key, Match<byte[]> valueMatch, Match<Long> versionMatch, byte[] value) {
+    public CompletableFuture<Result<UpdateResult<BinaryKey, byte[]>>> mapUpdate(
+            String mapName, BinaryKey key, Match<byte[]> valueMatch, Match<Long> versionMatch, byte[] value) {
         return checkOpen(() -> proxy.mapUpdate(mapName, key, valueMatch, versionMatch, value));
     }
 
@@ -124,7 +125,7 @@ public class DefaultDatabase extends AbstractResource<Database> implements Datab
     }
 
     @Override
-    public CompletableFuture<Set<String>> mapKeySet(String mapName) {
+    public CompletableFuture<Set<BinaryKey>> mapKeySet(String mapName) {
         return checkOpen(() -> proxy.mapKeySet(mapName));
     }
 
@@ -134,7 +135,7 @@ public class DefaultDatabase extends AbstractResource<Database> implements Datab
     }
 
     @Override
-    public CompletableFuture<Set<Map.Entry<String, Versioned<byte[]>>>> mapEntrySet(String mapName) {
+    public CompletableFuture<Set<Map.Entry<BinaryKey, Versioned<byte[]>>>> mapEntrySet(String mapName) {
         return checkOpen(() -> proxy.mapEntrySet(mapName));
     }
 
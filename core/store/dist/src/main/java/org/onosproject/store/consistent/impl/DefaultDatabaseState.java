@@ -26,6 +26,7 @@ import net.kuujo.copycat.state.Initializer;
 import net.kuujo.copycat.state.StateContext;
 
 import org.onlab.util.Match;
+import org.onosproject.store.service.BinaryKey;
 import org.onosproject.store.service.DatabaseUpdate;
 import org.onosproject.store.service.Transaction;
 import org.onosproject.store.service.Versioned;
@@ -43,10 +44,10 @@ import java.util.stream.Collectors;
 /**
  * Default database state.
  */
-public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
+public class DefaultDatabaseState implements DatabaseState<BinaryKey, byte[]> {
     private Long nextVersion;
     private Map<String, AtomicLong> counters;
-    private Map<String, Map<String, Versioned<byte[]>>> maps;
+    private Map<String, Map<BinaryKey, Versioned<byte[]>>> maps;
     private Map<String, Queue<byte[]>> queues;
 
     /**
@@ -59,11 +60,11 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
      * The presence of a entry in this map indicates that element is
      * participating in a transaction and is currently locked for updates.
      */
-    private Map<String, Map<String, Update>> locks;
+    private Map<String, Map<BinaryKey, Update>> locks;
 
     @Initializer
     @Override
-    public void init(StateContext<DatabaseState<String, byte[]>> context) {
+    public void init(StateContext<DatabaseState<BinaryKey, byte[]>> context) {
         counters = context.get("counters");
         if (counters == null) {
             counters = Maps.newConcurrentMap();
@@ -79,6 +80,8 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
             locks = Maps.newConcurrentMap();
             context.put("locks", locks);
         }
+        upgradeKeys(maps);
+        upgradeKeys(locks);
         queues = context.get("queues");
         if (queues == null) {
             queues = Maps.newConcurrentMap();
@@ -114,7 +117,7 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
     }
 
     @Override
-    public boolean mapContainsKey(String mapName, String key) {
+    public boolean mapContainsKey(String mapName, BinaryKey key) {
         return getMap(mapName).containsKey(key);
     }
 
@@ -124,18 +127,19 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
     }
 
     @Override
-    public Versioned<byte[]> mapGet(String mapName, String key) {
+    public Versioned<byte[]> mapGet(String mapName, BinaryKey key) {
         return getMap(mapName).get(key);
     }
 
 
     @Override
-    public Result<UpdateResult<String, byte[]>> mapUpdate(
+    public Result<UpdateResult<BinaryKey, byte[]>> mapUpdate(
             String mapName,
-            String key,
+            Object mapKey,
             Match<byte[]> valueMatch,
             Match<Long> versionMatch,
             byte[] value) {
+        BinaryKey key = binaryKey(mapKey);
         if (isLockedForUpdates(mapName, key)) {
             return Result.locked();
         }
@@ -168,7 +172,7 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
     }
 
     @Override
-    public Set<String> mapKeySet(String mapName) {
+    public Set<BinaryKey> mapKeySet(String mapName) {
         return ImmutableSet.copyOf(getMap(mapName).keySet());
     }
 
@@ -178,7 +182,7 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
     }
 
     @Override
-    public Set<Entry<String, Versioned<byte[]>>> mapEntrySet(String mapName) {
+    public Set<Entry<BinaryKey, Versioned<byte[]>>> mapEntrySet(String mapName) {
         return ImmutableSet.copyOf(getMap(mapName)
                 .entrySet()
                 .stream()
@@ -262,11 +266,29 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
         return true;
     }
 
-    private Map<String, Versioned<byte[]>> getMap(String mapName) {
+    // Map updates logged, and maps snapshotted, by earlier versions carry keys
+    // in their hex string form
+    private static BinaryKey binaryKey(Object key) {
+        return key instanceof String ? BinaryKey.fromHexString((String) key) : (BinaryKey) key;
+    }
+
+    // Rekeys the entries of maps restored from a snapshot of an earlier version
+    @SuppressWarnings("unchecked")
+    private static <T> void upgradeKeys(Map<String, ? extends Map<BinaryKey, T>> maps) {
+        maps.values().forEach(map -> {
+            Map<Object, T> entries = (Map<Object, T>) (Map<?, T>) map;
+            entries.keySet().stream()
+                    .filter(String.class::isInstance)
+                    .collect(Collectors.toList())
+                    .forEach(key -> entries.put(binaryKey(key), entries.remove(key)));
+        });
+    }
+
+    private Map<BinaryKey, Versioned<byte[]>> getMap(String mapName) {
         return maps.computeIfAbsent(mapName, name -> Maps.newConcurrentMap());
     }
 
-    private Map<String, Update> getLockMap(String mapName) {
+    private Map<BinaryKey, Update> getLockMap(String mapName) {
         return locks.computeIfAbsent(mapName, name -> Maps.newConcurrentMap());
     }
 
@@ -300,7 +322,7 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
     }
 
     private void doProvisionalUpdate(DatabaseUpdate update, long transactionId) {
-        Map<String, Update> lockMap = getLockMap(update.mapName());
+        Map<BinaryKey, Update> lockMap = getLockMap(update.mapName());
         switch (update.type()) {
         case PUT:
         case PUT_IF_ABSENT:
@@ -318,9 +340,9 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
         }
     }
 
-    private UpdateResult<String, byte[]> commitProvisionalUpdate(DatabaseUpdate update, long transactionId) {
+    private UpdateResult<BinaryKey, byte[]> commitProvisionalUpdate(DatabaseUpdate update, long transactionId) {
         String mapName = update.mapName();
-        String key = update.key();
+        BinaryKey key = update.key();
         Update provisionalUpdate = getLockMap(mapName).get(key);
         if (Objects.equal(transactionId, provisionalUpdate.transactionId()))  {
             getLockMap(mapName).remove(key);
@@ -332,7 +354,7 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
 
     private void undoProvisionalUpdate(DatabaseUpdate update, long transactionId) {
         String mapName = update.mapName();
-        String key = update.key();
+        BinaryKey key = update.key();
         Update provisionalUpdate = getLockMap(mapName).get(key);
         if (provisionalUpdate == null) {
             return;
@@ -342,12 +364,12 @@ public class DefaultDatabaseState implements DatabaseState<String, byte[]> {
         }
     }
 
-    private boolean isLockedByAnotherTransaction(String mapName, String key, long transactionId) {
+    private boolean isLockedByAnotherTransaction(String mapName, BinaryKey key, long transactionId) {
         Update update = getLockMap(mapName).get(key);
         return update != null && !Objects.equal(transactionId, update.transactionId());
     }
 
-    private boolean isLockedForUpdates(String mapName, String key) {
+    private boolean isLockedForUpdates(String mapName, BinaryKey key) {
         return getLockMap(mapName).containsKey(key);
     }
 
@@ -20,7 +20,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.onlab.util.HexString;
+import org.onosproject.store.service.BinaryKey;
 import org.onosproject.store.service.ConsistentMap;
 import org.onosproject.store.service.DatabaseUpdate;
 import org.onosproject.store.service.Serializer;
@@ -59,18 +59,18 @@ public class DefaultTransactionalMap<K, V> implements TransactionalMap<K, V> {
     private static final String ERROR_NULL_VALUE = "Null values are not allowed";
     private static final String ERROR_NULL_KEY = "Null key is not allowed";
 
-    private final LoadingCache<K, String> keyCache = CacheBuilder.newBuilder()
+    private final LoadingCache<K, BinaryKey> keyCache = CacheBuilder.newBuilder()
             .softValues()
-            .build(new CacheLoader<K, String>() {
+            .build(new CacheLoader<K, BinaryKey>() {
 
                 @Override
-                public String load(K key) {
-                    return HexString.toHexString(serializer.encode(key));
+                public BinaryKey load(K key) {
+                    return new BinaryKey(serializer.encode(key));
                 }
             });
 
-    protected K dK(String key) {
-        return serializer.decode(HexString.fromHexString(key));
+    protected K dK(BinaryKey key) {
+        return serializer.decode(key.bytes());
     }
 
     public DefaultTransactionalMap(
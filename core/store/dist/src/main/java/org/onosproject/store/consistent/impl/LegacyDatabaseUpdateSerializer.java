@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.consistent.impl;
+
+import org.onosproject.store.service.BinaryKey;
+import org.onosproject.store.service.DatabaseUpdate;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
+
+/**
+ * Kryo Serializer reading {@link DatabaseUpdate}s logged by earlier versions,
+ * which carried map keys in their hex string form.
+ * <p>
+ * The serializer is registered in place of the earlier registration of
+ * {@link DatabaseUpdate}, whose field layout is reproduced by
+ * {@link LegacyDatabaseUpdate}. Updates are only read in that form; they are
+ * written as {@link DatabaseUpdate} with a {@link BinaryKey}.
+ * </p>
+ */
+public class LegacyDatabaseUpdateSerializer extends Serializer<DatabaseUpdate> {
+
+    /**
+     * Creates a serializer for updates logged by earlier versions.
+     */
+    public LegacyDatabaseUpdateSerializer() {
+        // non-null, immutable
+        super(false, true);
+    }
+
+    @Override
+    public DatabaseUpdate read(Kryo kryo, Input input, Class<DatabaseUpdate> type) {
+        // read in place of this serializer, as the class and reference have
+        // already been read; updates are never shared within a log entry, so
+        // the reference recorded for the legacy form is never looked up
+        LegacyDatabaseUpdate legacy = new FieldSerializer<LegacyDatabaseUpdate>(kryo, LegacyDatabaseUpdate.class)
+                .read(kryo, input, LegacyDatabaseUpdate.class);
+        DatabaseUpdate.Builder builder = DatabaseUpdate.newBuilder()
+                .withType(legacy.type)
+                .withMapName(legacy.mapName)
+                .withKey(BinaryKey.fromHexString(legacy.key));
+        if (legacy.value != null) {
+            builder.withValue(legacy.value);
+        }
+        if (legacy.currentValue != null) {
+            builder.withCurrentValue(legacy.currentValue);
+        }
+        if (legacy.currentVersion >= 0) {
+            builder.withCurrentVersion(legacy.currentVersion);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, DatabaseUpdate object) {
+        throw new UnsupportedOperationException("Updates are no longer written in their legacy form");
+    }
+
+    /**
+     * Field layout of {@link DatabaseUpdate} in earlier versions.
+     */
+    static final class LegacyDatabaseUpdate {
+        private DatabaseUpdate.Type type;
+        private String mapName;
+        private String key;
+        private byte[] value;
+        private byte[] currentValue;
+        private long currentVersion = -1;
+
+        // Constructor for serialization
+        private LegacyDatabaseUpdate() {
+        }
+    }
+}
@@ -40,6 +40,7 @@ public class MeteringAgent {
     private MetricsFeature metricsFeature;
     private final Map<String, Timer> perObjOpTimers = Maps.newConcurrentMap();
     private final Map<String, Timer> perOpTimers = Maps.newConcurrentMap();
+    private final Map<String, Counter> perObjCounters = Maps.newConcurrentMap();
     private Timer perPrimitiveTimer;
     private Timer perObjTimer;
     private MetricsFeature wildcard;
@@ -89,6 +90,19 @@ public class MeteringAgent {
         return new Context(currTimer.time(), op);
     }
 
+    /**
+     * Increments a specific event counter of the metered object.
+     *
+     * @param name name of the counted event
+     */
+    public void incrementCounter(String name) {
+        if (!activated) {
+            return;
+        }
+        perObjCounters.computeIfAbsent(name, counter ->
+                metricsService.createCounter(metricsComponent, metricsFeature, name)).inc();
+    }
+
     /**
      * Timer.Context with a specific operation.
      */
@@ -26,6 +26,7 @@ import net.kuujo.copycat.cluster.Cluster;
 import net.kuujo.copycat.resource.ResourceState;
 
 import org.onlab.util.Match;
+import org.onosproject.store.service.BinaryKey;
 import org.onosproject.store.service.DatabaseUpdate;
 import org.onosproject.store.service.Transaction;
 import org.onosproject.store.service.Versioned;
@@ -50,7 +51,7 @@ import static com.google.common.base.Preconditions.checkState;
 public class PartitionedDatabase implements Database {
 
     private final String name;
-    private final Partitioner<String> partitioner;
+    private final DatabasePartitioner partitioner;
     private final List<Database> partitions;
     private final AtomicBoolean isOpen = new AtomicBoolean(false);
     private static final String DB_NOT_OPEN = "Partitioned Database is not open";
@@ -128,7 +129,7 @@ public class PartitionedDatabase implements Database {
     }
 
     @Override
-    public CompletableFuture<Boolean> mapContainsKey(String mapName, String key) {
+    public CompletableFuture<Boolean> mapContainsKey(String mapName, BinaryKey key) {
         checkState(isOpen.get(), DB_NOT_OPEN);
         return partitioner.getPartition(mapName, key).mapContainsKey(mapName, key);
     }
@@ -146,14 +147,14 @@ public class PartitionedDatabase implements Database {
     }
 
     @Override
-    public CompletableFuture<Versioned<byte[]>> mapGet(String mapName, String key) {
+    public CompletableFuture<Versioned<byte[]>> mapGet(String mapName, BinaryKey key) {
         checkState(isOpen.get(), DB_NOT_OPEN);
         return partitioner.getPartition(mapName, key).mapGet(mapName, key);
     }
 
     @Override
-    public CompletableFuture<Result<UpdateResult<String, byte[]>>> mapUpdate(
-            String mapName, String key, Match<byte[]> valueMatch,
+    public CompletableFuture<Result<UpdateResult<BinaryKey, byte[]>>> mapUpdate(
+            String mapName, BinaryKey key, Match<byte[]> valueMatch,
             Match<Long> versionMatch, byte[] value) {
         return partitioner.getPartition(mapName, key).mapUpdate(mapName, key, valueMatch, versionMatch, value);
 
@@ -172,9 +173,9 @@ public class PartitionedDatabase implements Database {
     }
 
     @Override
-    public CompletableFuture<Set<String>> mapKeySet(String mapName) {
+    public CompletableFuture<Set<BinaryKey>> mapKeySet(String mapName) {
         checkState(isOpen.get(), DB_NOT_OPEN);
-        Set<String> keySet = Sets.newConcurrentHashSet();
+        Set<BinaryKey> keySet = Sets.newConcurrentHashSet();
         return CompletableFuture.allOf(partitions
                     .stream()
                     .map(p -> p.mapKeySet(mapName).thenApply(keySet::addAll))
@@ -194,9 +195,9 @@ public class PartitionedDatabase implements Database {
     }
 
     @Override
-    public CompletableFuture<Set<Entry<String, Versioned<byte[]>>>> mapEntrySet(String mapName) {
+    public CompletableFuture<Set<Entry<BinaryKey, Versioned<byte[]>>>> mapEntrySet(String mapName) {
         checkState(isOpen.get(), DB_NOT_OPEN);
-        Set<Entry<String, Versioned<byte[]>>> entrySet = Sets.newConcurrentHashSet();
+        Set<Entry<BinaryKey, Versioned<byte[]>>> entrySet = Sets.newConcurrentHashSet();
         return CompletableFuture.allOf(partitions
                                                .stream()
                                                .map(p -> p.mapEntrySet(mapName).thenApply(entrySet::addAll))
@@ -204,34 +205,81 @@ public class PartitionedDatabase implements Database {
                 .thenApply(v -> entrySet);
     }
 
+    /**
+     * Moves map entries that are not held by the partition their key maps to.
+     * <p>
+     * Entries persisted by earlier versions were placed by a md5 hash of the
+     * hex string form of their key. Each such entry is put into its partition
+     * unless an entry for the key has been written there since, and is then
+     * removed from its old partition unless it was updated in the meantime;
+     * a moved entry is given a new version. Nodes may run this concurrently.
+     * </p>
+     *
+     * @return future completed with the number of entries moved
+     */
+    public CompletableFuture<Integer> relocateEntries() {
+        checkState(isOpen.get(), DB_NOT_OPEN);
+        AtomicInteger relocated = new AtomicInteger();
+        return maps().thenCompose(mapNames -> CompletableFuture.allOf(mapNames
+                    .stream()
+                    .flatMap(mapName -> partitions
+                            .stream()
+                            .map(p -> p.mapEntrySet(mapName)
+                                    .thenCompose(entries -> relocateEntries(mapName, p, entries, relocated))))
+                    .toArray(CompletableFuture[]::new)))
+                .thenApply(v -> relocated.get());
+    }
+
+    private CompletableFuture<Void> relocateEntries(String mapName,
+                                                    Database partition,
+                                                    Set<Entry<BinaryKey, Versioned<byte[]>>> entries,
+                                                    AtomicInteger relocated) {
+        return CompletableFuture.allOf(entries
+                .stream()
+                .filter(entry -> partitioner.getPartition(mapName, entry.getKey()) != partition)
+                .map(entry -> partitioner.getPartition(mapName, entry.getKey())
+                        .mapUpdate(mapName, entry.getKey(),
+                                   Match.ifNull(), Match.any(), entry.getValue().value())
+                        .thenCompose(result -> result.success() ?
+                                partition.mapUpdate(mapName, entry.getKey(),
+                                                    Match.any(), Match.ifValue(entry.getValue().version()), null) :
+                                CompletableFuture.completedFuture(result))
+                        .thenAccept(result -> {
+                            if (result.success() && result.value().updated()) {
+                                relocated.incrementAndGet();
+                            }
+                        }))
+                .toArray(CompletableFuture[]::new));
+    }
+
     @Override
     public CompletableFuture<Long> counterGet(String counterName) {
         checkState(isOpen.get(), DB_NOT_OPEN);
-        return partitioner.getPartition(counterName, counterName).counterGet(counterName);
+        return partitioner.getPartition(counterName).counterGet(counterName);
     }
 
     @Override
     public CompletableFuture<Long> counterAddAndGet(String counterName, long delta) {
         checkState(isOpen.get(), DB_NOT_OPEN);
-        return partitioner.getPartition(counterName, counterName).counterAddAndGet(counterName, delta);
+        return partitioner.getPartition(counterName).counterAddAndGet(counterName, delta);
     }
 
     @Override
     public CompletableFuture<Long> counterGetAndAdd(String counterName, long delta) {
         checkState(isOpen.get(), DB_NOT_OPEN);
-        return partitioner.getPartition(counterName, counterName).counterGetAndAdd(counterName, delta);
+        return partitioner.getPartition(counterName).counterGetAndAdd(counterName, delta);
     }
 
     @Override
     public CompletableFuture<Void> counterSet(String counterName, long value) {
         checkState(isOpen.get(), DB_NOT_OPEN);
-        return partitioner.getPartition(counterName, counterName).counterSet(counterName, value);
+        return partitioner.getPartition(counterName).counterSet(counterName, value);
     }
 
     @Override
     public CompletableFuture<Boolean> counterCompareAndSet(String counterName, long expectedValue, long updateValue) {
         checkState(isOpen.get(), DB_NOT_OPEN);
-        return partitioner.getPartition(counterName, counterName).
+        return partitioner.getPartition(counterName).
                 counterCompareAndSet(counterName, expectedValue, updateValue);
 
     }
@@ -239,25 +287,25 @@ public class PartitionedDatabase implements Database {
     @Override
     public CompletableFuture<Long> queueSize(String queueName) {
         checkState(isOpen.get(), DB_NOT_OPEN);
-        return partitioner.getPartition(queueName, queueName).queueSize(queueName);
+        return partitioner.getPartition(queueName).queueSize(queueName);
     }
 
     @Override
     public CompletableFuture<Void> queuePush(String queueName, byte[] entry) {
         checkState(isOpen.get(), DB_NOT_OPEN);
-        return partitioner.getPartition(queueName, queueName).queuePush(queueName, entry);
+        return partitioner.getPartition(queueName).queuePush(queueName, entry);
     }
 
     @Override
     public CompletableFuture<byte[]> queuePop(String queueName) {
         checkState(isOpen.get(), DB_NOT_OPEN);
-        return partitioner.getPartition(queueName, queueName).queuePop(queueName);
+        return partitioner.getPartition(queueName).queuePop(queueName);
     }
 
     @Override
     public CompletableFuture<byte[]> queuePeek(String queueName) {
         checkState(isOpen.get(), DB_NOT_OPEN);
-        return partitioner.getPartition(queueName, queueName).queuePeek(queueName);
+        return partitioner.getPartition(queueName).queuePeek(queueName);
     }
 
     @Override
@@ -295,7 +343,7 @@ public class PartitionedDatabase implements Database {
     public CompletableFuture<CommitResponse> commit(Transaction transaction) {
         Map<Database, Transaction> subTransactions = createSubTransactions(transaction);
         AtomicBoolean success = new AtomicBoolean(true);
-        List<UpdateResult<String, byte[]>> allUpdates = Lists.newArrayList();
+        List<UpdateResult<BinaryKey, byte[]>> allUpdates = Lists.newArrayList();
         return CompletableFuture.allOf(subTransactions.entrySet()
                                                .stream()
                                                .map(entry -> entry.getKey().commit(entry.getValue())
@@ -18,10 +18,12 @@ package org.onosproject.store.consistent.impl;
 
 import java.util.List;
 
+import org.onosproject.store.service.BinaryKey;
+
 /**
  * A simple Partitioner for mapping keys to database partitions.
  * <p>
- * This class uses a md5 hash based hashing scheme for hashing the key to
+ * This class uses a murmur3 hash based hashing scheme for hashing the key to
  * a partition.
  *
  */
@@ -32,7 +34,7 @@ public class SimpleKeyHashPartitioner extends DatabasePartitioner {
     }
 
     @Override
-    public Database getPartition(String mapName, String key) {
+    public Database getPartition(String mapName, BinaryKey key) {
         return partitions.get(hash(key) % partitions.size());
     }
 }
\ No newline at end of file
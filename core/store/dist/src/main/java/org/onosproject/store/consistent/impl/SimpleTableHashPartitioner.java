@@ -18,6 +18,8 @@ package org.onosproject.store.consistent.impl;
 
 import java.util.List;
 
+import org.onosproject.store.service.BinaryKey;
+
 /**
  * A simple Partitioner that uses the map name hash to
  * pick a partition.
@@ -33,7 +35,7 @@ public class SimpleTableHashPartitioner extends DatabasePartitioner {
     }
 
     @Override
-    public Database getPartition(String mapName, String key) {
+    public Database getPartition(String mapName, BinaryKey key) {
         return partitions.get(hash(mapName) % partitions.size());
     }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.device.impl;
+
+import com.codahale.metrics.Timer;
+import org.onosproject.net.DeviceId;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
+
+/**
+ * Striped locks serializing the local updates of each device, while the
+ * updates of devices on different stripes proceed in parallel.
+ * <p>
+ * The time spent waiting for a contended lock and the time each lock is
+ * held are recorded by the given timers, if any.
+ * </p>
+ */
+final class DeviceLocks {
+
+    private final Lock[] stripes;
+    private final Timer waitTimer;
+    private final Timer holdTimer;
+
+    /**
+     * Creates a new set of device locks.
+     *
+     * @param stripes   number of locks; must be a power of two
+     * @param waitTimer timer of the waits for contended locks; may be null
+     * @param holdTimer timer of the lock hold times; may be null
+     */
+    DeviceLocks(int stripes, Timer waitTimer, Timer holdTimer) {
+        checkArgument(stripes > 0 && Integer.bitCount(stripes) == 1,
+                      "Number of stripes must be a power of two");
+        this.stripes = new Lock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.waitTimer = waitTimer;
+        this.holdTimer = holdTimer;
+    }
+
+    /**
+     * Acquires the lock of the given device, waiting for it if necessary.
+     * The lock is released by closing the returned handle.
+     *
+     * @param deviceId device identifier
+     * @return handle of the held lock
+     */
+    Held lock(DeviceId deviceId) {
+        Lock lock = stripe(deviceId);
+        if (!lock.tryLock()) {
+            final Timer.Context wait = startTimer(waitTimer);
+            lock.lock();
+            stopTimer(wait);
+        }
+        return new Held(lock, startTimer(holdTimer));
+    }
+
+    // Returns the lock of the stripe the given device is on.
+    private Lock stripe(DeviceId deviceId) {
+        int hash = deviceId.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    /**
+     * Handle of a held device lock.
+     */
+    static final class Held implements AutoCloseable {
+        private final Lock lock;
+        private final Timer.Context hold;
+
+        private Held(Lock lock, Timer.Context hold) {
+            this.lock = lock;
+            this.hold = hold;
+        }
+
+        /**
+         * Releases the device lock.
+         */
+        @Override
+        public void close() {
+            stopTimer(hold);
+            lock.unlock();
+        }
+    }
+}
@@ -27,12 +27,15 @@ import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsService;
 import org.onlab.packet.ChassisId;
 import org.onlab.util.KryoNamespace;
 import org.onlab.util.NewConcurrentHashMap;
+import org.onlab.util.Tools;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.ControllerNode;
 import org.onosproject.cluster.NodeId;
+import org.onosproject.core.MetricsHelper;
 import org.onosproject.mastership.MastershipService;
 import org.onosproject.mastership.MastershipTerm;
 import org.onosproject.mastership.MastershipTermService;
@@ -50,7 +53,6 @@ import org.onosproject.net.OduCltPort;
 import org.onosproject.net.OmsPort;
 import org.onosproject.net.Port;
 import org.onosproject.net.PortNumber;
-import org.onosproject.net.device.DefaultPortStatistics;
 import org.onosproject.net.device.DeviceClockService;
 import org.onosproject.net.device.DeviceDescription;
 import org.onosproject.net.device.DeviceEvent;
@@ -69,15 +71,8 @@ import org.onosproject.store.cluster.messaging.ClusterMessage;
 import org.onosproject.store.cluster.messaging.ClusterMessageHandler;
 import org.onosproject.store.cluster.messaging.MessageSubject;
 import org.onosproject.store.impl.Timestamped;
-import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.serializers.KryoSerializer;
 import org.onosproject.store.serializers.custom.DistributedStoreSerializers;
-import org.onosproject.store.service.EventuallyConsistentMap;
-import org.onosproject.store.service.EventuallyConsistentMapEvent;
-import org.onosproject.store.service.EventuallyConsistentMapListener;
-import org.onosproject.store.service.MultiValuedTimestamp;
-import org.onosproject.store.service.StorageService;
-import org.onosproject.store.service.WallClockTimestamp;
 import org.slf4j.Logger;
 
 import java.io.IOException;
@@ -97,6 +92,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Predicates.notNull;
@@ -109,7 +105,6 @@ import static org.onosproject.cluster.ControllerNodeToNodeId.toNodeId;
 import static org.onosproject.net.DefaultAnnotations.merge;
 import static org.onosproject.net.device.DeviceEvent.Type.*;
 import static org.onosproject.store.device.impl.GossipDeviceStoreMessageSubjects.*;
-import static org.onosproject.store.service.EventuallyConsistentMapEvent.Type.PUT;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -120,7 +115,7 @@ import static org.slf4j.LoggerFactory.getLogger;
 @Service
 public class GossipDeviceStore
         extends AbstractStore<DeviceEvent, DeviceStoreDelegate>
-        implements DeviceStore {
+        implements DeviceStore, MetricsHelper {
 
     private final Logger log = getLogger(getClass());
 
@@ -128,6 +123,12 @@ public class GossipDeviceStore
     // Timeout in milliseconds to process device or ports on remote master node
     private static final int REMOTE_MASTER_TIMEOUT = 1000;
 
+    private static final int DEVICE_LOCK_STRIPES = 256;
+    private static final String METRICS_COMPONENT = "GossipDeviceStore";
+    private static final String METRICS_FEATURE = "deviceLocks";
+    // number of port statistics samples retained for each port
+    private static final int PORT_STATS_HISTORY_SIZE = 16;
+
     // innerMap is used to lock a Device, thus instance should never be replaced.
     // collection of Description given from various providers
     private final ConcurrentMap<DeviceId, Map<ProviderId, DeviceDescriptions>>
@@ -137,14 +138,19 @@ public class GossipDeviceStore
     private final ConcurrentMap<DeviceId, Device> devices = Maps.newConcurrentMap();
     private final ConcurrentMap<DeviceId, ConcurrentMap<PortNumber, Port>> devicePorts = Maps.newConcurrentMap();
 
-    private EventuallyConsistentMap<DeviceId, Map<PortNumber, PortStatistics>> devicePortStats;
-    private EventuallyConsistentMap<DeviceId, Map<PortNumber, PortStatistics>> devicePortDeltaStats;
-    private final EventuallyConsistentMapListener<DeviceId, Map<PortNumber, PortStatistics>>
-            portStatsListener = new InternalPortStatsListener();
+    // recent port statistics of the devices polled by this instance;
+    // other instances query the master on demand, and a new master starts
+    // over from the samples it polls itself
+    private final ConcurrentMap<DeviceId, ConcurrentMap<PortNumber, PortStatisticsHistory>>
+            devicePortStats = Maps.newConcurrentMap();
 
     // to be updated under Device lock
-    private final Map<DeviceId, Timestamp> offline = Maps.newHashMap();
-    private final Map<DeviceId, Timestamp> removalRequest = Maps.newHashMap();
+    private final Map<DeviceId, Timestamp> offline = Maps.newConcurrentMap();
+    private final Map<DeviceId, Timestamp> removalRequest = Maps.newConcurrentMap();
+
+    // serializes local updates of each device, including the acquisition
+    // of their timestamps
+    private DeviceLocks deviceLocks;
 
     // available(=UP) devices
     private final Set<DeviceId> availableDevices = Sets.newConcurrentHashSet();
@@ -152,9 +158,6 @@ public class GossipDeviceStore
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected DeviceClockService deviceClockService;
 
-    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
-    protected StorageService storageService;
-
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ClusterCommunicationService clusterCommunicator;
 
@@ -167,6 +170,9 @@ public class GossipDeviceStore
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected MastershipTermService termService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
 
     protected static final KryoSerializer SERIALIZER = new KryoSerializer() {
         @Override
@@ -198,6 +204,10 @@ public class GossipDeviceStore
 
     @Activate
     public void activate() {
+        deviceLocks = new DeviceLocks(DEVICE_LOCK_STRIPES,
+                                      createTimer(METRICS_COMPONENT, METRICS_FEATURE, "lockWait"),
+                                      createTimer(METRICS_COMPONENT, METRICS_FEATURE, "lockHold"));
+
         executor = Executors.newCachedThreadPool(groupedThreads("onos/device", "fg-%d"));
 
         backgroundExecutor =
@@ -226,42 +236,26 @@ public class GossipDeviceStore
                 GossipDeviceStoreMessageSubjects.DEVICE_INJECTED, new DeviceInjectedEventListener(), executor);
         clusterCommunicator.addSubscriber(
                 GossipDeviceStoreMessageSubjects.PORT_INJECTED, new PortInjectedEventListener(), executor);
+        clusterCommunicator.addSubscriber(
+                GossipDeviceStoreMessageSubjects.PORT_STATS_UPDATE, new InternalPortStatsEventListener(), executor);
+        clusterCommunicator.<DeviceId, List<PortStatistics>>addSubscriber(
+                PORT_STATS_REQ, SERIALIZER::decode, this::getLocalPortStatistics, SERIALIZER::encode, executor);
+        clusterCommunicator.<DeviceId, List<PortStatistics>>addSubscriber(
+                PORT_DELTA_STATS_REQ, SERIALIZER::decode, this::getLocalPortDeltaStatistics, SERIALIZER::encode,
+                executor);
 
         // start anti-entropy thread
         backgroundExecutor.scheduleAtFixedRate(new SendAdvertisementTask(),
                                                initialDelaySec, periodSec, TimeUnit.SECONDS);
 
-        // Create a distributed map for port stats.
-        KryoNamespace.Builder deviceDataSerializer = KryoNamespace.newBuilder()
-                .register(KryoNamespaces.API)
-                .register(DefaultPortStatistics.class)
-                .register(DeviceId.class)
-                .register(MultiValuedTimestamp.class)
-                .register(WallClockTimestamp.class);
-
-        devicePortStats = storageService.<DeviceId, Map<PortNumber, PortStatistics>>eventuallyConsistentMapBuilder()
-                .withName("port-stats")
-                .withSerializer(deviceDataSerializer)
-                .withAntiEntropyPeriod(5, TimeUnit.SECONDS)
-                .withTimestampProvider((k, v) -> new WallClockTimestamp())
-                .withTombstonesDisabled()
-                .build();
-        devicePortDeltaStats = storageService.<DeviceId, Map<PortNumber, PortStatistics>>
-                eventuallyConsistentMapBuilder()
-                .withName("port-stats-delta")
-                .withSerializer(deviceDataSerializer)
-                .withAntiEntropyPeriod(5, TimeUnit.SECONDS)
-                .withTimestampProvider((k, v) -> new WallClockTimestamp())
-                .withTombstonesDisabled()
-                .build();
-        devicePortStats.addListener(portStatsListener);
         log.info("Started");
     }
 
     @Deactivate
     public void deactivate() {
-        devicePortStats.destroy();
-        devicePortDeltaStats.destroy();
+        clusterCommunicator.removeSubscriber(GossipDeviceStoreMessageSubjects.PORT_STATS_UPDATE);
+        clusterCommunicator.removeSubscriber(PORT_STATS_REQ);
+        clusterCommunicator.removeSubscriber(PORT_DELTA_STATS_REQ);
         executor.shutdownNow();
 
         backgroundExecutor.shutdownNow();
@@ -276,10 +270,16 @@ public class GossipDeviceStore
         deviceDescs.clear();
         devices.clear();
         devicePorts.clear();
+        devicePortStats.clear();
         availableDevices.clear();
         log.info("Stopped");
     }
 
+    @Override
+    public MetricsService metricsService() {
+        return metricsService;
+    }
+
     @Override
     public int getDeviceCount() {
         return devices.size();
@@ -302,61 +302,63 @@ public class GossipDeviceStore
     }
 
     @Override
-    public synchronized DeviceEvent createOrUpdateDevice(ProviderId providerId,
-                                                         DeviceId deviceId,
-                                                         DeviceDescription deviceDescription) {
-        NodeId localNode = clusterService.getLocalNode().id();
-        NodeId deviceNode = mastershipService.getMasterFor(deviceId);
-
-        // Process device update only if we're the master,
-        // otherwise signal the actual master.
-        DeviceEvent deviceEvent = null;
-        if (localNode.equals(deviceNode)) {
-
-            final Timestamp newTimestamp = deviceClockService.getTimestamp(deviceId);
-            final Timestamped<DeviceDescription> deltaDesc = new Timestamped<>(deviceDescription, newTimestamp);
-            final Timestamped<DeviceDescription> mergedDesc;
-            final Map<ProviderId, DeviceDescriptions> device = getOrCreateDeviceDescriptionsMap(deviceId);
+    public DeviceEvent createOrUpdateDevice(ProviderId providerId,
+                                            DeviceId deviceId,
+                                            DeviceDescription deviceDescription) {
+        try (DeviceLocks.Held held = deviceLocks.lock(deviceId)) {
+            NodeId localNode = clusterService.getLocalNode().id();
+            NodeId deviceNode = mastershipService.getMasterFor(deviceId);
+
+            // Process device update only if we're the master,
+            // otherwise signal the actual master.
+            DeviceEvent deviceEvent = null;
+            if (localNode.equals(deviceNode)) {
+
+                final Timestamp newTimestamp = deviceClockService.getTimestamp(deviceId);
+                final Timestamped<DeviceDescription> deltaDesc = new Timestamped<>(deviceDescription, newTimestamp);
+                final Timestamped<DeviceDescription> mergedDesc;
+                final Map<ProviderId, DeviceDescriptions> device = getOrCreateDeviceDescriptionsMap(deviceId);
+
+                synchronized (device) {
+                    deviceEvent = createOrUpdateDeviceInternal(providerId, deviceId, deltaDesc);
+                    mergedDesc = device.get(providerId).getDeviceDesc();
+                }
 
-            synchronized (device) {
-                deviceEvent = createOrUpdateDeviceInternal(providerId, deviceId, deltaDesc);
-                mergedDesc = device.get(providerId).getDeviceDesc();
-            }
+                if (deviceEvent != null) {
+                    log.debug("Notifying peers of a device update topology event for providerId: {} and deviceId: {}",
+                             providerId, deviceId);
+                    notifyPeers(new InternalDeviceEvent(providerId, deviceId, mergedDesc));
+                }
 
-            if (deviceEvent != null) {
-                log.debug("Notifying peers of a device update topology event for providerId: {} and deviceId: {}",
-                         providerId, deviceId);
-                notifyPeers(new InternalDeviceEvent(providerId, deviceId, mergedDesc));
-            }
+            } else {
+                // Only forward for ConfigProvider
+                // Forwarding was added as a workaround for ONOS-490
+                if (!providerId.scheme().equals("cfg")) {
+                    return null;
+                }
+                // FIXME Temporary hack for NPE (ONOS-1171).
+                // Proper fix is to implement forwarding to master on ConfigProvider
+                // redo ONOS-490
+                if (deviceNode == null) {
+                    // silently ignore
+                    return null;
+                }
 
-        } else {
-            // Only forward for ConfigProvider
-            // Forwarding was added as a workaround for ONOS-490
-            if (!providerId.scheme().equals("cfg")) {
-                return null;
-            }
-            // FIXME Temporary hack for NPE (ONOS-1171).
-            // Proper fix is to implement forwarding to master on ConfigProvider
-            // redo ONOS-490
-            if (deviceNode == null) {
-                // silently ignore
-                return null;
-            }
 
+                DeviceInjectedEvent deviceInjectedEvent = new DeviceInjectedEvent(
+                        providerId, deviceId, deviceDescription);
 
-            DeviceInjectedEvent deviceInjectedEvent = new DeviceInjectedEvent(
-                    providerId, deviceId, deviceDescription);
+                // TODO check unicast return value
+                clusterCommunicator.unicast(deviceInjectedEvent, DEVICE_INJECTED, SERIALIZER::encode, deviceNode);
+                /* error log:
+                log.warn("Failed to process injected device id: {} desc: {} " +
+                                "(cluster messaging failed: {})",
+                        deviceId, deviceDescription, e);
+                */
+            }
 
-            // TODO check unicast return value
-            clusterCommunicator.unicast(deviceInjectedEvent, DEVICE_INJECTED, SERIALIZER::encode, deviceNode);
-            /* error log:
-            log.warn("Failed to process injected device id: {} desc: {} " +
-                            "(cluster messaging failed: {})",
-                    deviceId, deviceDescription, e);
-            */
+            return deviceEvent;
         }
-
-        return deviceEvent;
     }
 
     private DeviceEvent createOrUpdateDeviceInternal(ProviderId providerId,
@@ -521,93 +523,95 @@ public class GossipDeviceStore
     }
 
     @Override
-    public synchronized List<DeviceEvent> updatePorts(ProviderId providerId,
-                                                      DeviceId deviceId,
-                                                      List<PortDescription> portDescriptions) {
-
-        NodeId localNode = clusterService.getLocalNode().id();
-        // TODO: It might be negligible, but this will have negative impact to topology discovery performance,
-        // since it will trigger distributed store read.
-        // Also, it'll probably be better if side-way communication happened on ConfigurationProvider, etc.
-        // outside Device subsystem. so that we don't have to modify both Device and Link stores.
-        // If we don't care much about topology performance, then it might be OK.
-        NodeId deviceNode = mastershipService.getMasterFor(deviceId);
-
-        // Process port update only if we're the master of the device,
-        // otherwise signal the actual master.
-        List<DeviceEvent> deviceEvents = null;
-        if (localNode.equals(deviceNode)) {
-
-            final Timestamp newTimestamp;
-            try {
-                newTimestamp = deviceClockService.getTimestamp(deviceId);
-            } catch (IllegalStateException e) {
-                log.info("Timestamp was not available for device {}", deviceId);
-                log.debug("  discarding {}", portDescriptions);
-                // Failed to generate timestamp.
+    public List<DeviceEvent> updatePorts(ProviderId providerId,
+                                         DeviceId deviceId,
+                                         List<PortDescription> portDescriptions) {
+        try (DeviceLocks.Held held = deviceLocks.lock(deviceId)) {
+
+            NodeId localNode = clusterService.getLocalNode().id();
+            // TODO: It might be negligible, but this will have negative impact to topology discovery performance,
+            // since it will trigger distributed store read.
+            // Also, it'll probably be better if side-way communication happened on ConfigurationProvider, etc.
+            // outside Device subsystem. so that we don't have to modify both Device and Link stores.
+            // If we don't care much about topology performance, then it might be OK.
+            NodeId deviceNode = mastershipService.getMasterFor(deviceId);
+
+            // Process port update only if we're the master of the device,
+            // otherwise signal the actual master.
+            List<DeviceEvent> deviceEvents = null;
+            if (localNode.equals(deviceNode)) {
+
+                final Timestamp newTimestamp;
+                try {
+                    newTimestamp = deviceClockService.getTimestamp(deviceId);
+                } catch (IllegalStateException e) {
+                    log.info("Timestamp was not available for device {}", deviceId);
+                    log.debug("  discarding {}", portDescriptions);
+                    // Failed to generate timestamp.
 
-                // Possible situation:
-                //  Device connected and became master for short period of time,
-                // but lost mastership before this instance had the chance to
-                // retrieve term information.
+                    // Possible situation:
+                    //  Device connected and became master for short period of time,
+                    // but lost mastership before this instance had the chance to
+                    // retrieve term information.
 
-                // Information dropped here is expected to be recoverable by
-                // device probing after mastership change
+                    // Information dropped here is expected to be recoverable by
+                    // device probing after mastership change
 
-                return Collections.emptyList();
-            }
-            log.debug("timestamp for {} {}", deviceId, newTimestamp);
-
-            final Timestamped<List<PortDescription>> timestampedInput
-                    = new Timestamped<>(portDescriptions, newTimestamp);
-            final Timestamped<List<PortDescription>> merged;
+                    return Collections.emptyList();
+                }
+                log.debug("timestamp for {} {}", deviceId, newTimestamp);
+
+                final Timestamped<List<PortDescription>> timestampedInput
+                        = new Timestamped<>(portDescriptions, newTimestamp);
+                final Timestamped<List<PortDescription>> merged;
+
+                final Map<ProviderId, DeviceDescriptions> device = getOrCreateDeviceDescriptionsMap(deviceId);
+
+                synchronized (device) {
+                    deviceEvents = updatePortsInternal(providerId, deviceId, timestampedInput);
+                    final DeviceDescriptions descs = device.get(providerId);
+                    List<PortDescription> mergedList =
+                            FluentIterable.from(portDescriptions)
+                                    .transform(input ->
+                                        // lookup merged port description
+                                        descs.getPortDesc(input.portNumber()).value()
+                                    ).toList();
+                    merged = new Timestamped<>(mergedList, newTimestamp);
+                }
 
-            final Map<ProviderId, DeviceDescriptions> device = getOrCreateDeviceDescriptionsMap(deviceId);
+                if (!deviceEvents.isEmpty()) {
+                    log.debug("Notifying peers of a ports update topology event for providerId: {} and deviceId: {}",
+                             providerId, deviceId);
+                    notifyPeers(new InternalPortEvent(providerId, deviceId, merged));
+                }
 
-            synchronized (device) {
-                deviceEvents = updatePortsInternal(providerId, deviceId, timestampedInput);
-                final DeviceDescriptions descs = device.get(providerId);
-                List<PortDescription> mergedList =
-                        FluentIterable.from(portDescriptions)
-                                .transform(input ->
-                                    // lookup merged port description
-                                    descs.getPortDesc(input.portNumber()).value()
-                                ).toList();
-                merged = new Timestamped<>(mergedList, newTimestamp);
-            }
+            } else {
+                // Only forward for ConfigProvider
+                // Forwarding was added as a workaround for ONOS-490
+                if (!providerId.scheme().equals("cfg")) {
+                    return null;
+                }
+                // FIXME Temporary hack for NPE (ONOS-1171).
+                // Proper fix is to implement forwarding to master on ConfigProvider
+                // redo ONOS-490
+                if (deviceNode == null) {
+                    // silently ignore
+                    return Collections.emptyList();
+                }
 
-            if (!deviceEvents.isEmpty()) {
-                log.debug("Notifying peers of a ports update topology event for providerId: {} and deviceId: {}",
-                         providerId, deviceId);
-                notifyPeers(new InternalPortEvent(providerId, deviceId, merged));
-            }
+                PortInjectedEvent portInjectedEvent = new PortInjectedEvent(providerId, deviceId, portDescriptions);
 
-        } else {
-            // Only forward for ConfigProvider
-            // Forwarding was added as a workaround for ONOS-490
-            if (!providerId.scheme().equals("cfg")) {
-                return null;
-            }
-            // FIXME Temporary hack for NPE (ONOS-1171).
-            // Proper fix is to implement forwarding to master on ConfigProvider
-            // redo ONOS-490
-            if (deviceNode == null) {
-                // silently ignore
-                return Collections.emptyList();
+                //TODO check unicast return value
+                clusterCommunicator.unicast(portInjectedEvent, PORT_INJECTED, SERIALIZER::encode, deviceNode);
+                /* error log:
+                log.warn("Failed to process injected ports of device id: {} " +
+                                "(cluster messaging failed: {})",
+                        deviceId, e);
+                */
             }
 
-            PortInjectedEvent portInjectedEvent = new PortInjectedEvent(providerId, deviceId, portDescriptions);
-
-            //TODO check unicast return value
-            clusterCommunicator.unicast(portInjectedEvent, PORT_INJECTED, SERIALIZER::encode, deviceNode);
-            /* error log:
-            log.warn("Failed to process injected ports of device id: {} " +
-                            "(cluster messaging failed: {})",
-                    deviceId, e);
-            */
+            return deviceEvents == null ? Collections.emptyList() : deviceEvents;
         }
-
-        return deviceEvents == null ? Collections.emptyList() : deviceEvents;
     }
 
     private List<DeviceEvent> updatePortsInternal(ProviderId providerId,
@@ -752,35 +756,37 @@ public class GossipDeviceStore
     }
 
     @Override
-    public synchronized DeviceEvent updatePortStatus(ProviderId providerId,
-                                                     DeviceId deviceId,
-                                                     PortDescription portDescription) {
-        final Timestamp newTimestamp;
-        try {
-            newTimestamp = deviceClockService.getTimestamp(deviceId);
-        } catch (IllegalStateException e) {
-            log.info("Timestamp was not available for device {}", deviceId);
-            log.debug("  discarding {}", portDescription);
-            // Failed to generate timestamp. Ignoring.
-            // See updatePorts comment
-            return null;
-        }
-        final Timestamped<PortDescription> deltaDesc
-                = new Timestamped<>(portDescription, newTimestamp);
-        final DeviceEvent event;
-        final Timestamped<PortDescription> mergedDesc;
-        final Map<ProviderId, DeviceDescriptions> device = getOrCreateDeviceDescriptionsMap(deviceId);
-        synchronized (device) {
-            event = updatePortStatusInternal(providerId, deviceId, deltaDesc);
-            mergedDesc = device.get(providerId)
-                    .getPortDesc(portDescription.portNumber());
-        }
-        if (event != null) {
-            log.debug("Notifying peers of a port status update topology event for providerId: {} and deviceId: {}",
-                     providerId, deviceId);
-            notifyPeers(new InternalPortStatusEvent(providerId, deviceId, mergedDesc));
+    public DeviceEvent updatePortStatus(ProviderId providerId,
+                                        DeviceId deviceId,
+                                        PortDescription portDescription) {
+        try (DeviceLocks.Held held = deviceLocks.lock(deviceId)) {
+            final Timestamp newTimestamp;
+            try {
+                newTimestamp = deviceClockService.getTimestamp(deviceId);
+            } catch (IllegalStateException e) {
+                log.info("Timestamp was not available for device {}", deviceId);
+                log.debug("  discarding {}", portDescription);
+                // Failed to generate timestamp. Ignoring.
+                // See updatePorts comment
+                return null;
+            }
+            final Timestamped<PortDescription> deltaDesc
+                    = new Timestamped<>(portDescription, newTimestamp);
+            final DeviceEvent event;
+            final Timestamped<PortDescription> mergedDesc;
+            final Map<ProviderId, DeviceDescriptions> device = getOrCreateDeviceDescriptionsMap(deviceId);
+            synchronized (device) {
+                event = updatePortStatusInternal(providerId, deviceId, deltaDesc);
+                mergedDesc = device.get(providerId)
+                        .getPortDesc(portDescription.portNumber());
+            }
+            if (event != null) {
+                log.debug("Notifying peers of a port status update topology event for providerId: {} and deviceId: {}",
+                         providerId, deviceId);
+                notifyPeers(new InternalPortStatusEvent(providerId, deviceId, mergedDesc));
+            }
+            return event;
         }
-        return event;
     }
 
     private DeviceEvent updatePortStatusInternal(ProviderId providerId, DeviceId deviceId,
@@ -843,85 +849,80 @@ public class GossipDeviceStore
     public DeviceEvent updatePortStatistics(ProviderId providerId, DeviceId deviceId,
                                             Collection<PortStatistics> newStatsCollection) {
 
-        Map<PortNumber, PortStatistics> prvStatsMap = devicePortStats.get(deviceId);
-        Map<PortNumber, PortStatistics> newStatsMap = Maps.newHashMap();
-        Map<PortNumber, PortStatistics> deltaStatsMap = Maps.newHashMap();
-
-        if (prvStatsMap != null) {
-            for (PortStatistics newStats : newStatsCollection) {
-                PortNumber port = PortNumber.portNumber(newStats.port());
-                PortStatistics prvStats = prvStatsMap.get(port);
-                DefaultPortStatistics.Builder builder = DefaultPortStatistics.builder();
-                PortStatistics deltaStats = builder.build();
-                if (prvStats != null) {
-                    deltaStats = calcDeltaStats(deviceId, prvStats, newStats);
-                }
-                deltaStatsMap.put(port, deltaStats);
-                newStatsMap.put(port, newStats);
-            }
-        } else {
-            for (PortStatistics newStats : newStatsCollection) {
-                PortNumber port = PortNumber.portNumber(newStats.port());
-                newStatsMap.put(port, newStats);
-            }
+        ConcurrentMap<PortNumber, PortStatisticsHistory> portStats =
+                devicePortStats.computeIfAbsent(deviceId, k -> Maps.newConcurrentMap());
+        Set<PortNumber> reported = Sets.newHashSet();
+        long now = System.currentTimeMillis();
+        for (PortStatistics newStats : newStatsCollection) {
+            PortNumber port = PortNumber.portNumber(newStats.port());
+            portStats.computeIfAbsent(port, k -> new PortStatisticsHistory(newStats.port(), PORT_STATS_HISTORY_SIZE))
+                    .add(newStats, now);
+            reported.add(port);
         }
-        devicePortDeltaStats.put(deviceId, deltaStatsMap);
-        devicePortStats.put(deviceId, newStatsMap);
-        // DeviceEvent returns null because of InternalPortStatsListener usage
-        return null;
-    }
+        // forget the ports which are no longer reported
+        portStats.keySet().retainAll(reported);
 
-    /**
-     * Calculate delta statistics by subtracting previous from new statistics.
-     *
-     * @param deviceId device identifier
-     * @param prvStats previous port statistics
-     * @param newStats new port statistics
-     * @return PortStatistics
-     */
-    public PortStatistics calcDeltaStats(DeviceId deviceId, PortStatistics prvStats, PortStatistics newStats) {
-        // calculate time difference
-        long deltaStatsSec, deltaStatsNano;
-        if (newStats.durationNano() < prvStats.durationNano()) {
-            deltaStatsNano = newStats.durationNano() - prvStats.durationNano() + TimeUnit.SECONDS.toNanos(1);
-            deltaStatsSec = newStats.durationSec() - prvStats.durationSec() - 1L;
-        } else {
-            deltaStatsNano = newStats.durationNano() - prvStats.durationNano();
-            deltaStatsSec = newStats.durationSec() - prvStats.durationSec();
+        Device device = devices.get(deviceId);
+        if (device == null) {
+            return null;
         }
-        DefaultPortStatistics.Builder builder = DefaultPortStatistics.builder();
-        DefaultPortStatistics deltaStats = builder.setDeviceId(deviceId)
-                .setPort(newStats.port())
-                .setPacketsReceived(newStats.packetsReceived() - prvStats.packetsReceived())
-                .setPacketsSent(newStats.packetsSent() - prvStats.packetsSent())
-                .setBytesReceived(newStats.bytesReceived() - prvStats.bytesReceived())
-                .setBytesSent(newStats.bytesSent() - prvStats.bytesSent())
-                .setPacketsRxDropped(newStats.packetsRxDropped() - prvStats.packetsRxDropped())
-                .setPacketsTxDropped(newStats.packetsTxDropped() - prvStats.packetsTxDropped())
-                .setPacketsRxErrors(newStats.packetsRxErrors() - prvStats.packetsRxErrors())
-                .setPacketsTxErrors(newStats.packetsTxErrors() - prvStats.packetsTxErrors())
-                .setDurationSec(deltaStatsSec)
-                .setDurationNano(deltaStatsNano)
-                .build();
-        return deltaStats;
+        // peers fetch the statistics from the master only when asked for them
+        broadcastMessage(GossipDeviceStoreMessageSubjects.PORT_STATS_UPDATE, deviceId);
+        return new DeviceEvent(PORT_STATS_UPDATED, device);
     }
 
     @Override
     public List<PortStatistics> getPortStatistics(DeviceId deviceId) {
-        Map<PortNumber, PortStatistics> portStats = devicePortStats.get(deviceId);
+        return getPortStatistics(deviceId, PORT_STATS_REQ, this::getLocalPortStatistics);
+    }
+
+    @Override
+    public List<PortStatistics> getPortDeltaStatistics(DeviceId deviceId) {
+        return getPortStatistics(deviceId, PORT_DELTA_STATS_REQ, this::getLocalPortDeltaStatistics);
+    }
+
+    // Serves port statistics locally if this instance is the master of the
+    // device, or asks the master for them otherwise.
+    private List<PortStatistics> getPortStatistics(DeviceId deviceId, MessageSubject subject,
+                                                   Function<DeviceId, List<PortStatistics>> local) {
+        NodeId master = mastershipService.getMasterFor(deviceId);
+        if (master == null || master.equals(clusterService.getLocalNode().id())) {
+            return local.apply(deviceId);
+        }
+        return Tools.futureGetOrElse(clusterCommunicator.sendAndReceive(deviceId,
+                                                                        subject,
+                                                                        SERIALIZER::encode,
+                                                                        SERIALIZER::decode,
+                                                                        master),
+                                     REMOTE_MASTER_TIMEOUT,
+                                     TimeUnit.MILLISECONDS,
+                                     Collections.emptyList());
+    }
+
+    private List<PortStatistics> getLocalPortStatistics(DeviceId deviceId) {
+        Map<PortNumber, PortStatisticsHistory> portStats = devicePortStats.get(deviceId);
         if (portStats == null) {
             return Collections.emptyList();
         }
-        return ImmutableList.copyOf(portStats.values());
+        ImmutableList.Builder<PortStatistics> builder = ImmutableList.builder();
+        portStats.values().stream()
+                .map(history -> history.latest(deviceId))
+                .filter(Objects::nonNull)
+                .forEach(builder::add);
+        return builder.build();
     }
 
-    @Override
-    public List<PortStatistics> getPortDeltaStatistics(DeviceId deviceId) {
-        Map<PortNumber, PortStatistics> portStats = devicePortDeltaStats.get(deviceId);
+    private List<PortStatistics> getLocalPortDeltaStatistics(DeviceId deviceId) {
+        Map<PortNumber, PortStatisticsHistory> portStats = devicePortStats.get(deviceId);
         if (portStats == null) {
             return Collections.emptyList();
         }
-        return ImmutableList.copyOf(portStats.values());
+        ImmutableList.Builder<PortStatistics> builder = ImmutableList.builder();
+        portStats.values().stream()
+                .map(history -> history.delta(deviceId, 1))
+                .filter(Objects::nonNull)
+                .forEach(builder::add);
+        return builder.build();
     }
 
     @Override
@@ -936,55 +937,57 @@ public class GossipDeviceStore
     }
 
     @Override
-    public synchronized DeviceEvent removeDevice(DeviceId deviceId) {
-        final NodeId myId = clusterService.getLocalNode().id();
-        NodeId master = mastershipService.getMasterFor(deviceId);
-
-        // if there exist a master, forward
-        // if there is no master, try to become one and process
-
-        boolean relinquishAtEnd = false;
-        if (master == null) {
-            final MastershipRole myRole = mastershipService.getLocalRole(deviceId);
-            if (myRole != MastershipRole.NONE) {
-                relinquishAtEnd = true;
-            }
-            log.debug("Temporarily requesting role for {} to remove", deviceId);
-            mastershipService.requestRoleFor(deviceId);
-            MastershipTerm term = termService.getMastershipTerm(deviceId);
-            if (term != null && myId.equals(term.master())) {
-                master = myId;
+    public DeviceEvent removeDevice(DeviceId deviceId) {
+        try (DeviceLocks.Held held = deviceLocks.lock(deviceId)) {
+            final NodeId myId = clusterService.getLocalNode().id();
+            NodeId master = mastershipService.getMasterFor(deviceId);
+
+            // if there exist a master, forward
+            // if there is no master, try to become one and process
+
+            boolean relinquishAtEnd = false;
+            if (master == null) {
+                final MastershipRole myRole = mastershipService.getLocalRole(deviceId);
+                if (myRole != MastershipRole.NONE) {
+                    relinquishAtEnd = true;
+                }
+                log.debug("Temporarily requesting role for {} to remove", deviceId);
+                mastershipService.requestRoleFor(deviceId);
+                MastershipTerm term = termService.getMastershipTerm(deviceId);
+                if (term != null && myId.equals(term.master())) {
+                    master = myId;
+                }
             }
-        }
 
-        if (!myId.equals(master)) {
-            log.debug("{} has control of {}, forwarding remove request",
-                      master, deviceId);
+            if (!myId.equals(master)) {
+                log.debug("{} has control of {}, forwarding remove request",
+                          master, deviceId);
 
-            // TODO check unicast return value
-            clusterCommunicator.unicast(deviceId, DEVICE_REMOVE_REQ, SERIALIZER::encode, master);
-             /* error log:
-             log.error("Failed to forward {} remove request to {}", deviceId, master, e);
-             */
+                // TODO check unicast return value
+                clusterCommunicator.unicast(deviceId, DEVICE_REMOVE_REQ, SERIALIZER::encode, master);
+                 /* error log:
+                 log.error("Failed to forward {} remove request to {}", deviceId, master, e);
+                 */
 
-            // event will be triggered after master processes it.
-            return null;
-        }
+                // event will be triggered after master processes it.
+                return null;
+            }
 
-        // I have control..
+            // I have control..
 
-        Timestamp timestamp = deviceClockService.getTimestamp(deviceId);
-        DeviceEvent event = removeDeviceInternal(deviceId, timestamp);
-        if (event != null) {
-            log.debug("Notifying peers of a device removed topology event for deviceId: {}",
-                      deviceId);
-            notifyPeers(new InternalDeviceRemovedEvent(deviceId, timestamp));
-        }
-        if (relinquishAtEnd) {
-            log.debug("Relinquishing temporary role acquired for {}", deviceId);
-            mastershipService.relinquishMastership(deviceId);
+            Timestamp timestamp = deviceClockService.getTimestamp(deviceId);
+            DeviceEvent event = removeDeviceInternal(deviceId, timestamp);
+            if (event != null) {
+                log.debug("Notifying peers of a device removed topology event for deviceId: {}",
+                          deviceId);
+                notifyPeers(new InternalDeviceRemovedEvent(deviceId, timestamp));
+            }
+            if (relinquishAtEnd) {
+                log.debug("Relinquishing temporary role acquired for {}", deviceId);
+                mastershipService.relinquishMastership(deviceId);
+            }
+            return event;
         }
-        return event;
     }
 
     private DeviceEvent removeDeviceInternal(DeviceId deviceId,
@@ -1012,6 +1015,7 @@ public class GossipDeviceStore
             if (ports != null) {
                 ports.clear();
             }
+            devicePortStats.remove(deviceId);
             markOfflineInternal(deviceId, timestamp);
             descs.clear();
             return device == null ? null :
@@ -1666,15 +1670,17 @@ public class GossipDeviceStore
         }
     }
 
-    private class InternalPortStatsListener
-            implements EventuallyConsistentMapListener<DeviceId, Map<PortNumber, PortStatistics>> {
+    private final class InternalPortStatsEventListener
+            implements ClusterMessageHandler {
         @Override
-        public void event(EventuallyConsistentMapEvent<DeviceId, Map<PortNumber, PortStatistics>> event) {
-            if (event.type() == PUT) {
-                Device device = devices.get(event.key());
-                if (device != null) {
-                    delegate.notify(new DeviceEvent(PORT_STATS_UPDATED, device));
-                }
+        public void handle(ClusterMessage message) {
+
+            log.trace("Received port stats update event from peer: {}", message.sender());
+            DeviceId deviceId = SERIALIZER.decode(message.payload());
+
+            Device device = devices.get(deviceId);
+            if (device != null) {
+                notifyDelegate(new DeviceEvent(PORT_STATS_UPDATED, device));
             }
         }
     }
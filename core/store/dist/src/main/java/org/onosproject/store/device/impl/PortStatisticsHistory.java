@@ -0,0 +1,190 @@
+/*
+ * Copyright 2014 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.device.impl;
+
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.device.DefaultPortStatistics;
+import org.onosproject.net.device.PortStatistics;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Time series of the latest statistics samples of one port, held in a ring
+ * of primitive counters. Deltas between samples are computed on demand.
+ * <p>
+ * Devices which do not report how long their ports have been up get the
+ * duration of a delta from the times the samples were recorded instead.
+ * </p>
+ */
+final class PortStatisticsHistory {
+
+    // Counters of a sample, in the order of the PortStatistics accessors.
+    private static final int PACKETS_RECEIVED = 0;
+    private static final int PACKETS_SENT = 1;
+    private static final int BYTES_RECEIVED = 2;
+    private static final int BYTES_SENT = 3;
+    private static final int PACKETS_RX_DROPPED = 4;
+    private static final int PACKETS_TX_DROPPED = 5;
+    private static final int PACKETS_RX_ERRORS = 6;
+    private static final int PACKETS_TX_ERRORS = 7;
+    private static final int DURATION_SEC = 8;
+    private static final int DURATION_NANO = 9;
+    private static final int RECORDED_MILLIS = 10;
+    private static final int FIELDS = 11;
+
+    private final int port;
+    private final int capacity;
+    private final long[] samples;
+    private int next;
+    private int size;
+
+    /**
+     * Creates an empty history of the given port.
+     *
+     * @param port     port number
+     * @param capacity number of samples retained
+     */
+    PortStatisticsHistory(int port, int capacity) {
+        checkArgument(capacity > 1, "History must retain at least two samples");
+        this.port = port;
+        this.capacity = capacity;
+        this.samples = new long[capacity * FIELDS];
+    }
+
+    /**
+     * Records a new sample, overwriting the oldest one if the history is
+     * full.
+     *
+     * @param stats port statistics sample
+     * @param time  time the sample was recorded, in milliseconds
+     */
+    synchronized void add(PortStatistics stats, long time) {
+        int base = next * FIELDS;
+        samples[base + PACKETS_RECEIVED] = stats.packetsReceived();
+        samples[base + PACKETS_SENT] = stats.packetsSent();
+        samples[base + BYTES_RECEIVED] = stats.bytesReceived();
+        samples[base + BYTES_SENT] = stats.bytesSent();
+        samples[base + PACKETS_RX_DROPPED] = stats.packetsRxDropped();
+        samples[base + PACKETS_TX_DROPPED] = stats.packetsTxDropped();
+        samples[base + PACKETS_RX_ERRORS] = stats.packetsRxErrors();
+        samples[base + PACKETS_TX_ERRORS] = stats.packetsTxErrors();
+        samples[base + DURATION_SEC] = stats.durationSec();
+        samples[base + DURATION_NANO] = stats.durationNano();
+        samples[base + RECORDED_MILLIS] = time;
+        next = (next + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+    }
+
+    /**
+     * Returns the number of samples retained.
+     *
+     * @return number of samples
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the latest sample.
+     *
+     * @param deviceId device the port belongs to
+     * @return latest statistics; null if there are no samples
+     */
+    synchronized PortStatistics latest(DeviceId deviceId) {
+        if (size == 0) {
+            return null;
+        }
+        int base = offset(0);
+        return DefaultPortStatistics.builder()
+                .setDeviceId(deviceId)
+                .setPort(port)
+                .setPacketsReceived(samples[base + PACKETS_RECEIVED])
+                .setPacketsSent(samples[base + PACKETS_SENT])
+                .setBytesReceived(samples[base + BYTES_RECEIVED])
+                .setBytesSent(samples[base + BYTES_SENT])
+                .setPacketsRxDropped(samples[base + PACKETS_RX_DROPPED])
+                .setPacketsTxDropped(samples[base + PACKETS_TX_DROPPED])
+                .setPacketsRxErrors(samples[base + PACKETS_RX_ERRORS])
+                .setPacketsTxErrors(samples[base + PACKETS_TX_ERRORS])
+                .setDurationSec(samples[base + DURATION_SEC])
+                .setDurationNano(samples[base + DURATION_NANO])
+                .build();
+    }
+
+    /**
+     * Returns the difference between the latest sample and the one taken
+     * the given number of samples earlier, or the oldest one retained if
+     * there are fewer. The delta of the first sample is the sample itself,
+     * as the counters of a port start from zero.
+     *
+     * @param deviceId device the port belongs to
+     * @param span     number of samples between the two; must be positive
+     * @return delta statistics; null if there are no samples
+     */
+    synchronized PortStatistics delta(DeviceId deviceId, int span) {
+        checkArgument(span > 0, "Span must be positive");
+        if (size < 2) {
+            return latest(deviceId);
+        }
+        int cur = offset(0);
+        int prv = offset(Math.min(span, size - 1));
+
+        long sec;
+        long nano;
+        if (reportsDuration(cur) || reportsDuration(prv)) {
+            sec = diff(cur, prv, DURATION_SEC);
+            nano = diff(cur, prv, DURATION_NANO);
+        } else {
+            long millis = diff(cur, prv, RECORDED_MILLIS);
+            sec = TimeUnit.MILLISECONDS.toSeconds(millis);
+            nano = TimeUnit.MILLISECONDS.toNanos(millis % 1_000);
+        }
+        if (nano < 0) {
+            nano += TimeUnit.SECONDS.toNanos(1);
+            sec--;
+        }
+        return DefaultPortStatistics.builder()
+                .setDeviceId(deviceId)
+                .setPort(port)
+                .setPacketsReceived(diff(cur, prv, PACKETS_RECEIVED))
+                .setPacketsSent(diff(cur, prv, PACKETS_SENT))
+                .setBytesReceived(diff(cur, prv, BYTES_RECEIVED))
+                .setBytesSent(diff(cur, prv, BYTES_SENT))
+                .setPacketsRxDropped(diff(cur, prv, PACKETS_RX_DROPPED))
+                .setPacketsTxDropped(diff(cur, prv, PACKETS_TX_DROPPED))
+                .setPacketsRxErrors(diff(cur, prv, PACKETS_RX_ERRORS))
+                .setPacketsTxErrors(diff(cur, prv, PACKETS_TX_ERRORS))
+                .setDurationSec(sec)
+                .setDurationNano(nano)
+                .build();
+    }
+
+    // Returns the offset of the sample taken the given number of samples
+    // before the latest one.
+    private int offset(int age) {
+        return ((next - 1 - age + capacity) % capacity) * FIELDS;
+    }
+
+    private boolean reportsDuration(int sample) {
+        return samples[sample + DURATION_SEC] != 0 || samples[sample + DURATION_NANO] != 0;
+    }
+
+    private long diff(int cur, int prv, int field) {
+        return samples[cur + field] - samples[prv + field];
+    }
+}
@@ -17,10 +17,13 @@ package org.onosproject.store.ecmap;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 import org.onosproject.cluster.NodeId;
 
 import java.util.Map;
+import java.util.Set;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -30,6 +33,7 @@ public class AntiEntropyAdvertisement<K> {
 
     private final NodeId sender;
     private final Map<K, MapValue.Digest> digest;
+    private final Set<Integer> buckets;
 
     /**
      * Creates a new anti entropy advertisement message.
@@ -41,6 +45,23 @@ public class AntiEntropyAdvertisement<K> {
                                     Map<K, MapValue.Digest> digest) {
         this.sender = checkNotNull(sender);
         this.digest = ImmutableMap.copyOf(checkNotNull(digest));
+        this.buckets = null;
+    }
+
+    /**
+     * Creates a new anti entropy advertisement message covering only the
+     * map entries in the specified hash tree buckets.
+     *
+     * @param sender  the sender's node ID
+     * @param digest  for map entries in the buckets
+     * @param buckets hash tree buckets covered by the digest
+     */
+    public AntiEntropyAdvertisement(NodeId sender,
+                                    Map<K, MapValue.Digest> digest,
+                                    Set<Integer> buckets) {
+        this.sender = checkNotNull(sender);
+        this.digest = ImmutableMap.copyOf(checkNotNull(digest));
+        this.buckets = ImmutableSet.copyOf(checkNotNull(buckets));
     }
 
     /**
@@ -61,6 +82,15 @@ public class AntiEntropyAdvertisement<K> {
         return digest;
     }
 
+    /**
+     * Returns the hash tree buckets covered by the digest.
+     *
+     * @return bucket numbers; null if the digest covers all map entries
+     */
+    public Set<Integer> buckets() {
+        return buckets;
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(getClass())
@@ -89,6 +89,7 @@ public class EventuallyConsistentMapImpl<K, V>
 
     private final MessageSubject updateMessageSubject;
     private final MessageSubject antiEntropyAdvertisementSubject;
+    private final MessageSubject hashTreeAdvertisementSubject;
 
     private final Set<EventuallyConsistentMapListener<K, V>> listeners
             = Sets.newCopyOnWriteArraySet();
@@ -112,6 +113,7 @@ public class EventuallyConsistentMapImpl<K, V>
     private final long initialDelaySec = 5;
     private final boolean lightweightAntiEntropy;
     private final boolean tombstonesDisabled;
+    private final HashTree<K> hashTree;
 
     private static final int WINDOW_SIZE = 5;
     private static final int HIGH_LOAD_THRESHOLD = 0;
@@ -148,6 +150,8 @@ public class EventuallyConsistentMapImpl<K, V>
      * @param antiEntropyPeriod     period that the anti-entropy task should run
      * @param antiEntropyTimeUnit   time unit for anti-entropy period
      * @param convergeFaster        make anti-entropy try to converge faster
+     * @param hashTreeAntiEntropy   advertise hash tree instead of full digest
+     *                              during anti-entropy
      * @param persistent            persist data to disk
      */
     EventuallyConsistentMapImpl(String mapName,
@@ -163,6 +167,7 @@ public class EventuallyConsistentMapImpl<K, V>
                                 long antiEntropyPeriod,
                                 TimeUnit antiEntropyTimeUnit,
                                 boolean convergeFaster,
+                                boolean hashTreeAntiEntropy,
                                 boolean persistent,
                                 PersistenceService persistenceService) {
         this.mapName = mapName;
@@ -189,6 +194,12 @@ public class EventuallyConsistentMapImpl<K, V>
         } else {
             items = Maps.newConcurrentMap();
         }
+        if (hashTreeAntiEntropy) {
+            hashTree = new HashTree<>(serializer::encode);
+            items.forEach((key, value) -> hashTree.update(key, null, value));
+        } else {
+            hashTree = null;
+        }
         senderPending = Maps.newConcurrentMap();
         destroyedMessage = mapName + ERROR_DESTROYED;
 
@@ -249,6 +260,14 @@ public class EventuallyConsistentMapImpl<K, V>
                                           this::handleAntiEntropyAdvertisement,
                                           this.backgroundExecutor);
 
+        hashTreeAdvertisementSubject = new MessageSubject("ecm-" + mapName + "-anti-entropy-tree");
+        if (hashTree != null) {
+            clusterCommunicator.addSubscriber(hashTreeAdvertisementSubject,
+                                              serializer::decode,
+                                              this::handleHashTreeAdvertisement,
+                                              this.backgroundExecutor);
+        }
+
         this.tombstonesDisabled = tombstonesDisabled;
         this.lightweightAntiEntropy = !convergeFaster;
     }
@@ -267,6 +286,7 @@ public class EventuallyConsistentMapImpl<K, V>
                         .register(UpdateEntry.class)
                         .register(MapValue.class)
                         .register(MapValue.Digest.class)
+                        .register(HashTreeAdvertisement.class)
                         .build();
             }
         };
@@ -385,6 +405,7 @@ public class EventuallyConsistentMapImpl<K, V>
             }
             if (updated.get()) {
                 previousValue.set(existing);
+                updateHashTree(k, existing, tombstone.orElse(null));
                 return tombstone.orElse(null);
             } else {
                 return existing;
@@ -407,6 +428,7 @@ public class EventuallyConsistentMapImpl<K, V>
             MapValue<V> newValue = new MapValue<>(newRawValue, timestampProvider.apply(key, newRawValue));
             if (mv == null || newValue.isNewerThan(mv)) {
                 updated.set(true);
+                updateHashTree(k, mv, newValue);
                 return newValue;
             } else {
                 return mv;
@@ -478,6 +500,7 @@ public class EventuallyConsistentMapImpl<K, V>
         items.compute(key, (k, existing) -> {
             if (existing == null || newValue.isNewerThan(existing)) {
                 updated.set(true);
+                updateHashTree(k, existing, newValue);
                 return newValue;
             }
             return existing;
@@ -485,6 +508,12 @@ public class EventuallyConsistentMapImpl<K, V>
         return updated.get();
     }
 
+    private void updateHashTree(K key, MapValue<V> previous, MapValue<V> current) {
+        if (hashTree != null) {
+            hashTree.update(key, previous, current);
+        }
+    }
+
     @Override
     public void addListener(EventuallyConsistentMapListener<K, V> listener) {
         checkState(!destroyed, destroyedMessage);
@@ -511,6 +540,9 @@ public class EventuallyConsistentMapImpl<K, V>
 
         clusterCommunicator.removeSubscriber(updateMessageSubject);
         clusterCommunicator.removeSubscriber(antiEntropyAdvertisementSubject);
+        if (hashTree != null) {
+            clusterCommunicator.removeSubscriber(hashTreeAdvertisementSubject);
+        }
     }
 
     private void notifyListeners(EventuallyConsistentMapEvent<K, V> event) {
@@ -540,7 +572,12 @@ public class EventuallyConsistentMapImpl<K, V>
             if (underHighLoad() || destroyed) {
                 return;
             }
-            pickRandomActivePeer().ifPresent(this::sendAdvertisementToPeer);
+            if (hashTree != null) {
+                pickRandomActivePeer().ifPresent(peer ->
+                        sendHashTreeAdvertisement(peer, hashTree.children(ImmutableList.of(HashTree.ROOT))));
+            } else {
+                pickRandomActivePeer().ifPresent(this::sendAdvertisementToPeer);
+            }
         } catch (Exception e) {
             // Catch all exceptions to avoid scheduled task being suppressed.
             log.error("Exception thrown while sending advertisement", e);
@@ -575,6 +612,68 @@ public class EventuallyConsistentMapImpl<K, V>
                 ImmutableMap.copyOf(Maps.transformValues(items, MapValue::digest)));
     }
 
+    private void sendHashTreeAdvertisement(NodeId peer, Map<Integer, Long> nodes) {
+        clusterCommunicator.unicast(new HashTreeAdvertisement(localNodeId, nodes),
+                hashTreeAdvertisementSubject,
+                serializer::encode,
+                peer)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.debug("Failed to send hash tree advertisement to {}", peer, error);
+                    }
+                });
+    }
+
+    private void sendBucketAdvertisement(NodeId peer, Set<Integer> buckets) {
+        ImmutableMap.Builder<K, MapValue.Digest> digest = ImmutableMap.builder();
+        hashTree.keys(buckets).forEach(key -> {
+            MapValue<V> value = items.get(key);
+            if (value != null) {
+                digest.put(key, value.digest());
+            }
+        });
+        clusterCommunicator.unicast(new AntiEntropyAdvertisement<>(localNodeId, digest.build(), buckets),
+                antiEntropyAdvertisementSubject,
+                serializer::encode,
+                peer)
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log.debug("Failed to send anti-entropy advertisement to {}", peer, error);
+                    }
+                });
+    }
+
+    /**
+     * Compares the hash tree nodes advertised by a peer with the local ones
+     * and descends into the differing subtrees. Once the differing leaves are
+     * found, the digests of the entries in their buckets are sent to the peer.
+     */
+    private void handleHashTreeAdvertisement(HashTreeAdvertisement ad) {
+        if (destroyed || underHighLoad()) {
+            return;
+        }
+        try {
+            List<Integer> differing = hashTree.diff(ad.nodes());
+            if (log.isTraceEnabled()) {
+                log.trace("Received hash tree advertisement from {} for {} with {} of {} nodes differing",
+                        ad.sender(), mapName, differing.size(), ad.nodes().size());
+            }
+            if (differing.isEmpty()) {
+                return;
+            }
+            // All nodes of an advertisement are on the same level of the tree
+            if (hashTree.isLeaf(differing.get(0))) {
+                sendBucketAdvertisement(ad.sender(), differing.stream()
+                        .map(hashTree::bucket)
+                        .collect(Collectors.toSet()));
+            } else {
+                sendHashTreeAdvertisement(ad.sender(), hashTree.children(differing));
+            }
+        } catch (Exception e) {
+            log.warn("Error handling hash tree advertisement", e);
+        }
+    }
+
     private void handleAntiEntropyAdvertisement(AntiEntropyAdvertisement<K> ad) {
         if (destroyed || underHighLoad()) {
             return;
@@ -591,7 +690,11 @@ public class EventuallyConsistentMapImpl<K, V>
                 // TODO: Missing keys is not the way local copy can be behind.
                 if (Sets.difference(ad.digest().keySet(), items.keySet()).size() > 0) {
                     // TODO: Send ad for missing keys and for entries that are stale
-                    sendAdvertisementToPeer(ad.sender());
+                    if (ad.buckets() != null) {
+                        sendBucketAdvertisement(ad.sender(), ad.buckets());
+                    } else {
+                        sendAdvertisementToPeer(ad.sender());
+                    }
                 }
             }
         } catch (Exception e) {
@@ -604,12 +707,19 @@ public class EventuallyConsistentMapImpl<K, V>
      * 1. If peer has an old entry, updates peer.
      * 2. If peer indicates an entry is removed and has a more recent
      * timestamp than the local entry, update local state.
+     * If the ad covers only some hash tree buckets, only local entries in
+     * those buckets are checked.
      */
     private List<EventuallyConsistentMapEvent<K, V>> antiEntropyCheckLocalItems(
             AntiEntropyAdvertisement<K> ad) {
         final List<EventuallyConsistentMapEvent<K, V>> externalEvents = Lists.newLinkedList();
         final NodeId sender = ad.sender();
-        items.forEach((key, localValue) -> {
+        Map<K, MapValue<V>> localItems = items;
+        if (ad.buckets() != null && hashTree != null) {
+            localItems = Maps.filterValues(Maps.asMap(hashTree.keys(ad.buckets()), items::get),
+                                           Objects::nonNull);
+        }
+        localItems.forEach((key, localValue) -> {
             MapValue.Digest remoteValueDigest = ad.digest().get(key);
             if (remoteValueDigest == null || localValue.isNewerThan(remoteValueDigest.timestamp())) {
                 // local value is more recent, push to sender
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.ecmap;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Hash tree (Merkle tree) summarizing the contents of an eventually
+ * consistent map. Entries are assigned to leaf buckets by the hash of their
+ * serialized key; each node holds the XOR of the hashes of all entries
+ * beneath it. Since XOR is commutative, the tree is maintained incrementally
+ * as entries change and replicas holding the same entries always arrive at
+ * the same node hashes, regardless of the order of updates.
+ * <p>
+ * Nodes are numbered in breadth-first order starting with the root at 0.
+ * </p>
+ *
+ * @param <K> type of map keys
+ */
+final class HashTree<K> {
+
+    static final int ROOT = 0;
+    static final int FANOUT = 16;
+    static final int DEPTH = 3;
+    static final int BUCKETS = 4096; // FANOUT ^ DEPTH
+
+    private static final int FIRST_LEAF = (BUCKETS - 1) / (FANOUT - 1);
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final Function<Object, byte[]> encoder;
+    private final AtomicLongArray nodes = new AtomicLongArray(FIRST_LEAF + BUCKETS);
+    private final List<Set<K>> buckets;
+
+    /**
+     * Creates an empty hash tree.
+     *
+     * @param encoder function for serializing keys and timestamps; it must
+     *                produce the same bytes on all replicas
+     */
+    HashTree(Function<Object, byte[]> encoder) {
+        this.encoder = encoder;
+        ImmutableList.Builder<Set<K>> builder = ImmutableList.builder();
+        for (int i = 0; i < BUCKETS; i++) {
+            builder.add(Sets.newConcurrentHashSet());
+        }
+        this.buckets = builder.build();
+    }
+
+    /**
+     * Records a change of the value associated with a key. Changes of the
+     * same key must not be recorded concurrently.
+     *
+     * @param key      key
+     * @param previous previous value; null if there was none
+     * @param current  current value; null if the entry was removed
+     */
+    void update(K key, MapValue<?> previous, MapValue<?> current) {
+        byte[] keyBytes = encoder.apply(key);
+        int bucket = HASH.hashBytes(keyBytes).asInt() & (BUCKETS - 1);
+        long delta = hash(keyBytes, previous) ^ hash(keyBytes, current);
+
+        if (current != null) {
+            buckets.get(bucket).add(key);
+        } else {
+            buckets.get(bucket).remove(key);
+        }
+        if (delta == 0) {
+            return;
+        }
+        int node = FIRST_LEAF + bucket;
+        while (true) {
+            nodes.accumulateAndGet(node, delta, (a, b) -> a ^ b);
+            if (node == ROOT) {
+                break;
+            }
+            node = (node - 1) / FANOUT;
+        }
+    }
+
+    /**
+     * Returns the hashes of the children of the specified nodes.
+     *
+     * @param parents non-leaf nodes
+     * @return mapping from child node to its hash
+     */
+    Map<Integer, Long> children(Collection<Integer> parents) {
+        ImmutableMap.Builder<Integer, Long> builder = ImmutableMap.builder();
+        for (int parent : parents) {
+            for (int child = parent * FANOUT + 1; child <= parent * FANOUT + FANOUT; child++) {
+                builder.put(child, nodes.get(child));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the nodes whose local hash differs from the given remote one.
+     *
+     * @param remote mapping from node to its hash on the remote replica
+     * @return differing nodes
+     */
+    List<Integer> diff(Map<Integer, Long> remote) {
+        ImmutableList.Builder<Integer> builder = ImmutableList.builder();
+        remote.forEach((node, hash) -> {
+            if (node >= 0 && node < nodes.length() && nodes.get(node) != hash) {
+                builder.add(node);
+            }
+        });
+        return builder.build();
+    }
+
+    /**
+     * Returns the hash of the specified node.
+     *
+     * @param node node
+     * @return node hash
+     */
+    long hash(int node) {
+        return nodes.get(node);
+    }
+
+    /**
+     * Indicates whether the specified node is a leaf.
+     *
+     * @param node node
+     * @return true if the node is a leaf
+     */
+    boolean isLeaf(int node) {
+        return node >= FIRST_LEAF;
+    }
+
+    /**
+     * Returns the bucket held by the specified leaf node.
+     *
+     * @param leaf leaf node
+     * @return bucket number
+     */
+    int bucket(int leaf) {
+        return leaf - FIRST_LEAF;
+    }
+
+    /**
+     * Returns the keys presently assigned to the specified buckets.
+     *
+     * @param bucketNumbers bucket numbers
+     * @return keys in the buckets
+     */
+    Set<K> keys(Collection<Integer> bucketNumbers) {
+        ImmutableSet.Builder<K> builder = ImmutableSet.builder();
+        for (int bucket : bucketNumbers) {
+            if (bucket >= 0 && bucket < BUCKETS) {
+                builder.addAll(buckets.get(bucket));
+            }
+        }
+        return builder.build();
+    }
+
+    // Hash of a single map entry; zero for absent entries.
+    private long hash(byte[] keyBytes, MapValue<?> value) {
+        if (value == null) {
+            return 0;
+        }
+        return HASH.newHasher()
+                .putBytes(keyBytes)
+                .putBytes(encoder.apply(value.timestamp()))
+                .putBoolean(value.isTombstone())
+                .hash().asLong();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.ecmap;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+import org.onosproject.cluster.NodeId;
+
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Anti-entropy advertisement carrying hashes of one level of the sender's
+ * hash tree for an eventually consistent map.
+ */
+public class HashTreeAdvertisement {
+
+    private final NodeId sender;
+    private final Map<Integer, Long> nodes;
+
+    /**
+     * Creates a new hash tree advertisement message.
+     *
+     * @param sender the sender's node ID
+     * @param nodes  mapping from hash tree node to its hash
+     */
+    public HashTreeAdvertisement(NodeId sender, Map<Integer, Long> nodes) {
+        this.sender = checkNotNull(sender);
+        this.nodes = ImmutableMap.copyOf(checkNotNull(nodes));
+    }
+
+    /**
+     * Returns the sender's node ID.
+     *
+     * @return the sender's node ID
+     */
+    public NodeId sender() {
+        return sender;
+    }
+
+    /**
+     * Returns the advertised hash tree nodes.
+     *
+     * @return mapping from hash tree node to its hash
+     */
+    public Map<Integer, Long> nodes() {
+        return nodes;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("sender", sender)
+                .add("totalNodes", nodes.size())
+                .toString();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import java.util.Map;
+
+import org.onosproject.net.flow.FlowId;
+import org.onosproject.net.flow.StoredFlowEntry;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Flow table backup of a single device sent by the master to its backup node.
+ * <p>
+ * A full backup carries the complete flow table and replaces whatever the
+ * backup node holds. An incremental backup carries only the flow entry buckets
+ * that changed since the backup identified by {@code baseVersion}; an empty
+ * bucket means that all entries with that flow id were removed.
+ * </p>
+ */
+public class FlowTableBackup {
+
+    private final boolean full;
+    private final long baseVersion;
+    private final long version;
+    private final Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowEntries;
+
+    /**
+     * Creates a new flow table backup.
+     *
+     * @param full true if flowEntries is the complete flow table
+     * @param baseVersion version of the backup this one applies on top of;
+     *                    ignored for full backups
+     * @param version version of this backup
+     * @param flowEntries flow entry buckets keyed by flow id
+     */
+    public FlowTableBackup(boolean full,
+                           long baseVersion,
+                           long version,
+                           Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowEntries) {
+        this.full = full;
+        this.baseVersion = baseVersion;
+        this.version = version;
+        this.flowEntries = flowEntries;
+    }
+
+    /**
+     * Returns whether this backup is a full copy of the flow table.
+     *
+     * @return true if full backup
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    /**
+     * Returns the version of the backup this incremental backup builds on.
+     *
+     * @return base version
+     */
+    public long baseVersion() {
+        return baseVersion;
+    }
+
+    /**
+     * Returns the version of this backup.
+     *
+     * @return version
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Returns the flow entry buckets carried by this backup.
+     *
+     * @return flow entries keyed by flow id
+     */
+    public Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowEntries() {
+        return flowEntries;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("full", full)
+                .add("baseVersion", baseVersion)
+                .add("version", version)
+                .add("size", flowEntries.size())
+                .toString();
+    }
+
+    // for serializer
+    @SuppressWarnings("unused")
+    private FlowTableBackup() {
+        this.full = false;
+        this.baseVersion = 0;
+        this.version = 0;
+        this.flowEntries = null;
+    }
+}
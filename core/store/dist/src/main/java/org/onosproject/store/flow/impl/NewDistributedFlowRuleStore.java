@@ -82,10 +82,12 @@ package org.onosproject.store.flow.impl;
  import java.util.Collections;
  import java.util.Dictionary;
  import java.util.HashSet;
+ import java.util.Iterator;
  import java.util.List;
  import java.util.Map;
  import java.util.Objects;
  import java.util.Set;
+ import java.util.concurrent.CompletableFuture;
  import java.util.concurrent.ExecutorService;
  import java.util.concurrent.Executors;
  import java.util.concurrent.ScheduledExecutorService;
@@ -120,6 +122,8 @@ public class NewDistributedFlowRuleStore
     private static final long FLOW_RULE_STORE_TIMEOUT_MILLIS = 5000;
     // number of devices whose flow entries will be backed up in one communication round
     private static final int FLOW_TABLE_BACKUP_BATCH_SIZE = 1;
+    // number of devices whose incremental flow table backups will be sent in one communication round
+    private static final int FLOW_TABLE_DELTA_BACKUP_BATCH_SIZE = 100;
 
     @Property(name = "msgHandlerPoolSize", intValue = MESSAGE_HANDLER_THREAD_POOL_SIZE,
             label = "Number of threads in the message handler pool")
@@ -176,13 +180,16 @@ public class NewDistributedFlowRuleStore
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected StorageService storageService;
 
+    protected static final KryoNamespace SERIALIZER_NAMESPACE = KryoNamespace.newBuilder()
+            .register(DistributedStoreSerializers.STORE_COMMON)
+            .nextId(DistributedStoreSerializers.STORE_CUSTOM_BEGIN)
+            .register(FlowTableBackup.class)
+            .build();
+
     protected static final StoreSerializer SERIALIZER = new KryoSerializer() {
         @Override
         protected void setupKryoPool() {
-            serializerPool = KryoNamespace.newBuilder()
-                    .register(DistributedStoreSerializers.STORE_COMMON)
-                    .nextId(DistributedStoreSerializers.STORE_CUSTOM_BEGIN)
-                    .build();
+            serializerPool = SERIALIZER_NAMESPACE;
         }
     };
 
@@ -327,8 +334,9 @@ public class NewDistributedFlowRuleStore
                 REMOVE_FLOW_ENTRY, SERIALIZER::decode, this::removeFlowRuleInternal, SERIALIZER::encode, executor);
         clusterCommunicator.addSubscriber(
                 REMOVE_FLOW_ENTRY, SERIALIZER::decode, this::removeFlowRuleInternal, SERIALIZER::encode, executor);
+        // backups are serialized straight into and out of the messaging buffers
         clusterCommunicator.addSubscriber(
-                FLOW_TABLE_BACKUP, SERIALIZER::decode, flowTable::onBackupReceipt, SERIALIZER::encode, executor);
+                FLOW_TABLE_BACKUP, SERIALIZER_NAMESPACE, flowTable::onBackupReceipt, executor);
     }
 
     private void unregisterMessageHandlers() {
@@ -500,6 +508,7 @@ public class NewDistributedFlowRuleStore
                             if (entry != null) {
                                 //FIXME modification of "stored" flow entry outside of flow table
                                 entry.setState(FlowEntryState.PENDING_REMOVE);
+                                flowTable.markDirty(entry);
                                 log.debug("Setting state of rule to pending remove: {}", entry);
                                 return op;
                             }
@@ -548,6 +557,7 @@ public class NewDistributedFlowRuleStore
             stored.setLastSeen();
             if (stored.state() == FlowEntryState.PENDING_ADD) {
                 stored.setState(FlowEntryState.ADDED);
+                flowTable.markDirty(stored);
                 return new FlowRuleEvent(Type.RULE_ADDED, rule);
             }
             return new FlowRuleEvent(Type.RULE_UPDATED, rule);
@@ -644,16 +654,26 @@ public class NewDistributedFlowRuleStore
         private final Map<DeviceId, Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>>
                 flowEntries = Maps.newConcurrentMap();
 
-        private final Map<DeviceId, Long> lastBackupTimes = Maps.newConcurrentMap();
-        private final Map<DeviceId, Long> lastUpdateTimes = Maps.newConcurrentMap();
+        // master side: flow ids changed since the last backup was sent
+        private final Map<DeviceId, Set<FlowId>> dirtyFlowIds = Maps.newConcurrentMap();
+        // master side: version and location of the last acknowledged backup
+        private final Map<DeviceId, Long> lastBackupVersions = Maps.newConcurrentMap();
         private final Map<DeviceId, NodeId> lastBackupNodes = Maps.newConcurrentMap();
+        private final Map<DeviceId, Long> backupVersions = Maps.newConcurrentMap();
+        private final Set<DeviceId> inFlightBackups = Sets.newConcurrentHashSet();
+        // backup side: version of the last backup applied
+        private final Map<DeviceId, Long> receivedBackupVersions = Maps.newConcurrentMap();
 
         @Override
         public void event(ReplicaInfoEvent event) {
             if (!backupEnabled) {
                 return;
             }
-            if (event.type() == ReplicaInfoEvent.Type.BACKUPS_CHANGED) {
+            if (event.type() == ReplicaInfoEvent.Type.MASTER_CHANGED) {
+                // whatever the backup node holds may have diverged while
+                // mastership was elsewhere; start over with a full backup.
+                resetBackup(event.subject());
+            } else if (event.type() == ReplicaInfoEvent.Type.BACKUPS_CHANGED) {
                 DeviceId deviceId = event.subject();
                 NodeId master = mastershipService.getMasterFor(deviceId);
                 if (!Objects.equals(local, master)) {
@@ -673,8 +693,7 @@ public class NewDistributedFlowRuleStore
                     // is chosen.
                     log.warn("Lost backup location {} for deviceId {} and no alternate backup node exists. "
                             + "Flows can be lost if the master goes down", currentBackupNode, deviceId);
-                    lastBackupNodes.remove(deviceId);
-                    lastBackupTimes.remove(deviceId);
+                    resetBackup(deviceId);
                     return;
                     // TODO: Pick any available node as backup and ensure hand-off occurs when
                     // a new master is elected.
@@ -688,42 +707,112 @@ public class NewDistributedFlowRuleStore
         }
 
         private void sendBackups(NodeId nodeId, Set<DeviceId> deviceIds) {
-            // split up the devices into smaller batches and send them separately.
-            Iterables.partition(deviceIds, FLOW_TABLE_BACKUP_BATCH_SIZE)
+            // full table copies are large, so they go in smaller batches than incremental ones.
+            Map<Boolean, List<DeviceId>> devicesByBackupType = deviceIds.stream()
+                    .collect(Collectors.partitioningBy(id -> needsFullBackup(nodeId, id)));
+            Iterables.partition(devicesByBackupType.get(true), FLOW_TABLE_BACKUP_BATCH_SIZE)
+                     .forEach(ids -> backupFlowEntries(nodeId, Sets.newHashSet(ids)));
+            Iterables.partition(devicesByBackupType.get(false), FLOW_TABLE_DELTA_BACKUP_BATCH_SIZE)
                      .forEach(ids -> backupFlowEntries(nodeId, Sets.newHashSet(ids)));
         }
 
+        private boolean needsFullBackup(NodeId nodeId, DeviceId deviceId) {
+            return !Objects.equals(lastBackupNodes.get(deviceId), nodeId)
+                    || !lastBackupVersions.containsKey(deviceId);
+        }
+
+        private void resetBackup(DeviceId deviceId) {
+            lastBackupNodes.remove(deviceId);
+            lastBackupVersions.remove(deviceId);
+        }
+
+        /**
+         * Marks the flow entry bucket of the specified rule as changed so that
+         * it is shipped with the next incremental backup.
+         *
+         * @param rule flow rule that was added, modified or removed
+         */
+        private void markDirty(FlowRule rule) {
+            dirtyFlowIds.computeIfAbsent(rule.deviceId(), id -> Sets.newConcurrentHashSet())
+                        .add(rule.id());
+        }
+
+        private Set<FlowId> drainDirtyFlowIds(DeviceId deviceId) {
+            Set<FlowId> dirty = dirtyFlowIds.get(deviceId);
+            if (dirty == null) {
+                return Collections.emptySet();
+            }
+            // remove one by one so that flow ids marked concurrently are kept for the next round
+            Set<FlowId> drained = Sets.newHashSet();
+            Iterator<FlowId> it = dirty.iterator();
+            while (it.hasNext()) {
+                drained.add(it.next());
+                it.remove();
+            }
+            return drained;
+        }
+
+        private FlowTableBackup createBackup(NodeId nodeId, DeviceId deviceId) {
+            Long lastVersion = Objects.equals(lastBackupNodes.get(deviceId), nodeId) ?
+                    lastBackupVersions.get(deviceId) : null;
+            boolean full = lastVersion == null;
+            long baseVersion = full ? 0 : lastVersion;
+            long version = backupVersions.merge(deviceId, 1L, Long::sum);
+            Set<FlowId> dirty = drainDirtyFlowIds(deviceId);
+            Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowTable = getFlowTable(deviceId);
+            if (full) {
+                return new FlowTableBackup(true, baseVersion, version, ImmutableMap.copyOf(flowTable));
+            }
+            Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> changes = Maps.newHashMap();
+            dirty.forEach(flowId -> {
+                Map<StoredFlowEntry, StoredFlowEntry> bucket = flowTable.get(flowId);
+                changes.put(flowId, bucket == null ? ImmutableMap.of() : ImmutableMap.copyOf(bucket));
+            });
+            return new FlowTableBackup(false, baseVersion, version, changes);
+        }
+
         private void backupFlowEntries(NodeId nodeId, Set<DeviceId> deviceIds) {
-            if (deviceIds.isEmpty()) {
+            // at most one backup per device on the wire, so that versions line up
+            Set<DeviceId> toBackup = deviceIds.stream()
+                    .filter(inFlightBackups::add)
+                    .collect(Collectors.toSet());
+            if (toBackup.isEmpty()) {
                 return;
             }
-            log.debug("Sending flowEntries for devices {} to {} as backup.", deviceIds, nodeId);
-            Map<DeviceId, Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>>
-                    deviceFlowEntries = Maps.newConcurrentMap();
-            deviceIds.forEach(id -> deviceFlowEntries.put(id, ImmutableMap.copyOf(getFlowTable(id))));
-            clusterCommunicator.<Map<DeviceId,
-                                 Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>>,
-                                 Set<DeviceId>>
-                    sendAndReceive(deviceFlowEntries,
-                                   FLOW_TABLE_BACKUP,
-                                   SERIALIZER::encode,
-                                   SERIALIZER::decode,
-                                   nodeId)
-                    .whenComplete((backedupDevices, error) -> {
-                        Set<DeviceId> devicesNotBackedup = error != null ?
-                            deviceFlowEntries.keySet() :
-                            Sets.difference(deviceFlowEntries.keySet(), backedupDevices);
-                        if (devicesNotBackedup.size() > 0) {
-                            log.warn("Failed to backup devices: {}. Reason: {}",
-                                     devicesNotBackedup, error.getMessage());
-                        }
-                        if (backedupDevices != null) {
-                            backedupDevices.forEach(id -> {
-                                lastBackupTimes.put(id, System.currentTimeMillis());
+            log.debug("Sending flowEntries for devices {} to {} as backup.", toBackup, nodeId);
+            Map<DeviceId, FlowTableBackup> deviceFlowEntries = Maps.newHashMap();
+            CompletableFuture<Set<DeviceId>> reply;
+            try {
+                toBackup.forEach(id -> deviceFlowEntries.put(id, createBackup(nodeId, id)));
+                reply = clusterCommunicator.<Map<DeviceId, FlowTableBackup>, Set<DeviceId>>
+                        sendAndReceive(deviceFlowEntries,
+                                       FLOW_TABLE_BACKUP,
+                                       SERIALIZER_NAMESPACE,
+                                       nodeId);
+            } catch (Exception e) {
+                // the devices must not stay in flight, or they would never be backed up again
+                reply = Tools.exceptionalFuture(e);
+            }
+            reply.whenComplete((backedupDevices, error) -> {
+                Set<DeviceId> devicesNotBackedup = error != null ?
+                    toBackup :
+                    Sets.difference(toBackup, backedupDevices);
+                if (devicesNotBackedup.size() > 0) {
+                    log.warn("Failed to backup devices: {}. Reason: {}",
+                             devicesNotBackedup, error != null ? error.getMessage() : "version mismatch");
+                    // changes carried by the lost backups are gone; resync in full next time.
+                    devicesNotBackedup.forEach(this::resetBackup);
+                }
+                if (error == null) {
+                    backedupDevices.stream()
+                            .filter(deviceFlowEntries::containsKey)
+                            .forEach(id -> {
+                                lastBackupVersions.put(id, deviceFlowEntries.get(id).version());
                                 lastBackupNodes.put(id, nodeId);
                             });
-                        }
-                    });
+                }
+                inFlightBackups.removeAll(toBackup);
+            });
         }
 
         /**
@@ -754,12 +843,9 @@ public class NewDistributedFlowRuleStore
             }
         }
 
-        private Map<StoredFlowEntry, StoredFlowEntry> getFlowEntriesInternal(DeviceId deviceId, FlowId flowId) {
-            return getFlowTable(deviceId).computeIfAbsent(flowId, id -> Maps.newConcurrentMap());
-        }
-
         private StoredFlowEntry getFlowEntryInternal(FlowRule rule) {
-            return getFlowEntriesInternal(rule.deviceId(), rule.id()).get(rule);
+            Map<StoredFlowEntry, StoredFlowEntry> flowEntries = getFlowTable(rule.deviceId()).get(rule.id());
+            return flowEntries == null ? null : flowEntries.get(rule);
         }
 
         private Set<FlowEntry> getFlowEntriesInternal(DeviceId deviceId) {
@@ -777,19 +863,28 @@ public class NewDistributedFlowRuleStore
         }
 
         public void add(FlowEntry rule) {
-            getFlowEntriesInternal(rule.deviceId(), rule.id())
-                    .compute((StoredFlowEntry) rule, (k, stored) -> {
-                        //TODO compare stored and rule timestamps
-                        //TODO the key is not updated
-                        return (StoredFlowEntry) rule;
-                    });
-            lastUpdateTimes.put(rule.deviceId(), System.currentTimeMillis());
+            // buckets are updated under the lock of their flow id, which the
+            // persistent flow table also holds while serializing them
+            getFlowTable(rule.deviceId()).compute(rule.id(), (id, flowEntries) -> {
+                Map<StoredFlowEntry, StoredFlowEntry> bucket =
+                        flowEntries != null ? flowEntries : Maps.newConcurrentMap();
+                bucket.compute((StoredFlowEntry) rule, (k, stored) -> {
+                    //TODO compare stored and rule timestamps
+                    //TODO the key is not updated
+                    return (StoredFlowEntry) rule;
+                });
+                return bucket;
+            });
+            markDirty(rule);
         }
 
         public FlowEntry remove(DeviceId deviceId, FlowEntry rule) {
             final AtomicReference<FlowEntry> removedRule = new AtomicReference<>();
-            getFlowEntriesInternal(rule.deviceId(), rule.id())
-                .computeIfPresent((StoredFlowEntry) rule, (k, stored) -> {
+            getFlowTable(rule.deviceId()).compute(rule.id(), (id, flowEntries) -> {
+                if (flowEntries == null) {
+                    return null;
+                }
+                flowEntries.computeIfPresent((StoredFlowEntry) rule, (k, stored) -> {
                     if (rule instanceof DefaultFlowEntry) {
                         DefaultFlowEntry toRemove = (DefaultFlowEntry) rule;
                         if (stored instanceof DefaultFlowEntry) {
@@ -805,9 +900,11 @@ public class NewDistributedFlowRuleStore
                     removedRule.set(stored);
                     return null;
                 });
+                return flowEntries;
+            });
 
             if (removedRule.get() != null) {
-                lastUpdateTimes.put(deviceId, System.currentTimeMillis());
+                markDirty(rule);
                 return removedRule.get();
             } else {
                 return null;
@@ -825,17 +922,21 @@ public class NewDistributedFlowRuleStore
                 return;
             }
             try {
+                Set<DeviceId> localDevices = mastershipService.getDevicesOf(local);
+                // forget backup state of devices we no longer master, so that
+                // regaining mastership starts with a full backup.
+                Sets.newHashSet(lastBackupNodes.keySet()).stream()
+                    .filter(deviceId -> !localDevices.contains(deviceId))
+                    .forEach(this::resetBackup);
+                dirtyFlowIds.keySet().retainAll(localDevices);
+
                 // determine the set of devices that we need to backup during this run.
-                Set<DeviceId> devicesToBackup = mastershipService.getDevicesOf(local)
+                Set<DeviceId> devicesToBackup = localDevices
                             .stream()
                             .filter(deviceId -> {
-                                Long lastBackupTime = lastBackupTimes.get(deviceId);
-                                Long lastUpdateTime = lastUpdateTimes.get(deviceId);
-                                NodeId lastBackupNode = lastBackupNodes.get(deviceId);
-                                NodeId newBackupNode = getBackupNode(deviceId);
-                                return lastBackupTime == null
-                                        ||  !Objects.equals(lastBackupNode, newBackupNode)
-                                        || (lastUpdateTime != null && lastUpdateTime > lastBackupTime);
+                                Set<FlowId> dirty = dirtyFlowIds.get(deviceId);
+                                return needsFullBackup(getBackupNode(deviceId), deviceId)
+                                        || (dirty != null && !dirty.isEmpty());
                             })
                             .collect(Collectors.toSet());
 
@@ -855,20 +956,41 @@ public class NewDistributedFlowRuleStore
             }
         }
 
-        private Set<DeviceId> onBackupReceipt(Map<DeviceId,
-                Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>> flowTables) {
+        private Set<DeviceId> onBackupReceipt(Map<DeviceId, FlowTableBackup> flowTables) {
             log.debug("Received flowEntries for {} to backup", flowTables.keySet());
             Set<DeviceId> backedupDevices = Sets.newHashSet();
             try {
-                flowTables.forEach((deviceId, deviceFlowTable) -> {
+                flowTables.forEach((deviceId, backup) -> {
                     // Only process those devices are that not managed by the local node.
-                    if (!Objects.equals(local, mastershipService.getMasterFor(deviceId))) {
-                        Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> backupFlowTable =
-                                getFlowTable(deviceId);
+                    if (Objects.equals(local, mastershipService.getMasterFor(deviceId))) {
+                        return;
+                    }
+                    Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> backupFlowTable =
+                            getFlowTable(deviceId);
+                    if (backup.isFull()) {
                         backupFlowTable.clear();
-                        backupFlowTable.putAll(deviceFlowTable);
-                        backedupDevices.add(deviceId);
+                        backupFlowTable.putAll(backup.flowEntries());
+                    } else if (Objects.equals(receivedBackupVersions.get(deviceId), backup.baseVersion())) {
+                        Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> updated = Maps.newHashMap();
+                        backup.flowEntries().forEach((flowId, bucket) -> {
+                            if (bucket.isEmpty()) {
+                                backupFlowTable.remove(flowId);
+                            } else {
+                                Map<StoredFlowEntry, StoredFlowEntry> entries = Maps.newConcurrentMap();
+                                entries.putAll(bucket);
+                                updated.put(flowId, entries);
+                            }
+                        });
+                        // replaced buckets are not read back, unlike with put
+                        backupFlowTable.putAll(updated);
+                    } else {
+                        // missed an update; leave it out of the reply so the master resyncs in full.
+                        log.debug("Backup version gap for {}: expected {}, got base {}",
+                                  deviceId, receivedBackupVersions.get(deviceId), backup.baseVersion());
+                        return;
                     }
+                    receivedBackupVersions.put(deviceId, backup.version());
+                    backedupDevices.add(deviceId);
                 });
             } catch (Exception e) {
                 log.warn("Failure processing backup request", e);
@@ -15,7 +15,11 @@
  */
 package org.onosproject.store.host.impl;
 
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 
 import org.apache.felix.scr.annotations.Activate;
@@ -53,15 +57,12 @@ import org.onosproject.store.service.StorageService;
 import org.onosproject.store.service.Versioned;
 import org.slf4j.Logger;
 
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Predicate;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -89,6 +90,24 @@ public class DistributedHostStore
     private final ConcurrentHashMap<HostId, DefaultHost> prevHosts =
             new ConcurrentHashMap<>();
 
+    // Local copy of the hosts, as of the latest version either written by
+    // this instance or notified by the map; entries of removed hosts are kept
+    // with a null value until their removal is notified, so that stale
+    // notifications cannot bring them back.
+    private final Map<HostId, Versioned<DefaultHost>> localHosts = Maps.newConcurrentMap();
+
+    // Secondary indexes over the local copy of the hosts
+    private final SetMultimap<MacAddress, HostId> hostsByMac =
+            Multimaps.synchronizedSetMultimap(HashMultimap.create());
+    private final SetMultimap<IpAddress, HostId> hostsByIp =
+            Multimaps.synchronizedSetMultimap(HashMultimap.create());
+    private final SetMultimap<VlanId, HostId> hostsByVlan =
+            Multimaps.synchronizedSetMultimap(HashMultimap.create());
+    private final SetMultimap<ConnectPoint, HostId> hostsByLocation =
+            Multimaps.synchronizedSetMultimap(HashMultimap.create());
+    private final SetMultimap<DeviceId, HostId> hostsByDevice =
+            Multimaps.synchronizedSetMultimap(HashMultimap.create());
+
     private MapEventListener<HostId, DefaultHost> hostLocationTracker =
             new HostLocationTracker();
 
@@ -105,7 +124,10 @@ public class DistributedHostStore
 
         hosts = host.asJavaMap();
 
-        prevHosts.putAll(hosts);
+        host.entrySet().forEach(entry -> {
+            prevHosts.put(entry.getKey(), entry.getValue().value());
+            updateLocalHost(entry.getKey(), entry.getValue());
+        });
 
         host.addListener(hostLocationTracker);
 
@@ -116,6 +138,12 @@ public class DistributedHostStore
     public void deactivate() {
         host.removeListener(hostLocationTracker);
         prevHosts.clear();
+        localHosts.clear();
+        hostsByMac.clear();
+        hostsByIp.clear();
+        hostsByVlan.clear();
+        hostsByLocation.clear();
+        hostsByDevice.clear();
 
         log.info("Stopped");
     }
@@ -194,10 +222,11 @@ public class DistributedHostStore
                                                   annotations);
                        });
 
-        Tools.retryable(supplier,
+        Versioned<DefaultHost> updated = Tools.retryable(supplier,
                         ConsistentMapException.ConcurrentModification.class,
                         Integer.MAX_VALUE,
                         50).get();
+        updateLocalHost(hostId, updated);
 
         return null;
     }
@@ -205,14 +234,17 @@ public class DistributedHostStore
     // TODO No longer need to return HostEvent
     @Override
     public HostEvent removeHost(HostId hostId) {
-        hosts.remove(hostId);
+        Versioned<DefaultHost> removed = host.remove(hostId);
+        if (removed != null) {
+            updateLocalHost(hostId, new Versioned<>(null, removed.version()));
+        }
         return null;
     }
 
     // TODO No longer need to return HostEvent
     @Override
     public HostEvent removeIp(HostId hostId, IpAddress ipAddress) {
-        hosts.compute(hostId, (id, existingHost) -> {
+        Versioned<DefaultHost> updated = host.computeIfPresent(hostId, (id, existingHost) -> {
             if (existingHost != null) {
                 checkState(Objects.equals(hostId.mac(), existingHost.mac()),
                         "Existing and new MAC addresses differ.");
@@ -236,6 +268,7 @@ public class DistributedHostStore
             }
             return null;
         });
+        updateLocalHost(hostId, updated);
         return null;
     }
 
@@ -256,39 +289,112 @@ public class DistributedHostStore
 
     @Override
     public Set<Host> getHosts(VlanId vlanId) {
-        return filter(hosts.values(), host -> Objects.equals(host.vlan(), vlanId));
+        return lookup(hostsByVlan, vlanId);
     }
 
     @Override
     public Set<Host> getHosts(MacAddress mac) {
-        return filter(hosts.values(), host -> Objects.equals(host.mac(), mac));
+        return lookup(hostsByMac, mac);
     }
 
     @Override
     public Set<Host> getHosts(IpAddress ip) {
-        return filter(hosts.values(), host -> host.ipAddresses().contains(ip));
+        return lookup(hostsByIp, ip);
     }
 
     @Override
     public Set<Host> getConnectedHosts(ConnectPoint connectPoint) {
-        Set<Host> filtered = hosts.entrySet().stream()
-                .filter(entry -> entry.getValue().location().equals(connectPoint))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toSet());
-        return ImmutableSet.copyOf(filtered);
+        return lookup(hostsByLocation, connectPoint);
     }
 
     @Override
     public Set<Host> getConnectedHosts(DeviceId deviceId) {
-        Set<Host> filtered = hosts.entrySet().stream()
-                .filter(entry -> entry.getValue().location().deviceId().equals(deviceId))
-                .map(Map.Entry::getValue)
-                .collect(Collectors.toSet());
-        return ImmutableSet.copyOf(filtered);
+        return lookup(hostsByDevice, deviceId);
+    }
+
+    private <K> Set<Host> lookup(SetMultimap<K, HostId> index, K key) {
+        ImmutableSet.Builder<Host> builder = ImmutableSet.builder();
+        synchronized (index) {
+            index.get(key).forEach(hostId -> {
+                Versioned<DefaultHost> host = localHosts.get(hostId);
+                if (host != null && host.value() != null) {
+                    builder.add(host.value());
+                }
+            });
+        }
+        return builder.build();
+    }
+
+    // Applies a version of a host to the local copy and the indexes, unless
+    // a later one was applied already; a null value stands for its removal.
+    // New index entries are added before stale ones are removed, so that a
+    // host does not drop out of lookups while it is reindexed.
+    private void updateLocalHost(HostId hostId, Versioned<DefaultHost> update) {
+        if (update == null) {
+            return;
+        }
+        synchronized (localHosts) {
+            Versioned<DefaultHost> current = localHosts.get(hostId);
+            if (current != null && (current.version() > update.version() ||
+                    current.version() == update.version() && update.value() != null)) {
+                // Applied already, or superseded
+                return;
+            }
+            DefaultHost host = update.value();
+            if (host == null && current == null) {
+                // Nothing to remove, or its removal was notified already
+                return;
+            }
+            if (host != null) {
+                indexHost(host);
+            }
+            localHosts.put(hostId, update);
+            if (current != null && current.value() != null) {
+                unindexStale(current.value(), host);
+            }
+        }
+    }
+
+    // Drops the tombstone of a host whose removal has been notified
+    private void removeLocalHost(HostId hostId, long version) {
+        synchronized (localHosts) {
+            Versioned<DefaultHost> current = localHosts.get(hostId);
+            if (current == null || current.version() > version) {
+                return;
+            }
+            localHosts.remove(hostId);
+            if (current.value() != null) {
+                unindexStale(current.value(), null);
+            }
+        }
     }
 
-    private Set<Host> filter(Collection<DefaultHost> collection, Predicate<DefaultHost> predicate) {
-        return collection.stream().filter(predicate).collect(Collectors.toSet());
+    private void indexHost(Host host) {
+        hostsByMac.put(host.mac(), host.id());
+        hostsByVlan.put(host.vlan(), host.id());
+        hostsByLocation.put(host.location(), host.id());
+        hostsByDevice.put(host.location().deviceId(), host.id());
+        host.ipAddresses().forEach(ip -> hostsByIp.put(ip, host.id()));
+    }
+
+    // Removes the index entries of a previous version of a host which its
+    // current version, if any, no longer has
+    private void unindexStale(Host stale, Host host) {
+        if (host == null || !Objects.equals(stale.mac(), host.mac())) {
+            hostsByMac.remove(stale.mac(), stale.id());
+        }
+        if (host == null || !Objects.equals(stale.vlan(), host.vlan())) {
+            hostsByVlan.remove(stale.vlan(), stale.id());
+        }
+        if (host == null || !Objects.equals(stale.location(), host.location())) {
+            hostsByLocation.remove(stale.location(), stale.id());
+        }
+        if (host == null || !Objects.equals(stale.location().deviceId(), host.location().deviceId())) {
+            hostsByDevice.remove(stale.location().deviceId(), stale.id());
+        }
+        stale.ipAddresses().stream()
+                .filter(ip -> host == null || !host.ipAddresses().contains(ip))
+                .forEach(ip -> hostsByIp.remove(ip, stale.id()));
     }
 
     private class HostLocationTracker implements MapEventListener<HostId, DefaultHost> {
@@ -298,9 +404,11 @@ public class DistributedHostStore
             Host prevHost = prevHosts.put(host.id(), host);
             switch (event.type()) {
                 case INSERT:
+                    updateLocalHost(host.id(), event.value());
                     notifyDelegate(new HostEvent(HOST_ADDED, host));
                     break;
                 case UPDATE:
+                    updateLocalHost(host.id(), event.value());
                     if (!Objects.equals(prevHost.location(), host.location())) {
                         notifyDelegate(new HostEvent(HOST_MOVED, host, prevHost));
                     } else if (!Objects.equals(prevHost, host)) {
@@ -308,6 +416,7 @@ public class DistributedHostStore
                     }
                     break;
                 case REMOVE:
+                    removeLocalHost(host.id(), event.value().version());
                     if (prevHosts.remove(host.id()) != null) {
                         notifyDelegate(new HostEvent(HOST_REMOVED, host));
                     }
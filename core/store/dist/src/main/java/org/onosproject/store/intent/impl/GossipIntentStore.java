@@ -76,6 +76,10 @@ public class GossipIntentStore
     // Map of intent key => pending intent operation
     private EventuallyConsistentMap<Key, IntentData> pendingMap;
 
+    // Partition and time-ordered indexes of the maps above
+    private IntentIndex currentIndex;
+    private IntentIndex pendingIndex;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ClusterService clusterService;
 
@@ -112,8 +116,12 @@ public class GossipIntentStore
                 .withPeerUpdateFunction((key, intentData) -> getPeerNodes(key, intentData))
                 .build();
 
+        currentIndex = new IntentIndex(currentMap::get, partitionService);
+        pendingIndex = new IntentIndex(pendingMap::get, partitionService);
         currentMap.addListener(new InternalCurrentListener());
         pendingMap.addListener(new InternalPendingListener());
+        currentMap.keySet().forEach(currentIndex::update);
+        pendingMap.keySet().forEach(pendingIndex::update);
 
         log.info("Started");
     }
@@ -142,11 +150,7 @@ public class GossipIntentStore
     public Iterable<IntentData> getIntentData(boolean localOnly, long olderThan) {
         if (localOnly || olderThan > 0) {
             long now = System.currentTimeMillis();
-            final WallClockTimestamp time = new WallClockTimestamp(now - olderThan);
-            return currentMap.values().stream()
-                    .filter(data -> data.version().isOlderThan(time) &&
-                            (!localOnly || isMaster(data.key())))
-                    .collect(Collectors.toList());
+            return currentIndex.olderThan(localOnly, now - olderThan);
         }
         return currentMap.values();
     }
@@ -277,17 +281,14 @@ public class GossipIntentStore
     @Override
     public Iterable<IntentData> getPendingData(boolean localOnly, long olderThan) {
         long now = System.currentTimeMillis();
-        final WallClockTimestamp time = new WallClockTimestamp(now - olderThan);
-        return pendingMap.values().stream()
-                .filter(data -> data.version().isOlderThan(time) &&
-                                (!localOnly || isMaster(data.key())))
-                .collect(Collectors.toList());
+        return pendingIndex.olderThan(localOnly, now - olderThan);
     }
 
     private final class InternalCurrentListener implements
             EventuallyConsistentMapListener<Key, IntentData> {
         @Override
         public void event(EventuallyConsistentMapEvent<Key, IntentData> event) {
+            currentIndex.update(event.key());
             IntentData intentData = event.value();
 
             if (event.type() == EventuallyConsistentMapEvent.Type.PUT) {
@@ -307,6 +308,7 @@ public class GossipIntentStore
         @Override
         public void event(
                 EventuallyConsistentMapEvent<Key, IntentData> event) {
+            pendingIndex.update(event.key());
             if (event.type() == EventuallyConsistentMapEvent.Type.PUT) {
                 // The pending intents map has been updated. If we are master for
                 // this intent's partition, notify the Manager that it should do
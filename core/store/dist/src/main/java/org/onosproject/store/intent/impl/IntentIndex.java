@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.intent.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onosproject.net.intent.IntentData;
+import org.onosproject.net.intent.IntentPartitionService;
+import org.onosproject.net.intent.Key;
+import org.onosproject.store.Timestamp;
+import org.onosproject.store.service.WallClockTimestamp;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Secondary index of the intent data held in one of the intent maps,
+ * organized by intent keyspace partition and, within each partition, by the
+ * wall-clock version of the data. Queries for the intent data of selected
+ * partitions older than a given time take time proportional to the size of
+ * the result.
+ * <p>
+ * The partition of a key never changes, so the index remains valid when
+ * partition ownership moves between instances; ownership is only evaluated
+ * at query time.
+ * </p>
+ */
+final class IntentIndex {
+
+    private final Function<Key, IntentData> source;
+    private final IntentPartitionService partitionService;
+    private final List<Partition> partitions;
+    private final Map<Key, IntentData> indexed = Maps.newHashMap();
+
+    /**
+     * Creates an empty index.
+     *
+     * @param source           function returning the present data of a key
+     *                         in the indexed map; null if there is none
+     * @param partitionService intent partition service
+     */
+    IntentIndex(Function<Key, IntentData> source, IntentPartitionService partitionService) {
+        this.source = source;
+        this.partitionService = partitionService;
+        int count = partitionService.getPartitionCount();
+        this.partitions = Lists.newArrayListWithCapacity(count);
+        for (int i = 0; i < count; i++) {
+            partitions.add(new Partition());
+        }
+    }
+
+    /**
+     * Brings the index entry of a key up to date with the indexed map. The
+     * data is read back from the map rather than taken from the map event,
+     * so that concurrent events delivered out of order cannot leave a stale
+     * entry behind.
+     *
+     * @param key intent key
+     */
+    synchronized void update(Key key) {
+        IntentData data = source.apply(key);
+        IntentData previous = data == null ? indexed.remove(key) : indexed.put(key, data);
+        Partition partition = partitions.get(partitionService.getPartition(key));
+        if (previous != null) {
+            partition.remove(key, previous.version());
+        }
+        if (data != null) {
+            partition.add(key, data.version());
+        }
+    }
+
+    /**
+     * Returns the intent data whose version is older than the given time.
+     *
+     * @param localOnly true to only include partitions owned by this instance
+     * @param time      wall-clock time in millis
+     * @return list of intent data
+     */
+    synchronized List<IntentData> olderThan(boolean localOnly, long time) {
+        final WallClockTimestamp cutoff = new WallClockTimestamp(time);
+        List<IntentData> result = Lists.newArrayList();
+        for (int i = 0; i < partitions.size(); i++) {
+            if (localOnly && !partitionService.isMine(i)) {
+                continue;
+            }
+            Partition partition = partitions.get(i);
+            partition.byTime.headMap(time, false).values()
+                    .forEach(keys -> keys.forEach(key -> result.add(indexed.get(key))));
+            partition.untimed.stream()
+                    .map(indexed::get)
+                    .filter(data -> data.version() != null && data.version().isOlderThan(cutoff))
+                    .forEach(result::add);
+        }
+        return result;
+    }
+
+    /**
+     * Index entries of a single partition. Data versioned by wall-clock
+     * timestamps is ordered by time; other data is kept aside and filtered
+     * on each query.
+     */
+    private static final class Partition {
+        private final NavigableMap<Long, Set<Key>> byTime = new TreeMap<>();
+        private final Set<Key> untimed = Sets.newHashSet();
+
+        private void add(Key key, Timestamp version) {
+            if (version instanceof WallClockTimestamp) {
+                byTime.computeIfAbsent(((WallClockTimestamp) version).unixTimestamp(),
+                                       t -> Sets.newHashSet()).add(key);
+            } else {
+                untimed.add(key);
+            }
+        }
+
+        private void remove(Key key, Timestamp version) {
+            if (version instanceof WallClockTimestamp) {
+                long time = ((WallClockTimestamp) version).unixTimestamp();
+                Set<Key> keys = byTime.get(time);
+                if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                    byTime.remove(time);
+                }
+            } else {
+                untimed.remove(key);
+            }
+        }
+    }
+}
@@ -126,12 +126,7 @@ public class IntentPartitionManager implements IntentPartitionService {
     }
 
     private PartitionId getPartitionForKey(Key intentKey) {
-        int partition = Math.abs((int) intentKey.hash()) % NUM_PARTITIONS;
-        //TODO investigate Guava consistent hash method
-        // ... does it add significant computational complexity? is it worth it?
-        //int partition = consistentHash(intentKey.hash(), NUM_PARTITIONS);
-        PartitionId id = new PartitionId(partition);
-        return id;
+        return new PartitionId(getPartition(intentKey));
     }
 
     @Override
@@ -145,6 +140,25 @@ public class IntentPartitionManager implements IntentPartitionService {
         return leadershipService.getLeader(getPartitionPath(getPartitionForKey(intentKey)));
     }
 
+    @Override
+    public int getPartitionCount() {
+        return NUM_PARTITIONS;
+    }
+
+    @Override
+    public int getPartition(Key intentKey) {
+        //TODO investigate Guava consistent hash method
+        // ... does it add significant computational complexity? is it worth it?
+        //return consistentHash(intentKey.hash(), NUM_PARTITIONS);
+        return Math.abs((int) intentKey.hash() % NUM_PARTITIONS);
+    }
+
+    @Override
+    public boolean isMine(int partition) {
+        return Objects.equals(leadershipService.getLeader(getPartitionPath(partition)),
+                              clusterService.getLocalNode().id());
+    }
+
     @Override
     public void addListener(IntentPartitionEventListener listener) {
         listenerRegistry.addListener(listener);
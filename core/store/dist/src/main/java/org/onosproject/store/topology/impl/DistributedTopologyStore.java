@@ -15,6 +15,7 @@
  */
 package org.onosproject.store.topology.impl;
 
+import com.google.common.base.Strings;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
@@ -91,7 +92,7 @@ public class DistributedTopologyStore
 
     private final Logger log = getLogger(getClass());
 
-    private static final String FORMAT = "Settings: linkWeightFunction={}";
+    private static final String FORMAT = "Settings: linkWeightFunction={}, maxPathPrecomputeDevices={}";
 
     private volatile DefaultTopology current =
             new DefaultTopology(ProviderId.NONE,
@@ -123,6 +124,11 @@ public class DistributedTopologyStore
             label = "Default link-weight function: hopCount, linkMetric, geoDistance")
     private String linkWeightFunction = DEFAULT_LINK_WEIGHT_FUNCTION;
 
+    private static final int DEFAULT_MAX_PATH_PRECOMPUTE_DEVICES = 0;
+    @Property(name = "maxPathPrecomputeDevices", intValue = DEFAULT_MAX_PATH_PRECOMPUTE_DEVICES,
+            label = "Largest topology for which all-pairs hop-count paths are precomputed; 0 disables")
+    private int maxPathPrecomputeDevices = DEFAULT_MAX_PATH_PRECOMPUTE_DEVICES;
+
     // Cluster root to broadcast points bindings to allow convergence to
     // a shared broadcast tree; node that is the master of the cluster root
     // is the primary.
@@ -168,7 +174,19 @@ public class DistributedTopologyStore
                             new GeoDistanceLinkWeight(deviceService) : null;
             setDefaultLinkWeight(weight);
         }
-        log.info(FORMAT, linkWeightFunction);
+
+        String s = get(properties, "maxPathPrecomputeDevices");
+        try {
+            int newMaxDevices = Strings.isNullOrEmpty(s) ?
+                    DEFAULT_MAX_PATH_PRECOMPUTE_DEVICES : Integer.parseInt(s.trim());
+            if (newMaxDevices != maxPathPrecomputeDevices) {
+                maxPathPrecomputeDevices = newMaxDevices;
+                DefaultTopology.setMaxPathPrecomputeDevices(maxPathPrecomputeDevices);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Invalid maxPathPrecomputeDevices: {}", s);
+        }
+        log.info(FORMAT, linkWeightFunction, maxPathPrecomputeDevices);
     }
 
     @Override
@@ -277,9 +295,10 @@ public class DistributedTopologyStore
             return null;
         }
 
-        // Have the default topology construct self from the description data.
+        // Have the default topology construct self from the description data,
+        // reusing whatever is unaffected by the change from the current one.
         DefaultTopology newTopology =
-                new DefaultTopology(providerId, graphDescription, this::isBroadcastPoint);
+                new DefaultTopology(providerId, graphDescription, this::isBroadcastPoint, current);
         updateBroadcastPoints(newTopology);
 
         // Promote the new topology to current and return a ready-to-send event.
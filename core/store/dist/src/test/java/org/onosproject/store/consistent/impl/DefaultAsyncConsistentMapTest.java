@@ -35,6 +35,8 @@ import org.junit.Test;
 import org.onlab.util.Match;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.store.service.BinaryKey;
+import org.onosproject.store.service.NearCachePolicy;
 import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.Transaction;
 import org.onosproject.store.service.Versioned;
@@ -106,6 +108,39 @@ public class DefaultAsyncConsistentMapTest {
                      map.entrySet().get().size());
     }
 
+    @Test
+    public void testNearCache() throws Exception {
+        AsyncCachingConsistentMap<TestData, TestData> map;
+        String name = "map_name";
+        TestDatabase database = new TestDatabase();
+        Serializer serializer = Serializer.forTypes(TestData.class);
+
+        map = new AsyncCachingConsistentMap<>(name, APP_ID, database, serializer,
+                                              false, false, false,
+                                              NearCachePolicy.builder()
+                                                      .withMaximumSize(10)
+                                                      .withNegativeCaching()
+                                                      .build());
+        map.put(KEY1A, VALUE2A).get();
+        assertThat(map.get(KEY1A).get().value(), is(VALUE2A));
+        assertNull(map.get(KEY1B).get());
+
+        // Reads are served by the cache, including absent keys
+        database.map.clear();
+        database.map.put(new BinaryKey(serializer.encode(KEY1B)),
+                         new Versioned<>(serializer.encode(VALUE2B), 1));
+        assertThat(map.get(KEY1A).get().value(), is(VALUE2A));
+        assertNull(map.get(KEY1B).get());
+        assertEquals(ImmutableSet.of(KEY1A), map.getAll(ImmutableSet.of(KEY1A, KEY1B)).get().keySet());
+
+        // Local updates invalidate the cached entries
+        map.put(KEY1B, VALUE2B).get();
+        map.remove(KEY1A).get();
+        assertNull(map.get(KEY1A).get());
+        assertThat(map.get(KEY1B).get().value(), is(VALUE2B));
+        assertEquals(ImmutableSet.of(KEY1B), map.getAll(ImmutableSet.of(KEY1A, KEY1B)).get().keySet());
+    }
+
     /**
      * Object to be used as a test data.
      *
@@ -157,7 +192,7 @@ public class DefaultAsyncConsistentMapTest {
      */
     public class TestDatabase implements Database {
 
-        Map<String, Versioned<byte[]>> map = new ConcurrentHashMap<>();
+        Map<BinaryKey, Versioned<byte[]>> map = new ConcurrentHashMap<>();
 
         @Override
         public CompletableFuture<Set<String>> maps() {
@@ -181,7 +216,7 @@ public class DefaultAsyncConsistentMapTest {
 
         @Override
         public CompletableFuture<Boolean> mapContainsKey(String mapName,
-                                                         String key) {
+                                                         BinaryKey key) {
             return CompletableFuture.completedFuture(map.containsKey(key));
         }
 
@@ -194,13 +229,13 @@ public class DefaultAsyncConsistentMapTest {
 
         @Override
         public CompletableFuture<Versioned<byte[]>> mapGet(String mapName,
-                                                           String key) {
+                                                           BinaryKey key) {
             return CompletableFuture.completedFuture(map.get(key));
         }
 
         @Override
-        public synchronized CompletableFuture<Result<UpdateResult<String, byte[]>>> mapUpdate(String mapName,
-                                                                                 String key,
+        public synchronized CompletableFuture<Result<UpdateResult<BinaryKey, byte[]>>> mapUpdate(String mapName,
+                                                                                 BinaryKey key,
                                                                                  Match<byte[]> valueMatch,
                                                                                  Match<Long> versionMatch,
                                                                                  byte[] value) {
@@ -221,7 +256,7 @@ public class DefaultAsyncConsistentMapTest {
                 newValue = old;
             }
             return CompletableFuture.completedFuture(
-                             Result.ok(new UpdateResult<String, byte[]>(updated,
+                             Result.ok(new UpdateResult<BinaryKey, byte[]>(updated,
                                             mapName, key, oldValue, newValue)));
         }
 
@@ -231,7 +266,7 @@ public class DefaultAsyncConsistentMapTest {
         }
 
         @Override
-        public CompletableFuture<Set<String>> mapKeySet(String mapName) {
+        public CompletableFuture<Set<BinaryKey>> mapKeySet(String mapName) {
             return CompletableFuture.completedFuture(unmodifiableSet(map.keySet()));
         }
 
@@ -241,7 +276,7 @@ public class DefaultAsyncConsistentMapTest {
         }
 
         @Override
-        public CompletableFuture<Set<Entry<String, Versioned<byte[]>>>> mapEntrySet(String mapName) {
+        public CompletableFuture<Set<Entry<BinaryKey, Versioned<byte[]>>>> mapEntrySet(String mapName) {
             return CompletableFuture.completedFuture(unmodifiableSet(map.entrySet()));
         }
 
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.consistent.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.junit.Test;
+import org.onlab.junit.TestUtils;
+import org.onosproject.store.consistent.impl.LegacyDatabaseUpdateSerializer.LegacyDatabaseUpdate;
+import org.onosproject.store.service.BinaryKey;
+import org.onosproject.store.service.DatabaseUpdate;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Unit tests for reading database updates logged by earlier versions.
+ */
+public class LegacyDatabaseUpdateSerializerTest {
+
+    private static final int ID = 100;
+
+    private byte[] writeLegacy(DatabaseUpdate.Type type, String key, byte[] value,
+                               byte[] currentValue, long currentVersion) throws Exception {
+        // earlier versions used the default field serializer
+        Kryo kryo = new Kryo();
+        kryo.register(LegacyDatabaseUpdate.class, ID);
+        LegacyDatabaseUpdate update = kryo.newInstance(LegacyDatabaseUpdate.class);
+        TestUtils.setField(update, "type", type);
+        TestUtils.setField(update, "mapName", "map");
+        TestUtils.setField(update, "key", key);
+        TestUtils.setField(update, "value", value);
+        TestUtils.setField(update, "currentValue", currentValue);
+        TestUtils.setField(update, "currentVersion", currentVersion);
+        Output output = new Output(256);
+        kryo.writeClassAndObject(output, update);
+        return output.toBytes();
+    }
+
+    private DatabaseUpdate read(byte[] bytes) {
+        Kryo kryo = new Kryo();
+        kryo.register(LegacyDatabaseUpdate.class, new LegacyDatabaseUpdateSerializer(), ID);
+        return (DatabaseUpdate) kryo.readClassAndObject(new Input(bytes));
+    }
+
+    @Test
+    public void testPut() throws Exception {
+        DatabaseUpdate update = read(writeLegacy(DatabaseUpdate.Type.PUT, "0f:ca:fe",
+                                                 new byte[]{1}, null, -1));
+        assertThat(update.type(), is(DatabaseUpdate.Type.PUT));
+        assertThat(update.mapName(), is("map"));
+        assertThat(update.key(), is(new BinaryKey(new byte[]{0x0f, (byte) 0xca, (byte) 0xfe})));
+        assertThat(update.value(), is(new byte[]{1}));
+        assertThat(update.currentValue(), nullValue());
+        assertThat(update.currentVersion(), is(-1L));
+    }
+
+    @Test
+    public void testRemoveIfVersionMatch() throws Exception {
+        DatabaseUpdate update = read(writeLegacy(DatabaseUpdate.Type.REMOVE_IF_VERSION_MATCH, "01",
+                                                 null, null, 7));
+        assertThat(update.type(), is(DatabaseUpdate.Type.REMOVE_IF_VERSION_MATCH));
+        assertThat(update.key(), is(new BinaryKey(new byte[]{1})));
+        assertThat(update.value(), nullValue());
+        assertThat(update.currentVersion(), is(7L));
+    }
+
+    @Test
+    public void testPutIfValueMatch() throws Exception {
+        DatabaseUpdate update = read(writeLegacy(DatabaseUpdate.Type.PUT_IF_VALUE_MATCH, "02",
+                                                 new byte[]{3}, new byte[]{4}, -1));
+        assertThat(update.value(), is(new byte[]{3}));
+        assertThat(update.currentValue(), is(new byte[]{4}));
+    }
+}
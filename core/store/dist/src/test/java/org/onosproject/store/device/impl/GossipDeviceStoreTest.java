@@ -42,6 +42,7 @@ import org.onosproject.net.PortNumber;
 import org.onosproject.net.SparseAnnotations;
 import org.onosproject.net.device.DefaultDeviceDescription;
 import org.onosproject.net.device.DefaultPortDescription;
+import org.onosproject.net.device.DefaultPortStatistics;
 import org.onosproject.net.device.DeviceClockService;
 import org.onosproject.net.device.DeviceClockServiceAdapter;
 import org.onosproject.net.device.DeviceDescription;
@@ -49,6 +50,7 @@ import org.onosproject.net.device.DeviceEvent;
 import org.onosproject.net.device.DeviceStore;
 import org.onosproject.net.device.DeviceStoreDelegate;
 import org.onosproject.net.device.PortDescription;
+import org.onosproject.net.device.PortStatistics;
 import org.onosproject.net.provider.ProviderId;
 import org.onosproject.store.Timestamp;
 import org.onosproject.store.cluster.StaticClusterService;
@@ -56,10 +58,10 @@ import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
 import org.onosproject.store.cluster.messaging.ClusterMessage;
 import org.onosproject.store.cluster.messaging.ClusterMessageHandler;
 import org.onosproject.store.cluster.messaging.MessageSubject;
-import org.onosproject.store.consistent.impl.DatabaseManager;
 import org.onosproject.store.impl.MastershipBasedTimestamp;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -67,8 +69,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
@@ -99,6 +105,7 @@ public class GossipDeviceStoreTest {
     private static final String SW2 = "3.9.5";
     private static final String SN = "43311-12345";
     private static final ChassisId CID = new ChassisId();
+    private static final String STRESS = "of:stress";
 
     private static final PortNumber P1 = PortNumber.portNumber(1);
     private static final PortNumber P2 = PortNumber.portNumber(2);
@@ -137,7 +144,7 @@ public class GossipDeviceStoreTest {
     private GossipDeviceStore gossipDeviceStore;
     private DeviceStore deviceStore;
 
-    private DeviceClockService deviceClockService = new TestDeviceClockService();
+    private TestDeviceClockService deviceClockService = new TestDeviceClockService();
     private ClusterCommunicationService clusterCommunicator;
 
     @BeforeClass
@@ -161,9 +168,6 @@ public class GossipDeviceStoreTest {
         testGossipDeviceStore = new TestGossipDeviceStore(deviceClockService, clusterService, clusterCommunicator);
         testGossipDeviceStore.mastershipService = new TestMastershipService();
 
-        TestDatabaseManager testDatabaseManager = new TestDatabaseManager();
-        testDatabaseManager.init(clusterService, clusterCommunicator);
-        testGossipDeviceStore.storageService = testDatabaseManager;
         testGossipDeviceStore.deviceClockService = deviceClockService;
 
         gossipDeviceStore = testGossipDeviceStore;
@@ -751,6 +755,48 @@ public class GossipDeviceStoreTest {
         assertNull("P3 not expected", port3);
     }
 
+    @Test
+    public final void testPortStatistics() {
+        putDevice(DID1, SW1);
+        reset(clusterCommunicator);
+        clusterCommunicator.broadcast(anyObject(DeviceId.class),
+                                      eq(GossipDeviceStoreMessageSubjects.PORT_STATS_UPDATE),
+                                      anyObject(Function.class));
+        expectLastCall().times(2);
+        replay(clusterCommunicator);
+
+        DeviceEvent event = deviceStore.updatePortStatistics(PID, DID1, asList(stats(1, 100, 10), stats(2, 50, 10)));
+        assertEquals(PORT_STATS_UPDATED, event.type());
+        assertEquals(2, deviceStore.getPortStatistics(DID1).size());
+        List<PortStatistics> first = deviceStore.getPortDeltaStatistics(DID1);
+        assertEquals("First delta counts from zero", 2, first.size());
+        assertEquals(150, first.stream().mapToLong(PortStatistics::bytesSent).sum());
+
+        deviceStore.updatePortStatistics(PID, DID1, asList(stats(1, 400, 20)));
+        verify(clusterCommunicator);
+
+        List<PortStatistics> latest = deviceStore.getPortStatistics(DID1);
+        assertEquals("Unreported port is dropped", 1, latest.size());
+        assertEquals(400, latest.get(0).bytesSent());
+
+        List<PortStatistics> delta = deviceStore.getPortDeltaStatistics(DID1);
+        assertEquals(1, delta.size());
+        assertEquals(1, delta.get(0).port());
+        assertEquals(300, delta.get(0).bytesSent());
+        assertEquals(10, delta.get(0).durationSec());
+
+        assertTrue(deviceStore.getPortStatistics(DID2).isEmpty());
+    }
+
+    private static PortStatistics stats(int port, long bytesSent, long durationSec) {
+        return DefaultPortStatistics.builder()
+                .setDeviceId(DID1)
+                .setPort(port)
+                .setBytesSent(bytesSent)
+                .setDurationSec(durationSec)
+                .build();
+    }
+
     @Test
     public final void testRemoveDevice() {
         putDevice(DID1, SW1, A1);
@@ -795,6 +841,71 @@ public class GossipDeviceStoreTest {
         assertAnnotationsEquals(deviceStore.getPort(DID1, P1).annotations());
     }
 
+    /**
+     * Tests that updates of many devices proceed concurrently, and that
+     * concurrent updates of a single device are applied in timestamp order.
+     */
+    @Test
+    public final void testConcurrentUpdates() throws Exception {
+        reset(clusterCommunicator);
+        clusterCommunicator.<InternalDeviceEvent>broadcast(anyObject(InternalDeviceEvent.class),
+                                                           anyObject(MessageSubject.class),
+                                                           anyObject(Function.class));
+        expectLastCall().anyTimes();
+        replay(clusterCommunicator);
+
+        final int deviceCount = 64;
+        final int portCount = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int d = 0; d < deviceCount; d++) {
+            final DeviceId id = deviceId(STRESS + d);
+            futures.add(pool.submit(() -> {
+                deviceStore.createOrUpdateDevice(PID, id,
+                        new DefaultDeviceDescription(id.uri(), SWITCH, MFR, HW, SW1, SN, CID));
+                List<PortDescription> pds = new ArrayList<>();
+                for (int p = 1; p <= portCount; p++) {
+                    pds.add(new DefaultPortDescription(PortNumber.portNumber(p), true));
+                }
+                deviceStore.updatePorts(PID, id, pds);
+                deviceStore.updatePortStatus(PID, id, new DefaultPortDescription(P1, false));
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(deviceCount, deviceStore.getDeviceCount());
+        for (int d = 0; d < deviceCount; d++) {
+            final DeviceId id = deviceId(STRESS + d);
+            assertTrue(deviceStore.isAvailable(id));
+            assertEquals(portCount, deviceStore.getPorts(id).size());
+            assertFalse(deviceStore.getPort(id, P1).isEnabled());
+            assertTrue(deviceStore.getPort(id, P2).isEnabled());
+        }
+
+        // toggle one port from several threads; the state written last must
+        // be the one which was issued the latest timestamp
+        final DeviceId id = deviceId(STRESS + 0);
+        futures.clear();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    boolean enabled = ThreadLocalRandom.current().nextBoolean();
+                    deviceClockService.pending.set(enabled);
+                    deviceStore.updatePortStatus(PID, id, new DefaultPortDescription(P2, enabled));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(deviceClockService.lastIssued.get(id).booleanValue(),
+                     deviceStore.getPort(id, P2).isEnabled());
+    }
+
     // If Delegates should be called only on remote events,
     // then Simple* should never call them, thus not test required.
     // TODO add test for Port events when we have them
@@ -881,12 +992,22 @@ public class GossipDeviceStoreTest {
 
         private final AtomicLong ticker = new AtomicLong();
 
+        // port state the calling thread is about to write, and the state
+        // of each stress test device which was issued the latest timestamp
+        private final ThreadLocal<Boolean> pending = new ThreadLocal<>();
+        private final Map<DeviceId, Boolean> lastIssued = new ConcurrentHashMap<>();
+
         @Override
         public Timestamp getTimestamp(DeviceId deviceId) {
             if (DID1.equals(deviceId)) {
                 return new MastershipBasedTimestamp(1, ticker.getAndIncrement());
             } else if (DID2.equals(deviceId)) {
                 return new MastershipBasedTimestamp(2, ticker.getAndIncrement());
+            } else if (deviceId.toString().startsWith(STRESS)) {
+                if (pending.get() != null) {
+                    lastIssued.put(deviceId, pending.get());
+                }
+                return new MastershipBasedTimestamp(3, ticker.getAndIncrement());
             } else {
                 throw new IllegalStateException();
             }
@@ -894,15 +1015,8 @@ public class GossipDeviceStoreTest {
 
         @Override
         public boolean isTimestampAvailable(DeviceId deviceId) {
-            return DID1.equals(deviceId) || DID2.equals(deviceId);
-        }
-    }
-
-    private class TestDatabaseManager extends DatabaseManager {
-        void init(ClusterService clusterService,
-                  ClusterCommunicationService clusterCommunicator) {
-            this.clusterService = clusterService;
-            this.clusterCommunicator = clusterCommunicator;
+            return DID1.equals(deviceId) || DID2.equals(deviceId) ||
+                    deviceId.toString().startsWith(STRESS);
         }
     }
 }
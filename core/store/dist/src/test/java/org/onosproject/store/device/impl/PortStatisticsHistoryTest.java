@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.device.impl;
+
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.device.DefaultPortStatistics;
+import org.onosproject.net.device.PortStatistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.onosproject.net.DeviceId.deviceId;
+
+/**
+ * Tests of the port statistics history.
+ */
+public class PortStatisticsHistoryTest {
+
+    private static final DeviceId DID = deviceId("of:foo");
+
+    private static PortStatistics stats(long bytesSent, long durationSec, long durationNano) {
+        return DefaultPortStatistics.builder()
+                .setDeviceId(DID)
+                .setPort(1)
+                .setPacketsSent(bytesSent / 100)
+                .setBytesSent(bytesSent)
+                .setDurationSec(durationSec)
+                .setDurationNano(durationNano)
+                .build();
+    }
+
+    @Test
+    public void empty() {
+        PortStatisticsHistory history = new PortStatisticsHistory(1, 4);
+        assertEquals(0, history.size());
+        assertNull(history.latest(DID));
+        assertNull(history.delta(DID, 1));
+    }
+
+    @Test
+    public void latestAndDelta() {
+        PortStatisticsHistory history = new PortStatisticsHistory(1, 4);
+        history.add(stats(1_000, 10, 900_000_000), 0);
+        assertEquals(1_000, history.latest(DID).bytesSent());
+        // the first delta counts from zero
+        PortStatistics first = history.delta(DID, 1);
+        assertEquals(1_000, first.bytesSent());
+        assertEquals(10, first.durationSec());
+        assertEquals(900_000_000, first.durationNano());
+
+        history.add(stats(3_000, 15, 100_000_000), 0);
+        PortStatistics latest = history.latest(DID);
+        assertEquals(1, latest.port());
+        assertEquals(3_000, latest.bytesSent());
+
+        PortStatistics delta = history.delta(DID, 1);
+        assertEquals(2_000, delta.bytesSent());
+        assertEquals(20, delta.packetsSent());
+        assertEquals(4, delta.durationSec());
+        assertEquals(200_000_000, delta.durationNano());
+    }
+
+    @Test
+    public void wrapsAround() {
+        PortStatisticsHistory history = new PortStatisticsHistory(1, 3);
+        for (int i = 1; i <= 10; i++) {
+            history.add(stats(i * 100, i * 5, 0), 0);
+        }
+        assertEquals(3, history.size());
+        assertEquals(1_000, history.latest(DID).bytesSent());
+        assertEquals(100, history.delta(DID, 1).bytesSent());
+        assertEquals(200, history.delta(DID, 2).bytesSent());
+        // only three samples are retained
+        assertEquals(200, history.delta(DID, 5).bytesSent());
+        assertEquals(10, history.delta(DID, 5).durationSec());
+    }
+
+    @Test
+    public void durationFromRecordingTimes() {
+        PortStatisticsHistory history = new PortStatisticsHistory(1, 4);
+        history.add(stats(0, 0, 0), 1_000);
+        history.add(stats(500, 0, 0), 6_250);
+        PortStatistics delta = history.delta(DID, 1);
+        assertEquals(5, delta.durationSec());
+        assertEquals(250_000_000, delta.durationNano());
+    }
+}
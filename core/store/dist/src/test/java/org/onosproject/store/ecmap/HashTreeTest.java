@@ -0,0 +1,133 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.ecmap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.onosproject.store.impl.LogicalTimestamp;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Unit tests for HashTree.
+ */
+public class HashTreeTest {
+
+    private static final int ENTRIES = 100_000;
+
+    private static byte[] encode(Object object) {
+        return object.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static MapValue<String> value(long timestamp) {
+        return new MapValue<>("value", new LogicalTimestamp(timestamp));
+    }
+
+    @Test
+    public void testOrderIndependence() {
+        HashTree<String> tree1 = new HashTree<>(HashTreeTest::encode);
+        HashTree<String> tree2 = new HashTree<>(HashTreeTest::encode);
+        for (int i = 0; i < 100; i++) {
+            tree1.update("key" + i, null, value(1));
+        }
+        for (int i = 99; i >= 0; i--) {
+            tree2.update("key" + i, null, value(1));
+        }
+        assertEquals(tree1.hash(HashTree.ROOT), tree2.hash(HashTree.ROOT));
+
+        tree1.update("key5", value(1), value(2));
+        assertNotEquals(tree1.hash(HashTree.ROOT), tree2.hash(HashTree.ROOT));
+        tree2.update("key5", value(1), value(2));
+        assertEquals(tree1.hash(HashTree.ROOT), tree2.hash(HashTree.ROOT));
+    }
+
+    @Test
+    public void testRemove() {
+        HashTree<String> tree = new HashTree<>(HashTreeTest::encode);
+        tree.update("key1", null, value(1));
+        long hash = tree.hash(HashTree.ROOT);
+
+        tree.update("key2", null, value(1));
+        tree.update("key2", value(1), MapValue.tombstone(new LogicalTimestamp(2)));
+        assertNotEquals(hash, tree.hash(HashTree.ROOT));
+        assertEquals(ImmutableSet.of("key1", "key2"), allKeys(tree));
+
+        tree.update("key2", MapValue.tombstone(new LogicalTimestamp(2)), null);
+        assertEquals(hash, tree.hash(HashTree.ROOT));
+        assertEquals(ImmutableSet.of("key1"), allKeys(tree));
+
+        tree.update("key1", value(1), null);
+        assertEquals(0, tree.hash(HashTree.ROOT));
+    }
+
+    /*
+     * Runs the descent performed by two replicas which differ in a single
+     * entry and checks that only a small fraction of the digests needed by
+     * a full advertisement is exchanged.
+     */
+    @Test
+    public void testDescent() {
+        HashTree<String> local = new HashTree<>(HashTreeTest::encode);
+        HashTree<String> remote = new HashTree<>(HashTreeTest::encode);
+        for (int i = 0; i < ENTRIES; i++) {
+            local.update("key" + i, null, value(1));
+            remote.update("key" + i, null, value(1));
+        }
+        Map<Integer, Long> nodes = local.children(ImmutableList.of(HashTree.ROOT));
+        assertTrue(remote.diff(nodes).isEmpty());
+
+        remote.update("key42", value(1), value(2));
+
+        int rounds = 0;
+        int hashes = 0;
+        List<Integer> differing = remote.diff(nodes);
+        while (!remote.isLeaf(differing.get(0))) {
+            rounds++;
+            hashes += nodes.size();
+            assertEquals(1, differing.size());
+            nodes = local.children(differing);
+            differing = remote.diff(nodes);
+        }
+        hashes += nodes.size();
+        assertEquals(1, differing.size());
+        assertEquals(HashTree.DEPTH - 1, rounds);
+        assertEquals(HashTree.FANOUT * HashTree.DEPTH, hashes);
+
+        Set<Integer> buckets = differing.stream().map(remote::bucket).collect(Collectors.toSet());
+        Set<String> keys = remote.keys(buckets);
+        assertTrue(keys.contains("key42"));
+        assertEquals(keys, local.keys(buckets));
+        assertTrue("too many digests exchanged: " + keys.size(), keys.size() < ENTRIES / 1000);
+    }
+
+    private static Set<String> allKeys(HashTree<String> tree) {
+        ImmutableSet.Builder<Integer> buckets = ImmutableSet.builder();
+        for (int i = 0; i < HashTree.BUCKETS; i++) {
+            buckets.add(i);
+        }
+        return tree.keys(buckets.build());
+    }
+}
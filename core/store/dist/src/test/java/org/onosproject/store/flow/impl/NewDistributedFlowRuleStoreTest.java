@@ -0,0 +1,263 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.junit.TestUtils;
+import org.onlab.util.Tools;
+import org.onosproject.cluster.NodeId;
+import org.onosproject.mastership.MastershipServiceAdapter;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.DefaultFlowEntry;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapter;
+import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.flow.ReplicaInfo;
+import org.onosproject.store.flow.ReplicaInfoEventListener;
+import org.onosproject.store.flow.ReplicaInfoService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.NetTestTools.APP_ID;
+import static org.onosproject.net.NetTestTools.did;
+
+/**
+ * Tests of the flow table backups of the distributed flow rule store.
+ */
+public class NewDistributedFlowRuleStoreTest {
+
+    private static final DeviceId DID = did("1");
+    private static final NodeId MASTER = new NodeId("master");
+    private static final NodeId BACKUP = new NodeId("backup");
+
+    private NewDistributedFlowRuleStore master;
+    private NewDistributedFlowRuleStore backup;
+    private TestClusterCommunicator communicator;
+
+    @Before
+    public void setUp() throws TestUtils.TestUtilsException {
+        communicator = new TestClusterCommunicator();
+        master = createStore(MASTER);
+        backup = createStore(BACKUP);
+    }
+
+    private NewDistributedFlowRuleStore createStore(NodeId local) throws TestUtils.TestUtilsException {
+        NewDistributedFlowRuleStore store = new NewDistributedFlowRuleStore();
+        TestUtils.setField(store, "local", local);
+        store.clusterCommunicator = communicator;
+        store.mastershipService = new TestMastershipService();
+        store.replicaInfoManager = new TestReplicaInfoService();
+        return store;
+    }
+
+    /**
+     * Tests that the first backup carries the whole flow table and later
+     * ones only the changes.
+     */
+    @Test
+    public void fullThenDeltaBackups() throws TestUtils.TestUtilsException {
+        add(master, flowEntry(1));
+        add(master, flowEntry(2));
+        runBackup();
+
+        FlowTableBackup full = communicator.lastBackup();
+        assertTrue("first backup should be full", full.isFull());
+        assertEquals("incorrect full backup size", 2, full.flowEntries().size());
+        assertEquals("incorrect backup size", 2, flowEntries(backup).size());
+
+        // nothing changed, so nothing to send
+        runBackup();
+        assertEquals("no backup expected", 1, communicator.backups.size());
+
+        add(master, flowEntry(3));
+        runBackup();
+
+        FlowTableBackup delta = communicator.lastBackup();
+        assertFalse("second backup should be incremental", delta.isFull());
+        assertEquals("incorrect base version", full.version(), delta.baseVersion());
+        assertEquals("incorrect delta backup size", 1, delta.flowEntries().size());
+        assertEquals("incorrect backup size", 3, flowEntries(backup).size());
+    }
+
+    /**
+     * Tests that a backup node which lost track of the backups it received
+     * causes the master to fall back to a full backup.
+     */
+    @Test
+    public void versionMismatchResetsBackup() throws TestUtils.TestUtilsException {
+        add(master, flowEntry(1));
+        runBackup();
+        assertTrue("first backup should be full", communicator.lastBackup().isFull());
+
+        // the backup node restarts, so the next delta does not line up
+        backup = createStore(BACKUP);
+        add(master, flowEntry(2));
+        runBackup();
+        assertFalse("second backup should be incremental", communicator.lastBackup().isFull());
+        assertEquals("delta should not be applied", 0, flowEntries(backup).size());
+
+        // so the master resyncs in full
+        runBackup();
+        FlowTableBackup resync = communicator.lastBackup();
+        assertTrue("backup should be full after mismatch", resync.isFull());
+        assertEquals("incorrect full backup size", 2, resync.flowEntries().size());
+        assertEquals("incorrect backup size", 2, flowEntries(backup).size());
+    }
+
+    /**
+     * Tests that a lost incremental backup causes the master to fall back
+     * to a full backup.
+     */
+    @Test
+    public void failedBackupResetsBackup() throws TestUtils.TestUtilsException {
+        add(master, flowEntry(1));
+        runBackup();
+
+        communicator.dropping = true;
+        add(master, flowEntry(2));
+        runBackup();
+        assertFalse("second backup should be incremental", communicator.lastBackup().isFull());
+
+        communicator.dropping = false;
+        runBackup();
+        FlowTableBackup resync = communicator.lastBackup();
+        assertTrue("backup should be full after failure", resync.isFull());
+        assertEquals("incorrect backup size", 2, flowEntries(backup).size());
+    }
+
+    /**
+     * Tests that a backup failing before it is on the wire does not leave
+     * the device stuck in flight.
+     */
+    @Test
+    public void synchronousFailureReleasesDevice() throws TestUtils.TestUtilsException {
+        add(master, flowEntry(1));
+        communicator.failing = true;
+        runBackup();
+        assertEquals("no backup expected", 0, communicator.backups.size());
+
+        communicator.failing = false;
+        runBackup();
+        assertEquals("backup expected", 1, communicator.backups.size());
+        assertTrue("backup should be full", communicator.lastBackup().isFull());
+        assertEquals("incorrect backup size", 1, flowEntries(backup).size());
+    }
+
+    private static FlowEntry flowEntry(int priority) {
+        return new DefaultFlowEntry(DefaultFlowRule.builder()
+                                            .forDevice(DID)
+                                            .withSelector(DefaultTrafficSelector.emptySelector())
+                                            .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+                                            .withPriority(priority)
+                                            .fromApp(APP_ID)
+                                            .makePermanent()
+                                            .build());
+    }
+
+    private static void add(NewDistributedFlowRuleStore store, FlowEntry entry)
+            throws TestUtils.TestUtilsException {
+        Object flowTable = TestUtils.getField(store, "flowTable");
+        TestUtils.callMethod(flowTable, "add", FlowEntry.class, entry);
+    }
+
+    private static Set<FlowEntry> flowEntries(NewDistributedFlowRuleStore store)
+            throws TestUtils.TestUtilsException {
+        Object flowTable = TestUtils.getField(store, "flowTable");
+        return TestUtils.callMethod(flowTable, "getFlowEntries", DeviceId.class, DID);
+    }
+
+    private void runBackup() throws TestUtils.TestUtilsException {
+        Object flowTable = TestUtils.getField(master, "flowTable");
+        TestUtils.callMethod(flowTable, "backup", new Class<?>[]{});
+    }
+
+    /**
+     * Cluster communicator delivering flow table backups to the backup store.
+     */
+    private class TestClusterCommunicator extends ClusterCommunicationServiceAdapter {
+        final List<FlowTableBackup> backups = Lists.newArrayList();
+        boolean dropping;
+        boolean failing;
+
+        FlowTableBackup lastBackup() {
+            return backups.get(backups.size() - 1);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <M, R> CompletableFuture<R> sendAndReceive(M message, MessageSubject subject,
+                                                          Function<M, byte[]> encoder,
+                                                          Function<byte[], R> decoder,
+                                                          NodeId toNodeId) {
+            if (failing) {
+                throw new IllegalStateException("not connected");
+            }
+            Map<DeviceId, FlowTableBackup> tables = (Map<DeviceId, FlowTableBackup>) message;
+            backups.add(tables.get(DID));
+            if (dropping) {
+                return Tools.exceptionalFuture(new IllegalStateException("timeout"));
+            }
+            try {
+                Object flowTable = TestUtils.getField(backup, "flowTable");
+                return CompletableFuture.completedFuture(
+                        TestUtils.callMethod(flowTable, "onBackupReceipt", Map.class, tables));
+            } catch (TestUtils.TestUtilsException e) {
+                return Tools.exceptionalFuture(e);
+            }
+        }
+    }
+
+    private static class TestMastershipService extends MastershipServiceAdapter {
+        @Override
+        public NodeId getMasterFor(DeviceId deviceId) {
+            return MASTER;
+        }
+
+        @Override
+        public Set<DeviceId> getDevicesOf(NodeId nodeId) {
+            return nodeId.equals(MASTER) ? ImmutableSet.of(DID) : ImmutableSet.of();
+        }
+    }
+
+    private static class TestReplicaInfoService implements ReplicaInfoService {
+        @Override
+        public ReplicaInfo getReplicaInfoFor(DeviceId deviceId) {
+            return new ReplicaInfo(MASTER, ImmutableList.of(BACKUP));
+        }
+
+        @Override
+        public void addListener(ReplicaInfoEventListener listener) {
+        }
+
+        @Override
+        public void removeListener(ReplicaInfoEventListener listener) {
+        }
+    }
+}
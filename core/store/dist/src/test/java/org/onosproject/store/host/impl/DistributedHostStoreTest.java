@@ -21,9 +21,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.MacAddress;
+import org.onlab.packet.VlanId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.DeviceId;
 import org.onosproject.net.Host;
 import org.onosproject.net.HostId;
 import org.onosproject.net.HostLocation;
+import org.onosproject.net.PortNumber;
 import org.onosproject.net.host.DefaultHostDescription;
 import org.onosproject.net.host.HostDescription;
 import org.onosproject.net.provider.ProviderId;
@@ -46,6 +50,11 @@ public class DistributedHostStoreTest extends TestCase {
 
     private static final ProviderId PID = new ProviderId("of", "foo");
 
+    private static final DeviceId DID1 = DeviceId.deviceId("of:1");
+    private static final DeviceId DID2 = DeviceId.deviceId("of:2");
+    private static final HostLocation LOC1 = new HostLocation(DID1, PortNumber.portNumber(1), 0);
+    private static final HostLocation LOC2 = new HostLocation(DID2, PortNumber.portNumber(2), 0);
+
     @Before
     public void setUp() {
         ecXHostStore = new DistributedHostStore();
@@ -80,4 +89,70 @@ public class DistributedHostStoreTest extends TestCase {
         assertTrue(host.ipAddresses().contains(IP2));
     }
 
-}
\ No newline at end of file
+    /**
+     * Tests that the lookups by host attributes follow host updates.
+     */
+    @Test
+    public void testHostLookups() {
+        Set<IpAddress> ips = new HashSet<>();
+        ips.add(IP1);
+        ips.add(IP2);
+
+        ecXHostStore.createOrUpdateHost(PID, HOSTID,
+                new DefaultHostDescription(HOSTID.mac(), HOSTID.vlanId(), LOC1, ips), false);
+        Host host = ecXHostStore.getHost(HOSTID);
+
+        assertEquals(1, ecXHostStore.getHosts(HOSTID.mac()).size());
+        assertTrue(ecXHostStore.getHosts(HOSTID.vlanId()).contains(host));
+        assertTrue(ecXHostStore.getHosts(IP1).contains(host));
+        assertTrue(ecXHostStore.getHosts(IP2).contains(host));
+        assertTrue(ecXHostStore.getConnectedHosts(new ConnectPoint(DID1, PortNumber.portNumber(1))).contains(host));
+        assertTrue(ecXHostStore.getConnectedHosts(DID1).contains(host));
+        assertTrue(ecXHostStore.getHosts(VlanId.vlanId((short) 10)).isEmpty());
+
+        // Move the host and drop one of its addresses
+        ecXHostStore.createOrUpdateHost(PID, HOSTID,
+                new DefaultHostDescription(HOSTID.mac(), HOSTID.vlanId(), LOC2, IP2), true);
+        host = ecXHostStore.getHost(HOSTID);
+
+        assertTrue(ecXHostStore.getHosts(IP1).isEmpty());
+        assertTrue(ecXHostStore.getHosts(IP2).contains(host));
+        assertTrue(ecXHostStore.getConnectedHosts(LOC1).isEmpty());
+        assertTrue(ecXHostStore.getConnectedHosts(DID1).isEmpty());
+        assertTrue(ecXHostStore.getConnectedHosts(LOC2).contains(host));
+        assertTrue(ecXHostStore.getConnectedHosts(DID2).contains(host));
+        assertEquals(1, ecXHostStore.getHosts(HOSTID.mac()).size());
+    }
+
+    /**
+     * Tests that the lookups reflect the removal of addresses and hosts.
+     */
+    @Test
+    public void testHostLookupsAfterRemoval() {
+        Set<IpAddress> ips = new HashSet<>();
+        ips.add(IP1);
+        ips.add(IP2);
+
+        ecXHostStore.createOrUpdateHost(PID, HOSTID,
+                new DefaultHostDescription(HOSTID.mac(), HOSTID.vlanId(), LOC1, ips), false);
+        ecXHostStore.removeIp(HOSTID, IP1);
+        Host host = ecXHostStore.getHost(HOSTID);
+
+        assertTrue(ecXHostStore.getHosts(IP1).isEmpty());
+        assertTrue(ecXHostStore.getHosts(IP2).contains(host));
+
+        ecXHostStore.removeHost(HOSTID);
+
+        assertTrue(ecXHostStore.getHosts(HOSTID.mac()).isEmpty());
+        assertTrue(ecXHostStore.getHosts(IP2).isEmpty());
+        assertTrue(ecXHostStore.getConnectedHosts(LOC1).isEmpty());
+        assertTrue(ecXHostStore.getConnectedHosts(DID1).isEmpty());
+
+        // Add it back
+        ecXHostStore.createOrUpdateHost(PID, HOSTID,
+                new DefaultHostDescription(HOSTID.mac(), HOSTID.vlanId(), LOC2, ips), false);
+        host = ecXHostStore.getHost(HOSTID);
+        assertTrue(ecXHostStore.getHosts(IP1).contains(host));
+        assertTrue(ecXHostStore.getConnectedHosts(DID2).contains(host));
+    }
+}
@@ -17,6 +17,8 @@ package org.onosproject.store.intent.impl;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import org.junit.After;
@@ -31,7 +33,13 @@ import org.onosproject.net.intent.IntentState;
 import org.onosproject.net.intent.IntentTestsMocks;
 import org.onosproject.net.intent.MockIdGenerator;
 import org.onosproject.net.intent.IntentPartitionServiceAdapter;
+import org.onosproject.net.intent.Key;
 import org.onosproject.store.service.TestStorageService;
+import org.onosproject.store.service.WallClockTimestamp;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
@@ -45,6 +53,7 @@ import static org.onosproject.net.NetTestTools.hid;
 public class GossipIntentStoreTest {
 
     private GossipIntentStore intentStore;
+    private TestPartitionService partitionService;
     private IdGenerator idGenerator;
     private HostToHostIntent.Builder builder1;
 
@@ -52,7 +61,8 @@ public class GossipIntentStoreTest {
     public void setUp() {
         intentStore = new GossipIntentStore();
         intentStore.storageService = new TestStorageService();
-        intentStore.partitionService = new IntentPartitionServiceAdapter();
+        partitionService = new TestPartitionService();
+        intentStore.partitionService = partitionService;
         intentStore.clusterService = new ClusterServiceAdapter();
         idGenerator = new MockIdGenerator();
         Intent.bindIdGenerator(idGenerator);
@@ -231,4 +241,81 @@ public class GossipIntentStoreTest {
                 data -> assertThat(data, is(installed))
         );
     }
+
+    /**
+     * Tests that time constrained queries of local intents follow the data
+     * versions and the partition ownership.
+     */
+    @Test
+    public void testLocalQueriesOlderThan() {
+        long now = System.currentTimeMillis();
+        List<IntentData> old = Lists.newArrayList();
+        List<IntentData> recent = Lists.newArrayList();
+        IntStream.rangeClosed(1, 10).forEach(i -> {
+            old.add(new IntentData(builder1.priority(i).build(), IntentState.INSTALLED,
+                                   new WallClockTimestamp(now - 60_000)));
+            recent.add(new IntentData(builder1.priority(i).build(), IntentState.INSTALLED,
+                                      new WallClockTimestamp(now)));
+        });
+        old.forEach(intentStore::write);
+        recent.forEach(intentStore::write);
+        old.forEach(intentStore::addPending);
+
+        assertThat(keys(intentStore.getIntentData(false, 10_000)), is(keys(old)));
+        assertThat(keys(intentStore.getPendingData(false, 10_000)), is(keys(old)));
+
+        // only the intents of owned partitions are local
+        partitionService.owned = 1;
+        Set<Key> expected = keys(old).stream()
+                .filter(key -> partitionService.getPartition(key) == 1)
+                .collect(Collectors.toSet());
+        assertThat(keys(intentStore.getIntentData(true, 10_000)), is(expected));
+        assertThat(keys(intentStore.getPendingData(true, 10_000)), is(expected));
+
+        // ownership moves to the other partition
+        partitionService.owned = 0;
+        assertThat(keys(intentStore.getIntentData(true, 10_000)),
+                   is(Sets.difference(keys(old), expected)));
+
+        // newer versions leave the result
+        IntentData first = old.get(0);
+        intentStore.write(new IntentData(first.intent(), IntentState.INSTALLED,
+                                         new WallClockTimestamp(now)));
+        assertThat(keys(intentStore.getIntentData(false, 10_000)),
+                   is(Sets.difference(keys(old), ImmutableSet.of(first.key()))));
+    }
+
+    private static Set<Key> keys(Iterable<IntentData> data) {
+        Set<Key> keys = Sets.newHashSet();
+        data.forEach(d -> keys.add(d.key()));
+        return keys;
+    }
+
+    /**
+     * Partition service splitting the keyspace in two, only one of which is
+     * owned by the local instance.
+     */
+    private static class TestPartitionService extends IntentPartitionServiceAdapter {
+        private int owned = -1;
+
+        @Override
+        public boolean isMine(Key intentKey) {
+            return isMine(getPartition(intentKey));
+        }
+
+        @Override
+        public int getPartitionCount() {
+            return 2;
+        }
+
+        @Override
+        public int getPartition(Key intentKey) {
+            return (int) (intentKey.hash() & 1);
+        }
+
+        @Override
+        public boolean isMine(int partition) {
+            return owned < 0 || partition == owned;
+        }
+    }
 }
@@ -32,14 +32,21 @@ public class DefaultPersistentMapBuilder<K, V> implements PersistentMapBuilder<K
 
     private final DB localDB;
 
+    private final WriteBehindFlusher flusher;
+
     private String name = null;
 
     private Serializer serializer = null;
 
 
     public DefaultPersistentMapBuilder(DB localDB) {
+        this(localDB, null);
+    }
+
+    DefaultPersistentMapBuilder(DB localDB, WriteBehindFlusher flusher) {
         checkNotNull(localDB, "The local database cannot be null.");
         this.localDB = localDB;
+        this.flusher = flusher;
     }
 
     public PersistentMapBuilder<K, V> withName(String name) {
@@ -58,6 +65,6 @@ public class DefaultPersistentMapBuilder<K, V> implements PersistentMapBuilder<K
         checkNotNull(name, "The name must be assigned.");
         checkNotNull(serializer, "The key serializer must be assigned.");
 
-        return new PersistentMap<K, V>(serializer, localDB, name);
+        return new PersistentMap<K, V>(serializer, localDB, name, flusher);
     }
 }
\ No newline at end of file
@@ -30,12 +30,19 @@ public class DefaultPersistentSetBuilder<E> implements PersistentSetBuilder<E> {
 
     private final DB localDB;
 
+    private final WriteBehindFlusher flusher;
+
     private String name = null;
 
     private Serializer serializer = null;
 
     public DefaultPersistentSetBuilder(DB localDB) {
+        this(localDB, null);
+    }
+
+    DefaultPersistentSetBuilder(DB localDB, WriteBehindFlusher flusher) {
         this.localDB = checkNotNull(localDB, "The local database cannot be null.");
+        this.flusher = flusher;
     }
 
     public PersistentSetBuilder<E> withName(String name) {
@@ -54,6 +61,6 @@ public class DefaultPersistentSetBuilder<E> implements PersistentSetBuilder<E> {
         checkNotNull(name, "The name must be assigned.");
         checkNotNull(serializer, "The serializer must be assigned.");
 
-        return new PersistentSet<E>(serializer, localDB, name);
+        return new PersistentSet<E>(serializer, localDB, name, flusher);
     }
 }
\ No newline at end of file
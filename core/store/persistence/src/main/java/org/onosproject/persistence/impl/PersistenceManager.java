@@ -16,35 +16,49 @@
 
 package org.onosproject.persistence.impl;
 
+import com.codahale.metrics.Gauge;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.ReferenceCardinality;
+import org.apache.felix.scr.annotations.ReferencePolicy;
 import org.apache.felix.scr.annotations.Service;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onosproject.cfg.ComponentConfigService;
+import org.onosproject.core.MetricsHelper;
 import org.onosproject.persistence.PersistenceService;
 import org.onosproject.persistence.PersistentMapBuilder;
 import org.onosproject.persistence.PersistentSetBuilder;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Dictionary;
 import java.util.Map;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
 
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static org.onlab.util.Tools.get;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * Service that maintains local disk backed maps and sets.  This implementation automatically deletes empty structures
- * on shutdown.
+ * on shutdown.  Mutations of the maps and sets are buffered and written behind into the database, which is then
+ * committed once per flush.
  */
 @Component(immediate = true)
 @Service
-public class PersistenceManager implements PersistenceService {
+public class PersistenceManager implements PersistenceService, MetricsHelper {
 
     private static final String DATABASE_PATH = "../data/localDB";
     private static final String ENCLOSING_FOLDER = "../data";
@@ -55,17 +69,45 @@ public class PersistenceManager implements PersistenceService {
 
     private final Logger log = getLogger(getClass());
 
+    private static final String METRICS_COMPONENT = "Persistence";
+    private static final String METRICS_FEATURE = "writeBehind";
+
+    private static final int DEFAULT_MAX_FLUSH_DELAY_MILLIS = 3000;
+    private static final int DEFAULT_MAX_PENDING_WRITES = 10000;
+
+    @Property(name = "maxFlushDelayMillis", intValue = DEFAULT_MAX_FLUSH_DELAY_MILLIS,
+            label = "Maximum delay in millis before buffered writes are committed to disk")
+    private int maxFlushDelayMillis = DEFAULT_MAX_FLUSH_DELAY_MILLIS;
+
+    @Property(name = "maxPendingWrites", intValue = DEFAULT_MAX_PENDING_WRITES,
+            label = "Number of buffered keys awaiting a flush which triggers an early commit")
+    private int maxPendingWrites = DEFAULT_MAX_PENDING_WRITES;
+
+    // Optional, as the configuration service depends on the database which
+    // itself depends on this service
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY, policy = ReferencePolicy.DYNAMIC)
+    protected ComponentConfigService cfgService;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
     private DB localDB = null;
 
-    private static final int FLUSH_FREQUENCY_MILLIS = 3000;
+    private WriteBehindFlusher flusher;
 
-    private Timer timer;
+    protected void bindCfgService(ComponentConfigService service) {
+        cfgService = service;
+        cfgService.registerProperties(getClass());
+    }
 
-    private final CommitTask commitTask = new CommitTask();
+    protected void unbindCfgService(ComponentConfigService service) {
+        if (cfgService == service) {
+            cfgService = null;
+        }
+    }
 
     @Activate
-    public void activate() {
-        timer = new Timer();
+    public void activate(ComponentContext context) {
         Path dbPath = Paths.get(DATABASE_PATH);
         Path dbFolderPath = Paths.get(ENCLOSING_FOLDER);
         //Make sure the directory exists, if it does not, make it.
@@ -90,13 +132,25 @@ public class PersistenceManager implements PersistenceService {
                 .asyncWriteEnable()
                 .closeOnJvmShutdown()
                 .make();
-        timer.schedule(commitTask, FLUSH_FREQUENCY_MILLIS, FLUSH_FREQUENCY_MILLIS);
+        flusher = new WriteBehindFlusher(localDB, createTimer(METRICS_COMPONENT, METRICS_FEATURE, "flushTime"),
+                                         maxFlushDelayMillis, maxPendingWrites);
+        MetricsComponent c = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature f = c.registerFeature(METRICS_FEATURE);
+        metricsService.registerMetric(c, f, "queueDepth", (Gauge<Integer>) flusher::queueDepth);
+        modified(context);
         log.info("Started");
     }
 
     @Deactivate
     public void deactivate() {
-        timer.cancel();
+        if (cfgService != null) {
+            cfgService.unregisterProperties(getClass(), false);
+        }
+        flusher.shutdown();
+        MetricsComponent c = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature f = c.registerFeature(METRICS_FEATURE);
+        metricsService.removeMetric(c, f, "queueDepth");
+        metricsService.removeMetric(c, f, "flushTime");
         for (Map.Entry<String, Object> entry : localDB.getAll().entrySet()) {
             String key = entry.getKey();
             Object value = entry.getValue();
@@ -121,19 +175,52 @@ public class PersistenceManager implements PersistenceService {
         log.info("Stopped");
     }
 
-    public <K, V> PersistentMapBuilder<K, V> persistentMapBuilder() {
-        return new DefaultPersistentMapBuilder<>(localDB);
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+
+        Dictionary<?, ?> properties = context.getProperties();
+        int newMaxFlushDelayMillis;
+        int newMaxPendingWrites;
+        try {
+            String s = get(properties, "maxFlushDelayMillis");
+            newMaxFlushDelayMillis = isNullOrEmpty(s) ? maxFlushDelayMillis : Integer.parseInt(s.trim());
+
+            s = get(properties, "maxPendingWrites");
+            newMaxPendingWrites = isNullOrEmpty(s) ? maxPendingWrites : Integer.parseInt(s.trim());
+        } catch (NumberFormatException | ClassCastException e) {
+            newMaxFlushDelayMillis = DEFAULT_MAX_FLUSH_DELAY_MILLIS;
+            newMaxPendingWrites = DEFAULT_MAX_PENDING_WRITES;
+        }
+
+        if (newMaxFlushDelayMillis <= 0 || newMaxPendingWrites <= 0) {
+            log.warn("Invalid write-behind settings {} ms, {} writes; keeping {} ms, {} writes",
+                     newMaxFlushDelayMillis, newMaxPendingWrites, maxFlushDelayMillis, maxPendingWrites);
+            return;
+        }
+        if (newMaxFlushDelayMillis != maxFlushDelayMillis) {
+            maxFlushDelayMillis = newMaxFlushDelayMillis;
+            flusher.setMaxFlushDelay(maxFlushDelayMillis);
+        }
+        if (newMaxPendingWrites != maxPendingWrites) {
+            maxPendingWrites = newMaxPendingWrites;
+            flusher.setMaxPendingWrites(maxPendingWrites);
+        }
+        log.info("Settings: maxFlushDelayMillis={}, maxPendingWrites={}", maxFlushDelayMillis, maxPendingWrites);
     }
 
-    public <E> PersistentSetBuilder<E> persistentSetBuilder() {
-        return new DefaultPersistentSetBuilder<>(localDB);
+    @Override
+    public MetricsService metricsService() {
+        return metricsService;
     }
 
-    private class CommitTask extends TimerTask {
+    public <K, V> PersistentMapBuilder<K, V> persistentMapBuilder() {
+        return new DefaultPersistentMapBuilder<>(localDB, flusher);
+    }
 
-        @Override
-        public void run() {
-            localDB.commit();
-        }
+    public <E> PersistentSetBuilder<E> persistentSetBuilder() {
+        return new DefaultPersistentSetBuilder<>(localDB, flusher);
     }
 }
\ No newline at end of file
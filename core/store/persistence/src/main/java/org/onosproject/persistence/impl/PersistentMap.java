@@ -23,16 +23,29 @@ import org.mapdb.Hasher;
 import org.onosproject.store.service.Serializer;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 
 /**
  * A map implementation that stores and receives all data from a serialized internal map.
+ * <p>
+ * If created with a write-behind flusher, mutations are buffered in memory,
+ * collapsed per key, and only serialized into the internal map when flushed.
+ * Buffered values are held as they were passed in, so that reads return them
+ * as they are and a flush writes their state at the time of the flush; such
+ * values should only be changed in place from within {@link #compute}, which
+ * is serialized per key with the flush. Reads are served from the buffer
+ * overlaid on the internal map, without flushing it first.
+ * </p>
  */
-public class PersistentMap<K, V> implements Map<K, V> {
+public class PersistentMap<K, V> implements Map<K, V>, WriteBehindFlusher.Buffered {
 
     private final Serializer serializer;
 
@@ -42,10 +55,19 @@ public class PersistentMap<K, V> implements Map<K, V> {
 
     private final String name;
 
+    private final WriteBehindFlusher flusher;
+
+    private final ConcurrentMap<Object, Mutation<V>> mutations = Maps.newConcurrentMap();
+
     public PersistentMap(Serializer serializer, DB database, String name) {
+        this(serializer, database, name, null);
+    }
+
+    PersistentMap(Serializer serializer, DB database, String name, WriteBehindFlusher flusher) {
         this.serializer = checkNotNull(serializer);
         this.database = checkNotNull(database);
         this.name = checkNotNull(name);
+        this.flusher = flusher;
 
         items = database
                 .createHashMap(name)
@@ -53,71 +75,127 @@ public class PersistentMap<K, V> implements Map<K, V> {
                 .valueSerializer(org.mapdb.Serializer.BYTE_ARRAY)
                 .hasher(Hasher.BYTE_ARRAY)
                 .makeOrGet();
+        if (flusher != null) {
+            flusher.register(this);
+        }
+    }
+
+    @Override
+    public synchronized int flush() {
+        int[] count = {0};
+        try {
+            for (Object key : mutations.keySet()) {
+                // Serialized under the lock of the key, so that no read-modify-write
+                // of the key interleaves with it
+                mutations.computeIfPresent(key, (k, mutation) -> {
+                    byte[] keyBytes = mutation.keyBytes != null ? mutation.keyBytes : serializer.encode(k);
+                    if (mutation.value == null) {
+                        items.remove(keyBytes);
+                    } else {
+                        items.put(keyBytes, serializer.encode(mutation.value));
+                    }
+                    count[0]++;
+                    return null;
+                });
+            }
+        } finally {
+            flusher.flushed(count[0]);
+        }
+        return count[0];
+    }
+
+    // Buffers the mutation of a key; a null value stands for its removal
+    private void buffer(Object key, V value) {
+        if (mutations.put(key, new Mutation<>(null, value)) == null) {
+            flusher.queued();
+        }
     }
 
     /**
-     * Reads this set in deserialized form into the provided map.
+     * Reads this map in deserialized form into the provided map.
      *
      * @param items the map to be populated
      */
+    @SuppressWarnings("unchecked")
     public void readInto(Map<K, V> items) {
+        // Taken ahead of the internal map, so that keys flushed meanwhile are not missed
+        Map<Object, Mutation<V>> overlay = new HashMap<>(mutations);
         this.items.forEach((keyBytes, valueBytes) ->
                                    items.put(serializer.decode(keyBytes),
                                              serializer.decode(valueBytes)));
+        overlay.forEach((key, mutation) -> {
+            if (mutation.value == null) {
+                items.remove(key);
+            } else {
+                items.put((K) key, mutation.value);
+            }
+        });
+    }
+
+    // Returns a deserialized copy of this map
+    private Map<K, V> contents() {
+        Map<K, V> contents = new HashMap<>();
+        readInto(contents);
+        return contents;
     }
 
     @Override
     public V remove(Object key) {
         checkNotNull(key, "Key can not be null.");
         V removed = get(key);
-        items.remove(serializer.encode(key));
+        if (flusher != null) {
+            // Keys which are not present need no tombstone
+            if (removed != null) {
+                buffer(key, null);
+            }
+        } else {
+            items.remove(serializer.encode(key));
+        }
         return removed;
     }
 
     @Override
     public int size() {
-        return items.size();
+        int size = items.size();
+        for (Entry<Object, Mutation<V>> entry : mutations.entrySet()) {
+            boolean persisted = items.containsKey(serializer.encode(entry.getKey()));
+            if (entry.getValue().value == null) {
+                size -= persisted ? 1 : 0;
+            } else {
+                size += persisted ? 0 : 1;
+            }
+        }
+        return size;
     }
 
     @Override
     public boolean isEmpty() {
-        return items.isEmpty();
+        return size() == 0;
     }
 
     @Override
     public boolean containsKey(Object key) {
         checkNotNull(key, "Key cannot be null.");
+        Mutation<V> mutation = mutations.get(key);
+        if (mutation != null) {
+            return mutation.value != null;
+        }
         return items.containsKey(serializer.encode(key));
     }
 
     @Override
     public boolean containsValue(Object value) {
         checkNotNull(value, "Value cannot be null.");
-        byte[] serialized = serializer.encode(value);
-        for (byte[] compareValue : items.values()) {
-            boolean same = true;
-            if (compareValue == null) {
-                same = false;
-            } else if (compareValue.length != serialized.length) {
-                same = false;
-            } else {
-                for (int i = 0; i < serialized.length; i++) {
-                    if (serialized[i] != compareValue[i]) {
-                        same = false;
-                        break;
-                    }
-                }
-            }
-            if (same) {
-                return true;
-            }
-        }
-        return false;
+        return contents().containsValue(value);
     }
 
     @Override
     public V get(Object key) {
         checkNotNull(key, "Key cannot be null.");
+        Mutation<V> mutation = mutations.get(key);
+        if (mutation != null) {
+            return mutation.value;
+        }
         return serializer.decode(items.get(serializer.encode(key)));
     }
 
@@ -125,6 +203,11 @@ public class PersistentMap<K, V> implements Map<K, V> {
     public V put(K key, V value) {
         checkNotNull(key, "Key cannot be null.");
         checkNotNull(value, "Value cannot be null.");
+        if (flusher != null) {
+            V prevVal = get(key);
+            buffer(key, value);
+            return prevVal;
+        }
         byte[] prevVal = items.put(serializer.encode(key), serializer.encode(value));
         if (prevVal == null) {
             return null;
@@ -132,37 +215,97 @@ public class PersistentMap<K, V> implements Map<K, V> {
         return serializer.decode(prevVal);
     }
 
+    /**
+     * Associates the specified value with the specified key, like
+     * {@link #put} but without reading back the value it replaces.
+     *
+     * @param key   key
+     * @param value value
+     */
+    public void set(K key, V value) {
+        checkNotNull(key, "Key cannot be null.");
+        checkNotNull(value, "Value cannot be null.");
+        if (flusher != null) {
+            buffer(key, value);
+        } else {
+            items.put(serializer.encode(key), serializer.encode(value));
+        }
+    }
+
     @Override
     public void putAll(Map<? extends K, ? extends V> m) {
         checkNotNull(m, "The passed in map cannot be null.");
-        m.forEach((k, v) -> items.put(serializer.encode(k), serializer.encode(v)));
+        m.forEach(this::set);
     }
 
     @Override
-    public void clear() {
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        checkNotNull(key, "Key cannot be null.");
+        if (flusher == null) {
+            return Map.super.compute(key, remappingFunction);
+        }
+        boolean[] queued = {false};
+        Mutation<V> computed = mutations.compute(key, (k, mutation) -> {
+            byte[] keyBytes = mutation != null ? mutation.keyBytes : serializer.encode(k);
+            V value = mutation != null ? mutation.value : serializer.decode(items.get(keyBytes));
+            V newValue = remappingFunction.apply(key, value);
+            if (newValue == null && value == null) {
+                // Keys which are not present need no tombstone
+                return mutation;
+            }
+            queued[0] = mutation == null;
+            return new Mutation<>(keyBytes, newValue);
+        });
+        if (queued[0]) {
+            flusher.queued();
+        }
+        return computed == null ? null : computed.value;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        checkNotNull(key, "Key cannot be null.");
+        V value = get(key);
+        if (value == null) {
+            if (flusher != null) {
+                return compute(key, (k, v) -> v != null ? v : mappingFunction.apply(k));
+            }
+            value = mappingFunction.apply(key);
+            if (value != null) {
+                items.put(serializer.encode(key), serializer.encode(value));
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public synchronized void clear() {
+        int count = 0;
+        for (Object key : mutations.keySet()) {
+            if (mutations.remove(key) != null) {
+                count++;
+            }
+        }
+        if (flusher != null) {
+            flusher.flushed(count);
+        }
         items.clear();
     }
 
     @Override
     public Set<K> keySet() {
-        Set<K> keys = Sets.newHashSet();
-        items.keySet().forEach(k -> keys.add(serializer.decode(k)));
-        return keys;
+        return Sets.newHashSet(contents().keySet());
     }
 
     @Override
     public Collection<V> values() {
-        Collection<V> values = Sets.newHashSet();
-        items.values().forEach(v -> values.add(serializer.decode(v)));
-        return values;
+        return Sets.newHashSet(contents().values());
     }
 
     @Override
     public Set<Entry<K, V>> entrySet() {
         Set<Entry<K, V>> entries = Sets.newHashSet();
-        items.entrySet().
-                forEach(e -> entries.add(Maps.immutableEntry(serializer.decode(e.getKey()),
-                                                             serializer.decode(e.getValue()))));
+        contents().forEach((k, v) -> entries.add(Maps.immutableEntry(k, v)));
         return entries;
     }
 
@@ -189,4 +332,18 @@ public class PersistentMap<K, V> implements Map<K, V> {
     public int hashCode() {
         return super.hashCode();
     }
-}
\ No newline at end of file
+
+    /**
+     * Buffered mutation of a key; a null value stands for its removal. The
+     * key is kept in serialized form if it had to be serialized already.
+     */
+    private static final class Mutation<V> {
+        private final byte[] keyBytes;
+        private final V value;
+
+        private Mutation(byte[] keyBytes, V value) {
+            this.keyBytes = keyBytes;
+            this.value = value;
+        }
+    }
+}
@@ -17,21 +17,29 @@
 package org.onosproject.persistence.impl;
 
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
 import org.mapdb.DB;
 import org.mapdb.Hasher;
 import org.mapdb.Serializer;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * A set implementation that gets and receives all data from a serialized internal set.
+ * <p>
+ * If created with a write-behind flusher, additions and removals are buffered
+ * in memory, collapsed per item and only serialized into the internal set when
+ * flushed. Operations over the whole set flush the buffer first.
+ * </p>
  */
 //TODO add locking for reads and writes
-public class PersistentSet<E> implements Set<E> {
+public class PersistentSet<E> implements Set<E>, WriteBehindFlusher.Buffered {
 
     private final org.onosproject.store.service.Serializer serializer;
 
@@ -41,45 +49,106 @@ public class PersistentSet<E> implements Set<E> {
 
     private final String name;
 
+    private final WriteBehindFlusher flusher;
+
+    // Buffered items, mapped to true if added and false if removed
+    private final ConcurrentMap<Object, Boolean> mutations = Maps.newConcurrentMap();
+
     public PersistentSet(org.onosproject.store.service.Serializer serializer, DB database, String name) {
+        this(serializer, database, name, null);
+    }
+
+    PersistentSet(org.onosproject.store.service.Serializer serializer, DB database, String name,
+                  WriteBehindFlusher flusher) {
         this.serializer = checkNotNull(serializer);
         this.database = checkNotNull(database);
         this.name = checkNotNull(name);
+        this.flusher = flusher;
 
         items = database
                 .createHashSet(name)
                 .serializer(Serializer.BYTE_ARRAY)
                 .hasher(Hasher.BYTE_ARRAY)
                 .makeOrGet();
+        if (flusher != null) {
+            flusher.register(this);
+        }
+    }
+
+    @Override
+    public synchronized int flush() {
+        int count = 0;
+        for (Map.Entry<Object, Boolean> entry : mutations.entrySet()) {
+            byte[] item = serializer.encode(entry.getKey());
+            if (entry.getValue()) {
+                items.add(item);
+            } else {
+                items.remove(item);
+            }
+            if (mutations.remove(entry.getKey(), entry.getValue())) {
+                count++;
+            }
+        }
+        flusher.flushed(count);
+        return count;
+    }
+
+    // Flushes the buffered mutations ahead of an operation over the whole set
+    private void flushBuffer() {
+        if (flusher != null && !mutations.isEmpty()) {
+            flush();
+        }
+    }
+
+    // Buffers the addition or removal of an item, returning whether the set changed
+    private boolean buffer(Object item, boolean added) {
+        boolean changed = contains(item) != added;
+        if (!changed) {
+            // Nothing to persist, e.g. no tombstone for an absent item
+            return false;
+        }
+        if (mutations.put(item, added) == null) {
+            flusher.queued();
+        }
+        return changed;
     }
 
     public void readInto(Set<E> items) {
+        flushBuffer();
         this.items.forEach(item -> items.add(serializer.decode(item)));
     }
 
     @Override
     public int size() {
+        flushBuffer();
         return items.size();
     }
 
     @Override
     public boolean isEmpty() {
+        flushBuffer();
         return items.isEmpty();
     }
 
     @Override
     public boolean contains(Object o) {
         checkNotNull(o, "The argument cannot be null");
+        Boolean added = mutations.get(o);
+        if (added != null) {
+            return added;
+        }
         return items.contains(serializer.encode(o));
     }
 
     @Override
     public Iterator<E> iterator() {
+        flushBuffer();
         return Iterators.transform(items.iterator(), serializer::decode);
     }
 
     @Override
     public Object[] toArray() {
+        flushBuffer();
         Object[] retArray = new Object[items.size()];
         int index = 0;
         Iterator<byte[]> iterator = items.iterator();
@@ -93,6 +162,7 @@ public class PersistentSet<E> implements Set<E> {
     @Override
     public <T> T[] toArray(T[] a) {
         checkNotNull(a, "The passed in array cannot be null.");
+        flushBuffer();
         int index = 0;
         Iterator<byte[]> iterator = items.iterator();
         T[] retArray;
@@ -113,12 +183,18 @@ public class PersistentSet<E> implements Set<E> {
     @Override
     public boolean add(E item) {
         checkNotNull("Item to be added cannot be null.");
+        if (flusher != null) {
+            return buffer(item, true);
+        }
         return items.add(serializer.encode(item));
     }
 
     @Override
     public boolean remove(Object o) {
         checkNotNull(o, "Item to be removed cannot be null.");
+        if (flusher != null) {
+            return buffer(o, false);
+        }
         return items.remove(serializer.encode(o));
     }
 
@@ -126,7 +202,7 @@ public class PersistentSet<E> implements Set<E> {
     public boolean containsAll(Collection<?> c) {
         checkNotNull(c, "Collection cannot be internal.");
         for (Object item : c) {
-            if (!items.contains(serializer.encode(item))) {
+            if (!contains(item)) {
                 return false;
             }
         }
@@ -137,14 +213,15 @@ public class PersistentSet<E> implements Set<E> {
     public boolean addAll(Collection<? extends E> c) {
         checkNotNull(c, "The collection to be added cannot be null.");
         boolean changed = false;
-        for (Object item : c) {
-            changed = items.add(serializer.encode(item)) || changed;
+        for (E item : c) {
+            changed = add(item) || changed;
         }
         return changed;
     }
 
     @Override
     public boolean retainAll(Collection<?> c) {
+        flushBuffer();
         boolean changed = false;
         for (byte[] item : items) {
             E deserialized = serializer.decode(item);
@@ -159,13 +236,14 @@ public class PersistentSet<E> implements Set<E> {
     public boolean removeAll(Collection<?> c) {
         boolean changed = false;
         for (Object item : c) {
-            changed = items.remove(serializer.encode(item)) || changed;
+            changed = remove(item) || changed;
         }
         return changed;
     }
 
     @Override
     public void clear() {
+        flushBuffer();
         items.clear();
     }
 
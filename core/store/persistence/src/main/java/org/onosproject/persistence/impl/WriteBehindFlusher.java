@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.persistence.impl;
+
+import com.codahale.metrics.Timer;
+import org.mapdb.DB;
+import org.slf4j.Logger;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onlab.metrics.MetricsUtil.startTimer;
+import static org.onlab.metrics.MetricsUtil.stopTimer;
+import static org.onlab.util.Tools.groupedThreads;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Flushes the mutations buffered by the write-behind persistent maps and sets
+ * into the local database.
+ * <p>
+ * All buffered structures are flushed together and followed by a single
+ * commit of the database, at the latest a fixed delay after the previous
+ * flush. A flush is started early once the number of keys awaiting a flush
+ * reaches a limit, which bounds both the memory held by the buffers and the
+ * amount of data lost on a crash.
+ * </p>
+ */
+final class WriteBehindFlusher {
+
+    /**
+     * Structure which buffers its mutations until flushed.
+     */
+    interface Buffered {
+
+        /**
+         * Writes the buffered mutations into the database, without committing.
+         *
+         * @return number of keys written
+         */
+        int flush();
+    }
+
+    private final Logger log = getLogger(getClass());
+
+    private final DB database;
+    private final Timer flushTimer;
+    private final Set<Buffered> structures = new CopyOnWriteArraySet<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(groupedThreads("onos/persistence", "flusher"));
+
+    private ScheduledFuture<?> periodicFlush;
+    private volatile int maxPendingWrites;
+
+    /**
+     * Creates a new flusher.
+     *
+     * @param database         local database
+     * @param flushTimer       timer of the flushes; may be null
+     * @param maxFlushDelay    maximum delay in millis between flushes
+     * @param maxPendingWrites number of buffered keys which starts a flush early
+     */
+    WriteBehindFlusher(DB database, Timer flushTimer, long maxFlushDelay, int maxPendingWrites) {
+        this.database = checkNotNull(database);
+        this.flushTimer = flushTimer;
+        setMaxPendingWrites(maxPendingWrites);
+        setMaxFlushDelay(maxFlushDelay);
+    }
+
+    /**
+     * Adjusts the maximum delay between flushes.
+     *
+     * @param maxFlushDelay delay in millis
+     */
+    synchronized void setMaxFlushDelay(long maxFlushDelay) {
+        checkArgument(maxFlushDelay > 0, "Flush delay must be positive");
+        if (periodicFlush != null) {
+            periodicFlush.cancel(false);
+        }
+        periodicFlush = executor.scheduleWithFixedDelay(this::flushAll, maxFlushDelay,
+                                                        maxFlushDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adjusts the number of buffered keys which starts a flush early.
+     *
+     * @param maxPendingWrites number of buffered keys
+     */
+    void setMaxPendingWrites(int maxPendingWrites) {
+        checkArgument(maxPendingWrites > 0, "Pending write limit must be positive");
+        this.maxPendingWrites = maxPendingWrites;
+    }
+
+    /**
+     * Registers a structure whose mutations are to be flushed.
+     *
+     * @param structure buffered structure
+     */
+    void register(Buffered structure) {
+        structures.add(structure);
+    }
+
+    /**
+     * Records that a structure buffered a mutation of a key which was not
+     * awaiting a flush yet.
+     */
+    void queued() {
+        if (queueDepth.incrementAndGet() >= maxPendingWrites
+                && flushRequested.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                flushRequested.set(false);
+                flushAll();
+            });
+        }
+    }
+
+    /**
+     * Records that a structure wrote buffered keys into the database.
+     *
+     * @param count number of keys written
+     */
+    void flushed(int count) {
+        queueDepth.addAndGet(-count);
+    }
+
+    /**
+     * Returns the number of keys awaiting a flush across all structures.
+     *
+     * @return queue depth
+     */
+    int queueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Flushes all structures and commits the database.
+     */
+    synchronized void flushAll() {
+        final Timer.Context timer = startTimer(flushTimer);
+        try {
+            int count = 0;
+            for (Buffered structure : structures) {
+                count += structure.flush();
+            }
+            database.commit();
+            log.trace("Flushed {} keys", count);
+        } catch (Exception e) {
+            log.warn("Unable to flush buffered writes", e);
+        } finally {
+            stopTimer(timer);
+        }
+    }
+
+    /**
+     * Stops the periodic flushes and flushes whatever is still buffered.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+        flushAll();
+    }
+}
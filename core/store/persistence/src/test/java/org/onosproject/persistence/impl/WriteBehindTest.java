@@ -0,0 +1,256 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.persistence.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.onosproject.store.service.Serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the write-behind persistent maps and sets.
+ */
+public class WriteBehindTest {
+
+    // long enough for no periodic flush to happen during a test
+    private static final long FLUSH_DELAY = 60_000;
+
+    private DB database;
+    private WriteBehindFlusher flusher;
+
+    /**
+     * Serializer of serializable objects, tolerating nulls.
+     */
+    private static final Serializer SERIALIZER = new Serializer() {
+        @Override
+        public <T> byte[] encode(T object) {
+            if (object == null) {
+                return null;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(object);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T decode(byte[] bytes) {
+            if (bytes == null) {
+                return null;
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                return (T) in.readObject();
+            } catch (IOException | ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    @Before
+    public void setUp() {
+        database = DBMaker.newMemoryDB().make();
+        flusher = new WriteBehindFlusher(database, null, FLUSH_DELAY, 1_000);
+    }
+
+    @After
+    public void tearDown() {
+        flusher.shutdown();
+        database.close();
+    }
+
+    // Reads the persisted contents of a map through a write-through view
+    private <K, V> Map<K, V> persisted(String name) {
+        Map<K, V> contents = Maps.newHashMap();
+        new PersistentMap<K, V>(SERIALIZER, database, name).readInto(contents);
+        return contents;
+    }
+
+    @Test
+    public void lastWriteWins() {
+        PersistentMap<String, Integer> map = new PersistentMap<>(SERIALIZER, database, "map", flusher);
+        map.put("a", 1);
+        map.put("b", 1);
+        map.put("a", 2);
+        map.remove("b");
+        map.put("b", 3);
+        map.put("a", 4);
+
+        assertEquals("Mutations are collapsed per key", 2, flusher.queueDepth());
+        assertEquals(Integer.valueOf(4), map.get("a"));
+        assertTrue("Nothing is written before a flush", persisted("map").isEmpty());
+
+        flusher.flushAll();
+        assertEquals(0, flusher.queueDepth());
+        Map<String, Integer> contents = persisted("map");
+        assertEquals(2, contents.size());
+        assertEquals(Integer.valueOf(4), contents.get("a"));
+        assertEquals(Integer.valueOf(3), contents.get("b"));
+
+        map.remove("a");
+        flusher.flushAll();
+        assertFalse(persisted("map").containsKey("a"));
+    }
+
+    @Test
+    public void valuesAreSerializedWhenFlushed() {
+        PersistentMap<String, HashMap<String, Integer>> map =
+                new PersistentMap<>(SERIALIZER, database, "buckets", flusher);
+        map.compute("bucket", (k, bucket) -> {
+            HashMap<String, Integer> updated = bucket != null ? bucket : new HashMap<>();
+            updated.put("x", 1);
+            return updated;
+        });
+        // updated in place until the next flush
+        map.compute("bucket", (k, bucket) -> {
+            bucket.put("y", 2);
+            return bucket;
+        });
+
+        assertEquals(1, flusher.queueDepth());
+        flusher.flushAll();
+        Map<String, HashMap<String, Integer>> contents = persisted("buckets");
+        assertEquals(2, contents.get("bucket").size());
+        assertEquals(Integer.valueOf(2), contents.get("bucket").get("y"));
+    }
+
+    @Test
+    public void readsDoNotFlush() {
+        PersistentMap<String, Integer> map = new PersistentMap<>(SERIALIZER, database, "map", flusher);
+        map.put("a", 1);
+        map.put("b", 2);
+        flusher.flushAll();
+        map.remove("a");
+        map.put("c", 3);
+
+        assertEquals(2, map.size());
+        assertEquals(Sets.newHashSet("b", "c"), map.keySet());
+        assertEquals(Sets.newHashSet(2, 3), map.values());
+        assertTrue(map.containsValue(3));
+        assertFalse(map.containsValue(1));
+        assertEquals("Reads leave the buffer alone", 2, flusher.queueDepth());
+        assertEquals(2, persisted("map").size());
+        assertTrue(persisted("map").containsKey("a"));
+    }
+
+    @Test
+    public void computeIsAtomicPerKey() throws InterruptedException {
+        PersistentMap<String, Integer> map = new PersistentMap<>(SERIALIZER, database, "map", flusher);
+        int threads = 4;
+        int increments = 1_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < increments; j++) {
+                    map.compute("counter", (k, v) -> v == null ? 1 : v + 1);
+                }
+            });
+        }
+        executor.execute(() -> {
+            for (int j = 0; j < increments; j++) {
+                flusher.flushAll();
+            }
+        });
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(Integer.valueOf(threads * increments), map.get("counter"));
+        flusher.flushAll();
+        assertEquals(Integer.valueOf(threads * increments), persisted("map").get("counter"));
+    }
+
+    @Test
+    public void setDoesNotReadBack() {
+        AtomicInteger decoded = new AtomicInteger();
+        Serializer counting = new Serializer() {
+            @Override
+            public <T> byte[] encode(T object) {
+                return SERIALIZER.encode(object);
+            }
+
+            @Override
+            public <T> T decode(byte[] bytes) {
+                decoded.incrementAndGet();
+                return SERIALIZER.decode(bytes);
+            }
+        };
+        PersistentMap<String, Integer> map = new PersistentMap<>(counting, database, "map", flusher);
+        map.set("a", 1);
+        flusher.flushAll();
+        map.set("a", 2);
+        map.putAll(ImmutableMap.of("a", 3, "b", 4));
+        flusher.flushAll();
+
+        assertEquals(0, decoded.get());
+        assertEquals(Integer.valueOf(3), persisted("map").get("a"));
+    }
+
+    @Test
+    public void noTombstonesForAbsentKeys() {
+        PersistentMap<String, Integer> map = new PersistentMap<>(SERIALIZER, database, "map", flusher);
+        assertNull(map.remove("missing"));
+        assertEquals(0, flusher.queueDepth());
+
+        PersistentSet<String> set = new PersistentSet<>(SERIALIZER, database, "set", flusher);
+        assertFalse(set.remove("missing"));
+        assertEquals(0, flusher.queueDepth());
+
+        set.add("item");
+        assertFalse("Adding a present item changes nothing", set.add("item"));
+        assertEquals(1, flusher.queueDepth());
+    }
+
+    @Test
+    public void flushOnShutdown() {
+        PersistentMap<String, Integer> map = new PersistentMap<>(SERIALIZER, database, "map", flusher);
+        PersistentSet<String> set = new PersistentSet<>(SERIALIZER, database, "set", flusher);
+        map.put("a", 1);
+        set.add("item");
+
+        flusher.shutdown();
+
+        assertEquals(Integer.valueOf(1), persisted("map").get("a"));
+        Set<String> items = Sets.newHashSet();
+        new PersistentSet<String>(SERIALIZER, database, "set").readInto(items);
+        assertTrue(items.contains("item"));
+    }
+}
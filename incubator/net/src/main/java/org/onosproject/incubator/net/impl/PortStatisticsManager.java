@@ -34,9 +34,7 @@ import org.onosproject.net.statistic.Load;
 import org.slf4j.Logger;
 
 import java.util.Map;
-import java.util.stream.Collectors;
 
-import static org.onosproject.net.PortNumber.portNumber;
 import static org.onosproject.net.device.DeviceEvent.Type.*;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -51,15 +49,15 @@ public class PortStatisticsManager implements PortStatisticsService {
 
     private static final long POLL_FREQUENCY = 10_000; // milliseconds
     private static final long STALE_LIMIT = (long) (1.5 * POLL_FREQUENCY);
-    private static final int SECOND = 1_000; // milliseconds
+    private static final long MIN_INTERVAL = 1; // seconds
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected DeviceService deviceService;
 
     private final DeviceListener deviceListener = new InternalDeviceListener();
 
-    private Map<ConnectPoint, DataPoint> current = Maps.newConcurrentMap();
-    private Map<ConnectPoint, DataPoint> previous = Maps.newConcurrentMap();
+    // port loads of each device as of its last port stats update
+    private final Map<DeviceId, PortLoads> loads = Maps.newConcurrentMap();
 
     @Activate
     public void activate() {
@@ -70,32 +68,81 @@ public class PortStatisticsManager implements PortStatisticsService {
     @Deactivate
     public void deactivate() {
         deviceService.removeListener(deviceListener);
+        loads.clear();
         log.info("Stopped");
     }
 
     @Override
     public Load load(ConnectPoint connectPoint) {
-        DataPoint c = current.get(connectPoint);
-        DataPoint p = previous.get(connectPoint);
-        long now = System.currentTimeMillis();
-
-        if (c != null && p != null && (now - c.time < STALE_LIMIT)) {
-            if (c.time > p.time + SECOND) {
-                //Use max of either Tx or Rx load as the total load of a port
-                Load load = null;
-                if (c.stats.bytesSent() >= p.stats.bytesSent()) {
-                    load = new DefaultLoad(c.stats.bytesSent(), p.stats.bytesSent(),
-                                                    (int) (c.time - p.time) / SECOND);
+        PortLoads portLoads = loads.get(connectPoint.deviceId());
+        if (portLoads == null || System.currentTimeMillis() - portLoads.updated >= STALE_LIMIT) {
+            return null;
+        }
+        return portLoads.get(connectPoint.port().toLong());
+    }
+
+    /**
+     * Port loads of a device, computed on first use from the samples of the
+     * port stats update. The device store retains the latest samples; they
+     * are fetched once per update, as on non-master nodes each query is a
+     * remote call.
+     */
+    private final class PortLoads {
+        private final DeviceId deviceId;
+        private final long updated = System.currentTimeMillis();
+        private volatile Map<Long, Load> portLoads;
+
+        private PortLoads(DeviceId deviceId) {
+            this.deviceId = deviceId;
+        }
+
+        private Load get(long port) {
+            Map<Long, Load> current = portLoads;
+            if (current == null) {
+                synchronized (this) {
+                    current = portLoads;
+                    if (current == null) {
+                        current = compute();
+                        portLoads = current;
+                    }
                 }
-                if (c.stats.bytesReceived() >= p.stats.bytesReceived()) {
-                    Load rcvLoad = new DefaultLoad(c.stats.bytesReceived(), p.stats.bytesReceived(),
-                                                    (int) (c.time - p.time) / SECOND);
-                    load = ((load == null) || (rcvLoad.rate() > load.rate())) ? rcvLoad : load;
+            }
+            return current.get(port);
+        }
+
+        private Map<Long, Load> compute() {
+            Map<Long, PortStatistics> current = Maps.newHashMap();
+            deviceService.getPortStatistics(deviceId).forEach(c -> current.put((long) c.port(), c));
+            Map<Long, Load> computed = Maps.newHashMap();
+            for (PortStatistics d : deviceService.getPortDeltaStatistics(deviceId)) {
+                PortStatistics c = current.get((long) d.port());
+                Load load = c == null ? null : portLoad(c, d);
+                if (load != null) {
+                    computed.put((long) d.port(), load);
                 }
-                return load;
             }
+            return computed;
         }
-        return null;
+    }
+
+    // Computes the load of a port from its current counters and their change
+    // since the previous sample
+    private static Load portLoad(PortStatistics c, PortStatistics d) {
+        if (d.durationSec() < MIN_INTERVAL) {
+            return null;
+        }
+
+        //Use max of either Tx or Rx load as the total load of a port
+        Load load = null;
+        if (d.bytesSent() >= 0) {
+            load = new DefaultLoad(c.bytesSent(), c.bytesSent() - d.bytesSent(), d.durationSec());
+        }
+        if (d.bytesReceived() >= 0) {
+            Load rcvLoad = new DefaultLoad(c.bytesReceived(), c.bytesReceived() - d.bytesReceived(),
+                                           d.durationSec());
+            load = ((load == null) || (rcvLoad.rate() > load.rate())) ? rcvLoad : load;
+        }
+        return load;
     }
 
     // Monitors port stats update messages.
@@ -105,58 +152,16 @@ public class PortStatisticsManager implements PortStatisticsService {
             DeviceEvent.Type type = event.type();
             DeviceId deviceId = event.subject().id();
             if (type == PORT_STATS_UPDATED) {
-                // Update port load
-                updateDeviceData(deviceId);
+                // Drop the port loads of the previous update
+                loads.put(deviceId, new PortLoads(deviceId));
 
             } else if (type == DEVICE_REMOVED ||
                     (type == DEVICE_AVAILABILITY_CHANGED &&
                             !deviceService.isAvailable(deviceId))) {
                 // Clean-up all port loads
-                pruneDeviceData(deviceId);
+                loads.remove(deviceId);
             }
         }
     }
 
-    // Updates the port stats for the specified device
-    private void updateDeviceData(DeviceId deviceId) {
-        deviceService.getPortStatistics(deviceId)
-                .forEach(stats -> updatePortData(deviceId, stats));
-    }
-
-    // Updates the port stats for the specified port
-    private void updatePortData(DeviceId deviceId, PortStatistics stats) {
-        ConnectPoint cp = new ConnectPoint(deviceId, portNumber(stats.port()));
-        DataPoint c = current.get(cp);
-
-        // Create a new data point and make it the current one
-        current.put(cp, new DataPoint(stats));
-
-        // If we have a current data point, demote it to previous
-        if (c != null) {
-            previous.put(cp, c);
-        }
-    }
-
-    // Cleans all port loads for the specified device
-    private void pruneDeviceData(DeviceId deviceId) {
-        pruneMap(current, deviceId);
-        pruneMap(previous, deviceId);
-    }
-
-    private void pruneMap(Map<ConnectPoint, DataPoint> map, DeviceId deviceId) {
-        map.keySet().stream().filter(cp -> deviceId.equals(cp.deviceId()))
-                .collect(Collectors.toSet()).forEach(map::remove);
-    }
-
-    // Auxiliary data point to track when we receive different samples.
-    private class DataPoint {
-        long time;
-        PortStatistics stats;
-
-        DataPoint(PortStatistics stats) {
-            time = System.currentTimeMillis();
-            this.stats = stats;
-        }
-    }
-
 }
@@ -19,7 +19,7 @@ package org.onosproject.openflow.controller.driver;
 import static org.onlab.util.Tools.groupedThreads;
 
 import com.google.common.collect.Lists;
-import org.jboss.netty.channel.Channel;
+import io.netty.channel.Channel;
 import org.onlab.packet.IpAddress;
 import org.onosproject.net.Device;
 import org.onosproject.net.driver.AbstractHandlerBehaviour;
@@ -56,6 +56,9 @@ import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
@@ -103,6 +106,12 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
     private final AtomicReference<List<OFMessage>> messagesPendingMastership
             = new AtomicReference<>();
 
+    // Flow mods held back to be written together with subsequent messages;
+    // also serves as the lock ordering all writes to the channel
+    private final List<OFMessage> pendingFlowMods = new ArrayList<>();
+    private ScheduledFuture<?> pendingFlush;
+    private volatile FlowModBatching flowModBatching;
+
     @Override
     public void init(Dpid dpid, OFDescStatsReply desc, OFVersion ofv) {
         this.dpid = dpid;
@@ -163,7 +172,7 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
             } else {
                 // not transitioning to MASTER
                 log.warn("Dropping message for switch {} (role: {}, connected: {}): {}",
-                         dpid, role, channel.isConnected(), msgs);
+                         dpid, role, channel.isActive(), msgs);
             }
         }
 
@@ -180,8 +189,69 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
     }
 
     private void sendMsgsOnChannel(List<OFMessage> msgs) {
-        if (channel.isConnected()) {
-            channel.write(msgs);
+        FlowModBatching batching = flowModBatching;
+        synchronized (pendingFlowMods) {
+            if (batching == null || !batching.isEnabled() ||
+                    !msgs.stream().allMatch(m -> m.getType() == OFType.FLOW_MOD)) {
+                // Anything else goes out right away, behind the flow mods
+                // accumulated so far.
+                if (pendingFlowMods.isEmpty()) {
+                    writeOnChannel(msgs);
+                } else {
+                    flushFlowMods(msgs);
+                }
+                return;
+            }
+
+            pendingFlowMods.addAll(msgs);
+            if (pendingFlowMods.size() >= batching.maxBatchSize()) {
+                flushFlowMods(Collections.emptyList());
+            } else if (pendingFlush == null) {
+                try {
+                    pendingFlush = batching.executor().schedule(this::flushPendingFlowMods,
+                                                                batching.maxBatchMs(),
+                                                                TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // The controller is shutting down; don't hold anything back
+                    flushFlowMods(Collections.emptyList());
+                }
+            }
+        }
+    }
+
+    // Writes out the accumulated flow mods upon expiry of the batch window.
+    private void flushPendingFlowMods() {
+        synchronized (pendingFlowMods) {
+            pendingFlush = null;
+            if (!pendingFlowMods.isEmpty()) {
+                flushFlowMods(Collections.emptyList());
+            }
+        }
+    }
+
+    // Writes out the accumulated flow mods followed by the given messages;
+    // must be called while holding the pendingFlowMods lock.
+    private void flushFlowMods(List<OFMessage> trailing) {
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+        List<OFMessage> msgs = new ArrayList<>(pendingFlowMods.size() + trailing.size());
+        msgs.addAll(pendingFlowMods);
+        msgs.addAll(trailing);
+        FlowModBatching batching = flowModBatching;
+        if (batching != null && !pendingFlowMods.isEmpty()) {
+            batching.recordWrite(pendingFlowMods.size());
+        }
+        pendingFlowMods.clear();
+        writeOnChannel(msgs);
+    }
+
+    private void writeOnChannel(List<OFMessage> msgs) {
+        if (channel.isActive()) {
+            // The pipeline coalesces the flushes of writes queued together
+            // on the event loop into a single flush.
+            channel.writeAndFlush(msgs);
         } else {
             log.warn("Dropping messages for switch {} because channel is not connected: {}",
                      dpid, msgs);
@@ -219,7 +289,7 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
     @Override
     public final void setChannel(Channel channel) {
         this.channel = channel;
-        final SocketAddress address = channel.getRemoteAddress();
+        final SocketAddress address = channel.remoteAddress();
         if (address instanceof InetSocketAddress) {
             final InetSocketAddress inetAddress = (InetSocketAddress) address;
             final IpAddress ipAddress = IpAddress.valueOf(inetAddress.getAddress());
@@ -473,6 +543,19 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
         }
     }
 
+    @Override
+    public final void setFlowModBatching(FlowModBatching batching) {
+        synchronized (pendingFlowMods) {
+            this.flowModBatching = batching;
+            // Don't hold back flow mods beyond the new limits
+            if (!pendingFlowMods.isEmpty() &&
+                    (batching == null || !batching.isEnabled() ||
+                            pendingFlowMods.size() >= batching.maxBatchSize())) {
+                flushFlowMods(Collections.emptyList());
+            }
+        }
+    }
+
     @Override
     public final void setRoleHandler(RoleHandler roleHandler) {
         if (this.roleMan == null) {
@@ -530,7 +613,7 @@ public abstract class AbstractOpenFlowSwitch extends AbstractHandlerBehaviour
     @Override
     public String toString() {
         return this.getClass().getName() + " [" + ((channel != null)
-                ? channel.getRemoteAddress() : "?")
+                ? channel.remoteAddress() : "?")
                 + " DPID[" + ((getStringId() != null) ? getStringId() : "?") + "]]";
     }
 
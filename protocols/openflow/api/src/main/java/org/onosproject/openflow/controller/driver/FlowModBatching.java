@@ -0,0 +1,153 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.driver;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Settings for the accumulation of flow mods into batched channel writes,
+ * along with the executor flushing the batches and the write counters
+ * shared by all switches of a controller.
+ */
+public final class FlowModBatching {
+
+    /**
+     * Default maximum number of flow mods accumulated into a single write.
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    /**
+     * Default maximum time, in milliseconds, a flow mod may be held back.
+     */
+    public static final int DEFAULT_MAX_BATCH_MS = 1;
+
+    private final ScheduledExecutorService executor;
+    private final int maxBatchSize;
+    private final int maxBatchMs;
+    private final AtomicLong writes;
+    private final AtomicLong flowMods;
+
+    /**
+     * Creates flow mod batching settings.
+     *
+     * @param executor     executor on which batches are flushed upon expiry
+     *                     of their window; owned by the caller
+     * @param maxBatchSize maximum number of flow mods per write; values
+     *                     below 2 disable the accumulation
+     * @param maxBatchMs   maximum time, in milliseconds, a flow mod may be
+     *                     held back
+     */
+    public FlowModBatching(ScheduledExecutorService executor,
+                           int maxBatchSize, int maxBatchMs) {
+        this(executor, maxBatchSize, maxBatchMs, new AtomicLong(), new AtomicLong());
+    }
+
+    private FlowModBatching(ScheduledExecutorService executor,
+                            int maxBatchSize, int maxBatchMs,
+                            AtomicLong writes, AtomicLong flowMods) {
+        this.executor = checkNotNull(executor, "Executor cannot be null");
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchMs = Math.max(0, maxBatchMs);
+        this.writes = writes;
+        this.flowMods = flowMods;
+    }
+
+    /**
+     * Returns settings with the given limits sharing the executor and the
+     * counters of these settings.
+     *
+     * @param maxBatchSize maximum number of flow mods per write
+     * @param maxBatchMs   maximum time, in milliseconds, a flow mod may be
+     *                     held back
+     * @return flow mod batching settings
+     */
+    public FlowModBatching withLimits(int maxBatchSize, int maxBatchMs) {
+        return new FlowModBatching(executor, maxBatchSize, maxBatchMs, writes, flowMods);
+    }
+
+    /**
+     * Returns the executor on which batches are flushed.
+     *
+     * @return flush executor
+     */
+    public ScheduledExecutorService executor() {
+        return executor;
+    }
+
+    /**
+     * Returns the maximum number of flow mods per write.
+     *
+     * @return maximum batch size
+     */
+    public int maxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Returns the maximum time, in milliseconds, a flow mod may be held back.
+     *
+     * @return maximum batch window
+     */
+    public int maxBatchMs() {
+        return maxBatchMs;
+    }
+
+    /**
+     * Indicates whether flow mods are accumulated at all.
+     *
+     * @return true if batching is enabled
+     */
+    public boolean isEnabled() {
+        return maxBatchSize > 1;
+    }
+
+    /**
+     * Returns the number of channel writes which carried accumulated flow mods.
+     *
+     * @return number of flow mod writes
+     */
+    public long writes() {
+        return writes.get();
+    }
+
+    /**
+     * Returns the number of flow mods written through the accumulator.
+     *
+     * @return number of flow mods written
+     */
+    public long flowModsWritten() {
+        return flowMods.get();
+    }
+
+    // Records a write carrying the given number of accumulated flow mods.
+    void recordWrite(int count) {
+        writes.incrementAndGet();
+        flowMods.addAndGet(count);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("maxBatchSize", maxBatchSize)
+                .add("maxBatchMs", maxBatchMs)
+                .toString();
+    }
+}
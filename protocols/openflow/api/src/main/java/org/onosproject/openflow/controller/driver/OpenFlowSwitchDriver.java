@@ -15,7 +15,7 @@
  */
 package org.onosproject.openflow.controller.driver;
 
-import org.jboss.netty.channel.Channel;
+import io.netty.channel.Channel;
 import org.onosproject.net.driver.HandlerBehaviour;
 import org.onosproject.openflow.controller.Dpid;
 import org.onosproject.openflow.controller.OpenFlowSwitch;
@@ -49,6 +49,15 @@ public interface OpenFlowSwitchDriver extends OpenFlowSwitch, HandlerBehaviour {
      */
     void setRoleHandler(RoleHandler roleHandler);
 
+    /**
+     * Sets the settings for batching the flow mods written to the switch.
+     * Flow mods are written out right away until this is called. May be
+     * called again to change the settings of a connected switch, in which
+     * case flow mods held back beyond the new limits are written out.
+     * @param batching the flow mod batching settings
+     */
+    void setFlowModBatching(FlowModBatching batching);
+
     /**
      * Reasserts this controllers role to the switch.
      * Useful in cases where the switch no longer agrees
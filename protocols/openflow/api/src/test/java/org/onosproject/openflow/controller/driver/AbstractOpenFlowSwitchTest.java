@@ -15,19 +15,28 @@
  */
 package org.onosproject.openflow.controller.driver;
 
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.onosproject.openflow.controller.Dpid;
 import org.onosproject.openflow.controller.OpenFlowEventListener;
+import org.onosproject.openflow.controller.RoleState;
 import org.projectfloodlight.openflow.protocol.OFMessage;
-import org.jboss.netty.channel.Channel;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.onlab.junit.TestTools.assertAfter;
 
 /**
  * Tests for packet processing in the abstract openflow switch class.
@@ -36,6 +45,7 @@ public class AbstractOpenFlowSwitchTest {
 
     OpenFlowSwitchImpl ofSwitch;
     TestExecutorService executorService;
+    ScheduledExecutorService flushExecutor;
 
     /**
      * Mock executor service that tracks submits.
@@ -65,9 +75,15 @@ public class AbstractOpenFlowSwitchTest {
 
         executorService = new TestExecutorService();
         ofSwitch.executorMsgs = executorService;
-        Channel channel = new ChannelAdapter();
+        Channel channel = new EmbeddedChannel();
         ofSwitch.setChannel(channel);
         ofSwitch.addEventListener(new OpenFlowEventListenerAdapter());
+        flushExecutor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        flushExecutor.shutdownNow();
     }
 
     /**
@@ -103,6 +119,113 @@ public class AbstractOpenFlowSwitchTest {
         assertThat(executorService.submittedMessages().get(0), is(ofStatsRequest));
     }
 
+    /**
+     * Tests that flow mods are accumulated until a different message is sent.
+     */
+    @Test
+    public void testFlowModBatching() {
+        RecordingChannel channel = new RecordingChannel();
+        ofSwitch.setChannel(channel);
+        ofSwitch.role = RoleState.MASTER;
+        FlowModBatching batching = new FlowModBatching(flushExecutor, 3, 10000);
+        ofSwitch.setFlowModBatching(batching);
+
+        ofSwitch.sendMsg(new MockOfFlowMod());
+        ofSwitch.sendMsg(new MockOfFlowMod());
+        assertThat(channel.writes, hasSize(0));
+
+        OFMessage ofPacketOut = new MockOfPacketOut();
+        ofSwitch.sendMsg(ofPacketOut);
+        assertThat(channel.writes, hasSize(1));
+        assertThat(channel.writes.get(0), hasSize(3));
+        assertThat(channel.writes.get(0).get(2), is(ofPacketOut));
+
+        ofSwitch.sendMsg(new MockOfFlowMod());
+        ofSwitch.sendMsg(new MockOfFlowMod());
+        ofSwitch.sendMsg(new MockOfFlowMod());
+        assertThat(channel.writes, hasSize(2));
+        assertThat(channel.writes.get(1), hasSize(3));
+
+        assertThat(batching.writes(), is(2L));
+        assertThat(batching.flowModsWritten(), is(5L));
+    }
+
+    /**
+     * Tests that new batching settings apply to a connected switch, writing
+     * out the flow mods held back beyond the new limits.
+     */
+    @Test
+    public void testFlowModBatchingChange() {
+        RecordingChannel channel = new RecordingChannel();
+        ofSwitch.setChannel(channel);
+        ofSwitch.role = RoleState.MASTER;
+        FlowModBatching batching = new FlowModBatching(flushExecutor, 5, 10000);
+        ofSwitch.setFlowModBatching(batching);
+
+        ofSwitch.sendMsg(new MockOfFlowMod());
+        ofSwitch.sendMsg(new MockOfFlowMod());
+        ofSwitch.setFlowModBatching(batching.withLimits(3, 10000));
+        assertThat(channel.writes, hasSize(0));
+
+        ofSwitch.setFlowModBatching(batching.withLimits(2, 10000));
+        assertThat(channel.writes, hasSize(1));
+        assertThat(channel.writes.get(0), hasSize(2));
+
+        ofSwitch.sendMsg(new MockOfFlowMod());
+        ofSwitch.setFlowModBatching(batching.withLimits(1, 10000));
+        assertThat(channel.writes, hasSize(2));
+        ofSwitch.sendMsg(new MockOfFlowMod());
+        assertThat(channel.writes, hasSize(3));
+        assertThat(batching.flowModsWritten(), is(3L));
+    }
+
+    /**
+     * Tests that accumulated flow mods are written once the window expires.
+     */
+    @Test
+    public void testFlowModBatchWindow() {
+        RecordingChannel channel = new RecordingChannel();
+        ofSwitch.setChannel(channel);
+        ofSwitch.role = RoleState.MASTER;
+        ofSwitch.setFlowModBatching(new FlowModBatching(flushExecutor, 100, 5));
+
+        ofSwitch.sendMsg(new MockOfFlowMod());
+        assertAfter(5, 1000, () -> assertThat(channel.writes, hasSize(1)));
+    }
+
+    /**
+     * Tests that flow mods are written right away without batching settings,
+     * or once the flush executor has been shut down.
+     */
+    @Test
+    public void testFlowModWithoutBatching() {
+        RecordingChannel channel = new RecordingChannel();
+        ofSwitch.setChannel(channel);
+        ofSwitch.role = RoleState.MASTER;
+
+        ofSwitch.sendMsg(new MockOfFlowMod());
+        assertThat(channel.writes, hasSize(1));
+
+        ofSwitch.setFlowModBatching(new FlowModBatching(flushExecutor, 100, 10000));
+        flushExecutor.shutdown();
+        ofSwitch.sendMsg(new MockOfFlowMod());
+        assertThat(channel.writes, hasSize(2));
+    }
+
+    /**
+     * Connected channel recording the written message lists.
+     */
+    private static class RecordingChannel extends EmbeddedChannel {
+        final List<List<OFMessage>> writes = new CopyOnWriteArrayList<>();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public ChannelFuture writeAndFlush(Object o) {
+            writes.add((List<OFMessage>) o);
+            return null;
+        }
+    }
+
     protected class OpenFlowSwitchImpl extends AbstractOpenFlowSwitch {
 
         @Override
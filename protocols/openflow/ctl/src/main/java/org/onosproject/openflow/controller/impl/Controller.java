@@ -18,12 +18,20 @@ package org.onosproject.openflow.controller.impl;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
-import org.jboss.netty.bootstrap.ServerBootstrap;
-import org.jboss.netty.channel.ChannelPipelineFactory;
-import org.jboss.netty.channel.group.ChannelGroup;
-import org.jboss.netty.channel.group.DefaultChannelGroup;
-import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
-
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.GlobalEventExecutor;
 import org.onlab.util.ItemNotFoundException;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.driver.DefaultDriverData;
@@ -31,6 +39,7 @@ import org.onosproject.net.driver.DefaultDriverHandler;
 import org.onosproject.net.driver.Driver;
 import org.onosproject.net.driver.DriverService;
 import org.onosproject.openflow.controller.Dpid;
+import org.onosproject.openflow.controller.driver.FlowModBatching;
 import org.onosproject.openflow.controller.driver.OpenFlowAgent;
 import org.onosproject.openflow.controller.driver.OpenFlowSwitchDriver;
 import org.projectfloodlight.openflow.protocol.OFDescStatsReply;
@@ -52,7 +61,6 @@ import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -82,13 +90,18 @@ public class Controller {
     // Configuration options
     protected List<Integer> openFlowPorts = ImmutableList.of(6633, 6653);
     protected int workerThreads = 16;
+    protected int handlerThreads = 0;
 
     // Start time of the controller
     protected long systemStartTime;
 
     private OpenFlowAgent agent;
+    private FlowModBatching flowModBatching;
 
-    private NioServerSocketChannelFactory execFactory;
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private EventExecutorGroup handlerGroup;
+    private Class<? extends ServerChannel> serverChannelClass;
 
     protected String ksLocation;
     protected String tsLocation;
@@ -126,18 +139,17 @@ public class Controller {
         try {
             final ServerBootstrap bootstrap = createServerBootStrap();
 
-            bootstrap.setOption("reuseAddr", true);
-            bootstrap.setOption("child.keepAlive", true);
-            bootstrap.setOption("child.tcpNoDelay", true);
-            bootstrap.setOption("child.sendBufferSize", Controller.SEND_BUFFER_SIZE);
+            bootstrap.option(ChannelOption.SO_REUSEADDR, true);
+            bootstrap.childOption(ChannelOption.SO_KEEPALIVE, true);
+            bootstrap.childOption(ChannelOption.TCP_NODELAY, true);
+            bootstrap.childOption(ChannelOption.SO_SNDBUF, Controller.SEND_BUFFER_SIZE);
+            bootstrap.childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
 
-            ChannelPipelineFactory pfact =
-                    new OpenflowPipelineFactory(this, null, sslContext);
-            bootstrap.setPipelineFactory(pfact);
-            cg = new DefaultChannelGroup();
+            bootstrap.childHandler(new OFChannelInitializer(this, handlerGroup, sslContext));
+            cg = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
             openFlowPorts.forEach(port -> {
                 InetSocketAddress sa = new InetSocketAddress(port);
-                cg.add(bootstrap.bind(sa));
+                cg.add(bootstrap.bind(sa).syncUninterruptibly().channel());
                 log.info("Listening for switch connections on {}", sa);
             });
 
@@ -147,19 +159,45 @@ public class Controller {
 
     }
 
+    @SuppressWarnings("squid:S1181")
+    // We really need to catch Throwable due to netty native epoll() handling
     private ServerBootstrap createServerBootStrap() {
-
-        if (workerThreads == 0) {
-            execFactory = new NioServerSocketChannelFactory(
-                    Executors.newCachedThreadPool(groupedThreads("onos/of", "boss-%d")),
-                    Executors.newCachedThreadPool(groupedThreads("onos/of", "worker-%d")));
-            return new ServerBootstrap(execFactory);
-        } else {
-            execFactory = new NioServerSocketChannelFactory(
-                    Executors.newCachedThreadPool(groupedThreads("onos/of", "boss-%d")),
-                    Executors.newCachedThreadPool(groupedThreads("onos/of", "worker-%d")), workerThreads);
-            return new ServerBootstrap(execFactory);
+        // A worker thread count of 0 leaves the choice to netty, which
+        // defaults to twice the number of cores.
+        // try Epoll first and if that does work, use nio.
+        try {
+            bossGroup = new EpollEventLoopGroup(1, groupedThreads("onos/of", "boss-%d"));
+            workerGroup = new EpollEventLoopGroup(workerThreads, groupedThreads("onos/of", "worker-%d"));
+            serverChannelClass = EpollServerSocketChannel.class;
+        } catch (Throwable e) {
+            log.debug("Failed to initialize native (epoll) transport. Reason: {}. Proceeding with nio.",
+                      e.getMessage());
+            if (bossGroup != null) {
+                bossGroup.shutdownGracefully();
+            }
+            bossGroup = new NioEventLoopGroup(1, groupedThreads("onos/of", "boss-%d"));
+            workerGroup = new NioEventLoopGroup(workerThreads, groupedThreads("onos/of", "worker-%d"));
+            serverChannelClass = NioServerSocketChannel.class;
         }
+        // Each channel is bound to a single handler thread for its lifetime,
+        // which keeps the messages of a switch in order.
+        handlerGroup = handlerThreads > 0
+                ? new DefaultEventExecutorGroup(handlerThreads, groupedThreads("onos/of", "handler-%d"))
+                : null;
+
+        return new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(serverChannelClass);
+    }
+
+    /**
+     * Sets the flow mod batching settings handed to the switches which
+     * connect from now on.
+     *
+     * @param batching flow mod batching settings
+     */
+    public void setFlowModBatching(FlowModBatching batching) {
+        this.flowModBatching = batching;
     }
 
     public void setConfigParams(Dictionary<?, ?> properties) {
@@ -176,6 +214,12 @@ public class Controller {
             this.workerThreads = Integer.parseInt(threads);
         }
         log.debug("Number of worker threads set to {}", this.workerThreads);
+
+        threads = get(properties, "handlerThreads");
+        if (!Strings.isNullOrEmpty(threads)) {
+            this.handlerThreads = Integer.parseInt(threads);
+        }
+        log.debug("Number of handler threads set to {}", this.handlerThreads);
     }
 
     /**
@@ -296,6 +340,9 @@ public class Controller {
             ofSwitchDriver.init(did, desc, ofv);
             ofSwitchDriver.setAgent(agent);
             ofSwitchDriver.setRoleHandler(new RoleManager(ofSwitchDriver));
+            if (flowModBatching != null) {
+                ofSwitchDriver.setFlowModBatching(flowModBatching);
+            }
             log.info("OpenFlow handshaker found for device {}: {}", dpid, ofSwitchDriver);
             return ofSwitchDriver;
         }
@@ -315,8 +362,12 @@ public class Controller {
 
     public void stop() {
         log.info("Stopping OpenFlow IO");
-        cg.close();
-        execFactory.shutdown();
+        cg.close().awaitUninterruptibly();
+        if (handlerGroup != null) {
+            handlerGroup.shutdownGracefully();
+        }
+        workerGroup.shutdownGracefully();
+        bossGroup.shutdownGracefully();
     }
 
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+
+/**
+ * Coalesces the flushes of an openflow channel.
+ * <p>
+ * Messages sent to a switch from outside of the event loop of its channel
+ * are queued on the loop as individual write-and-flush tasks. Rather than
+ * issuing a system call per task, the first flush requested schedules a
+ * single flush behind the tasks already queued, and further flush requests
+ * are dropped until it has run. Writes queued together are thus sent to the
+ * socket together.
+ * </p>
+ */
+final class FlushCoalescingHandler extends ChannelOutboundHandlerAdapter {
+
+    // Only accessed from the event loop of the channel
+    private boolean flushPending;
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (!flushPending) {
+            flushPending = true;
+            ctx.executor().execute(() -> {
+                flushPending = false;
+                ctx.flush();
+            });
+        }
+    }
+}
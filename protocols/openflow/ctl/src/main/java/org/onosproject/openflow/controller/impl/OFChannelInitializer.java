@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.openflow.controller.impl;
+
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.util.concurrent.EventExecutorGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+/**
+ * Initializes the pipeline of a server-side openflow channel.
+ */
+public class OFChannelInitializer extends ChannelInitializer<SocketChannel> {
+
+    private static final OFMessageEncoder ENCODER = new OFMessageEncoder();
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final SSLContext sslContext;
+    protected Controller controller;
+    protected EventExecutorGroup handlerGroup;
+
+    /**
+     * Creates a new channel initializer.
+     *
+     * @param controller   openflow controller
+     * @param handlerGroup executors running the channel handlers; each channel
+     *                     is bound to one of them for its lifetime. If null,
+     *                     the handlers run on the I/O event loop of the channel
+     * @param sslContext   SSL context; null if SSL is disabled
+     */
+    public OFChannelInitializer(Controller controller,
+                                EventExecutorGroup handlerGroup,
+                                SSLContext sslContext) {
+        super();
+        this.controller = controller;
+        this.handlerGroup = handlerGroup;
+        this.sslContext = sslContext;
+    }
+
+    @Override
+    protected void initChannel(SocketChannel channel) throws Exception {
+        OFChannelHandler handler = new OFChannelHandler(controller);
+
+        ChannelPipeline pipeline = channel.pipeline();
+        if (sslContext != null) {
+            log.info("OpenFlow SSL enabled.");
+            SSLEngine sslEngine = sslContext.createSSLEngine();
+
+            sslEngine.setNeedClientAuth(true);
+            sslEngine.setUseClientMode(false);
+            sslEngine.setEnabledProtocols(sslEngine.getSupportedProtocols());
+            sslEngine.setEnabledCipherSuites(sslEngine.getSupportedCipherSuites());
+            sslEngine.setEnableSessionCreation(true);
+
+            SslHandler sslHandler = new SslHandler(sslEngine);
+            pipeline.addLast("ssl", sslHandler);
+        } else {
+            log.info("OpenFlow SSL disabled");
+        }
+        pipeline.addLast("ofmessageencoder", ENCODER);
+        pipeline.addLast("flushcoalescer", new FlushCoalescingHandler());
+        pipeline.addLast("ofmessagedecoder", new OFMessageDecoder());
+        pipeline.addLast("idle", new IdleStateHandler(20, 25, 0));
+        pipeline.addLast("timeout", new ReadTimeoutHandler(30));
+        // XXX S ONOS: was 15 increased it to fix Issue #296
+        pipeline.addLast("handshaketimeout",
+                         new HandshakeTimeoutHandler(handler, 60));
+        if (handlerGroup != null) {
+            pipeline.addLast(handlerGroup, "handler", handler);
+        } else {
+            pipeline.addLast("handler", handler);
+        }
+    }
+}
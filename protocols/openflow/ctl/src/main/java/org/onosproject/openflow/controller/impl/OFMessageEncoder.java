@@ -16,44 +16,35 @@
 
 package org.onosproject.openflow.controller.impl;
 
-import java.util.List;
-
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
-import org.jboss.netty.channel.Channel;
-import org.jboss.netty.channel.ChannelHandlerContext;
-import org.jboss.netty.handler.codec.oneone.OneToOneEncoder;
 import org.projectfloodlight.openflow.protocol.OFMessage;
 
 /**
- * Encode an openflow message for output into a ChannelBuffer, for use in a
+ * Encode an openflow message for output into a ByteBuf, for use in a
  * netty pipeline.
  */
-public class OFMessageEncoder extends OneToOneEncoder {
+@Sharable
+public class OFMessageEncoder extends MessageToByteEncoder<Iterable<OFMessage>> {
 
     @Override
-    protected Object encode(ChannelHandlerContext ctx, Channel channel,
-                            Object msg) throws Exception {
-        if (!(msg instanceof List)) {
-            return msg;
-        }
-
-        @SuppressWarnings("unchecked")
-        List<OFMessage> msglist = (List<OFMessage>) msg;
-        /* XXX S can't get length of OFMessage in loxigen's openflowj??
-        int size = 0;
-        for (OFMessage ofm : msglist) {
-            size += ofm.getLengthU();
-        }*/
-
+    protected void encode(ChannelHandlerContext ctx, Iterable<OFMessage> msgs,
+                          ByteBuf out) throws Exception {
+        // The OpenFlow messages write themselves into channel buffers of the
+        // previous netty generation; serialize into a heap buffer first and
+        // copy the result into the pooled output buffer.
         ChannelBuffer buf = ChannelBuffers.dynamicBuffer();
 
-        for (OFMessage ofm : msglist) {
+        for (OFMessage ofm : msgs) {
             if (ofm != null) {
                 ofm.writeTo(buf);
             }
         }
-        return buf;
+        out.writeBytes(buf.toByteBuffer());
     }
 
 }
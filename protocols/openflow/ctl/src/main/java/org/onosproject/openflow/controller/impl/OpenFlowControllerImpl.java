@@ -15,6 +15,7 @@
  */
 package org.onosproject.openflow.controller.impl;
 
+import com.codahale.metrics.Gauge;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
@@ -26,6 +27,9 @@ import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.CoreService;
 import org.onosproject.net.driver.DefaultDriverProviderService;
@@ -39,6 +43,8 @@ import org.onosproject.openflow.controller.OpenFlowSwitch;
 import org.onosproject.openflow.controller.OpenFlowSwitchListener;
 import org.onosproject.openflow.controller.PacketListener;
 import org.onosproject.openflow.controller.RoleState;
+import org.onosproject.openflow.controller.driver.FlowModBatching;
+import org.onosproject.openflow.controller.driver.OpenFlowSwitchDriver;
 import org.onosproject.openflow.controller.driver.OpenFlowAgent;
 import org.osgi.service.component.ComponentContext;
 import org.projectfloodlight.openflow.protocol.OFCalientFlowStatsEntry;
@@ -69,16 +75,22 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Dictionary;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static org.onlab.util.Tools.get;
 import static org.onlab.util.Tools.groupedThreads;
 
 @Component(immediate = true)
@@ -87,6 +99,13 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     private static final String APP_ID = "org.onosproject.openflow-base";
     private static final String DEFAULT_OFPORT = "6633,6653";
     private static final int DEFAULT_WORKER_THREADS = 16;
+    private static final int DEFAULT_HANDLER_THREADS = 0;
+    private static final int DEFAULT_PACKET_IN_WORKERS = 8;
+    private static final int DEFAULT_PACKET_IN_QUEUE_SIZE = 1000;
+
+    private static final String METRICS_COMPONENT = "OpenFlowController";
+    private static final String METRICS_FEATURE = "packetIn";
+    private static final String METRICS_FLOW_MOD_FEATURE = "flowMods";
 
     private static final Logger log =
             LoggerFactory.getLogger(OpenFlowControllerImpl.class);
@@ -104,6 +123,9 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ComponentConfigService cfgService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
     @Property(name = "openflowPorts", value = DEFAULT_OFPORT,
             label = "Port numbers (comma separated) used by OpenFlow protocol; default is 6633,6653")
     private String openflowPorts = DEFAULT_OFPORT;
@@ -112,6 +134,27 @@ public class OpenFlowControllerImpl implements OpenFlowController {
             label = "Number of controller worker threads; default is 16")
     private int workerThreads = DEFAULT_WORKER_THREADS;
 
+    @Property(name = "handlerThreads", intValue = DEFAULT_HANDLER_THREADS,
+            label = "Number of threads running the switch channel handlers, each switch pinned to one; " +
+                    "0 runs them on the worker threads; default is 0")
+    private int handlerThreads = DEFAULT_HANDLER_THREADS;
+
+    @Property(name = "packetInWorkers", intValue = DEFAULT_PACKET_IN_WORKERS,
+            label = "Number of packet-in worker threads, sharded by switch; default is 8")
+    private int packetInWorkers = DEFAULT_PACKET_IN_WORKERS;
+
+    @Property(name = "packetInQueueSize", intValue = DEFAULT_PACKET_IN_QUEUE_SIZE,
+            label = "Number of packet-in messages queued per worker before dropping; default is 1000")
+    private int packetInQueueSize = DEFAULT_PACKET_IN_QUEUE_SIZE;
+
+    @Property(name = "flowModBatchSize", intValue = FlowModBatching.DEFAULT_MAX_BATCH_SIZE,
+            label = "Maximum number of flow mods written to a switch at once; 1 disables batching; default is 100")
+    private int flowModBatchSize = FlowModBatching.DEFAULT_MAX_BATCH_SIZE;
+
+    @Property(name = "flowModBatchMs", intValue = FlowModBatching.DEFAULT_MAX_BATCH_MS,
+            label = "Maximum number of millis a flow mod is held back for batching; default is 1")
+    private int flowModBatchMs = FlowModBatching.DEFAULT_MAX_BATCH_MS;
+
     protected ExecutorService executorMsgs =
         Executors.newFixedThreadPool(32, groupedThreads("onos/of", "event-stats-%d"));
 
@@ -144,6 +187,11 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     protected Multimap<Dpid, OFFlowStatsEntry> fullFlowStats =
             ArrayListMultimap.create();
 
+    // Last flow stats part handed to the listeners for each switch; parts are
+    // chained so that they reach the listeners in the order they arrived
+    protected ConcurrentMap<Dpid, CompletableFuture<Void>> flowStatsParts =
+            new ConcurrentHashMap<>();
+
     protected Multimap<Dpid, OFTableStatsEntry> fullTableStats =
             ArrayListMultimap.create();
 
@@ -156,13 +204,30 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     protected Multimap<Dpid, OFPortStatsEntry> fullPortStats =
             ArrayListMultimap.create();
 
+    // Delivers packet-in messages off the I/O threads; when null, packet-ins
+    // are processed in-line
+    protected volatile PacketInPipeline packetInPipeline;
+
+    // Flushes the flow mods held back by the switches; accumulation settings
+    // and write counters are shared by all switches
+    private ScheduledExecutorService flowModFlushExecutor;
+    private volatile FlowModBatching flowModBatching;
+
     private final Controller ctrl = new Controller();
 
     @Activate
     public void activate(ComponentContext context) {
         coreService.registerApplication(APP_ID, this::preDeactivate);
         cfgService.registerProperties(getClass());
-        ctrl.setConfigParams(context.getProperties());
+        Dictionary<?, ?> properties = context.getProperties();
+        readPacketInConfig(properties);
+        flowModFlushExecutor = Executors.newSingleThreadScheduledExecutor(
+                groupedThreads("onos/of", "flow-mod-flush"));
+        flowModBatching = new FlowModBatching(flowModFlushExecutor, flowModBatchSize, flowModBatchMs);
+        readFlowModBatchConfig(properties);
+        startPacketInPipeline();
+        registerFlowModMetrics();
+        ctrl.setConfigParams(properties);
         ctrl.start(agent, driverService);
     }
 
@@ -175,6 +240,10 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     @Deactivate
     public void deactivate() {
         cfgService.unregisterProperties(getClass(), false);
+        stopPacketInPipeline();
+        unregisterFlowModMetrics();
+        // Flow mods still held back go out once their window expires
+        flowModFlushExecutor.shutdown();
         connectedSwitches.clear();
         activeMasterSwitches.clear();
         activeEqualSwitches.clear();
@@ -182,11 +251,124 @@ public class OpenFlowControllerImpl implements OpenFlowController {
 
     @Modified
     public void modified(ComponentContext context) {
+        Dictionary<?, ?> properties = context.getProperties();
+        if (readPacketInConfig(properties)) {
+            // Messages still queued in the old pipeline are delivered
+            // concurrently with the new one only during the switch-over.
+            stopPacketInPipeline();
+            startPacketInPipeline();
+        }
+        readFlowModBatchConfig(properties);
         ctrl.stop();
-        ctrl.setConfigParams(context.getProperties());
+        ctrl.setConfigParams(properties);
         ctrl.start(agent, driverService);
     }
 
+    // Reads the packet-in pipeline settings; returns true if they changed.
+    private boolean readPacketInConfig(Dictionary<?, ?> properties) {
+        int newWorkers, newQueueSize;
+        try {
+            String s = get(properties, "packetInWorkers");
+            newWorkers = isNullOrEmpty(s) ? packetInWorkers : Integer.parseInt(s.trim());
+
+            s = get(properties, "packetInQueueSize");
+            newQueueSize = isNullOrEmpty(s) ? packetInQueueSize : Integer.parseInt(s.trim());
+        } catch (NumberFormatException | ClassCastException e) {
+            newWorkers = DEFAULT_PACKET_IN_WORKERS;
+            newQueueSize = DEFAULT_PACKET_IN_QUEUE_SIZE;
+        }
+
+        if (newWorkers <= 0 || newQueueSize <= 0) {
+            log.warn("Ignoring invalid packet-in settings: workers={}, queueSize={}",
+                     newWorkers, newQueueSize);
+            return false;
+        }
+
+        boolean changed = newWorkers != packetInWorkers || newQueueSize != packetInQueueSize;
+        packetInWorkers = newWorkers;
+        packetInQueueSize = newQueueSize;
+        log.info("Settings: packetInWorkers={}, packetInQueueSize={}", packetInWorkers, packetInQueueSize);
+        return changed;
+    }
+
+    // Reads the flow mod batching settings and applies them to the connected
+    // switches as well as to those connecting from now on.
+    private void readFlowModBatchConfig(Dictionary<?, ?> properties) {
+        int newBatchSize, newBatchMs;
+        try {
+            String s = get(properties, "flowModBatchSize");
+            newBatchSize = isNullOrEmpty(s) ? flowModBatchSize : Integer.parseInt(s.trim());
+
+            s = get(properties, "flowModBatchMs");
+            newBatchMs = isNullOrEmpty(s) ? flowModBatchMs : Integer.parseInt(s.trim());
+        } catch (NumberFormatException | ClassCastException e) {
+            newBatchSize = FlowModBatching.DEFAULT_MAX_BATCH_SIZE;
+            newBatchMs = FlowModBatching.DEFAULT_MAX_BATCH_MS;
+        }
+
+        flowModBatchSize = newBatchSize;
+        flowModBatchMs = newBatchMs;
+        flowModBatching = flowModBatching.withLimits(flowModBatchSize, flowModBatchMs);
+        ctrl.setFlowModBatching(flowModBatching);
+        connectedSwitches.values().stream()
+                .filter(sw -> sw instanceof OpenFlowSwitchDriver)
+                .forEach(sw -> ((OpenFlowSwitchDriver) sw).setFlowModBatching(flowModBatching));
+        log.info("Settings: flowModBatchSize={}, flowModBatchMs={}", flowModBatchSize, flowModBatchMs);
+    }
+
+    private void registerFlowModMetrics() {
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FLOW_MOD_FEATURE);
+            metricsService.registerMetric(component, feature, "writes",
+                                          (Gauge<Long>) () -> flowModBatching.writes());
+            metricsService.registerMetric(component, feature, "flowMods",
+                                          (Gauge<Long>) () -> flowModBatching.flowModsWritten());
+        }
+    }
+
+    private void unregisterFlowModMetrics() {
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FLOW_MOD_FEATURE);
+            metricsService.removeMetric(component, feature, "writes");
+            metricsService.removeMetric(component, feature, "flowMods");
+        }
+    }
+
+    private void startPacketInPipeline() {
+        if (metricsService == null) {
+            packetInPipeline = new PacketInPipeline(packetInWorkers, packetInQueueSize, null);
+            return;
+        }
+        MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+        PacketInPipeline pipeline =
+                new PacketInPipeline(packetInWorkers, packetInQueueSize,
+                                     metricsService.createTimer(component, feature, "latency"));
+        metricsService.registerMetric(component, feature, "queueDepth",
+                                      (Gauge<Integer>) pipeline::queueDepth);
+        metricsService.registerMetric(component, feature, "dropped",
+                                      (Gauge<Long>) pipeline::dropped);
+        packetInPipeline = pipeline;
+    }
+
+    private void stopPacketInPipeline() {
+        PacketInPipeline pipeline = packetInPipeline;
+        packetInPipeline = null;
+        if (pipeline == null) {
+            return;
+        }
+        pipeline.shutdown();
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            metricsService.removeMetric(component, feature, "queueDepth");
+            metricsService.removeMetric(component, feature, "dropped");
+            metricsService.removeMetric(component, feature, "latency");
+        }
+    }
+
     @Override
     public Iterable<OpenFlowSwitch> getSwitches() {
         return connectedSwitches.values();
@@ -279,11 +461,11 @@ public class OpenFlowControllerImpl implements OpenFlowController {
             }
             break;
         case PACKET_IN:
-            OpenFlowPacketContext pktCtx = DefaultOpenFlowPacketContext
-            .packetContextFromPacketIn(this.getSwitch(dpid),
-                    (OFPacketIn) msg);
-            for (PacketListener p : ofPacketListener.values()) {
-                p.handlePacket(pktCtx);
+            PacketInPipeline pipeline = packetInPipeline;
+            if (pipeline == null) {
+                processPacketIn(dpid, (OFPacketIn) msg);
+            } else if (!pipeline.submit(dpid, () -> processPacketIn(dpid, (OFPacketIn) msg))) {
+                log.debug("Dropped packet-in from {}; packet-in queue is full", dpid);
             }
             if (monitorAllEvents) {
                 executorPacketIn.submit(new OFMessageHandler(dpid, msg));
@@ -309,14 +491,9 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                     }
                     break;
                 case FLOW:
-                    flowStats = publishFlowStats(dpid, (OFFlowStatsReply) reply);
-                    if (flowStats != null) {
-                        OFFlowStatsReply.Builder rep =
-                                OFFactories.getFactory(msg.getVersion()).buildFlowStatsReply();
-                        rep.setEntries(Lists.newLinkedList(flowStats));
-                        rep.setXid(reply.getXid());
-                        executorMsgs.submit(new OFMessageHandler(dpid, rep.build()));
-                    }
+                    // parts are passed on as they arrive, so listeners can
+                    // start on a large reply before the switch is done with it
+                    publishFlowStatsPart(dpid, reply);
                     break;
                 case TABLE:
                     tableStats = publishTableStats(dpid, (OFTableStatsReply) reply);
@@ -435,6 +612,22 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         }
     }
 
+    // Hands the packet-in over to the packet listeners.
+    private void processPacketIn(Dpid dpid, OFPacketIn packetIn) {
+        OpenFlowPacketContext pktCtx = DefaultOpenFlowPacketContext
+                .packetContextFromPacketIn(this.getSwitch(dpid), packetIn);
+        for (PacketListener p : ofPacketListener.values()) {
+            p.handlePacket(pktCtx);
+        }
+    }
+
+    private void publishFlowStatsPart(Dpid dpid, OFStatsReply reply) {
+        OFMessageHandler handler = new OFMessageHandler(dpid, reply);
+        flowStatsParts.compute(dpid, (k, last) -> last == null ?
+                CompletableFuture.runAsync(handler, executorMsgs) :
+                last.whenCompleteAsync((r, e) -> handler.run(), executorMsgs));
+    }
+
     private synchronized Collection<OFFlowStatsEntry> publishFlowStats(Dpid dpid,
                                                                        OFFlowStatsReply reply) {
         //TODO: Get rid of synchronized
@@ -623,6 +816,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         @Override
         public void removeConnectedSwitch(Dpid dpid) {
             connectedSwitches.remove(dpid);
+            flowStatsParts.remove(dpid);
             OpenFlowSwitch sw = activeMasterSwitches.remove(dpid);
             if (sw == null) {
                 log.debug("sw was null for {}", dpid);
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import com.codahale.metrics.Timer;
+import org.onosproject.openflow.controller.Dpid;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.onlab.util.Tools.groupedThreads;
+
+/**
+ * Bounded stage for delivering packet-in messages off the I/O threads.
+ * Messages are sharded by switch dpid onto single-threaded workers, which
+ * preserves the per-switch ordering. Messages arriving at a shard whose
+ * queue is full are dropped and counted.
+ */
+final class PacketInPipeline {
+
+    private final ThreadPoolExecutor[] shards;
+    private final Timer latency;
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Creates a new packet-in pipeline.
+     *
+     * @param shardCount number of worker shards
+     * @param queueSize  maximum number of messages queued per shard
+     * @param latency    timer for queueing and processing latency; may be null
+     */
+    PacketInPipeline(int shardCount, int queueSize, Timer latency) {
+        checkArgument(shardCount > 0, "Shard count must be positive");
+        checkArgument(queueSize > 0, "Queue size must be positive");
+        this.latency = latency;
+        this.shards = new ThreadPoolExecutor[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                                               new ArrayBlockingQueue<>(queueSize),
+                                               groupedThreads("onos/of", "packet-in-" + i + "-%d"));
+        }
+    }
+
+    /**
+     * Queues the task on the shard serving the specified switch.
+     *
+     * @param dpid switch dpid
+     * @param task packet-in processing task
+     * @return true if queued; false if the task was dropped
+     */
+    boolean submit(Dpid dpid, Runnable task) {
+        ThreadPoolExecutor shard = shards[(int) ((dpid.value() & Long.MAX_VALUE) % shards.length)];
+        long queued = System.nanoTime();
+        try {
+            shard.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    if (latency != null) {
+                        latency.update(System.nanoTime() - queued, TimeUnit.NANOSECONDS);
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            dropped.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Returns the number of messages waiting across all shards.
+     *
+     * @return queue depth
+     */
+    int queueDepth() {
+        int depth = 0;
+        for (ThreadPoolExecutor shard : shards) {
+            depth += shard.getQueue().size();
+        }
+        return depth;
+    }
+
+    /**
+     * Returns the number of messages dropped due to full shard queues.
+     *
+     * @return number of dropped messages
+     */
+    long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops accepting new messages; messages already queued are still
+     * delivered.
+     */
+    void shutdown() {
+        for (ThreadPoolExecutor shard : shards) {
+            shard.shutdown();
+        }
+    }
+}
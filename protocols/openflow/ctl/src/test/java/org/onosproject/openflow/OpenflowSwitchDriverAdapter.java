@@ -17,13 +17,14 @@ package org.onosproject.openflow;
 
 import java.util.List;
 
-import org.jboss.netty.channel.Channel;
+import io.netty.channel.Channel;
 import org.onosproject.net.Device;
 import org.onosproject.net.driver.DriverData;
 import org.onosproject.net.driver.DriverHandler;
 import org.onosproject.openflow.controller.Dpid;
 import org.onosproject.openflow.controller.OpenFlowEventListener;
 import org.onosproject.openflow.controller.RoleState;
+import org.onosproject.openflow.controller.driver.FlowModBatching;
 import org.onosproject.openflow.controller.driver.OpenFlowAgent;
 import org.onosproject.openflow.controller.driver.OpenFlowSwitchDriver;
 import org.onosproject.openflow.controller.driver.RoleHandler;
@@ -50,6 +51,11 @@ public class OpenflowSwitchDriverAdapter implements OpenFlowSwitchDriver {
 
     }
 
+    @Override
+    public void setFlowModBatching(FlowModBatching batching) {
+
+    }
+
     @Override
     public void setRoleHandler(RoleHandler roleHandler) {
 
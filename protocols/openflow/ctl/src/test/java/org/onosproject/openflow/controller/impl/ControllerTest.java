@@ -164,11 +164,13 @@ public class ControllerTest {
         Dictionary<String, String> properties = new Hashtable<>();
         properties.put("openflowPorts", "1,2,3,4,5");
         properties.put("workerThreads", "5");
+        properties.put("handlerThreads", "3");
 
         controller.setConfigParams(properties);
         IntStream.rangeClosed(1, 5)
                 .forEach(i -> assertThat(controller.openFlowPorts, hasItem(i)));
         assertThat(controller.workerThreads, is(5));
+        assertThat(controller.handlerThreads, is(3));
     }
 
     /**
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import org.junit.After;
+import org.junit.Test;
+import org.onosproject.openflow.controller.Dpid;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the sharded packet-in pipeline.
+ */
+public class PacketInPipelineTest {
+
+    private static final Dpid DPID1 = new Dpid(1);
+    private static final Dpid DPID2 = new Dpid(2);
+
+    private PacketInPipeline pipeline;
+
+    @After
+    public void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void perSwitchOrdering() throws InterruptedException {
+        pipeline = new PacketInPipeline(4, 1000, null);
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(500);
+        for (int i = 0; i < 500; i++) {
+            int n = i;
+            assertTrue("packet should be queued", pipeline.submit(DPID1, () -> {
+                seen.add(n);
+                done.countDown();
+            }));
+        }
+        assertTrue("packets not processed", done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 500; i++) {
+            assertEquals("packet out of order", i, (int) seen.get(i));
+        }
+    }
+
+    @Test
+    public void dropWhenFull() throws InterruptedException {
+        pipeline = new PacketInPipeline(2, 1, null);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Park the worker for DPID1, then fill its single-slot queue
+        assertTrue(pipeline.submit(DPID1, () -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue("worker not started", blocked.await(5, TimeUnit.SECONDS));
+        assertTrue(pipeline.submit(DPID1, () -> { }));
+        assertEquals("incorrect queue depth", 1, pipeline.queueDepth());
+
+        assertFalse("packet should be dropped", pipeline.submit(DPID1, () -> { }));
+        assertEquals("incorrect drop count", 1, pipeline.dropped());
+
+        // Other switches on other shards are unaffected
+        CountDownLatch other = new CountDownLatch(1);
+        assertTrue(pipeline.submit(DPID2, other::countDown));
+        assertTrue("other switch blocked", other.await(5, TimeUnit.SECONDS));
+
+        release.countDown();
+    }
+}
@@ -15,18 +15,48 @@
  */
 package org.onosproject.ovsdb.controller;
 
+import java.util.Locale;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 
+import org.onosproject.ovsdb.rfc.notation.Column;
 import org.onosproject.ovsdb.rfc.notation.Row;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 /**
  * The class representing a table data.
+ * <p>
+ * Rows may be looked up by the value of one indexed column, compared
+ * case-insensitively. Typed views of the rows are cached until the row is
+ * replaced or deleted.
+ * </p>
  */
 public class OvsdbRowStore {
 
     private final ConcurrentMap<String, Row> rowStore = Maps.newConcurrentMap();
+    private final ConcurrentMap<String, View> views = Maps.newConcurrentMap();
+    private final ConcurrentMap<String, Set<String>> index = Maps.newConcurrentMap();
+    private final String indexedColumn;
+
+    /**
+     * Creates a row store without an index.
+     */
+    public OvsdbRowStore() {
+        this(null);
+    }
+
+    /**
+     * Creates a row store indexing the rows by the given column.
+     *
+     * @param indexedColumn name of the indexed column; null for none
+     */
+    public OvsdbRowStore(String indexedColumn) {
+        this.indexedColumn = indexedColumn;
+    }
 
     /**
      * Gets the row.
@@ -44,8 +74,15 @@ public class OvsdbRowStore {
      * @param uuid key of the row
      * @param row a row of the table
      */
-    public void insertRow(String uuid, Row row) {
-        rowStore.put(uuid, row);
+    public synchronized void insertRow(String uuid, Row row) {
+        Row old = rowStore.put(uuid, row);
+        if (old != null) {
+            unindex(uuid, old);
+        }
+        String key = indexKey(row);
+        if (key != null) {
+            index.computeIfAbsent(key, k -> Sets.newConcurrentHashSet()).add(uuid);
+        }
     }
 
     /**
@@ -53,8 +90,58 @@ public class OvsdbRowStore {
      *
      * @param uuid key of the row
      */
-    public void deleteRow(String uuid) {
-        rowStore.remove(uuid);
+    public synchronized void deleteRow(String uuid) {
+        Row old = rowStore.remove(uuid);
+        views.remove(uuid);
+        if (old != null) {
+            unindex(uuid, old);
+        }
+    }
+
+    /**
+     * Gets the uuids of the rows whose indexed column has the given value.
+     *
+     * @param value value of the indexed column
+     * @return uuids of the matching rows, empty if none match
+     */
+    public Set<String> getUuids(String value) {
+        if (indexedColumn == null) {
+            throw new IllegalStateException("Row store has no index");
+        }
+        Set<String> uuids = index.get(value.toLowerCase(Locale.ROOT));
+        return uuids == null ? ImmutableSet.of() : ImmutableSet.copyOf(uuids);
+    }
+
+    /**
+     * Gets the typed view of a row, creating it with the given generator
+     * unless it is cached already.
+     *
+     * @param uuid key of the row
+     * @param generator function creating the view of a row
+     * @param <T> type of the view
+     * @return view of the row, null if there is no such row
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getView(String uuid, Function<Row, T> generator) {
+        Row row = rowStore.get(uuid);
+        if (row == null) {
+            return null;
+        }
+        // a cached view is valid only as long as its row is not replaced
+        View cached = views.get(uuid);
+        if (cached != null && cached.row == row) {
+            return (T) cached.view;
+        }
+        T view = generator.apply(row);
+        if (view != null) {
+            View created = new View(row, view);
+            views.put(uuid, created);
+            if (rowStore.get(uuid) != row) {
+                // the row was replaced or deleted meanwhile
+                views.remove(uuid, created);
+            }
+        }
+        return view;
     }
 
     /**
@@ -66,4 +153,36 @@ public class OvsdbRowStore {
         return rowStore;
     }
 
+    private void unindex(String uuid, Row row) {
+        String key = indexKey(row);
+        if (key != null) {
+            index.computeIfPresent(key, (k, uuids) -> {
+                uuids.remove(uuid);
+                return uuids.isEmpty() ? null : uuids;
+            });
+        }
+    }
+
+    private String indexKey(Row row) {
+        if (indexedColumn == null) {
+            return null;
+        }
+        Column column = row.getColumn(indexedColumn);
+        if (column == null || !(column.data() instanceof String)) {
+            return null;
+        }
+        return ((String) column.data()).toLowerCase(Locale.ROOT);
+    }
+
+    // Typed view of a row, along with the row it was created from.
+    private static final class View {
+        private final Row row;
+        private final Object view;
+
+        private View(Row row, Object view) {
+            this.row = row;
+            this.view = view;
+        }
+    }
+
 }
@@ -18,6 +18,7 @@ package org.onosproject.ovsdb.controller.driver;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -97,6 +98,13 @@ public class DefaultOvsdbClient
     private final Logger log = LoggerFactory
             .getLogger(DefaultOvsdbClient.class);
 
+    // columns by which the rows of each table are looked up
+    private static final Map<String, String> INDEXED_COLUMNS = ImmutableMap.of(
+            OvsdbConstant.BRIDGE, Bridge.BridgeColumn.NAME.columnName(),
+            OvsdbConstant.PORT, Port.PortColumn.NAME.columnName(),
+            OvsdbConstant.INTERFACE, Interface.InterfaceColumn.NAME.columnName(),
+            OvsdbConstant.CONTROLLER, Controller.ControllerColumn.TARGET.columnName());
+
     private Channel channel;
 
     private OvsdbAgent agent;
@@ -188,7 +196,7 @@ public class DefaultOvsdbClient
 
         OvsdbRowStore rowStore = tableStore.getRows(tableName);
         if (rowStore == null) {
-            rowStore = new OvsdbRowStore();
+            rowStore = new OvsdbRowStore(INDEXED_COLUMNS.get(tableName));
         }
         return rowStore;
     }
@@ -236,22 +244,34 @@ public class DefaultOvsdbClient
         }
         OvsdbRowStore rowStore = tableStore.getRows(tableName);
         if (rowStore == null) {
-            rowStore = new OvsdbRowStore();
+            rowStore = new OvsdbRowStore(INDEXED_COLUMNS.get(tableName));
         }
         rowStore.insertRow(uuid, row);
         tableStore.createOrUpdateTable(tableName, rowStore);
         ovsdbStore.createOrUpdateOvsdbStore(dbName, tableStore);
     }
 
-    @Override
-    public String getPortUuid(String portName, String bridgeUuid) {
+    /**
+     * Gets the typed view of an ovsdb row, cached by its row store.
+     *
+     * @param tableName the ovsdb table name
+     * @param uuid      the key of the row
+     * @param table     the ovsdb table of the row
+     * @return typed view of the row, null if row is not found
+     */
+    private Object getTable(String tableName, String uuid, OvsdbTable table) {
         DatabaseSchema dbSchema = schema.get(OvsdbConstant.DATABASENAME);
+        OvsdbRowStore rowStore = getRowStore(OvsdbConstant.DATABASENAME, tableName);
+        if (rowStore == null || uuid == null) {
+            return null;
+        }
+        return rowStore.getView(uuid, row -> TableGenerator.getTable(dbSchema, row, table));
+    }
 
-        Row bridgeRow = getRow(OvsdbConstant.DATABASENAME,
-                               OvsdbConstant.BRIDGE, bridgeUuid);
-
-        Bridge bridge = (Bridge) TableGenerator.getTable(dbSchema, bridgeRow,
-                                                         OvsdbTable.BRIDGE);
+    @Override
+    public String getPortUuid(String portName, String bridgeUuid) {
+        Bridge bridge = (Bridge) getTable(OvsdbConstant.BRIDGE, bridgeUuid,
+                                          OvsdbTable.BRIDGE);
         if (bridge != null) {
             OvsdbSet setPorts = (OvsdbSet) bridge.getPortsColumn().data();
             @SuppressWarnings("unchecked")
@@ -261,13 +281,14 @@ public class DefaultOvsdbClient
                 return null;
             }
 
-            for (UUID uuid : ports) {
-                Row portRow = getRow(OvsdbConstant.DATABASENAME,
-                                     OvsdbConstant.PORT, uuid.value());
-                Port port = (Port) TableGenerator.getTable(dbSchema, portRow,
-                                                           OvsdbTable.PORT);
-                if (port != null && portName.equalsIgnoreCase(port.getName())) {
-                    return uuid.value();
+            OvsdbRowStore rowStore = getRowStore(OvsdbConstant.DATABASENAME,
+                                                 OvsdbConstant.PORT);
+            if (rowStore == null) {
+                return null;
+            }
+            for (String uuid : rowStore.getUuids(portName)) {
+                if (ports.contains(UUID.uuid(uuid))) {
+                    return uuid;
                 }
             }
 
@@ -277,12 +298,8 @@ public class DefaultOvsdbClient
 
     @Override
     public String getInterfaceUuid(String portUuid, String portName) {
-        DatabaseSchema dbSchema = schema.get(OvsdbConstant.DATABASENAME);
-
-        Row portRow = getRow(OvsdbConstant.DATABASENAME, OvsdbConstant.PORT,
-                             portUuid);
-        Port port = (Port) TableGenerator.getTable(dbSchema, portRow,
-                                                   OvsdbTable.PORT);
+        Port port = (Port) getTable(OvsdbConstant.PORT, portUuid,
+                                    OvsdbTable.PORT);
 
         if (port != null) {
             OvsdbSet setInterfaces = (OvsdbSet) port.getInterfacesColumn().data();
@@ -294,13 +311,14 @@ public class DefaultOvsdbClient
                 return null;
             }
 
-            for (UUID uuid : interfaces) {
-                Row intfRow = getRow(OvsdbConstant.DATABASENAME,
-                                     OvsdbConstant.INTERFACE, uuid.value());
-                Interface intf = (Interface) TableGenerator
-                        .getTable(dbSchema, intfRow, OvsdbTable.INTERFACE);
-                if (intf != null && portName.equalsIgnoreCase(intf.getName())) {
-                    return uuid.value();
+            OvsdbRowStore rowStore = getRowStore(OvsdbConstant.DATABASENAME,
+                                                 OvsdbConstant.INTERFACE);
+            if (rowStore == null) {
+                return null;
+            }
+            for (String uuid : rowStore.getUuids(portName)) {
+                if (interfaces.contains(UUID.uuid(uuid))) {
+                    return uuid;
                 }
             }
 
@@ -311,8 +329,6 @@ public class DefaultOvsdbClient
 
     @Override
     public String getBridgeUuid(String bridgeName) {
-        DatabaseSchema dbSchema = schema.get(OvsdbConstant.DATABASENAME);
-
         OvsdbRowStore rowStore = getRowStore(OvsdbConstant.DATABASENAME,
                                              OvsdbConstant.BRIDGE);
         if (rowStore == null) {
@@ -320,21 +336,13 @@ public class DefaultOvsdbClient
             return null;
         }
 
-        ConcurrentMap<String, Row> bridgeTableRows = rowStore.getRowStore();
-        if (bridgeTableRows == null) {
-            log.debug("The bridge uuid is null");
-            return null;
-        }
-
-        for (String uuid : bridgeTableRows.keySet()) {
-            Bridge bridge = (Bridge) TableGenerator
-                    .getTable(dbSchema, bridgeTableRows.get(uuid),
-                              OvsdbTable.BRIDGE);
-
-            if (bridge.getName().equals(bridgeName)) {
+        // the index ignores case while bridge names must match exactly
+        for (String uuid : rowStore.getUuids(bridgeName)) {
+            Bridge bridge = (Bridge) getTable(OvsdbConstant.BRIDGE, uuid,
+                                              OvsdbTable.BRIDGE);
+            if (bridge != null && bridge.getName().equals(bridgeName)) {
                 return uuid;
             }
-
         }
         return null;
     }
@@ -342,7 +350,6 @@ public class DefaultOvsdbClient
     @Override
     public String getControllerUuid(String controllerName,
                                     String controllerTarget) {
-        DatabaseSchema dbSchema = schema.get(OvsdbConstant.DATABASENAME);
         OvsdbRowStore rowStore = getRowStore(OvsdbConstant.DATABASENAME,
                                              OvsdbConstant.CONTROLLER);
         if (rowStore == null) {
@@ -350,21 +357,8 @@ public class DefaultOvsdbClient
             return null;
         }
 
-        ConcurrentMap<String, Row> controllerTableRows = rowStore.getRowStore();
-        if (controllerTableRows != null) {
-            for (String uuid : controllerTableRows.keySet()) {
-
-                Controller controller = (Controller) TableGenerator
-                        .getTable(dbSchema, controllerTableRows.get(uuid),
-                                  OvsdbTable.CONTROLLER);
-                String target = (String) controller.getTargetColumn().data();
-                if (target.equalsIgnoreCase(controllerTarget)) {
-                    return uuid;
-                }
-
-            }
-        }
-        return null;
+        Set<String> uuids = rowStore.getUuids(controllerTarget);
+        return uuids.isEmpty() ? null : uuids.iterator().next();
     }
 
     @Override
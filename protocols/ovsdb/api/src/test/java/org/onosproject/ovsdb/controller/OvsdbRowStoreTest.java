@@ -0,0 +1,86 @@
+/*
+ * Copyright 2014 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.ovsdb.controller;
+
+import org.junit.Test;
+import org.onosproject.ovsdb.rfc.notation.Column;
+import org.onosproject.ovsdb.rfc.notation.Row;
+
+import com.google.common.collect.ImmutableSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for OvsdbRowStore.
+ */
+public class OvsdbRowStoreTest {
+
+    private static final String NAME = "name";
+
+    private static Row row(String name) {
+        Row row = new Row();
+        row.setTableName("Port");
+        row.addColumn(NAME, new Column(NAME, name));
+        return row;
+    }
+
+    @Test
+    public void testIndex() {
+        OvsdbRowStore rowStore = new OvsdbRowStore(NAME);
+        rowStore.insertRow("u1", row("tap1"));
+        rowStore.insertRow("u2", row("tap2"));
+        rowStore.insertRow("u3", row("TAP2"));
+
+        assertEquals(ImmutableSet.of("u1"), rowStore.getUuids("tap1"));
+        assertEquals(ImmutableSet.of("u2", "u3"), rowStore.getUuids("Tap2"));
+        assertTrue(rowStore.getUuids("tap3").isEmpty());
+
+        rowStore.insertRow("u1", row("tap3"));
+        assertTrue(rowStore.getUuids("tap1").isEmpty());
+        assertEquals(ImmutableSet.of("u1"), rowStore.getUuids("tap3"));
+
+        rowStore.deleteRow("u2");
+        assertEquals(ImmutableSet.of("u3"), rowStore.getUuids("tap2"));
+        assertNull(rowStore.getRow("u2"));
+    }
+
+    @Test
+    public void testViews() {
+        OvsdbRowStore rowStore = new OvsdbRowStore(NAME);
+        assertNull(rowStore.getView("u1", row -> row.getColumn(NAME).data()));
+
+        Row row1 = row("tap1");
+        rowStore.insertRow("u1", row1);
+        Object view = rowStore.getView("u1", row -> new StringBuilder((String) row.getColumn(NAME).data()));
+        assertEquals("tap1", view.toString());
+        assertSame(view, rowStore.getView("u1", row -> new StringBuilder()));
+
+        rowStore.insertRow("u1", row("tap2"));
+        Object updated = rowStore.getView("u1", row -> new StringBuilder((String) row.getColumn(NAME).data()));
+        assertEquals("tap2", updated.toString());
+
+        rowStore.deleteRow("u1");
+        assertNull(rowStore.getView("u1", row -> new StringBuilder()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNoIndex() {
+        new OvsdbRowStore().getUuids("tap1");
+    }
+}
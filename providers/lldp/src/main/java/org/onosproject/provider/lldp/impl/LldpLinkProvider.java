@@ -46,6 +46,7 @@ import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.onlab.packet.Ethernet;
+import org.onlab.packet.PacketView;
 import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterMetadata;
@@ -641,6 +642,11 @@ public class LldpLinkProvider extends AbstractProvider implements LinkProvider {
                 return;
             }
 
+            // Filter on the header view, sparing the parsing of other packets
+            PacketView view = context.inPacket().view();
+            if (view != null && view.ethType() != TYPE_LLDP && view.ethType() != TYPE_BSN) {
+                return;
+            }
             Ethernet eth = context.inPacket().parsed();
             if (eth == null || (eth.getEtherType() != TYPE_LLDP && eth.getEtherType() != TYPE_BSN)) {
                 return;
@@ -15,7 +15,7 @@
  */
 package org.onosproject.provider.of.flow.impl;
 
-import org.onlab.util.SharedExecutors;
+import org.onosproject.openflow.controller.Dpid;
 import org.onosproject.openflow.controller.OpenFlowSwitch;
 import org.onosproject.openflow.controller.RoleState;
 import org.projectfloodlight.openflow.protocol.OFFlowStatsRequest;
@@ -23,8 +23,8 @@ import org.projectfloodlight.openflow.types.OFPort;
 import org.projectfloodlight.openflow.types.TableId;
 import org.slf4j.Logger;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -38,20 +38,20 @@ class FlowStatsCollector {
     public static final int SECONDS = 1000;
 
     private final OpenFlowSwitch sw;
-    private Timer timer;
-    private TimerTask task;
+    private final FlowStatsScheduler scheduler;
+    private ScheduledFuture<?> task;
 
     private int pollInterval;
 
     /**
      * Creates a new collector for the given switch and poll frequency.
      *
-     * @param timer        timer to use for scheduling
+     * @param scheduler    scheduler to use for polling
      * @param sw           switch to pull
      * @param pollInterval poll frequency in seconds
      */
-    FlowStatsCollector(Timer timer, OpenFlowSwitch sw, int pollInterval) {
-        this.timer = timer;
+    FlowStatsCollector(FlowStatsScheduler scheduler, OpenFlowSwitch sw, int pollInterval) {
+        this.scheduler = scheduler;
         this.sw = sw;
         this.pollInterval = pollInterval;
     }
@@ -63,12 +63,13 @@ class FlowStatsCollector {
      */
     synchronized void adjustPollInterval(int pollInterval) {
         this.pollInterval = pollInterval;
-        task.cancel();
-        task = new InternalTimerTask();
-        timer.scheduleAtFixedRate(task, pollInterval * SECONDS, pollInterval * 1000);
+        if (task != null) {
+            task.cancel(false);
+        }
+        task = scheduler.schedule(new InternalPollTask(), pollInterval, pollInterval, TimeUnit.SECONDS);
     }
 
-    private class InternalTimerTask extends TimerTask {
+    private class InternalPollTask implements Runnable {
         @Override
         public void run() {
             if (sw.getRole() == RoleState.MASTER) {
@@ -78,7 +79,9 @@ class FlowStatsCollector {
                         .setTableId(TableId.ALL)
                         .setOutPort(OFPort.NO_MASK)
                         .build();
-                sw.sendMsg(request);
+                if (scheduler.acquire(new Dpid(sw.getId()), request.getXid())) {
+                    sw.sendMsg(request);
+                }
             }
         }
     }
@@ -86,14 +89,14 @@ class FlowStatsCollector {
     public synchronized void start() {
         // Initially start polling quickly. Then drop down to configured value
         log.debug("Starting Stats collection thread for {}", sw.getStringId());
-        task = new InternalTimerTask();
-        SharedExecutors.getTimer().scheduleAtFixedRate(task, 1 * SECONDS,
-                                                       pollInterval * SECONDS);
+        task = scheduler.schedule(new InternalPollTask(), 1, pollInterval, TimeUnit.SECONDS);
     }
 
     public synchronized void stop() {
         log.debug("Stopping Stats collection thread for {}", sw.getStringId());
-        task.cancel();
+        if (task != null) {
+            task.cancel(false);
+        }
         task = null;
     }
 
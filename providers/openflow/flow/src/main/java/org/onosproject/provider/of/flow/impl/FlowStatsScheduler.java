@@ -0,0 +1,215 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import com.codahale.metrics.Timer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.Maps;
+import org.onosproject.openflow.controller.Dpid;
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.onlab.util.Tools.groupedThreads;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Provider-wide scheduler for the flow statistics polls of all switches.
+ * <p>
+ * Poll tasks of all collectors share a small fixed pool of threads. The
+ * first run of each task is delayed by a random jitter of up to one period,
+ * so that polls of switches which connected together do not burst together.
+ * The number of flow statistics requests awaiting a reply across all
+ * switches is bounded by a budget, of which each polling switch may hold no
+ * more than an even share; requests whose reply does not arrive within
+ * {@link #REQUEST_TIMEOUT_SECONDS} are given up on.
+ * </p>
+ */
+final class FlowStatsScheduler {
+
+    static final int DEFAULT_POOL_SIZE = 4;
+    static final int DEFAULT_MAX_IN_FLIGHT = 5000;
+    static final int REQUEST_TIMEOUT_SECONDS = 30;
+
+    private final Logger log = getLogger(getClass());
+
+    private final ScheduledExecutorService executor;
+    private final Cache<Long, PendingRequest> pendingRequests;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Dpid, AtomicInteger> switchInFlight = Maps.newConcurrentMap();
+    private final Timer pollTimer;
+
+    private volatile int maxInFlight;
+
+    /**
+     * Creates a new scheduler.
+     *
+     * @param poolSize    number of polling threads
+     * @param maxInFlight maximum number of requests awaiting a reply
+     * @param pollTimer   timer of the polls, from request to reply; may be null
+     */
+    FlowStatsScheduler(int poolSize, int maxInFlight, Timer pollTimer) {
+        setMaxInFlight(maxInFlight);
+        this.pollTimer = pollTimer;
+        this.executor = Executors.newScheduledThreadPool(poolSize,
+                groupedThreads("onos/flow", "stats-collector-%d"));
+        this.pendingRequests = CacheBuilder.newBuilder()
+                .expireAfterWrite(REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .removalListener((RemovalNotification<Long, PendingRequest> notification) -> {
+                    inFlight.decrementAndGet();
+                    notification.getValue().held.decrementAndGet();
+                })
+                .build();
+    }
+
+    /**
+     * Adjusts the maximum number of requests awaiting a reply.
+     *
+     * @param maxInFlight maximum number of requests awaiting a reply
+     */
+    void setMaxInFlight(int maxInFlight) {
+        checkArgument(maxInFlight > 0, "In-flight request budget must be positive");
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Schedules a periodic poll task. The first run is delayed by the given
+     * initial delay plus a random jitter of up to one period.
+     *
+     * @param task         poll task
+     * @param initialDelay minimum delay before the first run
+     * @param period       delay between the end of a run and the next one
+     * @param unit         time unit of the delay and period
+     * @return future of the scheduled task, used for cancelling it
+     */
+    ScheduledFuture<?> schedule(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        long jitter = ThreadLocalRandom.current().nextLong(Math.max(unit.toMillis(period), 1));
+        return executor.scheduleWithFixedDelay(task, unit.toMillis(initialDelay) + jitter,
+                                               unit.toMillis(period), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reserves a slot in the in-flight budget for a stats request about to
+     * be sent to a switch. A switch may hold no more slots than the budget
+     * divided among all switches which requested one.
+     *
+     * @param dpid switch dpid
+     * @param xid  transaction id of the request
+     * @return true if the request may be sent; false if the budget or the
+     * share of the switch is exhausted
+     */
+    boolean acquire(Dpid dpid, long xid) {
+        AtomicInteger held = switchInFlight.computeIfAbsent(dpid, k -> new AtomicInteger());
+        int share = Math.max(maxInFlight / switchInFlight.size(), 1);
+        if (inFlight.get() >= maxInFlight || held.get() >= share) {
+            // evict requests which timed out before giving up
+            pendingRequests.cleanUp();
+        }
+        if (held.incrementAndGet() > share) {
+            held.decrementAndGet();
+            log.debug("In-flight share of {} exhausted; skipping stats request", dpid);
+            return false;
+        }
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            held.decrementAndGet();
+            log.debug("In-flight budget exhausted; skipping stats request to {}", dpid);
+            return false;
+        }
+        pendingRequests.put(xid, new PendingRequest(dpid, held, System.nanoTime()));
+        return true;
+    }
+
+    /**
+     * Releases the slot held by the request answered by a stats reply and
+     * records the latency of the poll.
+     *
+     * @param xid transaction id of the reply
+     */
+    void completed(long xid) {
+        PendingRequest request = pendingRequests.getIfPresent(xid);
+        if (request == null) {
+            return;
+        }
+        pendingRequests.invalidate(xid);
+        long latency = System.nanoTime() - request.sent;
+        if (pollTimer != null) {
+            pollTimer.update(latency, TimeUnit.NANOSECONDS);
+        }
+        log.trace("Stats poll of {} took {} ms", request.dpid, TimeUnit.NANOSECONDS.toMillis(latency));
+    }
+
+    /**
+     * Returns the number of requests presently awaiting a reply.
+     *
+     * @return number of in-flight requests
+     */
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Returns the number of requests to a switch presently awaiting a reply.
+     *
+     * @param dpid switch dpid
+     * @return number of in-flight requests to the switch
+     */
+    int inFlight(Dpid dpid) {
+        AtomicInteger held = switchInFlight.get(dpid);
+        return held == null ? 0 : held.get();
+    }
+
+    /**
+     * Discards the state kept for a switch, leaving its share of the
+     * budget to the remaining switches.
+     *
+     * @param dpid switch dpid
+     */
+    void remove(Dpid dpid) {
+        switchInFlight.remove(dpid);
+    }
+
+    /**
+     * Stops all scheduled poll tasks.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+        pendingRequests.invalidateAll();
+        switchInFlight.clear();
+    }
+
+    private static final class PendingRequest {
+        private final Dpid dpid;
+        // slots held by the switch when the request was sent
+        private final AtomicInteger held;
+        private final long sent;
+
+        private PendingRequest(Dpid dpid, AtomicInteger held, long sent) {
+            this.dpid = dpid;
+            this.held = held;
+            this.sent = sent;
+        }
+    }
+}
@@ -28,6 +28,7 @@ import org.onosproject.net.flow.StoredFlowEntry;
 import org.onosproject.net.flow.TypedStoredFlowEntry;
 import org.onosproject.net.flow.instructions.Instruction;
 import org.onosproject.net.flow.instructions.Instructions;
+import org.onosproject.openflow.controller.Dpid;
 import org.onosproject.openflow.controller.OpenFlowSwitch;
 import org.onosproject.openflow.controller.RoleState;
 import org.projectfloodlight.openflow.protocol.OFFlowStatsRequest;
@@ -41,13 +42,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.net.flow.TypedStoredFlowEntry.FlowLiveType;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -59,9 +57,9 @@ public class NewAdaptiveFlowStatsCollector {
     private final Logger log = getLogger(getClass());
 
     private final OpenFlowSwitch sw;
+    private final Dpid dpid;
 
-    private ScheduledExecutorService adaptiveFlowStatsScheduler =
-            Executors.newScheduledThreadPool(4, groupedThreads("onos/flow", "device-stats-collector-%d"));
+    private final FlowStatsScheduler adaptiveFlowStatsScheduler;
     private ScheduledFuture<?> calAndShortFlowsThread;
     private ScheduledFuture<?> midFlowsThread;
     private ScheduledFuture<?> longFlowsThread;
@@ -106,11 +104,14 @@ public class NewAdaptiveFlowStatsCollector {
     /**
      * Creates a new adaptive collector for the given switch and default cal_and_poll frequency.
      *
+     * @param scheduler    scheduler to use for polling
      * @param sw           switch to pull
      * @param pollInterval cal and immediate poll frequency in seconds
      */
-    NewAdaptiveFlowStatsCollector(OpenFlowSwitch sw, int pollInterval) {
+    NewAdaptiveFlowStatsCollector(FlowStatsScheduler scheduler, OpenFlowSwitch sw, int pollInterval) {
+        this.adaptiveFlowStatsScheduler = scheduler;
         this.sw = sw;
+        this.dpid = new Dpid(sw.getId());
 
         initMemberVars(pollInterval);
     }
@@ -156,21 +157,21 @@ public class NewAdaptiveFlowStatsCollector {
         }
 
         calAndShortFlowsTask = new CalAndShortFlowsTask();
-        calAndShortFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
+        calAndShortFlowsThread = adaptiveFlowStatsScheduler.schedule(
                 calAndShortFlowsTask,
                 0,
                 calAndPollInterval,
                 TimeUnit.SECONDS);
 
         midFlowsTask = new MidFlowsTask();
-        midFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
+        midFlowsThread = adaptiveFlowStatsScheduler.schedule(
                 midFlowsTask,
                 0,
                 midPollInterval,
                 TimeUnit.SECONDS);
 
         longFlowsTask = new LongFlowsTask();
-        longFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
+        longFlowsThread = adaptiveFlowStatsScheduler.schedule(
                 longFlowsTask,
                 0,
                 longPollInterval,
@@ -189,10 +190,10 @@ public class NewAdaptiveFlowStatsCollector {
                     // isFirstTimeStart, get entire flow stats from a given switch sw
                     log.trace("CalAndShortFlowsTask Collecting Entire AdaptiveStats at first time start for {}",
                             sw.getStringId());
-                    ofFlowStatsRequestAllSend();
-
-                    callCountCalAndShortFlowsTask += CAL_AND_POLL_TIMES;
-                    isFirstTimeStart = false;
+                    if (ofFlowStatsRequestAllSend()) {
+                        callCountCalAndShortFlowsTask += CAL_AND_POLL_TIMES;
+                        isFirstTimeStart = false;
+                    }
                 } else  if (callCountCalAndShortFlowsTask == ENTIRE_POLL_TIMES) {
                     // entire_poll_times, get entire flow stats from a given switch sw
                     log.trace("CalAndShortFlowsTask Collecting Entire AdaptiveStats for {}", sw.getStringId());
@@ -209,14 +210,19 @@ public class NewAdaptiveFlowStatsCollector {
         }
     }
 
-    // send openflow flow stats request message with getting all flow entries to a given switch sw
-    private void ofFlowStatsRequestAllSend() {
+    // send openflow flow stats request message with getting all flow entries to a given switch sw;
+    // returns false if the request was held back by the in-flight budget of the scheduler
+    private boolean ofFlowStatsRequestAllSend() {
         OFFlowStatsRequest request = sw.factory().buildFlowStatsRequest()
                 .setMatch(sw.factory().matchWildcardAll())
                 .setTableId(TableId.ALL)
                 .setOutPort(OFPort.NO_MASK)
                 .build();
 
+        if (!adaptiveFlowStatsScheduler.acquire(dpid, request.getXid())) {
+            return false;
+        }
+
         synchronized (this) {
             // set the request xid to check the reply in OpenFlowRuleProvider
             // After processing the reply of this request message,
@@ -226,6 +232,7 @@ public class NewAdaptiveFlowStatsCollector {
 
             sw.sendMsg(request);
         }
+        return true;
     }
 
     // send openflow flow stats request message with getting the specific flow entry(fe) to a given switch sw
@@ -252,6 +259,10 @@ public class NewAdaptiveFlowStatsCollector {
                 .setOutPort(ofPort)
                 .build();
 
+        if (!adaptiveFlowStatsScheduler.acquire(dpid, request.getXid())) {
+            return;
+        }
+
         synchronized (this) {
             if (getFlowMissingXid() != NO_FLOW_MISSING_XID) {
                 log.debug("ofFlowStatsRequestFlowSend: previous FlowStatsRequestAll does not be processed yet,"
@@ -332,21 +343,21 @@ public class NewAdaptiveFlowStatsCollector {
 
         // Initially start polling quickly. Then drop down to configured value
         calAndShortFlowsTask = new CalAndShortFlowsTask();
-        calAndShortFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
+        calAndShortFlowsThread = adaptiveFlowStatsScheduler.schedule(
                 calAndShortFlowsTask,
                 1,
                 calAndPollInterval,
                 TimeUnit.SECONDS);
 
         midFlowsTask = new MidFlowsTask();
-        midFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
+        midFlowsThread = adaptiveFlowStatsScheduler.schedule(
                 midFlowsTask,
                 1,
                 midPollInterval,
                 TimeUnit.SECONDS);
 
         longFlowsTask = new LongFlowsTask();
-        longFlowsThread = adaptiveFlowStatsScheduler.scheduleWithFixedDelay(
+        longFlowsThread = adaptiveFlowStatsScheduler.schedule(
                 longFlowsTask,
                 1,
                 longPollInterval,
@@ -362,17 +373,15 @@ public class NewAdaptiveFlowStatsCollector {
     public synchronized void stop() {
         log.debug("Stopping AdaptiveStats collection thread for {}", sw.getStringId());
         if (calAndShortFlowsThread != null) {
-            calAndShortFlowsThread.cancel(true);
+            calAndShortFlowsThread.cancel(false);
         }
         if (midFlowsThread != null) {
-            midFlowsThread.cancel(true);
+            midFlowsThread.cancel(false);
         }
         if (longFlowsThread != null) {
-            longFlowsThread.cancel(true);
+            longFlowsThread.cancel(false);
         }
 
-        adaptiveFlowStatsScheduler.shutdownNow();
-
         isFirstTimeStart = false;
 
         log.info("Stopped");
@@ -15,6 +15,7 @@
  */
 package org.onosproject.provider.of.flow.impl;
 
+import com.codahale.metrics.Gauge;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalCause;
@@ -28,6 +29,9 @@ import org.apache.felix.scr.annotations.Modified;
 import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.net.DeviceId;
@@ -64,6 +68,7 @@ import org.projectfloodlight.openflow.protocol.OFFlowStatsReply;
 import org.projectfloodlight.openflow.protocol.OFMessage;
 import org.projectfloodlight.openflow.protocol.OFPortStatus;
 import org.projectfloodlight.openflow.protocol.OFStatsReply;
+import org.projectfloodlight.openflow.protocol.OFStatsReplyFlags;
 import org.projectfloodlight.openflow.protocol.OFStatsType;
 import org.projectfloodlight.openflow.protocol.OFTableStatsEntry;
 import org.projectfloodlight.openflow.protocol.OFTableStatsReply;
@@ -109,6 +114,12 @@ public class OpenFlowRuleProvider extends AbstractProvider
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected DriverService driverService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
+    private static final String METRICS_COMPONENT = "OpenFlowRuleProvider";
+    private static final String METRICS_FEATURE = "flowStats";
+
     private static final int DEFAULT_POLL_FREQUENCY = 5;
     @Property(name = "flowPollFrequency", intValue = DEFAULT_POLL_FREQUENCY,
             label = "Frequency (in seconds) for polling flow statistics")
@@ -119,6 +130,11 @@ public class OpenFlowRuleProvider extends AbstractProvider
             label = "Adaptive Flow Sampling is on or off")
     private boolean adaptiveFlowSampling = DEFAULT_ADAPTIVE_FLOW_SAMPLING;
 
+    private static final int DEFAULT_MAX_IN_FLIGHT_STATS_REQUESTS = FlowStatsScheduler.DEFAULT_MAX_IN_FLIGHT;
+    @Property(name = "maxInFlightStatsRequests", intValue = DEFAULT_MAX_IN_FLIGHT_STATS_REQUESTS,
+            label = "Maximum number of flow statistics requests awaiting a reply across all switches")
+    private int maxInFlightStatsRequests = DEFAULT_MAX_IN_FLIGHT_STATS_REQUESTS;
+
     private FlowRuleProviderService providerService;
 
     private final InternalFlowProvider listener = new InternalFlowProvider();
@@ -126,6 +142,7 @@ public class OpenFlowRuleProvider extends AbstractProvider
     private Cache<Long, InternalCacheEntry> pendingBatches;
 
     private final Timer timer = new Timer("onos-openflow-collector");
+    private FlowStatsScheduler statsScheduler;
     private final Map<Dpid, FlowStatsCollector> simpleCollectors = Maps.newHashMap();
 
     // NewAdaptiveFlowStatsCollector Set
@@ -147,6 +164,7 @@ public class OpenFlowRuleProvider extends AbstractProvider
         controller.addListener(listener);
         controller.addEventListener(listener);
 
+        statsScheduler = createStatsScheduler();
         modified(context);
 
         pendingBatches = createBatchCache();
@@ -161,12 +179,39 @@ public class OpenFlowRuleProvider extends AbstractProvider
     public void deactivate(ComponentContext context) {
         cfgService.unregisterProperties(getClass(), false);
         stopCollectors();
+        statsScheduler.shutdown();
+        removeStatsMetrics();
         providerRegistry.unregister(this);
         providerService = null;
 
         log.info("Stopped");
     }
 
+    // Creates the poll scheduler, exporting its poll latencies and in-flight requests
+    private FlowStatsScheduler createStatsScheduler() {
+        if (metricsService == null) {
+            return new FlowStatsScheduler(FlowStatsScheduler.DEFAULT_POOL_SIZE,
+                                          maxInFlightStatsRequests, null);
+        }
+        MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+        MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+        FlowStatsScheduler scheduler =
+                new FlowStatsScheduler(FlowStatsScheduler.DEFAULT_POOL_SIZE, maxInFlightStatsRequests,
+                                       metricsService.createTimer(component, feature, "pollLatency"));
+        metricsService.registerMetric(component, feature, "inFlight",
+                                      (Gauge<Integer>) scheduler::inFlight);
+        return scheduler;
+    }
+
+    private void removeStatsMetrics() {
+        if (metricsService != null) {
+            MetricsComponent component = metricsService.registerComponent(METRICS_COMPONENT);
+            MetricsFeature feature = component.registerFeature(METRICS_FEATURE);
+            metricsService.removeMetric(component, feature, "pollLatency");
+            metricsService.removeMetric(component, feature, "inFlight");
+        }
+    }
+
     @Modified
     public void modified(ComponentContext context) {
         Dictionary<?, ?> properties = context.getProperties();
@@ -186,6 +231,22 @@ public class OpenFlowRuleProvider extends AbstractProvider
 
         log.info("Settings: flowPollFrequency={}", flowPollFrequency);
 
+        int newMaxInFlightStatsRequests;
+        try {
+            String s = get(properties, "maxInFlightStatsRequests");
+            newMaxInFlightStatsRequests = isNullOrEmpty(s) ?
+                    maxInFlightStatsRequests : Integer.parseInt(s.trim());
+        } catch (NumberFormatException | ClassCastException e) {
+            newMaxInFlightStatsRequests = maxInFlightStatsRequests;
+        }
+
+        if (newMaxInFlightStatsRequests > 0) {
+            maxInFlightStatsRequests = newMaxInFlightStatsRequests;
+            statsScheduler.setMaxInFlight(maxInFlightStatsRequests);
+        }
+
+        log.info("Settings: maxInFlightStatsRequests={}", maxInFlightStatsRequests);
+
         boolean newAdaptiveFlowSampling;
         String s = get(properties, "adaptiveFlowSampling");
         newAdaptiveFlowSampling = isNullOrEmpty(s) ? adaptiveFlowSampling : Boolean.parseBoolean(s.trim());
@@ -219,11 +280,12 @@ public class OpenFlowRuleProvider extends AbstractProvider
     private void createCollector(OpenFlowSwitch sw) {
         if (adaptiveFlowSampling) {
             // NewAdaptiveFlowStatsCollector Constructor
-            NewAdaptiveFlowStatsCollector fsc = new NewAdaptiveFlowStatsCollector(sw, flowPollFrequency);
+            NewAdaptiveFlowStatsCollector fsc =
+                    new NewAdaptiveFlowStatsCollector(statsScheduler, sw, flowPollFrequency);
             fsc.start();
             afsCollectors.put(new Dpid(sw.getId()), fsc);
         } else {
-            FlowStatsCollector fsc = new FlowStatsCollector(timer, sw, flowPollFrequency);
+            FlowStatsCollector fsc = new FlowStatsCollector(statsScheduler, sw, flowPollFrequency);
             fsc.start();
             simpleCollectors.put(new Dpid(sw.getId()), fsc);
         }
@@ -411,6 +473,7 @@ public class OpenFlowRuleProvider extends AbstractProvider
             if (tsc != null) {
                 tsc.stop();
             }
+            statsScheduler.remove(dpid);
         }
 
         @Override
@@ -505,6 +568,12 @@ public class OpenFlowRuleProvider extends AbstractProvider
         private void pushFlowMetrics(Dpid dpid, OFFlowStatsReply replies) {
 
             DeviceId did = DeviceId.deviceId(Dpid.uri(dpid));
+            // large replies come in parts, which are reconciled one by one;
+            // the poll is complete once the last part is in
+            boolean lastPart = !replies.getFlags().contains(OFStatsReplyFlags.REPLY_MORE);
+            if (lastPart) {
+                statsScheduler.completed(replies.getXid());
+            }
 
             List<FlowEntry> flowEntries = replies.getEntries().stream()
                     .map(entry -> new FlowEntryBuilder(dpid, entry, driverService).build())
@@ -524,11 +593,12 @@ public class OpenFlowRuleProvider extends AbstractProvider
                     if (afsc.getFlowMissingXid() != NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID) {
                         if (afsc.getFlowMissingXid() == replies.getXid()) {
                             // call entire flow stats update with flowMissing synchronization.
-                            // used existing pushFlowMetrics
-                            providerService.pushFlowMetrics(did, flowEntries);
+                            providerService.pushFlowMetricsPart(did, flowEntries, lastPart);
+                        }
+                        if (lastPart) {
+                            // reset flowMissingXid to NO_FLOW_MISSING_XID
+                            afsc.setFlowMissingXid(NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID);
                         }
-                        // reset flowMissingXid to NO_FLOW_MISSING_XID
-                        afsc.setFlowMissingXid(NewAdaptiveFlowStatsCollector.NO_FLOW_MISSING_XID);
 
                     } else {
                         // call individual flow stats update
@@ -539,8 +609,8 @@ public class OpenFlowRuleProvider extends AbstractProvider
                     afsc.pushFlowMetrics(flowEntries);
                 }
             } else {
-                // call existing entire flow stats update with flowMissing synchronization
-                providerService.pushFlowMetrics(did, flowEntries);
+                // call entire flow stats update with flowMissing synchronization
+                providerService.pushFlowMetricsPart(did, flowEntries, lastPart);
             }
         }
 
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import com.codahale.metrics.Timer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.openflow.controller.Dpid;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of the flow statistics poll scheduler.
+ */
+public class FlowStatsSchedulerTest {
+
+    private static final Dpid DPID1 = new Dpid(1);
+    private static final Dpid DPID2 = new Dpid(2);
+    private static final Dpid DPID3 = new Dpid(3);
+
+    private Timer pollTimer;
+    private FlowStatsScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        pollTimer = new Timer();
+        scheduler = new FlowStatsScheduler(2, 2, pollTimer);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Tests that the first run is delayed by at most one period of jitter.
+     */
+    @Test
+    public void jitterBounds() {
+        long initialDelay = 10;
+        long period = 5;
+        for (int i = 0; i < 100; i++) {
+            ScheduledFuture<?> future = scheduler.schedule(() -> { }, initialDelay, period, TimeUnit.SECONDS);
+            long delay = future.getDelay(TimeUnit.MILLISECONDS);
+            future.cancel(false);
+            // allow for the time passed since scheduling
+            assertTrue("Delay below the initial delay: " + delay,
+                       delay > TimeUnit.SECONDS.toMillis(initialDelay) - 1000);
+            assertTrue("Delay beyond one period of jitter: " + delay,
+                       delay < TimeUnit.SECONDS.toMillis(initialDelay + period));
+        }
+    }
+
+    /**
+     * Tests that requests beyond the budget are refused until a reply
+     * frees a slot.
+     */
+    @Test
+    public void xidBudget() {
+        assertTrue(scheduler.acquire(DPID1, 1));
+        assertTrue(scheduler.acquire(DPID2, 2));
+        assertFalse("Budget should be exhausted", scheduler.acquire(DPID1, 3));
+        assertEquals(2, scheduler.inFlight());
+
+        // replies to unknown requests change nothing
+        scheduler.completed(3);
+        assertEquals(2, scheduler.inFlight());
+        assertEquals(0, pollTimer.getCount());
+
+        scheduler.completed(1);
+        assertEquals(1, scheduler.inFlight());
+        assertEquals(1, pollTimer.getCount());
+
+        assertTrue(scheduler.acquire(DPID1, 4));
+        assertFalse(scheduler.acquire(DPID1, 5));
+
+        scheduler.setMaxInFlight(4);
+        assertTrue(scheduler.acquire(DPID1, 5));
+        assertEquals(3, scheduler.inFlight());
+    }
+
+    /**
+     * Tests that a switch cannot take more than its share of the budget,
+     * leaving slots to the other switches.
+     */
+    @Test
+    public void switchShare() {
+        scheduler.setMaxInFlight(4);
+        assertTrue(scheduler.acquire(DPID1, 1));
+        assertTrue(scheduler.acquire(DPID1, 2));
+        assertTrue(scheduler.acquire(DPID1, 3));
+        assertTrue(scheduler.acquire(DPID1, 4));
+        assertFalse("Budget should be exhausted", scheduler.acquire(DPID2, 5));
+
+        // once the other switch is known the share is halved
+        scheduler.completed(1);
+        scheduler.completed(2);
+        assertFalse("Share of DPID1 should be exhausted", scheduler.acquire(DPID1, 6));
+        assertTrue(scheduler.acquire(DPID2, 7));
+        assertTrue(scheduler.acquire(DPID2, 8));
+        assertFalse("Share of DPID2 should be exhausted", scheduler.acquire(DPID2, 9));
+        assertEquals(2, scheduler.inFlight(DPID1));
+        assertEquals(2, scheduler.inFlight(DPID2));
+
+        // a third switch gets the next free slot
+        scheduler.completed(3);
+        assertTrue(scheduler.acquire(DPID3, 10));
+        assertEquals(4, scheduler.inFlight());
+
+        // removing a switch releases its share
+        scheduler.remove(DPID3);
+        scheduler.completed(4);
+        assertTrue(scheduler.acquire(DPID1, 11));
+        assertEquals(0, scheduler.inFlight(DPID3));
+    }
+
+    /**
+     * Tests that shutting down the shared pool stops the polls of all
+     * switches and releases the in-flight budget.
+     */
+    @Test
+    public void sharedPoolShutdown() throws InterruptedException {
+        AtomicInteger runs1 = new AtomicInteger();
+        AtomicInteger runs2 = new AtomicInteger();
+        scheduler.schedule(runs1::incrementAndGet, 0, 10, TimeUnit.MILLISECONDS);
+        scheduler.schedule(runs2::incrementAndGet, 0, 10, TimeUnit.MILLISECONDS);
+        assertTrue(scheduler.acquire(DPID1, 1));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((runs1.get() < 2 || runs2.get() < 2) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("Polls of both switches should run", runs1.get() >= 2 && runs2.get() >= 2);
+
+        scheduler.shutdown();
+        assertEquals(0, scheduler.inFlight());
+        Thread.sleep(50);
+        int stopped1 = runs1.get();
+        int stopped2 = runs2.get();
+        Thread.sleep(100);
+        assertEquals(stopped1, runs1.get());
+        assertEquals(stopped2, runs2.get());
+
+        try {
+            scheduler.schedule(() -> { }, 0, 10, TimeUnit.MILLISECONDS);
+            fail("Scheduling after shutdown should be rejected");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+    }
+}
@@ -15,9 +15,6 @@
  */
 package org.onlab.graph;
 
-import java.util.HashSet;
-import java.util.Set;
-
 /**
  * Implementation of the BFS algorithm.
  */
@@ -32,43 +29,45 @@ public class BreadthFirstSearch<V extends Vertex, E extends Edge<V>>
         // Prepare the graph result.
         DefaultResult result = new DefaultResult(src, dst, maxPaths);
 
-        // Setup the starting frontier with the source as the sole vertex.
-        Set<V> frontier = new HashSet<>();
+        // Search the compiled form of the graph, visiting the vertexes in
+        // the order they are discovered, which is one frontier after another,
+        // starting with the source as the sole vertex.
+        CompiledGraph<V, E> compiled = CompiledGraph.of(graph);
+        int dstIndex = dst == null ? CompiledGraph.ABSENT : compiled.index(dst);
+        double[] costs = new double[compiled.vertexCount()];
+        boolean[] visited = new boolean[compiled.vertexCount()];
+        int[] queue = new int[compiled.vertexCount()];
+        int head = 0;
+        int tail = 0;
+
+        int srcIndex = compiled.index(src);
         result.updateVertex(src, null, 0.0, true);
-        frontier.add(src);
+        visited[srcIndex] = true;
+        queue[tail++] = srcIndex;
 
         boolean reachedEnd = false;
-        while (!reachedEnd && !frontier.isEmpty()) {
-            // Prepare the next frontier.
-            Set<V> next = new HashSet<>();
-
-            // Visit all vertexes in the current frontier.
-            for (V vertex : frontier) {
-                double cost = result.cost(vertex);
+        while (!reachedEnd && head < tail) {
+            int vertex = queue[head++];
+            double cost = costs[vertex];
 
-                // Visit all egress edges of the current frontier vertex.
-                for (E edge : graph.getEdgesFrom(vertex)) {
-                    V nextVertex = edge.dst();
-                    if (!result.hasCost(nextVertex)) {
-                        // If this vertex has not been visited yet, update it.
-                        double newCost = cost + (weight == null ? 1.0 : weight.weight(edge));
-                        result.updateVertex(nextVertex, edge, newCost, true);
-                        // If we have reached our intended destination, bail.
-                        if (nextVertex.equals(dst)) {
-                            reachedEnd = true;
-                            break;
-                        }
-                        next.add(nextVertex);
-                    }
-
-                    if (reachedEnd) {
+            // Visit all egress edges of the current frontier vertex.
+            for (int e = compiled.edgesStart(vertex); e < compiled.edgesEnd(vertex); e++) {
+                int nextVertex = compiled.target(e);
+                if (!visited[nextVertex]) {
+                    // If this vertex has not been visited yet, update it.
+                    E edge = compiled.edge(e);
+                    double newCost = cost + (weight == null ? 1.0 : weight.weight(edge));
+                    visited[nextVertex] = true;
+                    costs[nextVertex] = newCost;
+                    result.updateVertex(edge.dst(), edge, newCost, true);
+                    // If we have reached our intended destination, bail.
+                    if (nextVertex == dstIndex) {
+                        reachedEnd = true;
                         break;
                     }
+                    queue[tail++] = nextVertex;
                 }
             }
-
-            // Promote the next frontier.
-            frontier = next;
         }
 
         // Finally, but the paths on the search result and return.
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Snapshot of a graph compiled for path searches: vertexes are numbered
+ * densely from 0 and the egress edges of each vertex are laid out
+ * contiguously in arrays, in compressed sparse row form.
+ * <p>
+ * The egress edges of vertex {@code v} are the edge indexes in the range
+ * [{@link #edgesStart(int) edgesStart(v)}, {@link #edgesEnd(int) edgesEnd(v)}),
+ * and the destination of edge {@code e} is vertex {@link #target(int) target(e)}.
+ * </p>
+ *
+ * @param <V> vertex type
+ * @param <E> edge type
+ */
+final class CompiledGraph<V extends Vertex, E extends Edge<V>> {
+
+    /**
+     * Index returned for vertexes which are not in the graph.
+     */
+    static final int ABSENT = -1;
+
+    private final Map<V, Integer> indexes;
+    private final Object[] vertexes;
+    private final int[] offsets;
+    private final int[] targets;
+    private final Object[] edges;
+
+    private CompiledGraph(Graph<V, E> graph) {
+        indexes = new HashMap<>();
+        for (V v : graph.getVertexes()) {
+            indexes.putIfAbsent(v, indexes.size());
+        }
+        // Edge end-points missing from the vertex set are numbered too.
+        for (E e : graph.getEdges()) {
+            indexes.putIfAbsent(e.src(), indexes.size());
+            indexes.putIfAbsent(e.dst(), indexes.size());
+        }
+
+        int vertexCount = indexes.size();
+        vertexes = new Object[vertexCount];
+        indexes.forEach((v, i) -> vertexes[i] = v);
+
+        // Count the egress edges of each vertex, then turn the counts into
+        // the start offsets and fill the edges in.
+        offsets = new int[vertexCount + 1];
+        for (E e : graph.getEdges()) {
+            offsets[indexes.get(e.src()) + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        int edgeCount = offsets[vertexCount];
+        targets = new int[edgeCount];
+        edges = new Object[edgeCount];
+        int[] next = new int[vertexCount];
+        System.arraycopy(offsets, 0, next, 0, vertexCount);
+        for (E e : graph.getEdges()) {
+            int slot = next[indexes.get(e.src())]++;
+            targets[slot] = indexes.get(e.dst());
+            edges[slot] = e;
+        }
+    }
+
+    /**
+     * Compiles the specified graph.
+     *
+     * @param graph graph to compile
+     * @param <V>   vertex type
+     * @param <E>   edge type
+     * @return compiled graph
+     */
+    static <V extends Vertex, E extends Edge<V>> CompiledGraph<V, E> compile(Graph<V, E> graph) {
+        return new CompiledGraph<>(checkNotNull(graph, "Graph cannot be null"));
+    }
+
+    /**
+     * Returns the compiled form of the specified graph, reusing the one
+     * retained by immutable graphs.
+     *
+     * @param graph graph to search
+     * @param <V>   vertex type
+     * @param <E>   edge type
+     * @return compiled graph
+     */
+    static <V extends Vertex, E extends Edge<V>> CompiledGraph<V, E> of(Graph<V, E> graph) {
+        if (graph instanceof AdjacencyListsGraph) {
+            return ((AdjacencyListsGraph<V, E>) graph).compiled();
+        }
+        return compile(graph);
+    }
+
+    /**
+     * Returns the number of vertexes.
+     *
+     * @return vertex count
+     */
+    int vertexCount() {
+        return vertexes.length;
+    }
+
+    /**
+     * Returns the number of edges.
+     *
+     * @return edge count
+     */
+    int edgeCount() {
+        return edges.length;
+    }
+
+    /**
+     * Returns the index of the specified vertex.
+     *
+     * @param vertex vertex
+     * @return vertex index; {@link #ABSENT} if not in the graph
+     */
+    int index(V vertex) {
+        Integer index = indexes.get(vertex);
+        return index == null ? ABSENT : index;
+    }
+
+    /**
+     * Returns the vertex with the specified index.
+     *
+     * @param index vertex index
+     * @return vertex
+     */
+    @SuppressWarnings("unchecked")
+    V vertex(int index) {
+        return (V) vertexes[index];
+    }
+
+    /**
+     * Returns the index of the first egress edge of a vertex.
+     *
+     * @param vertex vertex index
+     * @return first edge index
+     */
+    int edgesStart(int vertex) {
+        return offsets[vertex];
+    }
+
+    /**
+     * Returns the index past the last egress edge of a vertex.
+     *
+     * @param vertex vertex index
+     * @return end edge index, exclusive
+     */
+    int edgesEnd(int vertex) {
+        return offsets[vertex + 1];
+    }
+
+    /**
+     * Returns the index of the destination vertex of an edge.
+     *
+     * @param edge edge index
+     * @return destination vertex index
+     */
+    int target(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Returns the edge with the specified index.
+     *
+     * @param index edge index
+     * @return edge
+     */
+    @SuppressWarnings("unchecked")
+    E edge(int index) {
+        return (E) edges[index];
+    }
+}
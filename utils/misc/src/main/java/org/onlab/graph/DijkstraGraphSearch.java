@@ -15,9 +15,7 @@
  */
 package org.onlab.graph;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
  * Dijkstra shortest-path graph search algorithm capable of finding not just
@@ -43,29 +41,33 @@ public class DijkstraGraphSearch<V extends Vertex, E extends Edge<V>>
             return result;
         }
 
-        // Use the min priority queue to progressively find each nearest
-        // vertex until we reach the desired destination, if one was given,
-        // or until we reach all possible destinations.
-        Heap<V> minQueue = createMinQueue(graph.getVertexes(),
-                                          new PathCostComparator(result));
+        // Search the compiled form of the graph, tracking costs by vertex
+        // index and using the min priority queue to progressively find
+        // each nearest vertex until we reach the desired destination, if one
+        // was given, or until we reach all possible destinations. Vertexes
+        // join the queue once reached and move up in it as their cost drops.
+        CompiledGraph<V, E> compiled = CompiledGraph.of(graph);
+        int dstIndex = dst == null ? CompiledGraph.ABSENT : compiled.index(dst);
+        double[] costs = new double[compiled.vertexCount()];
+        Arrays.fill(costs, Double.MAX_VALUE);
+
+        IndexedMinHeap minQueue = new IndexedMinHeap(compiled.vertexCount());
+        int srcIndex = compiled.index(src);
+        costs[srcIndex] = 0.0;
+        minQueue.insert(srcIndex, 0.0);
+
         while (!minQueue.isEmpty()) {
             // Get the nearest vertex
-            V nearest = minQueue.extractExtreme();
-            if (nearest.equals(dst)) {
+            int nearest = minQueue.extractMin();
+            if (nearest == dstIndex) {
                 break;
             }
 
-            // Find its cost and use it to determine if the vertex is reachable.
-            double cost = result.cost(nearest);
-            if (cost < Double.MAX_VALUE) {
-                // If the vertex is reachable, relax all its egress edges.
-                for (E e : graph.getEdgesFrom(nearest)) {
-                    result.relaxEdge(e, cost, weight, true);
-                }
+            // Relax all its egress edges; only reachable vertexes are queued.
+            double cost = costs[nearest];
+            for (int e = compiled.edgesStart(nearest); e < compiled.edgesEnd(nearest); e++) {
+                relaxEdge(result, compiled, e, cost, weight, costs, minQueue);
             }
-
-            // Re-prioritize the min queue.
-            minQueue.heapify();
         }
 
         // Now construct a set of paths from the results.
@@ -73,25 +75,34 @@ public class DijkstraGraphSearch<V extends Vertex, E extends Edge<V>>
         return result;
     }
 
-    // Compares path weights using their accrued costs; used for sorting the
-    // min priority queue.
-    private final class PathCostComparator implements Comparator<V> {
-        private final DefaultResult result;
-
-        private PathCostComparator(DefaultResult result) {
-            this.result = result;
+    // Relaxes the specified edge of the compiled graph as in
+    // DefaultResult.relaxEdge, forbidding negative weights, and queues or
+    // re-prioritizes its destination vertex if its cost dropped.
+    private void relaxEdge(DefaultResult result, CompiledGraph<V, E> compiled,
+                           int e, double cost, EdgeWeight<V, E> weight,
+                           double[] costs, IndexedMinHeap minQueue) {
+        E edge = compiled.edge(e);
+        double hopCost = weight == null ? 1.0 : weight.weight(edge);
+        if (hopCost < 0) {
+            return;
         }
 
-        @Override
-        public int compare(V v1, V v2) {
-            double delta = result.cost(v2) - result.cost(v1);
-            return delta < 0 ? -1 : (delta > 0 ? 1 : 0);
+        int v = compiled.target(e);
+        double oldCost = costs[v];
+        double newCost = cost + hopCost;
+        boolean relaxed = newCost < oldCost;
+        boolean same = Math.abs(newCost - oldCost) <= samenessThreshold();
+        if (same || relaxed) {
+            costs[v] = newCost;
+            result.updateVertex(edge.dst(), edge, newCost, !same);
+        }
+        if (relaxed) {
+            if (minQueue.contains(v)) {
+                minQueue.decreaseKey(v, newCost);
+            } else if (oldCost == Double.MAX_VALUE) {
+                minQueue.insert(v, newCost);
+            }
         }
-    }
-
-    // Creates a min priority queue from the specified vertexes and comparator.
-    private Heap<V> createMinQueue(Set<V> vertexes, Comparator<V> comparator) {
-        return new Heap<>(new ArrayList<>(vertexes), comparator);
     }
 
 }
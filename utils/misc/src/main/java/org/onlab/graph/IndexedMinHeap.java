@@ -0,0 +1,187 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Binary min-heap of integer items in the range [0, capacity), keyed by
+ * double values, which supports lowering the key of an item already on the
+ * heap in logarithmic time. Items with equal keys are extracted in the order
+ * they were given their key, by insertion or by lowering it.
+ * <p>
+ * Unlike {@link Heap}, the position of every item is tracked so that a
+ * single item can be re-prioritized without restoring the heap property over
+ * all the items.
+ * </p>
+ * <p>
+ * This class is not thread-safe and care must be taken to prevent concurrent
+ * modifications.
+ * </p>
+ */
+final class IndexedMinHeap {
+
+    private static final int ABSENT = -1;
+
+    private final int[] heap;
+    private final int[] positions;
+    private final double[] keys;
+    private final long[] sequences;
+    private long sequence;
+    private int size;
+
+    /**
+     * Creates an empty heap for items in the range [0, capacity).
+     *
+     * @param capacity number of distinct items
+     */
+    IndexedMinHeap(int capacity) {
+        checkArgument(capacity >= 0, "Capacity cannot be negative");
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new double[capacity];
+        sequences = new long[capacity];
+        Arrays.fill(positions, ABSENT);
+    }
+
+    /**
+     * Returns the current size of the heap.
+     *
+     * @return number of items in the heap
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if there are no items in the heap.
+     *
+     * @return true if heap is empty
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Indicates whether the given item is on the heap.
+     *
+     * @param item item to test
+     * @return true if the item is on the heap
+     */
+    boolean contains(int item) {
+        return positions[item] != ABSENT;
+    }
+
+    /**
+     * Inserts the given item with the given key.
+     *
+     * @param item item to insert; must not be on the heap
+     * @param key  item key
+     */
+    void insert(int item, double key) {
+        checkArgument(!contains(item), "Item is already on the heap");
+        keys[item] = key;
+        sequences[item] = sequence++;
+        heap[size] = item;
+        positions[item] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Lowers the key of the given item.
+     *
+     * @param item item on the heap
+     * @param key  new key; must not be greater than the current one
+     */
+    void decreaseKey(int item, double key) {
+        checkArgument(contains(item), "Item is not on the heap");
+        checkArgument(key <= keys[item], "Key cannot be increased");
+        keys[item] = key;
+        sequences[item] = sequence++;
+        siftUp(positions[item]);
+    }
+
+    /**
+     * Removes and returns the item with the smallest key.
+     *
+     * @return item with the smallest key
+     * @throws NoSuchElementException if the heap is empty
+     */
+    int extractMin() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        int min = heap[0];
+        positions[min] = ABSENT;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    // Indicates whether the first item comes before the second one; equal
+    // keys are ordered by sequence, which keeps the extraction order stable.
+    private boolean precedes(int item, int other) {
+        return keys[item] < keys[other]
+                || (keys[item] == keys[other] && sequences[item] < sequences[other]);
+    }
+
+    // Moves the item at the given position up until its parent precedes it.
+    private void siftUp(int position) {
+        int item = heap[position];
+        int i = position;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (precedes(heap[parent], item)) {
+                break;
+            }
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(item, i);
+    }
+
+    // Moves the item at the given position down until it precedes its children.
+    private void siftDown(int position) {
+        int item = heap[position];
+        int i = position;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && precedes(heap[right], heap[child])) {
+                child = right;
+            }
+            if (precedes(item, heap[child])) {
+                break;
+            }
+            place(heap[child], i);
+            i = child;
+        }
+        place(item, i);
+    }
+
+    private void place(int item, int position) {
+        heap[position] = item;
+        positions[item] = position;
+    }
+}
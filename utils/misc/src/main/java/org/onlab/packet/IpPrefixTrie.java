@@ -0,0 +1,368 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.packet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Concurrent map from the IP prefixes of one address family to values,
+ * supporting exact, longest prefix match and covered prefix queries.
+ * <p>
+ * The prefixes are held in a path-compressed binary trie, keyed directly on
+ * the bits of the prefix address. Nodes are immutable: updates copy the path
+ * from the root down to the updated node and then publish the new root, so
+ * reads never lock and always see a consistent snapshot of the trie. Updates
+ * are serialized with one another.
+ * </p>
+ *
+ * @param <V> type of the values
+ */
+public final class IpPrefixTrie<V> {
+
+    private final IpAddress.Version version;
+    private final int maxLength;
+
+    private volatile Node<V> root;
+    private volatile int size;
+
+    /**
+     * Creates an empty trie for the prefixes of the given address family.
+     *
+     * @param version IP address version of the prefixes
+     */
+    public IpPrefixTrie(IpAddress.Version version) {
+        this.version = checkNotNull(version);
+        this.maxLength = IpAddress.byteLength(version) * Byte.SIZE;
+    }
+
+    /**
+     * Returns the IP address version of the prefixes in this trie.
+     *
+     * @return IP address version
+     */
+    public IpAddress.Version version() {
+        return version;
+    }
+
+    /**
+     * Returns the number of prefixes in this trie.
+     *
+     * @return number of prefixes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether this trie holds no prefixes.
+     *
+     * @return true if there are no prefixes
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value of the given prefix.
+     *
+     * @param prefix IP prefix
+     * @return value of the prefix; null if the prefix is not in the trie
+     */
+    public V get(IpPrefix prefix) {
+        byte[] key = bits(prefix);
+        int length = prefix.prefixLength();
+        Node<V> node = root;
+        while (node != null && node.length <= length
+                && commonLength(node.bits, node.length, key, length) == node.length) {
+            if (node.length == length) {
+                return node.value;
+            }
+            node = node.child(bit(key, node.length));
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of the longest prefix containing the given address.
+     *
+     * @param address IP address
+     * @return value of the longest matching prefix; null if no prefix
+     * contains the address
+     */
+    public V longestPrefixMatch(IpAddress address) {
+        checkArgument(address.version() == version, "Address is not an %s address", version);
+        byte[] key = address.toOctets();
+        V match = null;
+        Node<V> node = root;
+        while (node != null && commonLength(node.bits, node.length, key, maxLength) == node.length) {
+            if (node.value != null) {
+                match = node.value;
+            }
+            if (node.length == maxLength) {
+                break;
+            }
+            node = node.child(bit(key, node.length));
+        }
+        return match;
+    }
+
+    /**
+     * Returns the values of all prefixes covered by the given prefix,
+     * including the prefix itself, ordered by prefix address and then by
+     * prefix length.
+     *
+     * @param prefix IP prefix
+     * @return values of the covered prefixes
+     */
+    public List<V> coveredBy(IpPrefix prefix) {
+        byte[] key = bits(prefix);
+        int length = prefix.prefixLength();
+        Node<V> node = root;
+        while (node != null && node.length < length
+                && commonLength(node.bits, node.length, key, length) == node.length) {
+            node = node.child(bit(key, node.length));
+        }
+        List<V> values = new ArrayList<>();
+        if (node != null && commonLength(node.bits, node.length, key, length) == length) {
+            collect(node, values);
+        }
+        return values;
+    }
+
+    /**
+     * Returns the values of all prefixes, ordered by prefix address and then
+     * by prefix length.
+     *
+     * @return values of all prefixes
+     */
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size);
+        collect(root, values);
+        return values;
+    }
+
+    /**
+     * Maps the given prefix to the given value.
+     *
+     * @param prefix IP prefix
+     * @param value  value; must not be null
+     * @return previous value of the prefix; null if there was none
+     */
+    public synchronized V put(IpPrefix prefix, V value) {
+        checkNotNull(value, "Value cannot be null");
+        byte[] key = bits(prefix);
+        List<V> previous = new ArrayList<>(1);
+        root = insert(root, key, prefix.prefixLength(), value, previous);
+        if (previous.isEmpty()) {
+            size++;
+            return null;
+        }
+        return previous.get(0);
+    }
+
+    /**
+     * Removes the given prefix.
+     *
+     * @param prefix IP prefix
+     * @return value of the removed prefix; null if the prefix was not in the
+     * trie
+     */
+    public synchronized V remove(IpPrefix prefix) {
+        byte[] key = bits(prefix);
+        List<V> previous = new ArrayList<>(1);
+        root = delete(root, key, prefix.prefixLength(), previous);
+        if (previous.isEmpty()) {
+            return null;
+        }
+        size--;
+        return previous.get(0);
+    }
+
+    /**
+     * Removes all prefixes.
+     */
+    public synchronized void clear() {
+        root = null;
+        size = 0;
+    }
+
+    // Returns a copy of the subtree rooted at the given node, with the given
+    // prefix mapped to the given value; records any replaced value.
+    private Node<V> insert(Node<V> node, byte[] key, int length, V value,
+                           Collection<V> previous) {
+        if (node == null) {
+            return new Node<>(key, length, value, null, null);
+        }
+        int common = commonLength(node.bits, node.length, key, length);
+        if (common == node.length) {
+            if (node.length == length) {
+                if (node.value != null) {
+                    previous.add(node.value);
+                }
+                return new Node<>(node.bits, length, value, node.left, node.right);
+            }
+            // The prefix lies beneath this node.
+            if (bit(key, node.length) == 0) {
+                return new Node<>(node.bits, node.length, node.value,
+                                  insert(node.left, key, length, value, previous), node.right);
+            }
+            return new Node<>(node.bits, node.length, node.value,
+                              node.left, insert(node.right, key, length, value, previous));
+        }
+        if (common == length) {
+            // The prefix lies above this node.
+            return bit(node.bits, length) == 0 ?
+                    new Node<>(key, length, value, node, null) :
+                    new Node<>(key, length, value, null, node);
+        }
+        // The prefix and this node diverge; join them under a glue node.
+        Node<V> leaf = new Node<>(key, length, value, null, null);
+        byte[] glue = mask(key, common);
+        return bit(key, common) == 0 ?
+                new Node<>(glue, common, null, leaf, node) :
+                new Node<>(glue, common, null, node, leaf);
+    }
+
+    // Returns a copy of the subtree rooted at the given node, without the
+    // given prefix; returns the node itself if the prefix is not beneath it.
+    private Node<V> delete(Node<V> node, byte[] key, int length, Collection<V> previous) {
+        if (node == null || node.length > length
+                || commonLength(node.bits, node.length, key, length) < node.length) {
+            return node;
+        }
+        if (node.length == length) {
+            if (node.value == null) {
+                return node;
+            }
+            previous.add(node.value);
+            return collapse(new Node<>(node.bits, node.length, null, node.left, node.right));
+        }
+        boolean left = bit(key, node.length) == 0;
+        Node<V> child = left ? node.left : node.right;
+        Node<V> updated = delete(child, key, length, previous);
+        if (updated == child) {
+            return node;
+        }
+        return collapse(left ?
+                new Node<>(node.bits, node.length, node.value, updated, node.right) :
+                new Node<>(node.bits, node.length, node.value, node.left, updated));
+    }
+
+    // Removes a glue node which no longer separates two subtrees.
+    private Node<V> collapse(Node<V> node) {
+        if (node.value != null || (node.left != null && node.right != null)) {
+            return node;
+        }
+        return node.left != null ? node.left : node.right;
+    }
+
+    // Adds the values of the subtree in pre-order.
+    private void collect(Node<V> subtree, List<V> values) {
+        Deque<Node<V>> pending = new ArrayDeque<>();
+        if (subtree != null) {
+            pending.push(subtree);
+        }
+        while (!pending.isEmpty()) {
+            Node<V> node = pending.pop();
+            if (node.value != null) {
+                values.add(node.value);
+            }
+            if (node.right != null) {
+                pending.push(node.right);
+            }
+            if (node.left != null) {
+                pending.push(node.left);
+            }
+        }
+    }
+
+    private byte[] bits(IpPrefix prefix) {
+        checkArgument(prefix.version() == version, "Prefix is not an %s prefix", version);
+        return prefix.address().toOctets();
+    }
+
+    // Returns the given bit of an address, numbered from the most significant.
+    private static int bit(byte[] bits, int index) {
+        return (bits[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+
+    // Returns the number of leading bits two prefixes have in common.
+    private static int commonLength(byte[] a, int lengthA, byte[] b, int lengthB) {
+        int length = Math.min(lengthA, lengthB);
+        int common = 0;
+        for (int i = 0; common < length; i++, common += Byte.SIZE) {
+            int diff = (a[i] ^ b[i]) & 0xff;
+            if (diff != 0) {
+                common += Integer.numberOfLeadingZeros(diff) - (Integer.SIZE - Byte.SIZE);
+                break;
+            }
+        }
+        return Math.min(common, length);
+    }
+
+    // Returns a copy of an address with all but the leading bits cleared.
+    private static byte[] mask(byte[] bits, int length) {
+        byte[] masked = new byte[bits.length];
+        int full = length / Byte.SIZE;
+        System.arraycopy(bits, 0, masked, 0, full);
+        int rest = length % Byte.SIZE;
+        if (rest != 0) {
+            masked[full] = (byte) (bits[full] & (0xff << (Byte.SIZE - rest)));
+        }
+        return masked;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("version", version)
+                .add("size", size)
+                .toString();
+    }
+
+    /**
+     * Immutable trie node. Its prefix is the leading bits of the address;
+     * the children hold the longer prefixes whose next bit is 0 and 1
+     * respectively. Nodes without a value only join two subtrees.
+     */
+    private static final class Node<V> {
+        private final byte[] bits;
+        private final int length;
+        private final V value;
+        private final Node<V> left;
+        private final Node<V> right;
+
+        private Node(byte[] bits, int length, V value, Node<V> left, Node<V> right) {
+            this.bits = bits;
+            this.length = length;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+        }
+
+        private Node<V> child(int bit) {
+            return bit == 0 ? left : right;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.packet;
+
+import java.nio.ByteBuffer;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Read-only view of the headers of an Ethernet frame.
+ * <p>
+ * Where the {@link Ethernet} deserializer materializes the whole packet as a
+ * tree of objects, including copies of the payloads, a view reads only the
+ * header fields asked for, straight from the bytes of the frame and without
+ * copying them. Accessors of headers which the frame does not carry, or
+ * which are truncated, return the documented absent value rather than
+ * throwing. The complete packet remains available through {@link #parse()}.
+ * </p>
+ * <p>
+ * The view reads the frame by absolute indexing and does not move the
+ * position of the buffer; the bytes of the frame must not change while the
+ * view is in use.
+ * </p>
+ */
+public final class PacketView {
+
+    /**
+     * Value returned by the accessors of absent integer fields.
+     */
+    public static final int NONE = -1;
+
+    private static final int MAC_LENGTH = 6;
+    private static final int IPV4_HEADER_LENGTH = 20;
+    private static final int IPV6_HEADER_LENGTH = 40;
+    private static final int ARP_FIXED_LENGTH = 8;
+    private static final int IPV4_ADDRESS_LENGTH = 4;
+
+    private final ByteBuffer frame;
+    private final int base;
+    private final int length;
+    private final short ethType;
+    private final short vlanId;
+    private final int l3Offset;
+
+    private PacketView(ByteBuffer frame) {
+        this.frame = frame;
+        this.base = frame.position();
+        this.length = frame.remaining();
+
+        if (length < Ethernet.ETHERNET_HEADER_LENGTH) {
+            ethType = 0;
+            vlanId = Ethernet.VLAN_UNTAGGED;
+            l3Offset = NONE;
+            return;
+        }
+        short type = frame.getShort(base + 2 * MAC_LENGTH);
+        if (type == Ethernet.TYPE_VLAN) {
+            if (length < Ethernet.ETHERNET_HEADER_LENGTH + Ethernet.VLAN_HEADER_LENGTH) {
+                ethType = 0;
+                vlanId = Ethernet.VLAN_UNTAGGED;
+                l3Offset = NONE;
+                return;
+            }
+            vlanId = (short) (frame.getShort(base + Ethernet.ETHERNET_HEADER_LENGTH) & 0x0fff);
+            ethType = frame.getShort(base + Ethernet.ETHERNET_HEADER_LENGTH + 2);
+            l3Offset = Ethernet.ETHERNET_HEADER_LENGTH + Ethernet.VLAN_HEADER_LENGTH;
+        } else {
+            vlanId = Ethernet.VLAN_UNTAGGED;
+            ethType = type;
+            l3Offset = Ethernet.ETHERNET_HEADER_LENGTH;
+        }
+    }
+
+    /**
+     * Creates a view of the frame held in the remaining bytes of a buffer.
+     *
+     * @param frame buffer holding the frame
+     * @return packet view
+     */
+    public static PacketView of(ByteBuffer frame) {
+        return new PacketView(checkNotNull(frame));
+    }
+
+    /**
+     * Creates a view of the frame held in a byte array.
+     *
+     * @param data frame bytes
+     * @return packet view
+     */
+    public static PacketView of(byte[] data) {
+        return new PacketView(ByteBuffer.wrap(checkNotNull(data)));
+    }
+
+    /**
+     * Returns the length of the frame.
+     *
+     * @return length in bytes
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns whether the frame holds a complete Ethernet header.
+     *
+     * @return true if the Ethernet header is complete
+     */
+    public boolean isValid() {
+        return l3Offset != NONE;
+    }
+
+    /**
+     * Returns the destination MAC address.
+     *
+     * @return destination MAC; null if the Ethernet header is truncated
+     */
+    public MacAddress destinationMac() {
+        return isValid() ? MacAddress.valueOf(macAt(0)) : null;
+    }
+
+    /**
+     * Returns the source MAC address.
+     *
+     * @return source MAC; null if the Ethernet header is truncated
+     */
+    public MacAddress sourceMac() {
+        return isValid() ? MacAddress.valueOf(macAt(MAC_LENGTH)) : null;
+    }
+
+    /**
+     * Returns the ethernet type of the payload, following the VLAN tag if
+     * any, as in {@link Ethernet#getEtherType()}.
+     *
+     * @return ethernet type; 0 if the Ethernet header is truncated
+     */
+    public short ethType() {
+        return ethType;
+    }
+
+    /**
+     * Returns the VLAN identifier.
+     *
+     * @return VLAN identifier; {@link Ethernet#VLAN_UNTAGGED} if untagged
+     */
+    public short vlanId() {
+        return vlanId;
+    }
+
+    /**
+     * Returns whether the frame carries an IPv4 header.
+     *
+     * @return true if the frame carries a complete IPv4 header
+     */
+    public boolean isIpv4() {
+        return ethType == Ethernet.TYPE_IPV4 && available(l3Offset, IPV4_HEADER_LENGTH);
+    }
+
+    /**
+     * Returns whether the frame carries an IPv6 header.
+     *
+     * @return true if the frame carries a complete IPv6 header
+     */
+    public boolean isIpv6() {
+        return ethType == Ethernet.TYPE_IPV6 && available(l3Offset, IPV6_HEADER_LENGTH);
+    }
+
+    /**
+     * Returns whether the frame carries an ARP packet for IPv4 addresses.
+     *
+     * @return true if the frame carries a complete IPv4 ARP packet
+     */
+    public boolean isArp() {
+        return ethType == Ethernet.TYPE_ARP && arpHardwareLength() != NONE;
+    }
+
+    /**
+     * Returns the IPv4 source address.
+     *
+     * @return source address as an int; 0 if the frame carries no IPv4 header
+     */
+    public int ipv4Src() {
+        return isIpv4() ? frame.getInt(base + l3Offset + 12) : 0;
+    }
+
+    /**
+     * Returns the IPv4 destination address.
+     *
+     * @return destination address as an int; 0 if the frame carries no IPv4
+     * header
+     */
+    public int ipv4Dst() {
+        return isIpv4() ? frame.getInt(base + l3Offset + 16) : 0;
+    }
+
+    /**
+     * Returns the IP protocol, being the IPv4 protocol or the IPv6 next
+     * header.
+     *
+     * @return unsigned protocol number; {@link #NONE} if the frame carries
+     * no IP header
+     */
+    public int ipProtocol() {
+        if (isIpv4()) {
+            return unsignedByte(l3Offset + 9);
+        } else if (isIpv6()) {
+            return unsignedByte(l3Offset + 6);
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the TCP or UDP source port.
+     *
+     * @return source port; {@link #NONE} if the frame carries no TCP or UDP
+     * header, or is a non-initial IPv4 fragment
+     */
+    public int l4SrcPort() {
+        int offset = l4Offset();
+        return offset == NONE ? NONE : unsignedShort(offset);
+    }
+
+    /**
+     * Returns the TCP or UDP destination port.
+     *
+     * @return destination port; {@link #NONE} if the frame carries no TCP or
+     * UDP header, or is a non-initial IPv4 fragment
+     */
+    public int l4DstPort() {
+        int offset = l4Offset();
+        return offset == NONE ? NONE : unsignedShort(offset + 2);
+    }
+
+    /**
+     * Returns the ARP operation code.
+     *
+     * @return operation code; {@link #NONE} if the frame carries no IPv4 ARP
+     * packet
+     */
+    public int arpOpcode() {
+        return isArp() ? unsignedShort(l3Offset + 6) : NONE;
+    }
+
+    /**
+     * Returns the ARP sender protocol address.
+     *
+     * @return sender IPv4 address as an int; 0 if the frame carries no IPv4
+     * ARP packet
+     */
+    public int arpSenderIp() {
+        int hlen = isArp() ? arpHardwareLength() : NONE;
+        return hlen == NONE ? 0 : frame.getInt(base + l3Offset + ARP_FIXED_LENGTH + hlen);
+    }
+
+    /**
+     * Returns the ARP target protocol address.
+     *
+     * @return target IPv4 address as an int; 0 if the frame carries no IPv4
+     * ARP packet
+     */
+    public int arpTargetIp() {
+        int hlen = isArp() ? arpHardwareLength() : NONE;
+        return hlen == NONE ? 0 : frame.getInt(base + l3Offset + ARP_FIXED_LENGTH
+                + 2 * hlen + IPV4_ADDRESS_LENGTH);
+    }
+
+    /**
+     * Parses the complete frame with the {@link Ethernet} deserializer.
+     *
+     * @return parsed Ethernet frame; null if the frame cannot be parsed
+     */
+    public Ethernet parse() {
+        byte[] data;
+        int offset;
+        if (frame.hasArray()) {
+            data = frame.array();
+            offset = frame.arrayOffset() + base;
+        } else {
+            data = new byte[length];
+            ByteBuffer copy = frame.duplicate();
+            copy.position(base);
+            copy.get(data);
+            offset = 0;
+        }
+        try {
+            return Ethernet.deserializer().deserialize(data, offset, length);
+        } catch (DeserializationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Returns the offset of a TCP or UDP header carried by the frame, or NONE.
+    private int l4Offset() {
+        int protocol;
+        int offset;
+        if (isIpv4()) {
+            int ihl = (frame.get(base + l3Offset) & 0x0f) * 4;
+            int fragmentOffset = frame.getShort(base + l3Offset + 6) & 0x1fff;
+            if (ihl < IPV4_HEADER_LENGTH || fragmentOffset != 0) {
+                return NONE;
+            }
+            protocol = unsignedByte(l3Offset + 9);
+            offset = l3Offset + ihl;
+        } else if (isIpv6()) {
+            protocol = unsignedByte(l3Offset + 6);
+            offset = l3Offset + IPV6_HEADER_LENGTH;
+        } else {
+            return NONE;
+        }
+        if (protocol != IPv4.PROTOCOL_TCP && protocol != IPv4.PROTOCOL_UDP) {
+            return NONE;
+        }
+        return available(offset, 4) ? offset : NONE;
+    }
+
+    // Returns the hardware address length of a complete IPv4 ARP packet, or NONE.
+    private int arpHardwareLength() {
+        if (!available(l3Offset, ARP_FIXED_LENGTH)) {
+            return NONE;
+        }
+        int hlen = unsignedByte(l3Offset + 4);
+        int plen = unsignedByte(l3Offset + 5);
+        if (plen != IPV4_ADDRESS_LENGTH ||
+                !available(l3Offset, ARP_FIXED_LENGTH + 2 * (hlen + plen))) {
+            return NONE;
+        }
+        return hlen;
+    }
+
+    private boolean available(int offset, int count) {
+        return offset != NONE && offset + count <= length;
+    }
+
+    private int unsignedByte(int offset) {
+        return frame.get(base + offset) & 0xff;
+    }
+
+    private int unsignedShort(int offset) {
+        return frame.getShort(base + offset) & 0xffff;
+    }
+
+    private long macAt(int offset) {
+        return ((long) unsignedShort(offset) << 32) |
+                (frame.getInt(base + offset + 2) & 0xffffffffL);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("length", length)
+                .add("ethType", String.format("0x%04x", ethType & 0xffff))
+                .add("vlanId", vlanId)
+                .toString();
+    }
+}
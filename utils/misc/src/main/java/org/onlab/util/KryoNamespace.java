@@ -28,6 +28,7 @@ import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.ByteBufferInput;
 import com.esotericsoftware.kryo.io.ByteBufferOutput;
 import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.pool.KryoCallback;
 import com.esotericsoftware.kryo.pool.KryoFactory;
 import com.esotericsoftware.kryo.pool.KryoPool;
@@ -48,6 +49,16 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
     public static final int DEFAULT_BUFFER_SIZE = 4096;
     public static final int MAX_BUFFER_SIZE = 100 * 1000 * 1000;
 
+    /**
+     * Largest per-thread serialization buffer kept for reuse.
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+    // Per-thread output buffer reused by serialize(Object); a thread that
+    // serializes recursively takes the buffer out while it is in use.
+    private static final ThreadLocal<Output> OUTPUT_BUFFER =
+            ThreadLocal.withInitial(() -> new Output(DEFAULT_BUFFER_SIZE, MAX_BUFFER_SIZE));
+
     /**
      * ID to use if this KryoNamespace does not define registration id.
      */
@@ -226,13 +237,21 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
 
     /**
      * Serializes given object to byte array using Kryo instance in pool.
+     * <p>
+     * The object is written into a per-thread heap buffer that is reused
+     * across calls, so the only allocation is the returned array.
      *
      * @param obj Object to serialize
-     * @param bufferSize maximum size of serialized bytes
+     * @param bufferSize initial size of the buffer, if a new one is needed
      * @return serialized bytes
      */
     public byte[] serialize(final Object obj, final int bufferSize) {
-        ByteBufferOutput out = new ByteBufferOutput(bufferSize, MAX_BUFFER_SIZE);
+        Output out = OUTPUT_BUFFER.get();
+        if (out == null) {
+            out = new Output(bufferSize, MAX_BUFFER_SIZE);
+        } else {
+            OUTPUT_BUFFER.set(null);
+        }
         try {
             Kryo kryo = borrow();
             try {
@@ -243,7 +262,10 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
                 release(kryo);
             }
         } finally {
-            out.release();
+            out.clear();
+            if (out.getBuffer().length <= MAX_POOLED_BUFFER_SIZE) {
+                OUTPUT_BUFFER.set(out);
+            }
         }
     }
 
@@ -292,6 +314,25 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
         }
     }
 
+    /**
+     * Serializes given object to a Kryo output using Kryo instance in pool.
+     * <p>
+     * Lets callers supply an output that writes straight into their own
+     * buffers, such as the transmit buffers of a messaging layer.
+     *
+     * @param obj Object to serialize
+     * @param out output to write to; flushed once the object is written
+     */
+    public void serialize(final Object obj, final Output out) {
+        Kryo kryo = borrow();
+        try {
+            kryo.writeClassAndObject(out, obj);
+            out.flush();
+        } finally {
+            release(kryo);
+        }
+    }
+
     /**
      * Deserializes given byte array to Object using Kryo instance in pool.
      *
@@ -330,6 +371,24 @@ public final class KryoNamespace implements KryoFactory, KryoPool {
         }
     }
 
+    /**
+     * Deserializes an Object from a Kryo input using Kryo instance in pool.
+     *
+     * @param in input with serialized bytes
+     * @param <T> deserialized Object type
+     * @return deserialized Object
+     */
+    public <T> T deserialize(final Input in) {
+        Kryo kryo = borrow();
+        try {
+            @SuppressWarnings("unchecked")
+            T obj = (T) kryo.readClassAndObject(in);
+            return obj;
+        } finally {
+            release(kryo);
+        }
+    }
+
     /**
      * Deserializes given InputStream to an Object using Kryo instance in pool.
      *
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2014 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.google.common.collect.ImmutableSet.of;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests of the graph compiled for path searches.
+ */
+public class CompiledGraphTest extends GraphTest {
+
+    @Test
+    public void adjacency() {
+        Set<TestEdge> edges = of(new TestEdge(A, B, 1), new TestEdge(A, C, 1),
+                                 new TestEdge(B, C, 1), new TestEdge(C, D, 1));
+        CompiledGraph<TestVertex, TestEdge> compiled =
+                CompiledGraph.compile(new AdjacencyListsGraph<>(of(A, B, C, D, E), edges));
+
+        assertEquals("incorrect vertex count", 5, compiled.vertexCount());
+        assertEquals("incorrect edge count", 4, compiled.edgeCount());
+        assertEquals("incorrect index", CompiledGraph.ABSENT, compiled.index(F));
+
+        Set<TestEdge> found = new HashSet<>();
+        for (TestVertex v : of(A, B, C, D, E)) {
+            int i = compiled.index(v);
+            assertEquals("incorrect vertex", v, compiled.vertex(i));
+            for (int e = compiled.edgesStart(i); e < compiled.edgesEnd(i); e++) {
+                TestEdge edge = compiled.edge(e);
+                assertEquals("incorrect source", v, edge.src());
+                assertEquals("incorrect target", compiled.index(edge.dst()), compiled.target(e));
+                found.add(edge);
+            }
+        }
+        assertEquals("incorrect edges", edges, found);
+        assertEquals("incorrect degree", 0,
+                     compiled.edgesEnd(compiled.index(E)) - compiled.edgesStart(compiled.index(E)));
+    }
+
+    @Test
+    public void retained() {
+        AdjacencyListsGraph<TestVertex, TestEdge> g =
+                new AdjacencyListsGraph<>(of(A, B), of(new TestEdge(A, B, 1)));
+        assertSame("compiled graph should be retained", CompiledGraph.of(g), CompiledGraph.of(g));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2014 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.graph;
+
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Indexed min-heap data structure tests.
+ */
+public class IndexedMinHeapTest {
+
+    private IndexedMinHeap heap(double... keys) {
+        IndexedMinHeap h = new IndexedMinHeap(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            h.insert(i, keys[i]);
+        }
+        return h;
+    }
+
+    @Test
+    public void empty() {
+        IndexedMinHeap h = new IndexedMinHeap(4);
+        assertTrue("should be empty", h.isEmpty());
+        assertEquals("incorrect size", 0, h.size());
+        assertFalse("no item expected", h.contains(0));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void extractFromEmpty() {
+        new IndexedMinHeap(4).extractMin();
+    }
+
+    @Test
+    public void extractInOrder() {
+        IndexedMinHeap h = heap(6, 4, 5, 9, 8, 3, 2, 1, 7, 0);
+        assertEquals("incorrect size", 10, h.size());
+        int[] expected = {9, 7, 6, 5, 1, 2, 0, 8, 4, 3};
+        for (int item : expected) {
+            assertTrue("item expected", h.contains(item));
+            assertEquals("incorrect item", item, h.extractMin());
+            assertFalse("item not expected", h.contains(item));
+        }
+        assertTrue("should be empty", h.isEmpty());
+    }
+
+    @Test
+    public void decreaseKey() {
+        IndexedMinHeap h = heap(6, 4, 5, 9, 8);
+        h.decreaseKey(3, 1);
+        h.decreaseKey(4, 4.5);
+        assertEquals("incorrect item", 3, h.extractMin());
+        assertEquals("incorrect item", 1, h.extractMin());
+        h.decreaseKey(0, 0);
+        assertEquals("incorrect item", 0, h.extractMin());
+        assertEquals("incorrect item", 4, h.extractMin());
+        assertEquals("incorrect item", 2, h.extractMin());
+    }
+
+    @Test
+    public void reinsert() {
+        IndexedMinHeap h = heap(2, 1);
+        assertEquals("incorrect item", 1, h.extractMin());
+        h.insert(1, 3);
+        assertEquals("incorrect item", 0, h.extractMin());
+        assertEquals("incorrect item", 1, h.extractMin());
+    }
+
+    @Test
+    public void equalKeysInInsertionOrder() {
+        IndexedMinHeap h = heap(0, 0, 0, 0);
+        assertEquals("incorrect item", 0, h.extractMin());
+        assertEquals("incorrect item", 1, h.extractMin());
+        assertEquals("incorrect item", 2, h.extractMin());
+        assertEquals("incorrect item", 3, h.extractMin());
+    }
+
+    @Test
+    public void loweredKeyTiesAfterEarlierItems() {
+        IndexedMinHeap h = heap(1, 2, 1, 2);
+        h.decreaseKey(3, 1);
+        assertEquals("incorrect item", 0, h.extractMin());
+        assertEquals("incorrect item", 2, h.extractMin());
+        assertEquals("incorrect item", 3, h.extractMin());
+        assertEquals("incorrect item", 1, h.extractMin());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void increaseKey() {
+        heap(1, 2).decreaseKey(0, 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateInsert() {
+        heap(1, 2).insert(1, 0);
+    }
+}
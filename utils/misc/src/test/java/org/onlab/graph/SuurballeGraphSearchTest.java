@@ -93,8 +93,7 @@ public class SuurballeGraphSearchTest extends BreadthFirstSearchTest {
         GraphPathSearch.Result<TestVertex, TestEdge> result =
                 graphSearch().search(graph, A, E, weight, GraphPathSearch.ALL_PATHS);
         Set<Path<TestVertex, TestEdge>> paths = result.paths();
-        System.out.println("\n\n" + paths + "\n\n\ndone\n");
-        assertEquals("incorrect paths count", 3, paths.size());
+        assertEquals("incorrect paths count", 5, paths.size());
         DisjointPathPair<TestVertex, TestEdge> dpp = (DisjointPathPair<TestVertex, TestEdge>) paths.iterator().next();
         assertEquals("incorrect disjoint paths per path", 2, dpp.size());
     }
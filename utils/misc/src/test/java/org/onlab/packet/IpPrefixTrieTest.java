@@ -0,0 +1,169 @@
+/*
+ * Copyright 2014 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.packet;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for class {@link IpPrefixTrie}.
+ */
+public class IpPrefixTrieTest {
+
+    private static IpPrefix prefix(String prefix) {
+        return IpPrefix.valueOf(prefix);
+    }
+
+    private static IpAddress address(String address) {
+        return IpAddress.valueOf(address);
+    }
+
+    /**
+     * Tests exact lookups, replacement and removal.
+     */
+    @Test
+    public void testPutGetRemove() {
+        IpPrefixTrie<String> trie = new IpPrefixTrie<>(IpAddress.Version.INET);
+        assertTrue(trie.isEmpty());
+
+        assertNull(trie.put(prefix("10.0.0.0/8"), "a"));
+        assertNull(trie.put(prefix("10.1.0.0/16"), "b"));
+        assertNull(trie.put(prefix("10.2.0.0/16"), "c"));
+        assertNull(trie.put(prefix("0.0.0.0/0"), "d"));
+        assertEquals("a", trie.put(prefix("10.0.0.0/8"), "e"));
+        assertEquals(4, trie.size());
+
+        assertEquals("e", trie.get(prefix("10.0.0.0/8")));
+        assertEquals("b", trie.get(prefix("10.1.0.0/16")));
+        assertEquals("d", trie.get(prefix("0.0.0.0/0")));
+        assertNull(trie.get(prefix("10.0.0.0/14")));
+        assertNull(trie.get(prefix("10.1.0.0/24")));
+        assertNull(trie.get(prefix("11.0.0.0/8")));
+
+        assertNull(trie.remove(prefix("10.0.0.0/14")));
+        assertEquals("e", trie.remove(prefix("10.0.0.0/8")));
+        assertNull(trie.get(prefix("10.0.0.0/8")));
+        assertEquals("b", trie.get(prefix("10.1.0.0/16")));
+        assertEquals("c", trie.get(prefix("10.2.0.0/16")));
+        assertEquals(3, trie.size());
+
+        trie.clear();
+        assertTrue(trie.isEmpty());
+        assertNull(trie.get(prefix("10.1.0.0/16")));
+    }
+
+    /**
+     * Tests longest prefix matching of IPv4 addresses.
+     */
+    @Test
+    public void testLongestPrefixMatch() {
+        IpPrefixTrie<String> trie = new IpPrefixTrie<>(IpAddress.Version.INET);
+        assertNull(trie.longestPrefixMatch(address("10.1.2.3")));
+
+        trie.put(prefix("10.0.0.0/8"), "a");
+        trie.put(prefix("10.1.0.0/16"), "b");
+        trie.put(prefix("10.1.2.3/32"), "c");
+        assertEquals("c", trie.longestPrefixMatch(address("10.1.2.3")));
+        assertEquals("b", trie.longestPrefixMatch(address("10.1.2.4")));
+        assertEquals("a", trie.longestPrefixMatch(address("10.2.0.1")));
+        assertNull(trie.longestPrefixMatch(address("11.0.0.1")));
+
+        trie.put(prefix("0.0.0.0/0"), "d");
+        assertEquals("d", trie.longestPrefixMatch(address("11.0.0.1")));
+    }
+
+    /**
+     * Tests covered prefix queries and ordering of the values.
+     */
+    @Test
+    public void testCoveredBy() {
+        IpPrefixTrie<String> trie = new IpPrefixTrie<>(IpAddress.Version.INET6);
+        trie.put(prefix("2001:db8::/32"), "a");
+        trie.put(prefix("2001:db8:1::/48"), "b");
+        trie.put(prefix("2001:db8:2::/48"), "c");
+        trie.put(prefix("2001:db9::/32"), "d");
+
+        assertEquals(4, trie.coveredBy(prefix("::/0")).size());
+        assertEquals(Arrays.asList("a", "b", "c"), trie.coveredBy(prefix("2001:db8::/32")));
+        assertEquals(Arrays.asList("a", "b", "c", "d"), trie.coveredBy(prefix("2001:db8::/31")));
+        assertEquals(Arrays.asList("b", "c"), trie.coveredBy(prefix("2001:db8::/46")));
+        assertEquals(Arrays.asList("c"), trie.coveredBy(prefix("2001:db8:2::/47")));
+        assertTrue(trie.coveredBy(prefix("2001:db8:3::/48")).isEmpty());
+        assertEquals(Arrays.asList("a", "b", "c", "d"), trie.values());
+        assertEquals("b", trie.longestPrefixMatch(address("2001:db8:1::1")));
+    }
+
+    /**
+     * Tests that prefixes of the other address family are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongVersion() {
+        new IpPrefixTrie<String>(IpAddress.Version.INET).put(prefix("2001:db8::/32"), "a");
+    }
+
+    /**
+     * Tests random prefixes against linear scans of the same prefixes.
+     */
+    @Test
+    public void testRandomPrefixes() {
+        Random random = new Random(42);
+        IpPrefixTrie<IpPrefix> trie = new IpPrefixTrie<>(IpAddress.Version.INET);
+        Map<IpPrefix, IpPrefix> expected = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            IpPrefix prefix = IpPrefix.valueOf(random.nextInt() & 0xf0ff00ff, random.nextInt(33));
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(prefix), trie.remove(prefix));
+            } else {
+                assertEquals(expected.put(prefix, prefix), trie.put(prefix, prefix));
+            }
+        }
+        assertEquals(expected.size(), trie.size());
+        assertEquals(expected.size(), trie.values().size());
+
+        for (int i = 0; i < 2000; i++) {
+            IpAddress address = IpAddress.valueOf(random.nextInt() & 0xf0ff00ff);
+            IpPrefix longest = null;
+            for (IpPrefix prefix : expected.keySet()) {
+                if (prefix.contains(address) &&
+                        (longest == null || prefix.prefixLength() > longest.prefixLength())) {
+                    longest = prefix;
+                }
+            }
+            assertEquals(longest, trie.longestPrefixMatch(address));
+
+            IpPrefix cover = IpPrefix.valueOf(address, random.nextInt(17));
+            List<IpPrefix> covered = new ArrayList<>();
+            for (IpPrefix prefix : expected.keySet()) {
+                if (cover.contains(prefix)) {
+                    covered.add(prefix);
+                }
+            }
+            List<IpPrefix> found = trie.coveredBy(cover);
+            assertEquals(covered.size(), found.size());
+            assertTrue(found.containsAll(covered));
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.packet;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the PacketView class.
+ */
+public class PacketViewTest {
+
+    private static final MacAddress SRC_MAC = MacAddress.valueOf("00:00:00:00:00:01");
+    private static final MacAddress DST_MAC = MacAddress.valueOf("00:00:00:00:00:02");
+    private static final int SRC_IP = Ip4Address.valueOf("10.0.0.1").toInt();
+    private static final int DST_IP = Ip4Address.valueOf("10.0.0.2").toInt();
+
+    private Ethernet ethernet(short ethType, IPacket payload) {
+        Ethernet eth = new Ethernet();
+        eth.setSourceMACAddress(SRC_MAC)
+                .setDestinationMACAddress(DST_MAC)
+                .setEtherType(ethType)
+                .setPayload(payload);
+        return eth;
+    }
+
+    private IPv4 ipv4(byte protocol, IPacket payload) {
+        IPv4 ipv4 = new IPv4();
+        ipv4.setSourceAddress(SRC_IP)
+                .setDestinationAddress(DST_IP)
+                .setProtocol(protocol)
+                .setTtl((byte) 64)
+                .setPayload(payload);
+        return ipv4;
+    }
+
+    private TCP tcp() {
+        TCP tcp = new TCP();
+        tcp.setSourcePort(1234)
+                .setDestinationPort(80)
+                .setPayload(new Data(new byte[]{1, 2, 3}));
+        return tcp;
+    }
+
+    /**
+     * Tests the view of a TCP segment in a VLAN tagged frame.
+     */
+    @Test
+    public void testTaggedTcp() {
+        Ethernet eth = ethernet(Ethernet.TYPE_IPV4, ipv4(IPv4.PROTOCOL_TCP, tcp()));
+        eth.setVlanID((short) 100);
+        byte[] frame = eth.serialize();
+        PacketView view = PacketView.of(frame);
+
+        assertTrue(view.isValid());
+        assertEquals(SRC_MAC, view.sourceMac());
+        assertEquals(DST_MAC, view.destinationMac());
+        assertEquals(Ethernet.TYPE_IPV4, view.ethType());
+        assertEquals(100, view.vlanId());
+        assertTrue(view.isIpv4());
+        assertEquals(SRC_IP, view.ipv4Src());
+        assertEquals(DST_IP, view.ipv4Dst());
+        assertEquals(IPv4.PROTOCOL_TCP, view.ipProtocol());
+        assertEquals(1234, view.l4SrcPort());
+        assertEquals(80, view.l4DstPort());
+        assertEquals(PacketView.NONE, view.arpOpcode());
+        assertArrayEquals(frame, view.parse().serialize());
+    }
+
+    /**
+     * Tests the view of a UDP datagram in an IPv6 packet.
+     */
+    @Test
+    public void testIpv6Udp() {
+        UDP udp = new UDP();
+        udp.setSourcePort(546).setDestinationPort(547);
+        IPv6 ipv6 = new IPv6();
+        ipv6.setSourceAddress(new byte[16])
+                .setDestinationAddress(new byte[16])
+                .setNextHeader(IPv6.PROTOCOL_UDP)
+                .setHopLimit((byte) 1)
+                .setPayload(udp);
+        PacketView view = PacketView.of(ethernet(Ethernet.TYPE_IPV6, ipv6).serialize());
+
+        assertEquals(Ethernet.VLAN_UNTAGGED, view.vlanId());
+        assertFalse(view.isIpv4());
+        assertTrue(view.isIpv6());
+        assertEquals(IPv6.PROTOCOL_UDP, view.ipProtocol());
+        assertEquals(546, view.l4SrcPort());
+        assertEquals(547, view.l4DstPort());
+        assertEquals(0, view.ipv4Src());
+    }
+
+    /**
+     * Tests the view of an ARP request.
+     */
+    @Test
+    public void testArp() {
+        ARP arp = new ARP();
+        arp.setHardwareType(ARP.HW_TYPE_ETHERNET)
+                .setProtocolType(ARP.PROTO_TYPE_IP)
+                .setHardwareAddressLength((byte) Ethernet.DATALAYER_ADDRESS_LENGTH)
+                .setProtocolAddressLength((byte) Ip4Address.BYTE_LENGTH)
+                .setOpCode(ARP.OP_REQUEST)
+                .setSenderHardwareAddress(SRC_MAC.toBytes())
+                .setSenderProtocolAddress(SRC_IP)
+                .setTargetHardwareAddress(MacAddress.ZERO.toBytes())
+                .setTargetProtocolAddress(DST_IP);
+        PacketView view = PacketView.of(ethernet(Ethernet.TYPE_ARP, arp).serialize());
+
+        assertTrue(view.isArp());
+        assertEquals(ARP.OP_REQUEST, view.arpOpcode());
+        assertEquals(SRC_IP, view.arpSenderIp());
+        assertEquals(DST_IP, view.arpTargetIp());
+        assertEquals(PacketView.NONE, view.ipProtocol());
+        assertEquals(PacketView.NONE, view.l4SrcPort());
+    }
+
+    /**
+     * Tests that truncated headers are reported absent.
+     */
+    @Test
+    public void testTruncated() {
+        byte[] frame = ethernet(Ethernet.TYPE_IPV4, ipv4(IPv4.PROTOCOL_TCP, tcp())).serialize();
+
+        PacketView view = PacketView.of(Arrays.copyOf(frame, 10));
+        assertFalse(view.isValid());
+        assertEquals(0, view.ethType());
+        assertNull(view.sourceMac());
+        assertEquals(PacketView.NONE, view.ipProtocol());
+        assertNull(view.parse());
+
+        view = PacketView.of(Arrays.copyOf(frame, Ethernet.ETHERNET_HEADER_LENGTH + 10));
+        assertTrue(view.isValid());
+        assertEquals(Ethernet.TYPE_IPV4, view.ethType());
+        assertFalse(view.isIpv4());
+        assertEquals(PacketView.NONE, view.l4SrcPort());
+
+        view = PacketView.of(Arrays.copyOf(frame, Ethernet.ETHERNET_HEADER_LENGTH + 22));
+        assertTrue(view.isIpv4());
+        assertEquals(PacketView.NONE, view.l4SrcPort());
+    }
+
+    /**
+     * Tests that non-initial fragments report no transport ports.
+     */
+    @Test
+    public void testFragment() {
+        IPv4 ipv4 = ipv4(IPv4.PROTOCOL_TCP, tcp());
+        ipv4.setFragmentOffset((short) 100);
+        PacketView view = PacketView.of(ethernet(Ethernet.TYPE_IPV4, ipv4).serialize());
+
+        assertEquals(IPv4.PROTOCOL_TCP, view.ipProtocol());
+        assertEquals(PacketView.NONE, view.l4SrcPort());
+        assertEquals(PacketView.NONE, view.l4DstPort());
+    }
+
+    /**
+     * Tests viewing a frame held in the middle of a buffer.
+     */
+    @Test
+    public void testBufferOffset() {
+        byte[] frame = ethernet(Ethernet.TYPE_IPV4, ipv4(IPv4.PROTOCOL_TCP, tcp())).serialize();
+        ByteBuffer buffer = ByteBuffer.allocate(frame.length + 8);
+        buffer.position(4);
+        buffer.put(frame);
+        buffer.position(4);
+        buffer.limit(4 + frame.length);
+
+        PacketView view = PacketView.of(buffer);
+        assertEquals(frame.length, view.length());
+        assertEquals(DST_MAC, view.destinationMac());
+        assertEquals(80, view.l4DstPort());
+        assertEquals(4, buffer.position());
+        assertArrayEquals(frame, view.parse().serialize());
+
+        view = PacketView.of(buffer.asReadOnlyBuffer());
+        assertArrayEquals(frame, view.parse().serialize());
+    }
+}
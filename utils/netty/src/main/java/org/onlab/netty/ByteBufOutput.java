@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.netty;
+
+import io.netty.buffer.ByteBuf;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.ByteBufferOutput;
+
+/**
+ * Kryo output that writes straight into a Netty buffer.
+ * <p>
+ * The output maps the writable region of the buffer and writes into it in
+ * place; when that region is exhausted the buffer is grown and the output
+ * moves on to the new region. Flushing advances the writer index of the
+ * buffer past the bytes written so far.
+ * </p>
+ */
+final class ByteBufOutput extends ByteBufferOutput {
+
+    private final ByteBuf buffer;
+
+    /**
+     * Creates an output appending to the given buffer.
+     *
+     * @param buffer buffer to write to
+     */
+    ByteBufOutput(ByteBuf buffer) {
+        this.buffer = buffer;
+        map();
+    }
+
+    // Maps the writable region of the buffer as the output's buffer; the
+    // region is sliced so that the output's position is relative to the
+    // writer index and its capacity ends at the end of the region.
+    private void map() {
+        setBuffer(buffer.nioBuffer(buffer.writerIndex(), buffer.writableBytes()).slice(), -1);
+    }
+
+    @Override
+    protected boolean require(int required) throws KryoException {
+        if (capacity - position >= required) {
+            return false;
+        }
+        flush();
+        buffer.ensureWritable(Math.max(required, buffer.capacity()));
+        map();
+        return true;
+    }
+
+    @Override
+    public void flush() throws KryoException {
+        buffer.writerIndex(buffer.writerIndex() + position);
+        map();
+    }
+}
@@ -20,11 +20,9 @@ package org.onlab.netty;
  */
 public enum DecoderState {
     READ_MESSAGE_PREAMBLE,
+    READ_MESSAGE_FLAGS,
     READ_MESSAGE_ID,
-    READ_SENDER_IP_VERSION,
-    READ_SENDER_IP,
-    READ_SENDER_PORT,
-    READ_MESSAGE_TYPE_LENGTH,
+    READ_SENDER,
     READ_MESSAGE_TYPE,
     READ_CONTENT_LENGTH,
     READ_CONTENT
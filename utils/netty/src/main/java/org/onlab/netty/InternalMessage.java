@@ -15,7 +15,10 @@
  */
 package org.onlab.netty;
 
-import org.onlab.util.ByteArraySizeHashPrinter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.AbstractReferenceCounted;
+
 import org.onosproject.store.cluster.messaging.Endpoint;
 
 import com.google.common.base.MoreObjects;
@@ -23,19 +26,44 @@ import com.google.common.base.MoreObjects;
 /**
  * Internal message representation with additional attributes
  * for supporting, synchronous request/reply behavior.
+ * <p>
+ * The payload is either a byte array supplied by the sender or a buffer
+ * holding the serialized payload in place, such as a pooled transmit buffer
+ * written by Kryo or a slice of the buffer a message was received in. The
+ * message is reference counted; releasing it releases that buffer.
+ * </p>
  */
-public final class InternalMessage {
+public final class InternalMessage extends AbstractReferenceCounted {
 
     private final long id;
     private final Endpoint sender;
     private final String type;
     private final byte[] payload;
+    private final ByteBuf payloadBuffer;
 
     public InternalMessage(long id, Endpoint sender, String type, byte[] payload) {
         this.id = id;
         this.sender = sender;
         this.type = type;
         this.payload = payload;
+        this.payloadBuffer = null;
+    }
+
+    /**
+     * Creates a message whose payload is the readable content of a buffer.
+     * The message takes over the caller's reference to the buffer.
+     *
+     * @param id message id
+     * @param sender sender end point
+     * @param type message type
+     * @param payloadBuffer buffer holding the payload
+     */
+    public InternalMessage(long id, Endpoint sender, String type, ByteBuf payloadBuffer) {
+        this.id = id;
+        this.sender = sender;
+        this.type = type;
+        this.payload = null;
+        this.payloadBuffer = payloadBuffer;
     }
 
     public long id() {
@@ -50,8 +78,53 @@ public final class InternalMessage {
         return sender;
     }
 
+    /**
+     * Returns the payload as a byte array. Payloads held in a buffer are
+     * copied out of it.
+     *
+     * @return payload bytes
+     */
     public byte[] payload() {
-        return payload;
+        if (payload != null) {
+            return payload;
+        }
+        byte[] bytes = new byte[payloadBuffer.readableBytes()];
+        payloadBuffer.getBytes(payloadBuffer.readerIndex(), bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns the payload as a buffer, without copying it. The buffer remains
+     * owned by the message.
+     *
+     * @return payload buffer
+     */
+    public ByteBuf payloadBuffer() {
+        return payloadBuffer != null ? payloadBuffer : Unpooled.wrappedBuffer(payload);
+    }
+
+    /**
+     * Returns the length of the payload.
+     *
+     * @return payload length in bytes
+     */
+    public int payloadLength() {
+        return payload != null ? payload.length : payloadBuffer.readableBytes();
+    }
+
+    @Override
+    protected void deallocate() {
+        if (payloadBuffer != null) {
+            payloadBuffer.release();
+        }
+    }
+
+    public InternalMessage touch() {
+        return this;
+    }
+
+    public InternalMessage touch(Object hint) {
+        return this;
     }
 
     @Override
@@ -60,7 +133,7 @@ public final class InternalMessage {
                 .add("id", id)
                 .add("type", type)
                 .add("sender", sender)
-                .add("payload", ByteArraySizeHashPrinter.of(payload))
+                .add("payloadLength", payloadLength())
                 .toString();
     }
 }
@@ -19,6 +19,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ReplayingDecoder;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.onlab.packet.IpAddress;
@@ -30,21 +31,30 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Charsets;
 
 import static com.google.common.base.Preconditions.checkState;
+import static org.onlab.netty.VarInts.readVarInt;
+import static org.onlab.netty.VarInts.readVarLong;
 
 /**
  * Decoder for inbound messages.
+ * <p>
+ * Keeps the per-connection table of message types learned from the peer,
+ * so that subsequent messages resolve their type by index.
+ * </p>
+ * <p>
+ * Decoded messages hold their payload in place in the inbound buffer and
+ * must be released once handled.
+ * </p>
  */
 public class MessageDecoder extends ReplayingDecoder<DecoderState> {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private final int correctPreamble;
+    private final List<String> messageTypes = new ArrayList<>();
+    private int flags;
     private long messageId;
     private int preamble;
-    private Version ipVersion;
-    private IpAddress senderIp;
-    private int senderPort;
-    private int messageTypeLength;
+    private Endpoint sender;
     private String messageType;
     private int contentLength;
 
@@ -66,38 +76,43 @@ public class MessageDecoder extends ReplayingDecoder<DecoderState> {
             if (preamble != correctPreamble) {
                 throw new IllegalStateException("This message had an incorrect preamble.");
             }
+            checkpoint(DecoderState.READ_MESSAGE_FLAGS);
+        case READ_MESSAGE_FLAGS:
+            flags = buffer.readUnsignedByte();
             checkpoint(DecoderState.READ_MESSAGE_ID);
         case READ_MESSAGE_ID:
-            messageId = buffer.readLong();
-            checkpoint(DecoderState.READ_SENDER_IP_VERSION);
-        case READ_SENDER_IP_VERSION:
-            ipVersion = buffer.readByte() == 0x0 ? Version.INET : Version.INET6;
-            checkpoint(DecoderState.READ_SENDER_IP);
-        case READ_SENDER_IP:
-            byte[] octets = new byte[IpAddress.byteLength(ipVersion)];
-            buffer.readBytes(octets);
-            senderIp = IpAddress.valueOf(ipVersion, octets);
-            checkpoint(DecoderState.READ_SENDER_PORT);
-        case READ_SENDER_PORT:
-            senderPort = buffer.readInt();
-            checkpoint(DecoderState.READ_MESSAGE_TYPE_LENGTH);
-        case READ_MESSAGE_TYPE_LENGTH:
-            messageTypeLength = buffer.readInt();
+            messageId = readVarLong(buffer);
+            checkpoint(DecoderState.READ_SENDER);
+        case READ_SENDER:
+            if ((flags & MessageEncoder.FLAG_SENDER) != 0) {
+                Version ipVersion = buffer.readByte() == 0x0 ? Version.INET : Version.INET6;
+                byte[] octets = new byte[IpAddress.byteLength(ipVersion)];
+                buffer.readBytes(octets);
+                int senderPort = readVarInt(buffer);
+                sender = new Endpoint(IpAddress.valueOf(ipVersion, octets), senderPort);
+            }
+            checkState(sender != null, "Sender must be present on the first message");
             checkpoint(DecoderState.READ_MESSAGE_TYPE);
         case READ_MESSAGE_TYPE:
-            byte[] messageTypeBytes = new byte[messageTypeLength];
-            buffer.readBytes(messageTypeBytes);
-            messageType = new String(messageTypeBytes, Charsets.UTF_8);
+            int typeId = readVarInt(buffer);
+            if ((flags & MessageEncoder.FLAG_TYPE_DEFINITION) != 0) {
+                byte[] messageTypeBytes = new byte[readVarInt(buffer)];
+                buffer.readBytes(messageTypeBytes);
+                checkState(typeId == messageTypes.size(), "Unexpected message type id %s", typeId);
+                messageTypes.add(new String(messageTypeBytes, Charsets.UTF_8));
+            }
+            checkState(typeId < messageTypes.size(), "Unknown message type id %s", typeId);
+            messageType = messageTypes.get(typeId);
             checkpoint(DecoderState.READ_CONTENT_LENGTH);
         case READ_CONTENT_LENGTH:
-            contentLength = buffer.readInt();
+            contentLength = readVarInt(buffer);
             checkpoint(DecoderState.READ_CONTENT);
         case READ_CONTENT:
-            //TODO Perform a sanity check on the size before allocating
-            byte[] payload = new byte[contentLength];
-            buffer.readBytes(payload);
+            // The payload is not copied out: the message holds a retained
+            // slice of the inbound buffer, which is released with it.
+            ByteBuf payload = buffer.readSlice(contentLength).retain();
             InternalMessage message = new InternalMessage(messageId,
-                    new Endpoint(senderIp, senderPort),
+                    sender,
                     messageType,
                     payload);
             out.add(message);
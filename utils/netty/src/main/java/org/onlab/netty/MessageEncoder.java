@@ -16,11 +16,13 @@
 package org.onlab.netty;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageEncoder;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.onlab.packet.IpAddress;
 import org.onlab.packet.IpAddress.Version;
@@ -30,13 +32,41 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Charsets;
 
+import static org.onlab.netty.VarInts.writeVarInt;
+import static org.onlab.netty.VarInts.writeVarLong;
+
 /**
- * Encode InternalMessage out into a byte buffer.
+ * Encodes internal messages using a compact header.
+ * <p>
+ * Message types are replaced by small integers assigned per connection; the
+ * first message of a given type on a connection also carries the type string
+ * so that the decoder can learn the mapping. Likewise the sender endpoint is
+ * sent only when it differs from the previous message on the connection.
+ * Instances hold per-connection state and must not be shared between channels.
+ * </p>
+ * <p>
+ * Only the header is written into a newly allocated buffer. Larger payloads
+ * follow it as a buffer of their own, so that they are handed to the channel
+ * without being copied; this is a view of the sender's byte array or the
+ * pooled buffer the payload was serialized into.
+ * </p>
  */
-@Sharable
-public class MessageEncoder extends MessageToByteEncoder<InternalMessage> {
+public class MessageEncoder extends MessageToMessageEncoder<InternalMessage> {
+
+    // header flags
+    static final int FLAG_SENDER = 0x1;
+    static final int FLAG_TYPE_DEFINITION = 0x2;
+
+    // upper bound of the header size, excluding the message type definition
+    private static final int MAX_HEADER_LENGTH = 4 + 1 + 10 + 1 + 16 + 5 + 5 + 5 + 5;
+
+    // payloads up to this length are cheaper to copy behind the header
+    // than to send as a separate buffer
+    static final int INLINE_PAYLOAD_LENGTH = 1024;
 
     private final int preamble;
+    private final Map<String, Integer> typeIds = new HashMap<>();
+    private Endpoint lastSender;
 
     public MessageEncoder(int preamble) {
         super();
@@ -49,41 +79,71 @@ public class MessageEncoder extends MessageToByteEncoder<InternalMessage> {
     protected void encode(
             ChannelHandlerContext context,
             InternalMessage message,
-            ByteBuf out) throws Exception {
+            List<Object> frame) throws Exception {
 
-        out.writeInt(this.preamble);
-
-        // write message id
-        out.writeLong(message.id());
+        ByteBuf payload = message.payloadBuffer();
+        int payloadLength = payload.readableBytes();
+        boolean inline = payloadLength <= INLINE_PAYLOAD_LENGTH;
 
         Endpoint sender = message.sender();
+        boolean writeSender = !sender.equals(lastSender);
 
-        IpAddress senderIp = sender.host();
-        if (senderIp.version() == Version.INET) {
-            out.writeByte(0);
-        } else {
-            out.writeByte(1);
+        Integer typeId = typeIds.get(message.type());
+        boolean defineType = typeId == null;
+        if (defineType) {
+            typeId = typeIds.size();
         }
-        out.writeBytes(senderIp.toOctets());
 
-        // write sender port
-        out.writeInt(sender.port());
+        int capacity = MAX_HEADER_LENGTH + (inline ? payloadLength : 0);
+        if (defineType) {
+            capacity += message.type().length() * 3;
+        }
+        ByteBuf out = context.alloc().ioBuffer(capacity);
 
-        byte[] messageTypeBytes = message.type().getBytes(Charsets.UTF_8);
+        out.writeInt(this.preamble);
 
-        // write length of message type
-        out.writeInt(messageTypeBytes.length);
+        out.writeByte((writeSender ? FLAG_SENDER : 0) | (defineType ? FLAG_TYPE_DEFINITION : 0));
 
-        // write message type bytes
-        out.writeBytes(messageTypeBytes);
+        // write message id
+        writeVarLong(out, message.id());
+
+        if (writeSender) {
+            IpAddress senderIp = sender.host();
+            if (senderIp.version() == Version.INET) {
+                out.writeByte(0);
+            } else {
+                out.writeByte(1);
+            }
+            out.writeBytes(senderIp.toOctets());
+
+            // write sender port
+            writeVarInt(out, sender.port());
+        }
 
-        byte[] payload = message.payload();
+        // write message type id, preceded by its definition on first use
+        writeVarInt(out, typeId);
+        if (defineType) {
+            byte[] messageTypeBytes = message.type().getBytes(Charsets.UTF_8);
+            writeVarInt(out, messageTypeBytes.length);
+            out.writeBytes(messageTypeBytes);
+        }
 
         // write payload length
-        out.writeInt(payload.length);
+        writeVarInt(out, payloadLength);
 
-        // write payload.
-        out.writeBytes(payload);
+        // write payload, or send it on as it is
+        frame.add(out);
+        if (inline) {
+            out.writeBytes(payload, payload.readerIndex(), payloadLength);
+        } else {
+            frame.add(payload.duplicate().retain());
+        }
+
+        // the peer knows about these only once the message is fully encoded
+        lastSender = sender;
+        if (defineType) {
+            typeIds.put(message.type(), typeId);
+        }
     }
 
     @Override
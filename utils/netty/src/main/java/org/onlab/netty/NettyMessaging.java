@@ -15,14 +15,20 @@
  */
 package org.onlab.netty;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
+import com.esotericsoftware.kryo.io.ByteBufferInput;
 import com.google.common.util.concurrent.MoreExecutors;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
@@ -30,6 +36,8 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
 import io.netty.channel.SimpleChannelInboundHandler;
@@ -41,8 +49,7 @@ import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 
-import org.apache.commons.pool.KeyedPoolableObjectFactory;
-import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+import org.onlab.util.KryoNamespace;
 import org.onlab.util.Tools;
 import org.onosproject.store.cluster.messaging.Endpoint;
 import org.onosproject.store.cluster.messaging.MessagingService;
@@ -79,6 +86,9 @@ public class NettyMessaging implements MessagingService {
 
     private static final String REPLY_MESSAGE_TYPE = "NETTY_MESSAGING_REQUEST_REPLY";
 
+    // number of long-lived connections kept open to each peer
+    private static final int CHANNELS_PER_PEER = 4;
+
     private Endpoint localEp;
     private int preamble;
     private final AtomicBoolean started = new AtomicBoolean(false);
@@ -96,8 +106,16 @@ public class NettyMessaging implements MessagingService {
             })
             .build();
 
-    private final GenericKeyedObjectPool<Endpoint, Channel> channels
-            = new GenericKeyedObjectPool<Endpoint, Channel>(new OnosCommunicationChannelFactory());
+    private final Map<Endpoint, Connection> connections = new ConcurrentHashMap<>();
+
+    // size of the last payload serialized for each message type, used to size
+    // the transmit buffer of the next one
+    private final Map<String, Integer> payloadSizeHints = new ConcurrentHashMap<>();
+
+    // outbound write coalescing statistics
+    protected final Histogram flushBatchSize = new Histogram(new ExponentiallyDecayingReservoir());
+    protected final Timer flushLinger = new Timer();
+    protected final Counter flushCount = new Counter();
 
     private EventLoopGroup serverGroup;
     private EventLoopGroup clientGroup;
@@ -139,11 +157,6 @@ public class NettyMessaging implements MessagingService {
         }
         this.preamble = preamble;
         this.localEp = localEp;
-        channels.setLifo(true);
-        channels.setTestOnBorrow(true);
-        channels.setTestOnReturn(true);
-        channels.setMinEvictableIdleTimeMillis(60_000L);
-        channels.setTimeBetweenEvictionRunsMillis(30_000L);
         initEventLoopGroup();
         startAcceptingConnections();
         started.set(true);
@@ -151,7 +164,8 @@ public class NettyMessaging implements MessagingService {
 
     public void stop() throws Exception {
         if (started.get()) {
-            channels.close();
+            connections.values().forEach(Connection::close);
+            connections.clear();
             serverGroup.shutdownGracefully();
             clientGroup.shutdownGracefully();
             started.set(false);
@@ -167,37 +181,78 @@ public class NettyMessaging implements MessagingService {
         return sendAsync(ep, message);
     }
 
+    @Override
+    public <M> CompletableFuture<Void> sendAsync(Endpoint ep, String type, M message, KryoNamespace serializer) {
+        try {
+            return sendAsync(ep, encode(messageIdGenerator.incrementAndGet(), type, message, serializer));
+        } catch (Exception e) {
+            return Tools.exceptionalFuture(e);
+        }
+    }
+
+    // Serializes the payload straight into a pooled transmit buffer.
+    private InternalMessage encode(long id, String type, Object message, KryoNamespace serializer) {
+        ByteBuf buffer = PooledByteBufAllocator.DEFAULT.directBuffer(
+                payloadSizeHints.getOrDefault(type, KryoNamespace.DEFAULT_BUFFER_SIZE));
+        try {
+            serializer.serialize(message, new ByteBufOutput(buffer));
+        } catch (RuntimeException e) {
+            buffer.release();
+            throw e;
+        }
+        payloadSizeHints.put(type, buffer.readableBytes());
+        return new InternalMessage(id, localEp, type, buffer);
+    }
+
+    // Deserializes the payload in place and releases the message.
+    private static <T> T decode(InternalMessage message, KryoNamespace serializer) {
+        try {
+            return serializer.deserialize(new ByteBufferInput(message.payloadBuffer().nioBuffer()));
+        } finally {
+            message.release();
+        }
+    }
+
+    // Sends the message, taking over the caller's reference to it.
     protected CompletableFuture<Void> sendAsync(Endpoint ep, InternalMessage message) {
         if (ep.equals(localEp)) {
             try {
                 dispatchLocally(message);
             } catch (IOException e) {
                 return Tools.exceptionalFuture(e);
+            } finally {
+                message.release();
             }
             return CompletableFuture.completedFuture(null);
         }
 
         CompletableFuture<Void> future = new CompletableFuture<>();
         try {
-            Channel channel = null;
-            try {
-                channel = channels.borrowObject(ep);
-                channel.writeAndFlush(message).addListener(channelFuture -> {
-                    if (!channelFuture.isSuccess()) {
-                        future.completeExceptionally(channelFuture.cause());
-                    } else {
-                        future.complete(null);
-                    }
-                });
-            } finally {
-                channels.returnObject(ep, channel);
-            }
+            OutboundChannel channel;
+            do {
+                // retry if the connection got retired as its channels closed
+                channel = connections.computeIfAbsent(ep, Connection::new).channelFor(message.type());
+            } while (channel == null);
+            channel.write(message)
+                    .addListener(channelFuture -> {
+                        if (!channelFuture.isSuccess()) {
+                            future.completeExceptionally(channelFuture.cause());
+                        } else {
+                            future.complete(null);
+                        }
+                    });
         } catch (Exception e) {
+            message.release();
             future.completeExceptionally(e);
         }
         return future;
     }
 
+    // Number of peers with an open connection; for testing.
+    int connectionCount() {
+        return connections.size();
+    }
+
     @Override
     public CompletableFuture<byte[]> sendAndReceive(Endpoint ep, String type, byte[] payload) {
         return sendAndReceive(ep, type, payload, MoreExecutors.directExecutor());
@@ -205,11 +260,28 @@ public class NettyMessaging implements MessagingService {
 
     @Override
     public CompletableFuture<byte[]> sendAndReceive(Endpoint ep, String type, byte[] payload, Executor executor) {
+        long messageId = messageIdGenerator.incrementAndGet();
+        return sendAndReceive(ep, new InternalMessage(messageId, localEp, type, payload), executor);
+    }
+
+    @Override
+    public <M, R> CompletableFuture<R> sendAndReceive(Endpoint ep, String type, M message,
+                                                      KryoNamespace serializer) {
+        InternalMessage request;
+        try {
+            request = encode(messageIdGenerator.incrementAndGet(), type, message, serializer);
+        } catch (Exception e) {
+            return Tools.exceptionalFuture(e);
+        }
+        return sendAndReceive(ep, request, MoreExecutors.directExecutor())
+                .thenApply(bytes -> serializer.deserialize(bytes));
+    }
+
+    private CompletableFuture<byte[]> sendAndReceive(Endpoint ep, InternalMessage message, Executor executor) {
         CompletableFuture<byte[]> response = new CompletableFuture<>();
         Callback callback = new Callback(response, executor);
-        Long messageId = messageIdGenerator.incrementAndGet();
+        Long messageId = message.id();
         callbacks.put(messageId, callback);
-        InternalMessage message = new InternalMessage(messageId, localEp, type, payload);
         return sendAsync(ep, message).whenComplete((r, e) -> {
             if (e != null) {
                 callbacks.invalidate(messageId);
@@ -217,27 +289,73 @@ public class NettyMessaging implements MessagingService {
         }).thenCompose(v -> response);
     }
 
+    // Handlers of byte array payloads copy the payload out before the
+    // inbound message is released; handlers using a serializer keep the
+    // message until its payload has been deserialized in place.
+
     @Override
     public void registerHandler(String type, BiConsumer<Endpoint, byte[]> handler, Executor executor) {
-        handlers.put(type, message -> executor.execute(() -> handler.accept(message.sender(), message.payload())));
+        handlers.put(type, message -> {
+            byte[] payload = message.payload();
+            executor.execute(() -> handler.accept(message.sender(), payload));
+        });
     }
 
     @Override
-    public void registerHandler(String type, BiFunction<Endpoint, byte[], byte[]> handler, Executor executor) {
-        handlers.put(type, message -> executor.execute(() -> {
-            byte[] responsePayload = handler.apply(message.sender(), message.payload());
-            if (responsePayload != null) {
-                InternalMessage response = new InternalMessage(message.id(),
-                        localEp,
-                        REPLY_MESSAGE_TYPE,
-                        responsePayload);
-                sendAsync(message.sender(), response).whenComplete((result, error) -> {
-                    if (error != null) {
-                        log.debug("Failed to respond", error);
-                    }
+    public <M> void registerHandler(String type, KryoNamespace serializer,
+                                    BiConsumer<Endpoint, M> handler, Executor executor) {
+        handlers.put(type, message -> {
+            message.retain();
+            try {
+                executor.execute(() -> handler.accept(message.sender(), decode(message, serializer)));
+            } catch (RejectedExecutionException e) {
+                message.release();
+                throw e;
+            }
+        });
+    }
+
+    @Override
+    public <M, R> void registerHandler(String type, KryoNamespace serializer,
+                                       BiFunction<Endpoint, M, R> handler, Executor executor) {
+        handlers.put(type, message -> {
+            message.retain();
+            try {
+                executor.execute(() -> {
+                    R result = handler.apply(message.sender(), decode(message, serializer));
+                    InternalMessage response = encode(message.id(), REPLY_MESSAGE_TYPE, result, serializer);
+                    sendAsync(message.sender(), response).whenComplete((r, error) -> {
+                        if (error != null) {
+                            log.debug("Failed to respond", error);
+                        }
+                    });
                 });
+            } catch (RejectedExecutionException e) {
+                message.release();
+                throw e;
             }
-        }));
+        });
+    }
+
+    @Override
+    public void registerHandler(String type, BiFunction<Endpoint, byte[], byte[]> handler, Executor executor) {
+        handlers.put(type, message -> {
+            byte[] payload = message.payload();
+            executor.execute(() -> {
+                byte[] responsePayload = handler.apply(message.sender(), payload);
+                if (responsePayload != null) {
+                    InternalMessage response = new InternalMessage(message.id(),
+                            localEp,
+                            REPLY_MESSAGE_TYPE,
+                            responsePayload);
+                    sendAsync(message.sender(), response).whenComplete((result, error) -> {
+                        if (error != null) {
+                            log.debug("Failed to respond", error);
+                        }
+                    });
+                }
+            });
+        });
     }
 
     @Override
@@ -291,22 +409,81 @@ public class NettyMessaging implements MessagingService {
         });
     }
 
-    private class OnosCommunicationChannelFactory
-        implements KeyedPoolableObjectFactory<Endpoint, Channel> {
+    // Fixed set of long-lived channels to a peer. Once none of its channels
+    // is open any more, the connection is retired and dropped from the map.
+    private class Connection {
+        private final Endpoint ep;
+        private final OutboundChannel[] channels = new OutboundChannel[CHANNELS_PER_PEER];
+        private boolean retired;
 
-        @Override
-        public void activateObject(Endpoint endpoint, Channel channel)
-                throws Exception {
+        Connection(Endpoint ep) {
+            this.ep = ep;
         }
 
-        @Override
-        public void destroyObject(Endpoint ep, Channel channel) throws Exception {
-            log.debug("Closing connection to {}", ep);
-            channel.close();
+        // Messages of the same type always travel over the same channel,
+        // which keeps them in order. Returns null if the connection has been
+        // retired, in which case the caller should look up a new one.
+        OutboundChannel channelFor(String type) throws Exception {
+            int index = Math.abs(type.hashCode() % CHANNELS_PER_PEER);
+            synchronized (channels) {
+                if (retired) {
+                    return null;
+                }
+                OutboundChannel channel = channels[index];
+                if (channel != null && channel.channel.isOpen()) {
+                    return channel;
+                }
+            }
+            // Connect outside of the lock, so that a slow or unreachable peer
+            // does not hold up senders using the other channels.
+            Channel connected;
+            try {
+                connected = connect();
+            } catch (Exception e) {
+                retireIfIdle();
+                throw e;
+            }
+            synchronized (channels) {
+                if (retired) {
+                    connected.close();
+                    return null;
+                }
+                OutboundChannel channel = channels[index];
+                if (channel != null && channel.channel.isOpen()) {
+                    // Another sender connected meanwhile
+                    connected.close();
+                    return channel;
+                }
+                OutboundChannel opened = new OutboundChannel(connected);
+                channels[index] = opened;
+                connected.closeFuture().addListener(f -> channelClosed(index, opened));
+                return opened;
+            }
         }
 
-        @Override
-        public Channel makeObject(Endpoint ep) throws Exception {
+        private void channelClosed(int index, OutboundChannel channel) {
+            synchronized (channels) {
+                if (channels[index] == channel) {
+                    channels[index] = null;
+                }
+                retireIfIdle();
+            }
+        }
+
+        // Drops the connection from the map if none of its channels is open.
+        private void retireIfIdle() {
+            synchronized (channels) {
+                for (OutboundChannel channel : channels) {
+                    if (channel != null) {
+                        return;
+                    }
+                }
+                retired = true;
+                connections.remove(ep, this);
+            }
+        }
+
+        private Channel connect() throws Exception {
             Bootstrap bootstrap = new Bootstrap();
             bootstrap.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
             bootstrap.option(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, 10 * 64 * 1024);
@@ -314,8 +491,6 @@ public class NettyMessaging implements MessagingService {
             bootstrap.option(ChannelOption.SO_SNDBUF, 1048576);
             bootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 1000);
             bootstrap.group(clientGroup);
-            // TODO: Make this faster:
-            // http://normanmaurer.me/presentations/2014-facebook-eng-netty/slides.html#37.0
             bootstrap.channel(clientChannelClass);
             bootstrap.option(ChannelOption.SO_KEEPALIVE, true);
             if (enableNettyTls) {
@@ -329,21 +504,69 @@ public class NettyMessaging implements MessagingService {
             return f.channel();
         }
 
-        @Override
-        public void passivateObject(Endpoint ep, Channel channel)
-                throws Exception {
+        void close() {
+            synchronized (channels) {
+                for (OutboundChannel channel : channels) {
+                    if (channel != null) {
+                        log.debug("Closing connection to {}", ep);
+                        channel.channel.close();
+                    }
+                }
+            }
         }
+    }
 
-        @Override
-        public boolean validateObject(Endpoint ep, Channel channel) {
-            return channel.isOpen();
+    // Channel whose writes are coalesced into a single flush per event-loop tick.
+    // Writes are issued and their flush scheduled on the channel's event loop,
+    // so no write can be queued behind the flush which was meant to cover it.
+    private class OutboundChannel {
+        private final Channel channel;
+
+        // accessed from the event loop only
+        private boolean flushScheduled;
+        private int pendingWrites;
+        private long batchStart;
+
+        OutboundChannel(Channel channel) {
+            this.channel = channel;
+        }
+
+        ChannelFuture write(InternalMessage message) {
+            ChannelPromise promise = channel.newPromise();
+            EventLoop eventLoop = channel.eventLoop();
+            if (eventLoop.inEventLoop()) {
+                write(message, promise);
+            } else {
+                eventLoop.execute(() -> write(message, promise));
+            }
+            return promise;
+        }
+
+        private void write(InternalMessage message, ChannelPromise promise) {
+            channel.write(message, promise);
+            pendingWrites++;
+            if (!flushScheduled) {
+                flushScheduled = true;
+                batchStart = System.nanoTime();
+                // Runs after the writes queued on the event loop meanwhile
+                channel.eventLoop().execute(this::flush);
+            }
+        }
+
+        private void flush() {
+            flushScheduled = false;
+            int batchSize = pendingWrites;
+            pendingWrites = 0;
+            channel.flush();
+            flushCount.inc();
+            flushBatchSize.update(batchSize);
+            flushLinger.update(System.nanoTime() - batchStart, TimeUnit.NANOSECONDS);
         }
     }
 
     private class SslServerCommunicationChannelInitializer extends ChannelInitializer<SocketChannel> {
 
         private final ChannelHandler dispatcher = new InboundMessageDispatcher();
-        private final ChannelHandler encoder = new MessageEncoder(preamble);
 
         @Override
         protected void initChannel(SocketChannel channel) throws Exception {
@@ -369,7 +592,7 @@ public class NettyMessaging implements MessagingService {
             serverSslEngine.setEnableSessionCreation(true);
 
             channel.pipeline().addLast("ssl", new io.netty.handler.ssl.SslHandler(serverSslEngine))
-                    .addLast("encoder", encoder)
+                    .addLast("encoder", new MessageEncoder(preamble))
                     .addLast("decoder", new MessageDecoder(preamble))
                     .addLast("handler", dispatcher);
         }
@@ -379,7 +602,6 @@ public class NettyMessaging implements MessagingService {
     private class SslClientCommunicationChannelInitializer extends ChannelInitializer<SocketChannel> {
 
         private final ChannelHandler dispatcher = new InboundMessageDispatcher();
-        private final ChannelHandler encoder = new MessageEncoder(preamble);
 
         @Override
         protected void initChannel(SocketChannel channel) throws Exception {
@@ -404,7 +626,7 @@ public class NettyMessaging implements MessagingService {
             clientSslEngine.setEnableSessionCreation(true);
 
             channel.pipeline().addLast("ssl", new io.netty.handler.ssl.SslHandler(clientSslEngine))
-                    .addLast("encoder", encoder)
+                    .addLast("encoder", new MessageEncoder(preamble))
                     .addLast("decoder", new MessageDecoder(preamble))
                     .addLast("handler", dispatcher);
         }
@@ -414,12 +636,11 @@ public class NettyMessaging implements MessagingService {
     private class OnosCommunicationChannelInitializer extends ChannelInitializer<SocketChannel> {
 
         private final ChannelHandler dispatcher = new InboundMessageDispatcher();
-        private final ChannelHandler encoder = new MessageEncoder(preamble);
 
         @Override
         protected void initChannel(SocketChannel channel) throws Exception {
                 channel.pipeline()
-                        .addLast("encoder", encoder)
+                        .addLast("encoder", new MessageEncoder(preamble))
                         .addLast("decoder", new MessageDecoder(preamble))
                         .addLast("handler", dispatcher);
         }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014-2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.netty;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Helpers for reading and writing variable-length integers as used in the
+ * message header: 7 bits per byte, least significant group first, with the
+ * high bit set on all but the last byte.
+ */
+final class VarInts {
+
+    private VarInts() {
+    }
+
+    /**
+     * Writes a non-negative long as a variable-length integer.
+     *
+     * @param out   buffer to write to
+     * @param value value to write
+     */
+    static void writeVarLong(ByteBuf out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Writes a non-negative int as a variable-length integer.
+     *
+     * @param out   buffer to write to
+     * @param value value to write
+     */
+    static void writeVarInt(ByteBuf out, int value) {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Reads a variable-length long.
+     *
+     * @param in buffer to read from
+     * @return value read
+     */
+    static long readVarLong(ByteBuf in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 63) {
+                throw new IllegalStateException("Malformed variable-length integer");
+            }
+            b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Reads a variable-length int.
+     *
+     * @param in buffer to read from
+     * @return value read
+     */
+    static int readVarInt(ByteBuf in) {
+        return (int) readVarLong(in);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import org.junit.Test;
+
+import com.esotericsoftware.kryo.io.ByteBufferInput;
+import com.esotericsoftware.kryo.io.Output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the Kryo output writing into Netty buffers.
+ */
+public class ByteBufOutputTest {
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+
+    private static byte[] readable(ByteBuf buffer) {
+        byte[] bytes = new byte[buffer.readableBytes()];
+        buffer.getBytes(buffer.readerIndex(), bytes);
+        return bytes;
+    }
+
+    @Test
+    public void writesInPlace() {
+        ByteBuf buffer = Unpooled.buffer(64);
+        ByteBufOutput out = new ByteBufOutput(buffer);
+        out.writeInt(42);
+        out.writeString("onos");
+        out.flush();
+
+        Output expected = new Output(64);
+        expected.writeInt(42);
+        expected.writeString("onos");
+
+        assertEquals(64, buffer.capacity());
+        assertArrayEquals(expected.toBytes(), readable(buffer));
+    }
+
+    @Test
+    public void growsBuffer() {
+        ByteBuf buffer = Unpooled.buffer(16);
+        ByteBufOutput out = new ByteBufOutput(buffer);
+        out.writeInt(7);
+        out.writeBytes(bytes(1000));
+        out.writeLong(Long.MAX_VALUE);
+        out.flush();
+
+        Output expected = new Output(16, -1);
+        expected.writeInt(7);
+        expected.writeBytes(bytes(1000));
+        expected.writeLong(Long.MAX_VALUE);
+
+        assertTrue(buffer.capacity() >= 1012);
+        assertArrayEquals(expected.toBytes(), readable(buffer));
+    }
+
+    @Test
+    public void appendsAfterWriterIndex() {
+        ByteBuf buffer = Unpooled.buffer(16);
+        buffer.writeInt(-1);
+        ByteBufOutput out = new ByteBufOutput(buffer);
+        out.writeBytes(bytes(100));
+        out.flush();
+
+        assertEquals(104, buffer.readableBytes());
+        assertEquals(-1, buffer.readInt());
+        assertArrayEquals(bytes(100), readable(buffer));
+    }
+
+    @Test
+    public void readsBack() {
+        ByteBuf buffer = Unpooled.buffer(8);
+        ByteBufOutput out = new ByteBufOutput(buffer);
+        out.writeString("flow table backup");
+        out.writeVarInt(300, true);
+        out.flush();
+
+        ByteBufferInput in = new ByteBufferInput(buffer.nioBuffer());
+        assertEquals("flow table backup", in.readString());
+        assertEquals(300, in.readVarInt(true));
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2014 Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onosproject.store.cluster.messaging.Endpoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the message encoder and decoder.
+ */
+public class MessageCodecTest {
+
+    private static final int PREAMBLE = 12;
+    private static final String TYPE = "ecmap-test-map-update";
+
+    private final Endpoint ep1 = new Endpoint(IpAddress.valueOf("10.0.0.1"), 9876);
+    private final Endpoint ep2 = new Endpoint(IpAddress.valueOf("fe80::1"), 9876);
+
+    private final EmbeddedChannel encoder = new EmbeddedChannel(new MessageEncoder(PREAMBLE));
+    private final EmbeddedChannel decoder = new EmbeddedChannel(new MessageDecoder(PREAMBLE));
+
+    private ByteBuf encode(InternalMessage message) {
+        assertTrue(encoder.writeOutbound(message));
+        // large payloads are written as a buffer of their own after the header
+        List<ByteBuf> frame = new ArrayList<>();
+        for (Object part = encoder.readOutbound(); part != null; part = encoder.readOutbound()) {
+            frame.add((ByteBuf) part);
+        }
+        return Unpooled.wrappedBuffer(frame.toArray(new ByteBuf[frame.size()]));
+    }
+
+    private InternalMessage decode(ByteBuf buf) {
+        assertTrue(decoder.writeInbound(buf));
+        return (InternalMessage) decoder.readInbound();
+    }
+
+    private void assertMessage(InternalMessage expected, InternalMessage actual) {
+        assertEquals(expected.id(), actual.id());
+        assertEquals(expected.sender(), actual.sender());
+        assertEquals(expected.type(), actual.type());
+        assertArrayEquals(expected.payload(), actual.payload());
+    }
+
+    @Test
+    public void roundTrip() {
+        InternalMessage[] messages = {
+                new InternalMessage(1, ep1, TYPE, new byte[] {1, 2, 3}),
+                new InternalMessage(2, ep1, TYPE, new byte[0]),
+                new InternalMessage(Long.MAX_VALUE, ep1, "other", new byte[300]),
+                new InternalMessage(3, ep2, TYPE, new byte[] {4}),
+                new InternalMessage(4, ep2, "other", new byte[] {5}),
+        };
+        for (InternalMessage message : messages) {
+            assertMessage(message, decode(encode(message)));
+        }
+    }
+
+    @Test
+    public void typeResolvedFromTable() {
+        InternalMessage first = decode(encode(new InternalMessage(1, ep1, TYPE, new byte[1])));
+        InternalMessage second = decode(encode(new InternalMessage(2, ep1, TYPE, new byte[1])));
+        assertSame(first.type(), second.type());
+    }
+
+    @Test
+    public void compactHeader() {
+        InternalMessage message = new InternalMessage(1, ep1, TYPE, new byte[10]);
+        ByteBuf first = encode(message);
+        ByteBuf second = encode(new InternalMessage(2, ep1, TYPE, new byte[10]));
+
+        // preamble, id, IPv4 sender, port, type length and type, payload length
+        int legacyHeader = 4 + 8 + 1 + 4 + 4 + 4 + TYPE.length() + 4;
+        // preamble, flags, id, type id, payload length
+        int compactHeader = 4 + 1 + 1 + 1 + 1;
+
+        assertTrue(first.readableBytes() < legacyHeader + 10);
+        assertEquals(compactHeader + 10, second.readableBytes());
+
+        decode(first);
+        decode(second);
+    }
+
+    @Test
+    public void largePayloadNotCopied() {
+        byte[] bytes = new byte[MessageEncoder.INLINE_PAYLOAD_LENGTH * 4];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        ByteBuf payload = Unpooled.wrappedBuffer(bytes);
+        assertTrue(encoder.writeOutbound(new InternalMessage(1, ep1, TYPE, payload.retain())));
+
+        ByteBuf header = (ByteBuf) encoder.readOutbound();
+        ByteBuf body = (ByteBuf) encoder.readOutbound();
+        assertEquals(bytes.length, body.readableBytes());
+        assertSame(bytes, body.array());
+
+        InternalMessage decoded = decode(Unpooled.wrappedBuffer(header, body));
+        assertArrayEquals(bytes, decoded.payload());
+        decoded.release();
+        assertEquals(1, payload.refCnt());
+    }
+
+    @Test
+    public void fragmentedInput() {
+        InternalMessage message = new InternalMessage(1, ep2, TYPE, new byte[] {1, 2, 3});
+        ByteBuf buf = encode(message);
+        InternalMessage decoded = null;
+        while (buf.isReadable()) {
+            decoder.writeInbound(buf.readBytes(1));
+            Object o = decoder.readInbound();
+            if (o != null) {
+                decoded = (InternalMessage) o;
+            }
+        }
+        buf.release();
+        assertMessage(message, decoded);
+    }
+}
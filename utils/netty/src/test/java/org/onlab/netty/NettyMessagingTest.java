@@ -1,10 +1,12 @@
 package org.onlab.netty;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
@@ -15,6 +17,7 @@ import org.junit.Test;
 import org.onlab.packet.IpAddress;
 import org.onosproject.store.cluster.messaging.Endpoint;
 
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.Uninterruptibles;
 
@@ -122,4 +125,61 @@ public class NettyMessagingTest {
         assertEquals("completion-thread", completionThreadName.get());
         assertEquals("handler-thread", handlerThreadName.get());
     }
+
+    /*
+     * Sends from many threads at once over the coalescing channels and verifies
+     * that every message gets flushed and answered.
+     */
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        int writers = 8;
+        int messagesPerWriter = 500;
+        netty2.registerHandler("test-subject", (ep, data) -> data, MoreExecutors.directExecutor());
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<byte[]>> responses = Lists.newCopyOnWriteArrayList();
+        try {
+            for (int i = 0; i < writers; i++) {
+                executor.execute(() -> {
+                    Uninterruptibles.awaitUninterruptibly(start);
+                    for (int j = 0; j < messagesPerWriter; j++) {
+                        responses.add(netty1.sendAndReceive(ep2, "test-subject", "hello world".getBytes()));
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+            assertEquals(writers * messagesPerWriter, responses.size());
+            CompletableFuture.allOf(responses.toArray(new CompletableFuture[responses.size()]))
+                    .get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /*
+     * Verifies that connections to unreachable peers and to peers which
+     * closed their channels are not retained.
+     */
+    @Test
+    public void testConnectionsPruned() throws Exception {
+        CompletableFuture<Void> failed = netty1.sendAsync(invalidEndPoint, "test-subject", "hello world".getBytes());
+        assertTrue(failed.handle((r, e) -> e != null).get(10, TimeUnit.SECONDS));
+        assertEquals(0, netty1.connectionCount());
+
+        netty2.registerHandler("test-subject", (ep, data) -> data, MoreExecutors.directExecutor());
+        netty1.sendAndReceive(ep2, "test-subject", "hello world".getBytes()).get(10, TimeUnit.SECONDS);
+        assertEquals(1, netty1.connectionCount());
+
+        netty2.stop();
+        netty2 = null;
+        long deadline = System.currentTimeMillis() + 10000;
+        while (netty1.connectionCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, netty1.connectionCount());
+    }
 }